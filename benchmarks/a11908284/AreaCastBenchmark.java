@@ -0,0 +1,84 @@
+package a11908284;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks casting an attacking spell on many targets, once as a loop of
+ * single-target casts and once as a single area cast, sequentially and in
+ * parallel. The targets only take a single point of damage per cast, so they
+ * never die during the benchmark.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AreaCastBenchmark {
+
+    @Param({"500", "100000"})
+    public int targets;
+
+    private final AttackingSpell fireball = new AttackingSpell("Fire Ball", 0, MagicLevel.NOOB, true, false, 1);
+
+    private ForkJoinPool pool;
+    private Wizard caster;
+    private List<Wizard> victims;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        pool = new ForkJoinPool(4);
+        caster = Fixtures.wizard("Caster", Set.of(fireball), new HashSet<>(), 0);
+
+        victims = new ArrayList<>(targets);
+        for (int i = 0; i < targets; i++) {
+            victims.add(Fixtures.wizard("Victim " + i, new HashSet<>(), new HashSet<>(), 0));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void shutdownPool() {
+        pool.shutdown();
+    }
+
+    @Benchmark
+    public int loop() {
+        int affected = 0;
+        for (Wizard victim : victims) {
+            if (caster.castSpell(fireball, victim)) {
+                affected += 1;
+            }
+        }
+
+        return affected;
+    }
+
+    @Benchmark
+    public CastOutcome[] area() {
+        return caster.castSpellOnAll(fireball, victims);
+    }
+
+    @Benchmark
+    public CastOutcome[] parallelArea() {
+        return caster.castSpellOnAll(fireball, victims, pool);
+    }
+}
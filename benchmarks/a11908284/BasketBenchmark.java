@@ -0,0 +1,66 @@
+package a11908284;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks buying a basket of items with one purchase per item against a
+ * single basket purchase. Every benchmark buys the basket and sells it back,
+ * so the state stays the same across invocations.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BasketBenchmark {
+
+    @Param({"1", "10", "100", "1000"})
+    public int basketSize;
+
+    private Wizard seller;
+    private Wizard buyer;
+    private List<Tradeable> basket;
+
+    @Setup
+    public void setUp() {
+        basket = Fixtures.items(basketSize);
+        seller = Fixtures.wizard("Seller", new HashSet<>(), new HashSet<>(basket), Fixtures.PLENTY);
+        buyer = Fixtures.wizard("Buyer", new HashSet<>(), new HashSet<>(), Fixtures.PLENTY);
+    }
+
+    @Benchmark
+    public boolean itemByItem() {
+        boolean bought = true;
+
+        for (Tradeable item : basket) {
+            bought &= item.purchase(seller, buyer);
+        }
+
+        for (Tradeable item : basket) {
+            bought &= item.purchase(buyer, seller);
+        }
+
+        return bought;
+    }
+
+    @Benchmark
+    public boolean basket() {
+        return Tradeable.purchaseAll(basket, seller, buyer).isEmpty()
+                & Tradeable.purchaseAll(basket, buyer, seller).isEmpty();
+    }
+}
@@ -0,0 +1,76 @@
+package a11908284;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks a single tick of a free-for-all battle for different numbers of
+ * wizards and pool sizes. The wizards are reset before every iteration, so
+ * the battle never runs out of living wizards.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BattleBenchmark {
+
+    @Param({"1000", "100000"})
+    public int wizards;
+
+    @Param({"1", "2", "4", "8"})
+    public int parallelism;
+
+    private ForkJoinPool pool;
+    private BattleEngine engine;
+
+    @Setup(Level.Trial)
+    public void createPool() {
+        pool = new ForkJoinPool(parallelism);
+    }
+
+    @Setup(Level.Iteration)
+    public void createBattle() {
+        AttackingSpell attack = new AttackingSpell("Attack", 1, MagicLevel.NOOB, true, false, 1);
+        HealingSpell heal = new HealingSpell("Heal", 1, MagicLevel.NOOB, true, false, 1);
+        ProtectingSpell protect = new ProtectingSpell("Protect", 1, MagicLevel.NOOB, Set.of(attack));
+
+        List<Wizard> army = new ArrayList<>();
+        for (int i = 0; i < wizards; i++) {
+            Set<Tradeable> items = new LinkedHashSet<>(List.of(new HealthPotion("Potion " + i, Fixtures.PLENTY, 1, 1, 1)));
+            army.add(Fixtures.wizard("Wizard " + i, new LinkedHashSet<>(List.of(attack, heal, protect)), items, Fixtures.PLENTY));
+        }
+
+        engine = new BattleEngine(army, 42, pool);
+    }
+
+    @TearDown(Level.Trial)
+    public void shutdownPool() {
+        pool.shutdown();
+    }
+
+    @Benchmark
+    public long tick() {
+        engine.tick();
+        return engine.getTick();
+    }
+}
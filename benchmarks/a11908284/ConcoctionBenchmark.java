@@ -0,0 +1,48 @@
+package a11908284;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks using a concoction that casts a number of spells on its target.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ConcoctionBenchmark {
+
+    @Param({"1", "100", "10000", "100000"})
+    public int size;
+
+    private Concoction concoction;
+    private Wizard target;
+
+    @Setup
+    public void setUp() {
+        concoction = new Concoction("Concoction", Fixtures.PLENTY, 1, 1, 0, 0,
+                new ArrayList<>(Fixtures.spells(size)));
+        target = Fixtures.wizard("Target", new HashSet<>(), new HashSet<>(), Fixtures.PLENTY);
+    }
+
+    @Benchmark
+    public Concoction useOn() {
+        concoction.useOn(target);
+        return concoction;
+    }
+}
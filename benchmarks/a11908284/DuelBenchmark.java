@@ -0,0 +1,73 @@
+package a11908284;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks the number of duels per second the duel estimator simulates for
+ * different pool sizes. The wizards have a hundred health points and deal ten
+ * damage per spell, so a duel takes about twenty turns.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DuelBenchmark {
+
+    /**
+     * The number of duels simulated per invocation.
+     */
+    private static final int DUELS = 65_536;
+
+    @Param({"1", "2", "4", "8"})
+    public int parallelism;
+
+    private ForkJoinPool pool;
+    private DuelEstimator estimator;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        pool = new ForkJoinPool(parallelism);
+
+        AttackingSpell attack = new AttackingSpell("Attack", 1, MagicLevel.NOOB, true, false, 10);
+        HealingSpell heal = new HealingSpell("Heal", 1, MagicLevel.NOOB, true, true, 5);
+        Wizard first = new Wizard("First", MagicLevel.NOOB, 100, 100, 100, 100, 0,
+                new LinkedHashSet<>(List.of(attack, heal)), new HashSet<>(), 10,
+                new LinkedHashSet<>(List.of(new HealthPotion("Potion", 3, 1, 1, 10))));
+        Wizard second = new Wizard("Second", MagicLevel.NOOB, 100, 100, 100, 100, 0,
+                new LinkedHashSet<>(List.of(attack)), new HashSet<>(), 10, new LinkedHashSet<>());
+
+        estimator = new DuelEstimator(first, second, 200, 42, pool);
+    }
+
+    @TearDown(Level.Trial)
+    public void shutdownPool() {
+        pool.shutdown();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(DUELS)
+    public DuelEstimator.Estimate duels() {
+        return estimator.estimate(DUELS, 0);
+    }
+}
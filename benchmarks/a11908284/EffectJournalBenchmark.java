@@ -0,0 +1,74 @@
+package a11908284;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Benchmarks applying effects to a wizard directly against applying them
+ * through a journaling effect realization. Run it with the gc profiler
+ * (-prof gc) to see that journaling does not allocate.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EffectJournalBenchmark {
+
+    @Param({"1048576"})
+    public int segmentRecords;
+
+    private Path directory;
+    private EffectJournal journal;
+    private Wizard wizard;
+    private JournalingEffectRealization journaling;
+
+    @Setup
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("effect-journal");
+        journal = new EffectJournal(directory, segmentRecords);
+        wizard = Fixtures.wizard("Target", new HashSet<>(), new HashSet<>(), Fixtures.PLENTY);
+        journaling = new JournalingEffectRealization(wizard, journal, 1);
+        journaling.setSource(2, null);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        journal.close();
+
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    @Benchmark
+    public void plain() {
+        wizard.takeDamage(1);
+        wizard.heal(1);
+    }
+
+    @Benchmark
+    public void journaled() {
+        journaling.takeDamage(1);
+        journaling.heal(1);
+    }
+}
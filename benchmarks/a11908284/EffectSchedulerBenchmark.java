@@ -0,0 +1,64 @@
+package a11908284;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks scheduling and cancelling a timer and advancing by a tick while
+ * millions of periodic timers are outstanding. The periodic timers never run
+ * out, so the number of outstanding timers stays the same.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+public class EffectSchedulerBenchmark {
+
+    /**
+     * The action of all timers, which does nothing.
+     */
+    private static final Runnable NOTHING = () -> { };
+
+    @Param({"10000", "10000000"})
+    public int timers;
+
+    private EffectScheduler scheduler;
+    private SplittableRandom random;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        scheduler = new EffectScheduler();
+        random = new SplittableRandom(42);
+
+        for (int i = 0; i < timers; i++) {
+            int period = 1 + random.nextInt(1 << 20);
+            scheduler.schedule(1 + random.nextInt(period), period, Integer.MAX_VALUE, NOTHING);
+        }
+    }
+
+    @Benchmark
+    public boolean scheduleAndCancel() {
+        return scheduler.schedule(1 + random.nextInt(1 << 24), NOTHING).cancel();
+    }
+
+    @Benchmark
+    public long advance() {
+        scheduler.advance();
+        return scheduler.getTick();
+    }
+}
@@ -0,0 +1,70 @@
+package a11908284;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * The class that builds the spells, items and wizards shared by the
+ * benchmarks.
+ */
+final class Fixtures {
+
+    /**
+     * An amount of health, mana and money that no benchmark will use up.
+     */
+    static final int PLENTY = 1_000_000_000;
+
+    private Fixtures() {
+    }
+
+    /**
+     * Returns the specified number of distinct healing spells that cost no
+     * mana and have no effect, so that casting them does not change the state
+     * of the caster or the target.
+     *
+     * @param count number of spells
+     * @return set of distinct spells
+     */
+    static Set<Spell> spells(int count) {
+        Set<Spell> spells = new HashSet<>();
+
+        for (int i = 0; i < count; i++) {
+            spells.add(new HealingSpell("Spell " + i, 0, MagicLevel.NOOB, true, false, 0));
+        }
+
+        return spells;
+    }
+
+    /**
+     * Returns the specified number of distinct health potions with unlimited
+     * usages and a weight and price of one.
+     *
+     * @param count number of items
+     * @return list of distinct items
+     */
+    static List<Tradeable> items(int count) {
+        List<Tradeable> items = new ArrayList<>();
+
+        for (int i = 0; i < count; i++) {
+            items.add(new HealthPotion("Potion " + i, PLENTY, 1, 1, 0));
+        }
+
+        return items;
+    }
+
+    /**
+     * Returns a living master wizard with plenty of health, mana and money.
+     *
+     * @param name      name of the wizard
+     * @param spells    spells the wizard knows
+     * @param inventory items the wizard carries
+     * @param capacity  carrying capacity of the wizard
+     * @return new wizard
+     */
+    static Wizard wizard(String name, Set<? extends Spell> spells, Set<? extends Tradeable> inventory, int capacity) {
+        return new Wizard(name, MagicLevel.MASTER, PLENTY, PLENTY, PLENTY, PLENTY, PLENTY,
+                spells, new HashSet<>(), capacity, inventory);
+    }
+}
@@ -0,0 +1,126 @@
+package a11908284;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.lang.management.ManagementFactory;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks the inventory of a merchant that holds many potions, once all of
+ * them identical and stocked at once, so that they form a single stack, and
+ * once all of them distinct, so that every potion is a stack of its own. The
+ * heap the merchant retains is printed once per trial.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class InventoryBenchmark {
+
+    /**
+     * The number of potions of the merchant that are traded in turn.
+     */
+    private static final int PROBES = 64;
+
+    @Param({"1000", "100000"})
+    public int items;
+
+    @Param({"identical", "distinct"})
+    public String potions;
+
+    private Wizard merchant;
+    private Wizard customer;
+    private Tradeable[] probes;
+    private StringBuilder builder;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        probes = new Tradeable[PROBES];
+
+        long before = usedHeap();
+        if (potions.equals("identical")) {
+            merchant = Fixtures.wizard("Merchant", Set.of(), Set.of(), Fixtures.PLENTY);
+            merchant.addToInventory(new HealthPotion("Potion", Fixtures.PLENTY, 1, 1, 0), items);
+        } else {
+            Set<Tradeable> inventory = new HashSet<>();
+            for (int i = 0; i < items; i++) {
+                inventory.add(new HealthPotion("Potion " + i, Fixtures.PLENTY, 1, 1, 0));
+            }
+
+            merchant = Fixtures.wizard("Merchant", Set.of(), inventory, Fixtures.PLENTY);
+        }
+        long retained = usedHeap() - before;
+
+        // The probes are spread over the positions, and become items of their
+        // own when they are picked
+        for (int i = 0; i < PROBES; i++) {
+            probes[i] = merchant.itemAt((int) ((long) i * items / PROBES));
+        }
+
+        System.out.printf("%n%,d %s potions: %,d stacks retaining about %,d bytes%n",
+                items, potions, merchant.stackCount(), retained);
+
+        customer = Fixtures.wizard("Customer", Set.of(), Set.of(), Fixtures.PLENTY);
+        builder = new StringBuilder();
+    }
+
+    @Benchmark
+    public boolean possesses() {
+        return merchant.possesses(nextProbe());
+    }
+
+    @Benchmark
+    public boolean giveAndTakeBack() {
+        Tradeable potion = nextProbe();
+
+        return potion.give(merchant, customer) && potion.give(customer, merchant);
+    }
+
+    @Benchmark
+    public boolean purchaseAndSellBack() {
+        Tradeable potion = nextProbe();
+
+        return potion.purchase(merchant, customer) && potion.purchase(customer, merchant);
+    }
+
+    @Benchmark
+    public boolean stealAndReturn() {
+        return merchant.steal(customer) && customer.itemAt(0).give(customer, merchant);
+    }
+
+    @Benchmark
+    public int render() {
+        builder.setLength(0);
+
+        return merchant.appendTo(builder).length();
+    }
+
+    private Tradeable nextProbe() {
+        next = next + 1 == PROBES ? 0 : next + 1;
+
+        return probes[next];
+    }
+
+    private static long usedHeap() {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+}
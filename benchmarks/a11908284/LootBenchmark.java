@@ -0,0 +1,57 @@
+package a11908284;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.HashSet;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks looting a dead wizard, once taking everything and once taking
+ * the most valuable items that fit into a looter that can only carry half of
+ * them. Looting empties the corpse, therefore every invocation gets a freshly
+ * filled corpse and empty looters.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 20)
+@Measurement(iterations = 50)
+@Fork(1)
+public class LootBenchmark {
+
+    @Param({"1", "100", "10000", "100000"})
+    public int size;
+
+    private Wizard corpse;
+    private Wizard looter;
+    private Wizard smallLooter;
+
+    @Setup(Level.Invocation)
+    public void setUp() {
+        corpse = Fixtures.wizard("Corpse", new HashSet<>(), new HashSet<>(Fixtures.items(size)), Fixtures.PLENTY);
+        corpse.takeDamage(Fixtures.PLENTY);
+        looter = Fixtures.wizard("Looter", new HashSet<>(), new HashSet<>(), Fixtures.PLENTY);
+        smallLooter = Fixtures.wizard("Small Looter", new HashSet<>(), new HashSet<>(), size / 2);
+    }
+
+    @Benchmark
+    public boolean loot() {
+        return corpse.loot(looter);
+    }
+
+    @Benchmark
+    public boolean lootBest() {
+        return corpse.lootBest(smallLooter);
+    }
+}
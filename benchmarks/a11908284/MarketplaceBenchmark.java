@@ -0,0 +1,74 @@
+package a11908284;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks matching an ask and a bid on a marketplace whose book already
+ * holds many orders on many price levels that never cross. Every invocation
+ * is one match that moves the item to the other trader, so the throughput is
+ * the number of matches per second and the sample time reports the latency
+ * percentiles of a match.
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MarketplaceBenchmark {
+
+    private static final String KIND = "potion";
+
+    @Param({"10", "1000"})
+    public int depth;
+
+    private final Tradeable potion = new HealthPotion("Potion", 1, 1, 1, 0);
+
+    private Marketplace market;
+    private Wizard holder;
+    private Wizard other;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        market = new Marketplace();
+        holder = Fixtures.wizard("Holder", new HashSet<>(), new HashSet<>(Set.of(potion)), 1);
+        other = Fixtures.wizard("Other", new HashSet<>(), new HashSet<>(), 1);
+
+        List<Tradeable> items = Fixtures.items(depth);
+        Wizard bidder = Fixtures.wizard("Bidder", new HashSet<>(), new HashSet<>(), 0);
+        Wizard asker = Fixtures.wizard("Asker", new HashSet<>(), new HashSet<>(items), depth);
+
+        for (int i = 0; i < depth; i++) {
+            market.bid(KIND, bidder, 1 + i % 100);
+            market.ask(KIND, asker, items.get(i), 10_000 + i % 100);
+        }
+    }
+
+    @Benchmark
+    public long match() {
+        market.ask(KIND, holder, potion, 5_000);
+        market.bid(KIND, other, 5_000);
+
+        Wizard swap = holder;
+        holder = other;
+        other = swap;
+
+        return market.getMatches();
+    }
+}
@@ -0,0 +1,65 @@
+package a11908284;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks casting a spell and trading an item back and forth with the
+ * metrics disabled and with every outcome counted, to show that reporting
+ * the outcomes costs almost nothing while the metrics are disabled.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MetricsBenchmark {
+
+    @Param({"false", "true"})
+    public boolean counting;
+
+    private final AttackingSpell fireball = new AttackingSpell("Fire Ball", 0, MagicLevel.NOOB, true, false, 0);
+    private final Tradeable potion = new HealthPotion("Potion", Fixtures.PLENTY, 1, 1, 0);
+
+    private Wizard caster;
+    private Wizard target;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        caster = Fixtures.wizard("Caster", Set.of(fireball), new HashSet<>(Set.of(potion)), 1);
+        target = Fixtures.wizard("Target", new HashSet<>(), new HashSet<>(), 1);
+
+        Metrics.setSink(counting ? new OutcomeCounters() : MetricsSink.NONE);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        Metrics.setSink(MetricsSink.NONE);
+    }
+
+    @Benchmark
+    public boolean castSpell() {
+        return caster.castSpell(fireball, target);
+    }
+
+    @Benchmark
+    public boolean trade() {
+        return potion.give(caster, target) && potion.give(target, caster);
+    }
+}
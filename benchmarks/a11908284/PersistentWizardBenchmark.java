@@ -0,0 +1,72 @@
+package a11908284;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks branching a what-if search by one step, once by deep-copying a
+ * wizard with all of its sets and once by forking a persistent version, each
+ * followed by removing one item of the branch.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PersistentWizardBenchmark {
+
+    @Param({"10", "1000", "100000"})
+    public int size;
+
+    private HashSet<Spell> spells;
+    private HashSet<Tradeable> inventory;
+    private PersistentWizard.Branch branch;
+    private List<Tradeable> items;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        items = Fixtures.items(size);
+        spells = new HashSet<>(Fixtures.spells(size));
+        inventory = new HashSet<>(items);
+        branch = PersistentWizard.of(Fixtures.wizard("Wizard", spells, inventory, Fixtures.PLENTY)).branch();
+    }
+
+    @Benchmark
+    public Wizard deepCopy() {
+        Wizard copy = new Wizard("Copy", MagicLevel.MASTER, Fixtures.PLENTY, Fixtures.PLENTY, Fixtures.PLENTY,
+                Fixtures.PLENTY, Fixtures.PLENTY, new HashSet<>(spells), new HashSet<>(),
+                Fixtures.PLENTY, new HashSet<>(inventory));
+        copy.removeFromInventory(nextItem());
+
+        return copy;
+    }
+
+    @Benchmark
+    public PersistentWizard fork() {
+        PersistentWizard.Branch fork = branch.fork();
+        fork.removeFromInventory(nextItem());
+
+        return fork.version();
+    }
+
+    private Tradeable nextItem() {
+        next = next + 1 == items.size() ? 0 : next + 1;
+
+        return items.get(next);
+    }
+}
@@ -0,0 +1,132 @@
+package a11908284;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks picking random spells with the thread-local generator and with a
+ * seeded stream per wizard, and a parallel simulation in which every wizard
+ * casts random spells on itself with its own seeded stream. After every
+ * iteration the simulation checks that its result does not depend on the
+ * number of threads, by replaying it sequentially.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RandomBenchmark {
+
+    /**
+     * The number of wizards of the parallel simulation.
+     */
+    private static final int WIZARDS = 10_000;
+
+    /**
+     * The number of spells every wizard casts per simulation.
+     */
+    private static final int TURNS = 10;
+
+    @Param({"1", "4"})
+    public int parallelism;
+
+    private Set<Spell> spells;
+    private Wizard threadLocal;
+    private Wizard seeded;
+    private ForkJoinPool pool;
+    private List<Wizard> wizards;
+    private int rounds;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        spells = new LinkedHashSet<>();
+        for (int i = 0; i < 8; i++) {
+            spells.add(new AttackingSpell("Spell " + i, 0, MagicLevel.NOOB, true, false, i));
+        }
+
+        threadLocal = Fixtures.wizard("Thread-Local", spells, new HashSet<>(), 0);
+        seeded = Fixtures.wizard("Seeded", spells, new HashSet<>(), 0);
+        seeded.setRandomGenerator(new RandomStreams(42).stream(0));
+        pool = new ForkJoinPool(parallelism);
+    }
+
+    @Setup(Level.Iteration)
+    public void createWizards() {
+        wizards = createSimulation();
+        rounds = 0;
+    }
+
+    @TearDown(Level.Iteration)
+    public void checkSimulation() {
+        List<Wizard> replay = createSimulation();
+        for (int round = 0; round < rounds; round++) {
+            for (Wizard wizard : replay) {
+                castSpells(wizard);
+            }
+        }
+
+        for (int i = 0; i < WIZARDS; i++) {
+            if (replay.get(i).getHealth() != wizards.get(i).getHealth()) {
+                throw new IllegalStateException("The parallel simulation differs from the sequential replay.");
+            }
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void shutdownPool() {
+        pool.shutdown();
+    }
+
+    @Benchmark
+    public boolean threadLocalPick() {
+        return threadLocal.castRandomSpell(threadLocal);
+    }
+
+    @Benchmark
+    public boolean seededPick() {
+        return seeded.castRandomSpell(seeded);
+    }
+
+    @Benchmark
+    public int parallelSimulation() {
+        pool.submit(() -> wizards.parallelStream().forEach(RandomBenchmark::castSpells)).join();
+
+        return rounds++;
+    }
+
+    private List<Wizard> createSimulation() {
+        List<Wizard> simulation = new ArrayList<>();
+        for (int i = 0; i < WIZARDS; i++) {
+            simulation.add(Fixtures.wizard("Wizard " + i, spells, new HashSet<>(), 0));
+        }
+
+        new RandomStreams(42).assign(simulation);
+        return simulation;
+    }
+
+    private static void castSpells(Wizard wizard) {
+        for (int turn = 0; turn < TURNS; turn++) {
+            wizard.castRandomSpell(wizard);
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package a11908284;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.HashSet;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks a world tick of a population of idle wizards that regenerate,
+ * once by healing every wizard on every tick and once by only advancing the
+ * clock of the lazy regeneration, of which a single wizard is read per tick.
+ * The wizards are damaged by a lot more than they regenerate during the
+ * benchmark, so they never reach their base points.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RegenerationBenchmark {
+
+    @Param({"1000", "100000"})
+    public int wizards;
+
+    private Wizard[] eager;
+    private Wizard[] lazy;
+    private long tick;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        eager = new Wizard[wizards];
+        lazy = new Wizard[wizards];
+
+        for (int i = 0; i < wizards; i++) {
+            eager[i] = Fixtures.wizard("Eager " + i, new HashSet<>(), new HashSet<>(), 0);
+            eager[i].takeDamage(Fixtures.PLENTY / 2);
+            lazy[i] = Fixtures.wizard("Lazy " + i, new HashSet<>(), new HashSet<>(), 0);
+            lazy[i].takeDamage(Fixtures.PLENTY / 2);
+            lazy[i].setRegeneration(() -> tick, 1, 1);
+        }
+    }
+
+    @Benchmark
+    public long eagerTick() {
+        for (Wizard wizard : eager) {
+            wizard.heal(1);
+            wizard.enforceMagic(1);
+        }
+
+        return ++tick;
+    }
+
+    @Benchmark
+    public boolean lazyTick() {
+        tick += 1;
+        next = next + 1 == wizards ? 0 : next + 1;
+
+        return lazy[next].isDead();
+    }
+}
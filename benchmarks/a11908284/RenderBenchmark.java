@@ -0,0 +1,69 @@
+package a11908284;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks rendering a roster of wizards, once by concatenating the string
+ * of every wizard and once by appending every wizard into a single reused
+ * builder.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RenderBenchmark {
+
+    @Param({"100", "10000"})
+    public int wizards;
+
+    private List<Wizard> roster;
+    private StringBuilder builder;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        roster = new ArrayList<>(wizards);
+        for (int i = 0; i < wizards; i++) {
+            roster.add(Fixtures.wizard("Wizard " + i, Fixtures.spells(5), new HashSet<>(Fixtures.items(5)), 5));
+        }
+
+        builder = new StringBuilder();
+    }
+
+    @Benchmark
+    public int concatenate() {
+        StringBuilder roll = new StringBuilder();
+        for (Wizard wizard : roster) {
+            roll.append(wizard.toString()).append('\n');
+        }
+
+        return roll.length();
+    }
+
+    @Benchmark
+    public int append() {
+        builder.setLength(0);
+        for (Wizard wizard : roster) {
+            wizard.appendTo(builder).append('\n');
+        }
+
+        return builder.length();
+    }
+}
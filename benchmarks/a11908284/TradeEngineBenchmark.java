@@ -0,0 +1,80 @@
+package a11908284;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks many threads purchasing items between randomly chosen pairs of
+ * traders. Run it with different thread counts (-t) to see how the trade
+ * transactions scale with the number of cores.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(Threads.MAX)
+public class TradeEngineBenchmark {
+
+    /**
+     * The number of items each trader starts with.
+     */
+    private static final int ITEMS_PER_TRADER = 16;
+
+    @Param({"2", "64", "4096"})
+    public int traders;
+
+    private Wizard[] wizards;
+    private Tradeable[] items;
+
+    /**
+     * The random generator of each benchmark thread.
+     */
+    @State(Scope.Thread)
+    public static class ThreadRandom {
+        final SplittableRandom random = new SplittableRandom();
+    }
+
+    @Setup
+    public void setUp() {
+        List<Tradeable> allItems = Fixtures.items(traders * ITEMS_PER_TRADER);
+
+        wizards = new Wizard[traders];
+        for (int i = 0; i < traders; i++) {
+            wizards[i] = Fixtures.wizard("Trader " + i, new HashSet<>(),
+                    new HashSet<>(allItems.subList(i * ITEMS_PER_TRADER, (i + 1) * ITEMS_PER_TRADER)),
+                    Fixtures.PLENTY);
+        }
+
+        items = allItems.toArray(new Tradeable[0]);
+    }
+
+    @Benchmark
+    public boolean purchase(ThreadRandom state) {
+        SplittableRandom random = state.random;
+        Wizard seller = wizards[random.nextInt(traders)];
+        Wizard buyer = wizards[random.nextInt(traders)];
+
+        if (seller == buyer) {
+            return false;
+        }
+
+        return items[random.nextInt(items.length)].purchase(seller, buyer);
+    }
+}
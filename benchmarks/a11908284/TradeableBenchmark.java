@@ -0,0 +1,55 @@
+package a11908284;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.HashSet;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks trading a single item between two wizards that both carry a
+ * large inventory. Every benchmark moves the item there and back again, so
+ * the state stays the same across invocations.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TradeableBenchmark {
+
+    @Param({"1", "100", "10000", "100000"})
+    public int size;
+
+    private Wizard seller;
+    private Wizard buyer;
+    private Tradeable item;
+
+    @Setup
+    public void setUp() {
+        seller = Fixtures.wizard("Seller", new HashSet<>(), new HashSet<>(Fixtures.items(size)), Fixtures.PLENTY);
+        buyer = Fixtures.wizard("Buyer", new HashSet<>(), new HashSet<>(Fixtures.items(size)), Fixtures.PLENTY);
+        item = new HealthPotion("Traded", 1, 1, 1, 0);
+        seller.addToInventory(item);
+    }
+
+    @Benchmark
+    public boolean purchase() {
+        return item.purchase(seller, buyer) & item.purchase(buyer, seller);
+    }
+
+    @Benchmark
+    public boolean give() {
+        return item.give(seller, buyer) & item.give(buyer, seller);
+    }
+}
@@ -0,0 +1,89 @@
+package a11908284;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks several threads claiming usages of the same item, comparing the
+ * compare-and-set updates of {@link MagicItem} against a baseline that guards
+ * the usages with a monitor. The items have so many usages that they are
+ * never used up.
+ */
+@State(Scope.Group)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class UsageContentionBenchmark {
+
+    /**
+     * The baseline that claims usages while holding the monitor of the
+     * object.
+     */
+    static final class SynchronizedUsages {
+        private int usages;
+
+        SynchronizedUsages(int usages) {
+            this.usages = usages;
+        }
+
+        synchronized boolean tryUsage(int count) {
+            if (usages >= count) {
+                usages -= count;
+                return true;
+            }
+
+            return false;
+        }
+    }
+
+    private MagicItem item;
+    private SynchronizedUsages baseline;
+
+    @Setup
+    public void setUp() {
+        item = new HealthPotion("Shared", Integer.MAX_VALUE, 1, 1, 0);
+        baseline = new SynchronizedUsages(Integer.MAX_VALUE);
+    }
+
+    @Benchmark
+    @Group("atomic")
+    @GroupThreads(3)
+    public boolean atomicSingle() {
+        return item.tryUsage();
+    }
+
+    @Benchmark
+    @Group("atomic")
+    @GroupThreads(1)
+    public boolean atomicBatch() {
+        return item.tryUsage(3);
+    }
+
+    @Benchmark
+    @Group("synchronized")
+    @GroupThreads(3)
+    public boolean synchronizedSingle() {
+        return baseline.tryUsage(1);
+    }
+
+    @Benchmark
+    @Group("synchronized")
+    @GroupThreads(1)
+    public boolean synchronizedBatch() {
+        return baseline.tryUsage(3);
+    }
+}
@@ -0,0 +1,151 @@
+package a11908284;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.HashSet;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks several threads applying effects to the same wizard, comparing
+ * the compare-and-set updates of {@link Wizard} against a baseline that
+ * guards the same fields with a monitor.
+ */
+@State(Scope.Group)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class VitalsContentionBenchmark {
+
+    /**
+     * The baseline that applies the same operations as {@link Wizard} while
+     * holding the monitor of the object.
+     */
+    static final class SynchronizedVitals {
+        private final int healthBase;
+        private int health;
+        private int mana;
+        private int money;
+
+        SynchronizedVitals(int healthBase, int health, int mana, int money) {
+            this.healthBase = healthBase;
+            this.health = health;
+            this.mana = mana;
+            this.money = money;
+        }
+
+        synchronized void takeDamage(int amount) {
+            health = Math.max(health - amount, 0);
+        }
+
+        synchronized void heal(int amount) {
+            health += amount;
+        }
+
+        synchronized void healPercent(int percentage) {
+            health = (int) Math.max(health + healthBase * (percentage / 100.0), 0);
+        }
+
+        synchronized boolean provideMana(int amount) {
+            if (health != 0 && mana >= amount) {
+                mana -= amount;
+                return true;
+            }
+
+            return false;
+        }
+
+        synchronized void enforceMagic(int amount) {
+            mana += amount;
+        }
+
+        synchronized boolean pay(int amount) {
+            if (health != 0 && money >= amount) {
+                money -= amount;
+                return true;
+            }
+
+            return false;
+        }
+
+        synchronized boolean earn(int amount) {
+            if (health != 0) {
+                money += amount;
+                return true;
+            }
+
+            return false;
+        }
+    }
+
+    private Wizard wizard;
+    private SynchronizedVitals baseline;
+
+    @Setup
+    public void setUp() {
+        wizard = Fixtures.wizard("Target", new HashSet<>(), new HashSet<>(), 0);
+        baseline = new SynchronizedVitals(Fixtures.PLENTY, Fixtures.PLENTY, Fixtures.PLENTY, Fixtures.PLENTY);
+    }
+
+    @Benchmark
+    @Group("atomic")
+    @GroupThreads(2)
+    public void atomicCombat() {
+        wizard.takeDamage(1);
+        wizard.healPercent(0);
+        wizard.heal(1);
+    }
+
+    @Benchmark
+    @Group("atomic")
+    @GroupThreads(2)
+    public boolean atomicMana() {
+        boolean provided = wizard.provideMana(MagicLevel.NOOB, 1);
+        wizard.enforceMagic(1);
+        return provided;
+    }
+
+    @Benchmark
+    @Group("atomic")
+    @GroupThreads(2)
+    public boolean atomicMoney() {
+        return wizard.pay(1) & wizard.earn(1);
+    }
+
+    @Benchmark
+    @Group("synchronized")
+    @GroupThreads(2)
+    public void synchronizedCombat() {
+        baseline.takeDamage(1);
+        baseline.healPercent(0);
+        baseline.heal(1);
+    }
+
+    @Benchmark
+    @Group("synchronized")
+    @GroupThreads(2)
+    public boolean synchronizedMana() {
+        boolean provided = baseline.provideMana(1);
+        baseline.enforceMagic(1);
+        return provided;
+    }
+
+    @Benchmark
+    @Group("synchronized")
+    @GroupThreads(2)
+    public boolean synchronizedMoney() {
+        return baseline.pay(1) & baseline.earn(1);
+    }
+}
@@ -0,0 +1,114 @@
+package a11908284;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks the latency of the commands of wizard actors, while many
+ * benchmark threads send commands between randomly chosen pairs of actors
+ * that all share one pool. The sample time mode reports the percentiles of
+ * the latency of every command.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(8)
+public class WizardActorBenchmark {
+
+    /**
+     * The number of items each wizard starts with.
+     */
+    private static final int ITEMS_PER_WIZARD = 4;
+
+    @Param({"1000", "100000"})
+    public int actors;
+
+    private ForkJoinPool pool;
+    private WizardActor[] wizards;
+    private Spell spell;
+
+    /**
+     * The random generator of each benchmark thread.
+     */
+    @State(Scope.Thread)
+    public static class ThreadRandom {
+        final SplittableRandom random = new SplittableRandom();
+    }
+
+    @Setup
+    public void setUp() {
+        pool = new ForkJoinPool(Runtime.getRuntime().availableProcessors(),
+                ForkJoinPool.defaultForkJoinWorkerThreadFactory, null, true);
+
+        Set<Spell> spells = Fixtures.spells(1);
+        spell = spells.iterator().next();
+
+        List<Tradeable> items = Fixtures.items(actors * ITEMS_PER_WIZARD);
+        wizards = new WizardActor[actors];
+        for (int i = 0; i < actors; i++) {
+            Set<Tradeable> inventory = new HashSet<>(items.subList(i * ITEMS_PER_WIZARD, (i + 1) * ITEMS_PER_WIZARD));
+            wizards[i] = new WizardActor(Fixtures.wizard("Wizard " + i, spells, inventory, Fixtures.PLENTY), pool, 1024);
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        pool.shutdown();
+    }
+
+    @Benchmark
+    public boolean cast(ThreadRandom state) {
+        int source = state.random.nextInt(actors);
+        return wizards[source].castSpell(spell, other(state, source)).join();
+    }
+
+    @Benchmark
+    public boolean use(ThreadRandom state) {
+        int source = state.random.nextInt(actors);
+        return wizards[source].useRandomItem(other(state, source)).join();
+    }
+
+    @Benchmark
+    public boolean trade(ThreadRandom state) {
+        int seller = state.random.nextInt(actors);
+        return wizards[seller].sellRandomItem(other(state, seller)).join();
+    }
+
+    @Benchmark
+    public boolean steal(ThreadRandom state) {
+        int thief = state.random.nextInt(actors);
+        return wizards[thief].steal(other(state, thief)).join();
+    }
+
+    /**
+     * Returns a random actor other than the specified one.
+     *
+     * @param state the random generator of the benchmark thread
+     * @param index position of the actor to exclude
+     * @return random other actor
+     */
+    private WizardActor other(ThreadRandom state, int index) {
+        return wizards[(index + 1 + state.random.nextInt(actors - 1)) % actors];
+    }
+}
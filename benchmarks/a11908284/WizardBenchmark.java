@@ -0,0 +1,73 @@
+package a11908284;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks the operations of a wizard whose cost may depend on the size of
+ * the spellbook and the inventory.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class WizardBenchmark {
+
+    @Param({"1", "100", "10000", "100000"})
+    public int size;
+
+    private Wizard caster;
+    private Wizard thief;
+    private Wizard target;
+    private Spell knownSpell;
+
+    @Setup
+    public void setUp() {
+        List<Tradeable> items = Fixtures.items(size);
+
+        caster = Fixtures.wizard("Caster", Fixtures.spells(size), new HashSet<>(items), Fixtures.PLENTY);
+        thief = Fixtures.wizard("Thief", new HashSet<>(), new HashSet<>(), Fixtures.PLENTY);
+        target = Fixtures.wizard("Target", new HashSet<>(), new HashSet<>(), Fixtures.PLENTY);
+        knownSpell = new HealingSpell("Known", 0, MagicLevel.NOOB, true, false, 0);
+        caster.learn(knownSpell);
+    }
+
+    @Benchmark
+    public boolean castSpell() {
+        return caster.castSpell(knownSpell, target);
+    }
+
+    @Benchmark
+    public boolean castRandomSpell() {
+        return caster.castRandomSpell(target);
+    }
+
+    /**
+     * Steals a random item and steals it back, so the inventory keeps its
+     * size.
+     */
+    @Benchmark
+    public boolean stealAndStealBack() {
+        return caster.steal(thief) & thief.steal(caster);
+    }
+
+    @Benchmark
+    public String render() {
+        return caster.toString();
+    }
+}
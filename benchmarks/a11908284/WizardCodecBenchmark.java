@@ -0,0 +1,103 @@
+package a11908284;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.nio.channels.Channels;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks writing and reading a world of wizards with the wizard codec
+ * against Java serialization. The sizes of both snapshots are printed during
+ * the setup.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class WizardCodecBenchmark {
+
+    @Param({"1000", "100000"})
+    public int wizards;
+
+    private List<Wizard> world;
+    private byte[] codecSnapshot;
+    private byte[] serializedSnapshot;
+
+    @Setup
+    public void setUp() throws IOException {
+        AttackingSpell fireball = new AttackingSpell("Fire Ball", 5, MagicLevel.NOOB, true, false, 7);
+        AttackingSpell drain = new AttackingSpell("Drain", 3, MagicLevel.STUDENT, false, true, 10);
+        HealingSpell cure = new HealingSpell("Cure", 5, MagicLevel.ADEPT, true, true, 5);
+        ProtectingSpell shield = new ProtectingSpell("Shield", 4, MagicLevel.NOOB, Set.of(fireball, drain));
+
+        world = new ArrayList<>(wizards);
+        for (int i = 0; i < wizards; i++) {
+            Set<Tradeable> items = new LinkedHashSet<>(List.of(
+                    new Scroll("Scroll " + i, 2, 3, 1, shield),
+                    new HealthPotion("Health " + i, 1, 4, 2, 30),
+                    new ManaPotion("Mana " + i, 3, 5, 1, 40),
+                    new Concoction("Brew " + i, 3, 6, 2, -20, 15, List.of(cure, fireball))));
+            world.add(new Wizard("Wizard " + i, MagicLevel.ADEPT, 1000, i % 1000, 5000, i % 5000, i,
+                    new LinkedHashSet<>(List.of(fireball, drain, cure, shield)), new HashSet<>(Set.of(drain)), 100, items));
+        }
+
+        codecSnapshot = codecWrite().toByteArray();
+        serializedSnapshot = serializationWrite().toByteArray();
+
+        System.out.printf("%n%d wizards: codec %d bytes, serialization %d bytes%n",
+                wizards, codecSnapshot.length, serializedSnapshot.length);
+    }
+
+    @Benchmark
+    public ByteArrayOutputStream codecWrite() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        WizardCodec.write(world, Channels.newChannel(bytes));
+
+        return bytes;
+    }
+
+    @Benchmark
+    public List<Wizard> codecRead() throws IOException {
+        return WizardCodec.read(Channels.newChannel(new ByteArrayInputStream(codecSnapshot)));
+    }
+
+    @Benchmark
+    public ByteArrayOutputStream serializationWrite() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+        try (ObjectOutputStream output = new ObjectOutputStream(bytes)) {
+            output.writeObject(world);
+        }
+
+        return bytes;
+    }
+
+    @Benchmark
+    public Object serializationRead() throws IOException, ClassNotFoundException {
+        try (ObjectInputStream input = new ObjectInputStream(new ByteArrayInputStream(serializedSnapshot))) {
+            return input.readObject();
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package a11908284;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.HashSet;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+/**
+ * Benchmarks applying an attacking spell to every wizard of a population,
+ * once to wizard objects and once to a wizard pool, sequentially and in
+ * parallel. Each wizard is attacked with a single point of damage, so the
+ * wizards never die during the benchmark.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class WizardPoolBenchmark {
+
+    @Param({"100000", "1000000"})
+    public int wizards;
+
+    @Param({"1", "4"})
+    public int parallelism;
+
+    private final AttackingSpell attack = new AttackingSpell("Attack", 1, MagicLevel.NOOB, true, false, 1);
+
+    private ForkJoinPool forkJoinPool;
+    private Wizard[] objects;
+    private WizardPool pool;
+    private int[] ids;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        forkJoinPool = new ForkJoinPool(parallelism);
+        objects = new Wizard[wizards];
+        pool = new WizardPool(wizards);
+
+        for (int i = 0; i < wizards; i++) {
+            objects[i] = new Wizard("Wizard " + i, MagicLevel.MASTER, Fixtures.PLENTY, Fixtures.PLENTY,
+                    Fixtures.PLENTY, Fixtures.PLENTY, Fixtures.PLENTY, new HashSet<>(), new HashSet<>(), 0, new HashSet<>());
+            pool.add(objects[i]);
+        }
+
+        ids = IntStream.range(0, wizards).toArray();
+    }
+
+    @TearDown(Level.Trial)
+    public void shutdownPool() {
+        forkJoinPool.shutdown();
+    }
+
+    @Benchmark
+    public Wizard[] objects() {
+        for (Wizard wizard : objects) {
+            attack.doEffect(wizard);
+        }
+
+        return objects;
+    }
+
+    @Benchmark
+    public WizardPool pool() {
+        pool.apply(attack, ids);
+        return pool;
+    }
+
+    @Benchmark
+    public WizardPool parallelPool() {
+        pool.apply(attack, ids, forkJoinPool);
+        return pool;
+    }
+}
@@ -1,12 +1,32 @@
 package a11908284;
 
-import java.util.Set;
-
 /**
  * This class represents a spell that does some sort of damage.
  */
 public class AttackingSpell extends Spell {
 
+    /**
+     * The version of the serialized form.
+     */
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Whether a class of attacking spells inherits
+     * {@link AttackingSpell#doEffect(MagicEffectRealization)} from this class
+     * instead of overriding it.
+     */
+    private static final ClassValue<Boolean> INHERITS_EFFECT = new ClassValue<>() {
+        @Override
+        protected Boolean computeValue(Class<?> type) {
+            try {
+                return type.getMethod("doEffect", MagicEffectRealization.class).getDeclaringClass()
+                        == AttackingSpell.class;
+            } catch (NoSuchMethodException e) {
+                throw new IllegalStateException("An attacking spell must have an effect.", e);
+            }
+        }
+    };
+
     /**
      * Whether health points (true) or mana points (false) are affected.
      */
@@ -26,6 +46,12 @@ public class AttackingSpell extends Spell {
      */
     private final int amount;
 
+    /**
+     * The additional output of the attacking spell, which is created on first use,
+     * as the damage never changes.
+     */
+    private transient String additionalOutput;
+
     /**
      * Create an attacking instance.
      *
@@ -61,6 +87,33 @@ public class AttackingSpell extends Spell {
         this.amount = amount;
     }
 
+    /**
+     * Returns whether health points (true) or mana points (false) are affected.
+     *
+     * @return whether health points (true) or mana points (false) are affected
+     */
+    boolean affectsHealth() {
+        return type;
+    }
+
+    /**
+     * Returns whether the amount is a percentage.
+     *
+     * @return whether the amount is a percentage
+     */
+    boolean isPercentage() {
+        return percentage;
+    }
+
+    /**
+     * Returns the damage of the attacking spell.
+     *
+     * @return damage of the attacking spell
+     */
+    int getAmount() {
+        return amount;
+    }
+
     /**
      * Performs the attacking spell on the specified target.
      * <p>
@@ -77,9 +130,43 @@ public class AttackingSpell extends Spell {
             throw new IllegalArgumentException("Target of effect must not be null.");
         }
 
+        attack(target);
+    }
+
+    /**
+     * Performs the attacking spell on the specified target and returns
+     * whether it was blocked. A subclass that overrides
+     * {@link AttackingSpell#doEffect(MagicEffectRealization)} has its own
+     * effect, which is performed instead and reported as having affected the
+     * target, since asking the target about its protection twice could change
+     * what a recording or journaling target makes of the cast.
+     *
+     * @param target target of the spell
+     * @return whether the target was affected, or false if the spell only
+     *         removed the protection of the target
+     */
+    @Override
+    boolean applyEffect(MagicEffectRealization target) {
+        if (!INHERITS_EFFECT.get(getClass())) {
+            doEffect(target);
+            return true;
+        }
+
+        return attack(target);
+    }
+
+    /**
+     * Performs the attacking spell on the specified target, which is the
+     * effect of {@link AttackingSpell#doEffect(MagicEffectRealization)}.
+     *
+     * @param target target of the spell
+     * @return whether the target was affected, or false if the spell only
+     *         removed the protection of the target
+     */
+    private boolean attack(MagicEffectRealization target) {
         if (target.isProtected(this)) {
-            target.removeProtection(Set.of(this));
-            return;
+            target.removeProtectionFrom(this);
+            return false;
         }
 
         if (type) {
@@ -95,6 +182,8 @@ public class AttackingSpell extends Spell {
                 target.weakenMagic(amount);
             }
         }
+
+        return true;
     }
 
     /**
@@ -111,10 +200,16 @@ public class AttackingSpell extends Spell {
      */
     @Override
     public String additionalOutputString() {
-        String typeString = type ? "HP" : "MP";
-        String percentageString = percentage ? " %" : "";
+        String output = additionalOutput;
+        if (output == null) {
+            String typeString = type ? "HP" : "MP";
+            String percentageString = percentage ? " %" : "";
+
+            output = "; -%d%s %s"
+                    .formatted(amount, percentageString, typeString);
+            additionalOutput = output;
+        }
 
-        return "; -%d%s %s"
-                .formatted(amount, percentageString, typeString);
+        return output;
     }
 }
\ No newline at end of file
@@ -0,0 +1,434 @@
+package a11908284;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * The class that simulates a free-for-all battle between wizards in ticks.
+ * <p>
+ * Every tick consists of two phases. In the decision phase every living wizard
+ * picks a random opponent and either casts a random known spell or picks a
+ * random item to use on them. The decisions are made in parallel on a
+ * fork/join pool and only read the state the wizards had at the end of the
+ * previous tick: the effects of the spells are not applied to the wizards, but
+ * recorded into an effect buffer per wizard, together with the picked item. In
+ * the commit phase the effect buffers are applied to the wizards one after
+ * another in the order of the wizards, and the picked items are used, so the
+ * inventories are only changed sequentially.
+ * <p>
+ * The random decisions of a wizard only depend on the seed of the battle, the
+ * tick and the position of the wizard, so a battle produces the same result
+ * for any parallelism of the pool. Since the random spells and items are
+ * picked by their position in the wizard, wizards that should fight the same
+ * battle again have to be created with their spells and items in the same
+ * order (e.g. from a {@link java.util.LinkedHashSet}).
+ * <p>
+ * The wizards must not be changed by anything else while a tick runs.
+ */
+public final class BattleEngine {
+
+    /**
+     * The number of wizards below which the decision phase is not split up
+     * any further.
+     */
+    private static final int SEQUENTIAL_THRESHOLD = 64;
+
+    /**
+     * The wizards that take part in the battle.
+     */
+    private final Wizard[] wizards;
+
+    /**
+     * The effect buffer of every wizard, in the same order as the wizards.
+     */
+    private final EffectBuffer[] buffers;
+
+    /**
+     * The seed of the random decisions.
+     */
+    private final long seed;
+
+    /**
+     * The pool the decision phase runs on.
+     */
+    private final ForkJoinPool pool;
+
+    /**
+     * The number of ticks that have been simulated so far.
+     */
+    private long tick;
+
+    /**
+     * Creates a battle engine instance.
+     *
+     * @param wizards the wizards that take part in the battle
+     * @param seed    the seed of the random decisions
+     * @param pool    the pool the decision phase runs on
+     * @throws IllegalArgumentException if the wizards are null, contain null
+     *                                  or the same wizard twice, or the pool is
+     *                                  null
+     */
+    public BattleEngine(List<Wizard> wizards, long seed, ForkJoinPool pool) {
+        if (wizards == null) {
+            throw new IllegalArgumentException("The wizards of the battle must not be null.");
+        }
+
+        if (pool == null) {
+            throw new IllegalArgumentException("The pool of the battle must not be null.");
+        }
+
+        Set<Wizard> distinct = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (Wizard wizard : wizards) {
+            if (wizard == null || !distinct.add(wizard)) {
+                throw new IllegalArgumentException("The wizards of the battle must not contain null or the same wizard twice.");
+            }
+        }
+
+        this.wizards = wizards.toArray(new Wizard[0]);
+        this.buffers = new EffectBuffer[this.wizards.length];
+        this.seed = seed;
+        this.pool = pool;
+
+        for (int i = 0; i < buffers.length; i++) {
+            buffers[i] = new EffectBuffer(i);
+        }
+    }
+
+    /**
+     * Returns the number of ticks that have been simulated so far.
+     *
+     * @return number of simulated ticks
+     */
+    public long getTick() {
+        return tick;
+    }
+
+    /**
+     * Simulates the specified number of ticks.
+     *
+     * @param ticks number of ticks to simulate
+     * @throws IllegalArgumentException if ticks is negative
+     */
+    public void run(int ticks) {
+        if (ticks < 0) {
+            throw new IllegalArgumentException("The number of ticks must not be negative.");
+        }
+
+        for (int i = 0; i < ticks; i++) {
+            tick();
+        }
+    }
+
+    /**
+     * Simulates a single tick. The decisions of all wizards are made in
+     * parallel, then their effects are applied in the order of the wizards.
+     */
+    public void tick() {
+        pool.invoke(new DecisionTask(0, wizards.length));
+
+        for (EffectBuffer buffer : buffers) {
+            buffer.commit();
+        }
+
+        tick += 1;
+    }
+
+    /**
+     * Lets the wizard at the specified position decide on their action and
+     * records its effects into their effect buffer.
+     *
+     * @param index position of the wizard
+     */
+    private void decide(int index) {
+        EffectBuffer buffer = buffers[index];
+        buffer.clear();
+
+        Wizard wizard = wizards[index];
+        int spells = wizard.spellCount();
+        int items = wizard.itemCount();
+
+        if (wizard.isDead() || wizards.length < 2 || (spells == 0 && items == 0)) {
+            return;
+        }
+
+        SplittableRandom random = new SplittableRandom(mix(seed, tick, index));
+
+        // Pick any other wizard as the opponent
+        int opponent = random.nextInt(wizards.length - 1);
+        if (opponent >= index) {
+            opponent += 1;
+        }
+
+        buffer.setTarget(opponent);
+
+        if (items == 0 || (spells > 0 && random.nextBoolean())) {
+            wizard.spellAt(random.nextInt(spells)).cast(buffer, buffer);
+        } else {
+            buffer.useItem(wizard.itemAt(random.nextInt(items)));
+        }
+    }
+
+    /**
+     * Returns a well-distributed seed for the decision of the specified
+     * wizard in the specified tick.
+     *
+     * @param seed  seed of the battle
+     * @param tick  current tick
+     * @param index position of the wizard
+     * @return seed of the decision
+     */
+    private static long mix(long seed, long tick, int index) {
+        long z = seed + tick * 0x9E3779B97F4A7C15L + index * 0xD1B54A32D192ED03L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+
+        return z ^ (z >>> 31);
+    }
+
+    /**
+     * The task that makes the decisions of a range of wizards, splitting the
+     * range up while it is large.
+     */
+    private final class DecisionTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final int from;
+        private final int to;
+
+        DecisionTask(int from, int to) {
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= SEQUENTIAL_THRESHOLD) {
+                for (int i = from; i < to; i++) {
+                    decide(i);
+                }
+
+                return;
+            }
+
+            int middle = (from + to) >>> 1;
+            invokeAll(new DecisionTask(from, middle), new DecisionTask(middle, to));
+        }
+    }
+
+    /**
+     * The class that records the effects of the decision of a single wizard.
+     * It acts as the magic source of the wizard, checking the mana against the
+     * state of the previous tick, and as the target of the spells and items,
+     * recording every effect instead of applying it.
+     */
+    private final class EffectBuffer implements MagicSource, MagicEffectRealization {
+        private static final int DEBIT_MANA = 0;
+        private static final int TAKE_DAMAGE = 1;
+        private static final int TAKE_DAMAGE_PERCENT = 2;
+        private static final int WEAKEN_MAGIC = 3;
+        private static final int WEAKEN_MAGIC_PERCENT = 4;
+        private static final int HEAL = 5;
+        private static final int HEAL_PERCENT = 6;
+        private static final int ENFORCE_MAGIC = 7;
+        private static final int ENFORCE_MAGIC_PERCENT = 8;
+        private static final int SET_PROTECTION = 9;
+        private static final int REMOVE_PROTECTION = 10;
+        private static final int REMOVE_PROTECTION_FROM = 11;
+        private static final int USE_ITEM = 12;
+
+        /**
+         * The position of the wizard whose decision is recorded.
+         */
+        private final int caster;
+
+        /**
+         * The position of the wizard the recorded effects apply to.
+         */
+        private int target;
+
+        /**
+         * The mana points that were already provided during this decision.
+         */
+        private int providedMana;
+
+        private int[] codes = new int[4];
+        private int[] targets = new int[4];
+        private int[] amounts = new int[4];
+        private Object[] arguments = new Object[4];
+        private int size;
+
+        EffectBuffer(int caster) {
+            this.caster = caster;
+        }
+
+        void setTarget(int target) {
+            this.target = target;
+        }
+
+        /**
+         * Records that the wizard uses the specified item on the target. The
+         * item is only used when the buffer is committed.
+         *
+         * @param item the item to use
+         */
+        void useItem(Tradeable item) {
+            record(USE_ITEM, target, 0, item);
+        }
+
+        void clear() {
+            Arrays.fill(arguments, 0, size, null);
+            size = 0;
+            providedMana = 0;
+        }
+
+        private void record(int code, int wizard, int amount, Object argument) {
+            if (size == codes.length) {
+                codes = Arrays.copyOf(codes, size * 2);
+                targets = Arrays.copyOf(targets, size * 2);
+                amounts = Arrays.copyOf(amounts, size * 2);
+                arguments = Arrays.copyOf(arguments, size * 2);
+            }
+
+            codes[size] = code;
+            targets[size] = wizard;
+            amounts[size] = amount;
+            arguments[size] = argument;
+            size += 1;
+        }
+
+        /**
+         * Applies all recorded effects to the wizards and uses the picked
+         * items in the order they were recorded.
+         */
+        @SuppressWarnings("unchecked")
+        void commit() {
+            for (int i = 0; i < size; i++) {
+                Wizard wizard = wizards[targets[i]];
+                int amount = amounts[i];
+
+                switch (codes[i]) {
+                    case DEBIT_MANA, WEAKEN_MAGIC -> wizard.weakenMagic(amount);
+                    case TAKE_DAMAGE -> wizard.takeDamage(amount);
+                    case TAKE_DAMAGE_PERCENT -> wizard.takeDamagePercent(amount);
+                    case WEAKEN_MAGIC_PERCENT -> wizard.weakenMagicPercent(amount);
+                    case HEAL -> wizard.heal(amount);
+                    case HEAL_PERCENT -> wizard.healPercent(amount);
+                    case ENFORCE_MAGIC -> wizard.enforceMagic(amount);
+                    case ENFORCE_MAGIC_PERCENT -> wizard.enforceMagicPercent(amount);
+                    case SET_PROTECTION -> wizard.setProtection((Set<AttackingSpell>) arguments[i]);
+                    case REMOVE_PROTECTION -> wizard.removeProtection((Set<AttackingSpell>) arguments[i]);
+                    case REMOVE_PROTECTION_FROM -> wizard.removeProtectionFrom((AttackingSpell) arguments[i]);
+                    case USE_ITEM -> wizards[caster].useItem((Tradeable) arguments[i], wizard);
+                    default -> throw new IllegalStateException("Unknown effect code " + codes[i] + ".");
+                }
+            }
+
+            clear();
+        }
+
+        @Override
+        public boolean provideMana(MagicLevel levelNeeded, int manaAmount) {
+            if (levelNeeded == null) {
+                throw new IllegalArgumentException("The needed level must not be null.");
+            }
+
+            if (manaAmount < 0) {
+                throw new IllegalArgumentException("Mana amount must not be negative.");
+            }
+
+            Wizard wizard = wizards[caster];
+            boolean hasLevel = wizard.getLevel().compareTo(levelNeeded) >= 0;
+            boolean hasMana = wizard.getMana() - providedMana >= manaAmount;
+
+            if (!wizard.isDead() && hasLevel && hasMana) {
+                providedMana += manaAmount;
+                record(DEBIT_MANA, caster, manaAmount, null);
+
+                return true;
+            }
+
+            return false;
+        }
+
+        @Override
+        public void takeDamage(int amount) {
+            MagicEffectRealization.super.takeDamage(amount);
+            record(TAKE_DAMAGE, target, amount, null);
+        }
+
+        @Override
+        public void takeDamagePercent(int percentage) {
+            MagicEffectRealization.super.takeDamagePercent(percentage);
+            record(TAKE_DAMAGE_PERCENT, target, percentage, null);
+        }
+
+        @Override
+        public void weakenMagic(int amount) {
+            MagicEffectRealization.super.weakenMagic(amount);
+            record(WEAKEN_MAGIC, target, amount, null);
+        }
+
+        @Override
+        public void weakenMagicPercent(int percentage) {
+            MagicEffectRealization.super.weakenMagicPercent(percentage);
+            record(WEAKEN_MAGIC_PERCENT, target, percentage, null);
+        }
+
+        @Override
+        public void heal(int amount) {
+            MagicEffectRealization.super.heal(amount);
+            record(HEAL, target, amount, null);
+        }
+
+        @Override
+        public void healPercent(int percentage) {
+            MagicEffectRealization.super.healPercent(percentage);
+            record(HEAL_PERCENT, target, percentage, null);
+        }
+
+        @Override
+        public void enforceMagic(int amount) {
+            MagicEffectRealization.super.enforceMagic(amount);
+            record(ENFORCE_MAGIC, target, amount, null);
+        }
+
+        @Override
+        public void enforceMagicPercent(int percentage) {
+            MagicEffectRealization.super.enforceMagicPercent(percentage);
+            record(ENFORCE_MAGIC_PERCENT, target, percentage, null);
+        }
+
+        @Override
+        public boolean isProtected(Spell spell) {
+            MagicEffectRealization.super.isProtected(spell);
+            return wizards[target].isProtected(spell);
+        }
+
+        @Override
+        public void setProtection(Set<AttackingSpell> attacks) {
+            MagicEffectRealization.super.setProtection(attacks);
+            record(SET_PROTECTION, target, 0, attacks);
+        }
+
+        @Override
+        public void removeProtection(Set<AttackingSpell> attacks) {
+            MagicEffectRealization.super.removeProtection(attacks);
+            record(REMOVE_PROTECTION, target, 0, attacks);
+        }
+
+        @Override
+        public void removeProtectionFrom(AttackingSpell attack) {
+            if (attack == null) {
+                throw new IllegalArgumentException("Spell to remove protection for must not be null.");
+            }
+
+            record(REMOVE_PROTECTION_FROM, target, 0, attack);
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package a11908284;
+
+/**
+ * The enumeration for the outcome of a spell on a single target of a cast.
+ */
+public enum CastOutcome {
+    /**
+     * The spell had its effect on the target.
+     */
+    AFFECTED,
+
+    /**
+     * The target was protected from the spell, which used up the protection
+     * instead of having its effect.
+     */
+    BLOCKED,
+
+    /**
+     * The spell was not cast at all, because the caster could not or did not
+     * provide the mana for it.
+     */
+    NOT_CAST
+}
@@ -1,6 +1,7 @@
 package a11908284;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 /**
@@ -10,6 +11,11 @@ import java.util.List;
  */
 public class Concoction extends Potion {
 
+    /**
+     * The version of the serialized form.
+     */
+    private static final long serialVersionUID = 1L;
+
     /**
      * The change of health points on the target.
      */
@@ -26,6 +32,12 @@ public class Concoction extends Potion {
      */
     private final List<Spell> spells;
 
+    /**
+     * The additional output of the concoction, which is created on first use,
+     * as the effects and spells never change.
+     */
+    private transient String additionalOutput;
+
     /**
      * Creates a concoction instance.
      * <p>
@@ -67,6 +79,57 @@ public class Concoction extends Potion {
         this.spells = new ArrayList<>(spells);
     }
 
+    /**
+     * Returns the change of health on the target.
+     *
+     * @return change of health on the target
+     */
+    int getHealth() {
+        return health;
+    }
+
+    /**
+     * Returns the change of mana on the target.
+     *
+     * @return change of mana on the target
+     */
+    int getMana() {
+        return mana;
+    }
+
+    /**
+     * Returns the spells that are cast when consuming the concoction.
+     *
+     * @return spells that are cast when consuming the concoction
+     */
+    List<Spell> getSpells() {
+        return Collections.unmodifiableList(spells);
+    }
+
+    /**
+     * Returns whether the specified concoction changes health and mana by the
+     * same amounts and casts the same spells in the same order.
+     *
+     * @param other concoction to compare with
+     * @return whether both concoctions have the same effect
+     */
+    @Override
+    boolean hasSameEffect(MagicItem other) {
+        Concoction concoction = (Concoction) other;
+
+        return concoction.health == health && concoction.mana == mana && concoction.spells.equals(spells);
+    }
+
+    /**
+     * Returns a hash code of the changes and spells of the concoction.
+     *
+     * @return hash code of the effect
+     */
+    @Override
+    int effectHash() {
+        return 31 * (31 * health + mana) + spells.hashCode();
+    }
+
     /**
      * Uses the potion on the specified target.
      *
@@ -95,7 +158,9 @@ public class Concoction extends Potion {
             target.weakenMagic(Math.abs(mana));
         }
 
-        spells.forEach(spell -> spell.cast(this, target));
+        for (int i = 0; i < spells.size(); i++) {
+            spells.get(i).cast(this, target);
+        }
     }
 
     /**
@@ -112,13 +177,19 @@ public class Concoction extends Potion {
      */
     @Override
     public String additionalOutputString() {
-        String healthSign = health >= 0 ? "+" : "";
-        String manaSign = mana >= 0 ? "+" : "";
+        String output = additionalOutput;
+        if (output == null) {
+            String healthSign = health >= 0 ? "+" : "";
+            String manaSign = mana >= 0 ? "+" : "";
 
-        String healthString = health == 0 ? "" : "; %s%d HP".formatted(healthSign, health);
-        String manaString = mana == 0 ? "" : "; %s%d MP".formatted(manaSign, mana);
-        String spellsString = spells.isEmpty() ? "" : "; cast %s".formatted(spells);
+            String healthString = health == 0 ? "" : "; %s%d HP".formatted(healthSign, health);
+            String manaString = mana == 0 ? "" : "; %s%d MP".formatted(manaSign, mana);
+            String spellsString = spells.isEmpty() ? "" : "; cast %s".formatted(spells);
+
+            output = "%s%s%s".formatted(healthString, manaString, spellsString);
+            additionalOutput = output;
+        }
 
-        return "%s%s%s".formatted(healthString, manaString, spellsString);
+        return output;
     }
 }
\ No newline at end of file
@@ -0,0 +1,446 @@
+package a11908284;
+
+import java.util.LinkedHashSet;
+import java.util.Locale;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * The class that estimates the probability that the first of two wizards wins
+ * a duel against the second one, by simulating many independent duels.
+ * <p>
+ * In a duel the wizards take turns, starting with a randomly chosen one. On
+ * their turn a wizard either casts a random known spell or uses a random item
+ * on the opponent with {@link Wizard#castRandomSpell} and
+ * {@link Wizard#useRandomItem}, whose random generator is the stream of the
+ * task. The duel ends as soon as a wizard is dead, or as a draw after a
+ * maximum number of turns.
+ * <p>
+ * The state of the wizards is taken when the estimator is created, and every
+ * duel is fought by fresh copies of the wizards with copies of their items, so
+ * the wizards themselves are never changed. The duels are simulated in rounds
+ * of tasks on a fork/join pool. Every task draws its decisions from its own
+ * random stream, split from the stream of the estimator in the order of the
+ * tasks, so an estimate only depends on the seed and not on the parallelism of
+ * the pool. After every round the Wilson score interval of the win probability
+ * is computed, and the estimate stops once it is narrow enough.
+ */
+public final class DuelEstimator {
+
+    /**
+     * The number of duels simulated by a single task.
+     */
+    private static final int DUELS_PER_TASK = 1024;
+
+    /**
+     * The number of tasks per round, after which the interval is checked.
+     */
+    private static final int TASKS_PER_ROUND = 64;
+
+    /**
+     * The quantile of the standard normal distribution for a confidence of
+     * 95 percent.
+     */
+    private static final double Z = 1.959963984540054;
+
+    /**
+     * The state of the first wizard when the estimator was created.
+     */
+    private final Contestant first;
+
+    /**
+     * The state of the second wizard when the estimator was created.
+     */
+    private final Contestant second;
+
+    /**
+     * The number of turns after which a duel ends in a draw.
+     */
+    private final int maxTurns;
+
+    /**
+     * The seed of the random decisions.
+     */
+    private final long seed;
+
+    /**
+     * The pool the duels are simulated on.
+     */
+    private final ForkJoinPool pool;
+
+    /**
+     * Creates a duel estimator instance.
+     *
+     * @param first    the first wizard, whose win probability is estimated
+     * @param second   the second wizard
+     * @param maxTurns the number of turns after which a duel is a draw
+     * @param seed     the seed of the random decisions
+     * @param pool     the pool the duels are simulated on
+     * @throws IllegalArgumentException if a wizard or the pool is null, an
+     *                                  item of a wizard is not a
+     *                                  {@link MagicItem} or maxTurns is not
+     *                                  positive
+     */
+    public DuelEstimator(Wizard first, Wizard second, int maxTurns, long seed, ForkJoinPool pool) {
+        if (first == null || second == null) {
+            throw new IllegalArgumentException("The wizards of the duel must not be null.");
+        }
+
+        if (maxTurns <= 0) {
+            throw new IllegalArgumentException("The maximum number of turns must be positive.");
+        }
+
+        if (pool == null) {
+            throw new IllegalArgumentException("The pool of the duels must not be null.");
+        }
+
+        this.first = new Contestant(first);
+        this.second = new Contestant(second);
+        this.maxTurns = maxTurns;
+        this.seed = seed;
+        this.pool = pool;
+    }
+
+    /**
+     * Simulates duels until the 95 percent confidence interval of the win
+     * probability of the first wizard is at most twice the specified half
+     * width, or the maximum number of duels is reached. The interval is
+     * checked after every round of duels, so more duels than necessary may be
+     * simulated. The same seed always gives the same estimate.
+     *
+     * @param maxDuels  the maximum number of duels to simulate
+     * @param halfWidth the half width of the interval at which to stop
+     * @return estimate of the win probability
+     * @throws IllegalArgumentException if maxDuels is not positive or
+     *                                  halfWidth is negative
+     */
+    public Estimate estimate(long maxDuels, double halfWidth) {
+        if (maxDuels <= 0) {
+            throw new IllegalArgumentException("The maximum number of duels must be positive.");
+        }
+
+        if (!(halfWidth >= 0)) {
+            throw new IllegalArgumentException("The half width of the interval must not be negative.");
+        }
+
+        SplittableRandom random = new SplittableRandom(seed);
+        Round round = new Round();
+        long duels = 0;
+        long firstWins = 0;
+        long secondWins = 0;
+
+        while (duels < maxDuels) {
+            long remaining = maxDuels - duels;
+            int tasks = (int) Math.min(TASKS_PER_ROUND, (remaining + DUELS_PER_TASK - 1) / DUELS_PER_TASK);
+
+            for (int i = 0; i < tasks; i++) {
+                round.streams[i] = random.split();
+                round.sizes[i] = (int) Math.min(DUELS_PER_TASK, remaining - (long) i * DUELS_PER_TASK);
+            }
+
+            pool.invoke(new DuelTask(round, 0, tasks));
+
+            for (int i = 0; i < tasks; i++) {
+                duels += round.sizes[i];
+                firstWins += round.firstWins[i];
+                secondWins += round.secondWins[i];
+            }
+
+            if (new Estimate(duels, firstWins, secondWins).getHalfWidth() <= halfWidth) {
+                break;
+            }
+        }
+
+        return new Estimate(duels, firstWins, secondWins);
+    }
+
+    /**
+     * Simulates a single duel between fresh copies of the wizards.
+     *
+     * @param random the random stream of the decisions
+     * @return 1 if the first wizard wins, 2 if the second one wins, 0 for a
+     *         draw
+     */
+    private int duel(SplittableRandom random) {
+        Wizard[] wizards = {first.copy(), second.copy()};
+        wizards[0].setRandomGenerator(random);
+        wizards[1].setRandomGenerator(random);
+        int turn = random.nextInt(2);
+
+        for (int i = 0; i < maxTurns; i++) {
+            Wizard actor = wizards[turn];
+            Wizard opponent = wizards[1 - turn];
+            int spells = actor.spellCount();
+            int items = actor.itemCount();
+
+            if (spells > 0 && (items == 0 || random.nextBoolean())) {
+                actor.castRandomSpell(opponent);
+            } else if (items > 0) {
+                actor.useRandomItem(opponent);
+            }
+
+            if (wizards[0].isDead() != wizards[1].isDead()) {
+                return wizards[0].isDead() ? 2 : 1;
+            }
+
+            if (wizards[0].isDead()) {
+                return 0;
+            }
+
+            turn = 1 - turn;
+        }
+
+        return 0;
+    }
+
+    /**
+     * The class that holds the random streams and results of the tasks of a
+     * round, so that the tasks do not share any counter.
+     */
+    private static final class Round {
+        private final SplittableRandom[] streams = new SplittableRandom[TASKS_PER_ROUND];
+        private final int[] sizes = new int[TASKS_PER_ROUND];
+        private final long[] firstWins = new long[TASKS_PER_ROUND];
+        private final long[] secondWins = new long[TASKS_PER_ROUND];
+    }
+
+    /**
+     * The task that simulates the duels of a range of tasks of a round,
+     * splitting the range up while it contains more than one task.
+     */
+    private final class DuelTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final Round round;
+        private final int from;
+        private final int to;
+
+        DuelTask(Round round, int from, int to) {
+            this.round = round;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > 1) {
+                int middle = (from + to) >>> 1;
+                invokeAll(new DuelTask(round, from, middle), new DuelTask(round, middle, to));
+
+                return;
+            }
+
+            SplittableRandom random = round.streams[from];
+            long firstWins = 0;
+            long secondWins = 0;
+
+            for (int i = 0; i < round.sizes[from]; i++) {
+                int winner = duel(random);
+
+                if (winner == 1) {
+                    firstWins += 1;
+                } else if (winner == 2) {
+                    secondWins += 1;
+                }
+            }
+
+            round.firstWins[from] = firstWins;
+            round.secondWins[from] = secondWins;
+        }
+    }
+
+    /**
+     * The class that holds the state of a wizard when the estimator was
+     * created and creates fresh copies of it for the duels.
+     */
+    private static final class Contestant {
+        private final String name;
+        private final MagicLevel level;
+        private final int healthBase;
+        private final int health;
+        private final int manaBase;
+        private final int mana;
+        private final int money;
+        private final SpellBitSet<Spell> knownSpells = new SpellBitSet<>();
+        private final SpellBitSet<AttackingSpell> protectedFrom;
+        private final int carryingCapacity;
+        private final MagicItem[] items;
+
+        Contestant(Wizard wizard) {
+            name = wizard.getName();
+            level = wizard.getLevel();
+            healthBase = wizard.getHealthBase();
+            health = wizard.getHealth();
+            manaBase = wizard.getManaBase();
+            mana = wizard.getMana();
+            money = wizard.getMoney();
+            protectedFrom = new SpellBitSet<>(wizard.getProtections());
+            carryingCapacity = wizard.getCarryingCapacity();
+            items = new MagicItem[wizard.itemCount()];
+
+            for (int i = 0; i < wizard.spellCount(); i++) {
+                knownSpells.add(wizard.spellAt(i));
+            }
+
+            for (int i = 0; i < items.length; i++) {
+                if (!(wizard.peekItemAt(i) instanceof MagicItem item)) {
+                    throw new IllegalArgumentException("The items of the wizards must be magic items, so that they can be copied.");
+                }
+
+                items[i] = item.copy();
+            }
+        }
+
+        /**
+         * Returns a new wizard with the state of the contestant and copies of
+         * its items in the same order.
+         *
+         * @return copy of the wizard
+         */
+        Wizard copy() {
+            Set<Tradeable> inventory = new LinkedHashSet<>();
+            for (MagicItem item : items) {
+                inventory.add(item.copy());
+            }
+
+            return new Wizard(name, level, healthBase, health, manaBase, mana, money,
+                    knownSpells, protectedFrom, carryingCapacity, inventory);
+        }
+    }
+
+    /**
+     * The class that represents the estimated probability that the first
+     * wizard wins a duel, together with its 95 percent confidence interval.
+     */
+    public static final class Estimate {
+
+        /**
+         * The number of simulated duels.
+         */
+        private final long duels;
+
+        /**
+         * The number of duels won by the first wizard.
+         */
+        private final long firstWins;
+
+        /**
+         * The number of duels won by the second wizard.
+         */
+        private final long secondWins;
+
+        /**
+         * The lower bound of the confidence interval.
+         */
+        private final double lower;
+
+        /**
+         * The upper bound of the confidence interval.
+         */
+        private final double upper;
+
+        Estimate(long duels, long firstWins, long secondWins) {
+            this.duels = duels;
+            this.firstWins = firstWins;
+            this.secondWins = secondWins;
+
+            // Wilson score interval, which stays within [0, 1] and does not
+            // collapse to a point if one wizard wins every duel
+            double n = duels;
+            double p = firstWins / n;
+            double z2 = Z * Z;
+            double center = (p + z2 / (2 * n)) / (1 + z2 / n);
+            double margin = Z / (1 + z2 / n) * Math.sqrt(p * (1 - p) / n + z2 / (4 * n * n));
+
+            this.lower = Math.max(0, center - margin);
+            this.upper = Math.min(1, center + margin);
+        }
+
+        /**
+         * Returns the number of simulated duels.
+         *
+         * @return number of duels
+         */
+        public long getDuels() {
+            return duels;
+        }
+
+        /**
+         * Returns the number of duels won by the first wizard.
+         *
+         * @return wins of the first wizard
+         */
+        public long getFirstWins() {
+            return firstWins;
+        }
+
+        /**
+         * Returns the number of duels won by the second wizard.
+         *
+         * @return wins of the second wizard
+         */
+        public long getSecondWins() {
+            return secondWins;
+        }
+
+        /**
+         * Returns the number of duels that ended in a draw.
+         *
+         * @return number of draws
+         */
+        public long getDraws() {
+            return duels - firstWins - secondWins;
+        }
+
+        /**
+         * Returns the estimated probability that the first wizard wins, which
+         * is the share of the duels they won.
+         *
+         * @return win probability of the first wizard
+         */
+        public double getProbability() {
+            return (double) firstWins / duels;
+        }
+
+        /**
+         * Returns the lower bound of the 95 percent confidence interval.
+         *
+         * @return lower bound of the win probability
+         */
+        public double getLower() {
+            return lower;
+        }
+
+        /**
+         * Returns the upper bound of the 95 percent confidence interval.
+         *
+         * @return upper bound of the win probability
+         */
+        public double getUpper() {
+            return upper;
+        }
+
+        /**
+         * Returns half the width of the 95 percent confidence interval.
+         *
+         * @return half width of the interval
+         */
+        public double getHalfWidth() {
+            return (upper - lower) / 2;
+        }
+
+        /**
+         * Returns a string representation of the estimate in the format:
+         * <p>
+         * "%.4f [%.4f; %.4f] after %d duels"
+         *
+         * @return string representation of the estimate
+         */
+        @Override
+        public String toString() {
+            return String.format(Locale.ROOT, "%.4f [%.4f; %.4f] after %d duels", getProbability(), lower, upper, duels);
+        }
+    }
+}
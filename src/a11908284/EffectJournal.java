@@ -0,0 +1,378 @@
+package a11908284;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * The class that appends a record of every magic effect to a journal of
+ * memory-mapped segment files.
+ * <p>
+ * Every record has a fixed size of {@link EffectJournal#RECORD_SIZE} bytes
+ * and consists of the time in milliseconds, the operation, the target, the
+ * source, the spell and the operand of the operation, followed by four
+ * reserved bytes. Once a segment is full, the journal rolls over to a new
+ * segment, which is named after the sequence number of its first record.
+ * Appending a record only writes into the mapped segment, so it does not
+ * allocate any objects.
+ * <p>
+ * The spells are identified by a number that the journal assigns when it
+ * sees a spell for the first time. The numbers and the string representation
+ * of the spells are written to the {@link EffectJournal#SPELLS_FILE} of the
+ * journal, so that a reader can tell the spells apart.
+ * <p>
+ * The methods of this class are synchronized, so a journal may be shared by
+ * several threads.
+ */
+public final class EffectJournal implements AutoCloseable {
+
+    /**
+     * The size of a record in bytes.
+     */
+    public static final int RECORD_SIZE = 32;
+
+    /**
+     * The name of the file that lists the spells of the journal.
+     */
+    public static final String SPELLS_FILE = "spells.txt";
+
+    /**
+     * The file extension of the segment files.
+     */
+    static final String SEGMENT_SUFFIX = ".journal";
+
+    /**
+     * The identifier that marks a missing source or spell.
+     */
+    public static final int NONE = -1;
+
+    static final int TIME_OFFSET = 0;
+    static final int OPERATION_OFFSET = 8;
+    static final int TARGET_OFFSET = 12;
+    static final int SOURCE_OFFSET = 16;
+    static final int SPELL_OFFSET = 20;
+    static final int OPERAND_OFFSET = 24;
+
+    /**
+     * The operations that are recorded. The code of an operation is its
+     * ordinal plus one, so that zero marks the end of a segment.
+     */
+    public enum Operation {
+        TAKE_DAMAGE,
+        TAKE_DAMAGE_PERCENT,
+        WEAKEN_MAGIC,
+        WEAKEN_MAGIC_PERCENT,
+        HEAL,
+        HEAL_PERCENT,
+        ENFORCE_MAGIC,
+        ENFORCE_MAGIC_PERCENT,
+        IS_PROTECTED,
+        SET_PROTECTION,
+        REMOVE_PROTECTION;
+
+        /**
+         * All operations, indexed by their ordinal.
+         */
+        private static final Operation[] VALUES = values();
+
+        /**
+         * Returns the operation with the specified code.
+         *
+         * @param code code of the operation
+         * @return operation with the code
+         * @throws IllegalArgumentException if there is no such operation
+         */
+        static Operation ofCode(int code) {
+            if (code < 1 || code > VALUES.length) {
+                throw new IllegalArgumentException("Unknown operation code " + code + ".");
+            }
+
+            return VALUES[code - 1];
+        }
+    }
+
+    /**
+     * The directory of the segment files.
+     */
+    private final Path directory;
+
+    /**
+     * The number of records in a segment.
+     */
+    private final int segmentRecords;
+
+    /**
+     * The numbers the journal assigned to the spells it has seen.
+     */
+    private final Map<Spell, Integer> spellIds = new IdentityHashMap<>();
+
+    /**
+     * The number that is assigned to the next spell the journal has not seen
+     * yet.
+     */
+    private int nextSpellId;
+
+    /**
+     * The segment the records are currently written to.
+     */
+    private MappedByteBuffer segment;
+
+    /**
+     * The sequence number of the next record.
+     */
+    private long sequence;
+
+    /**
+     * Whether the journal is closed.
+     */
+    private boolean closed;
+
+    /**
+     * Opens a journal in the specified directory. If the directory already
+     * contains a journal, the new records are appended to it in a new
+     * segment.
+     *
+     * @param directory      the directory of the segment files
+     * @param segmentRecords the number of records in a segment
+     * @throws IllegalArgumentException if directory is null or segmentRecords
+     *                                  is not positive or too large
+     * @throws IOException              if the journal could not be opened
+     */
+    public EffectJournal(Path directory, int segmentRecords) throws IOException {
+        if (directory == null) {
+            throw new IllegalArgumentException("The directory of the journal must not be null.");
+        }
+
+        if (segmentRecords < 1 || segmentRecords > Integer.MAX_VALUE / RECORD_SIZE) {
+            throw new IllegalArgumentException("The number of records in a segment must be positive and fit into a segment.");
+        }
+
+        this.directory = directory;
+        this.segmentRecords = segmentRecords;
+
+        Files.createDirectories(directory);
+
+        List<Path> segments = segments(directory);
+        if (!segments.isEmpty()) {
+            Path last = segments.get(segments.size() - 1);
+            long records = countRecords(last);
+            sequence = firstSequence(last) + records;
+
+            // An empty segment would have the same name as the new one
+            if (records == 0) {
+                Files.delete(last);
+            }
+        }
+
+        // Spells of an earlier journal keep their numbers in the file, so new
+        // spells have to be numbered after them
+        Path spells = directory.resolve(SPELLS_FILE);
+        if (Files.exists(spells)) {
+            try (Stream<String> lines = Files.lines(spells, StandardCharsets.UTF_8)) {
+                nextSpellId = (int) lines.count();
+            }
+        }
+
+        roll();
+    }
+
+    /**
+     * Appends a record to the journal.
+     *
+     * @param operation the operation that was applied
+     * @param target    the identifier of the target
+     * @param source    the identifier of the source or {@link EffectJournal#NONE}
+     * @param spell     the spell that caused the operation or null
+     * @param operand   the amount, percentage or other operand of the operation
+     * @throws IllegalArgumentException if operation is null
+     * @throws IllegalStateException    if the journal is closed
+     * @throws UncheckedIOException     if a new segment could not be created
+     */
+    public synchronized void append(Operation operation, int target, int source, Spell spell, int operand) {
+        if (operation == null) {
+            throw new IllegalArgumentException("The operation to append must not be null.");
+        }
+
+        if (closed) {
+            throw new IllegalStateException("The journal is already closed.");
+        }
+
+        if (!segment.hasRemaining()) {
+            try {
+                roll();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        int position = segment.position();
+        segment.putLong(position + TIME_OFFSET, System.currentTimeMillis());
+        segment.putInt(position + TARGET_OFFSET, target);
+        segment.putInt(position + SOURCE_OFFSET, source);
+        segment.putInt(position + SPELL_OFFSET, spell == null ? NONE : spellNumber(spell));
+        segment.putInt(position + OPERAND_OFFSET, operand);
+        // The operation is written last, as a non-zero operation marks the
+        // record as complete
+        segment.putInt(position + OPERATION_OFFSET, operation.ordinal() + 1);
+        segment.position(position + RECORD_SIZE);
+
+        sequence += 1;
+    }
+
+    /**
+     * Returns the sequence number of the next record.
+     *
+     * @return sequence number of the next record
+     */
+    public synchronized long getSequence() {
+        return sequence;
+    }
+
+    /**
+     * Writes the records of the current segment to the storage device.
+     */
+    public synchronized void flush() {
+        if (!closed) {
+            segment.force();
+        }
+    }
+
+    /**
+     * Flushes and closes the journal. Closing a closed journal has no effect.
+     */
+    @Override
+    public synchronized void close() {
+        if (closed) {
+            return;
+        }
+
+        segment.force();
+        segment = null;
+        closed = true;
+    }
+
+    /**
+     * Returns the number of the specified spell, assigning a new one and
+     * listing the spell in the spells file if the journal has not seen it yet.
+     *
+     * @param spell the spell to number
+     * @return number of the spell
+     * @throws IllegalArgumentException if spell is null
+     * @throws UncheckedIOException     if the spell could not be listed
+     */
+    public synchronized int spellNumber(Spell spell) {
+        if (spell == null) {
+            throw new IllegalArgumentException("The spell to number must not be null.");
+        }
+
+        Integer id = spellIds.get(spell);
+        if (id != null) {
+            return id;
+        }
+
+        int newId = nextSpellId;
+        try {
+            Files.writeString(directory.resolve(SPELLS_FILE), newId + "\t" + spell + System.lineSeparator(),
+                    StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        nextSpellId += 1;
+        spellIds.put(spell, newId);
+
+        return newId;
+    }
+
+    /**
+     * Flushes the current segment and maps a new segment that starts with the
+     * next sequence number.
+     *
+     * @throws IOException if the segment could not be created
+     */
+    private void roll() throws IOException {
+        if (segment != null) {
+            segment.force();
+        }
+
+        Path path = directory.resolve(segmentName(sequence));
+        try (FileChannel channel = FileChannel.open(path,
+                StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            // The mapping stays valid after the channel is closed
+            segment = channel.map(FileChannel.MapMode.READ_WRITE, 0, (long) segmentRecords * RECORD_SIZE);
+        }
+    }
+
+    /**
+     * Returns the name of the segment file whose first record has the
+     * specified sequence number.
+     *
+     * @param firstSequence sequence number of the first record
+     * @return name of the segment file
+     */
+    static String segmentName(long firstSequence) {
+        return "%020d%s".formatted(firstSequence, SEGMENT_SUFFIX);
+    }
+
+    /**
+     * Returns the sequence number of the first record of the specified
+     * segment file.
+     *
+     * @param segment path of the segment file
+     * @return sequence number of the first record
+     */
+    static long firstSequence(Path segment) {
+        String name = segment.getFileName().toString();
+
+        return Long.parseLong(name.substring(0, name.length() - SEGMENT_SUFFIX.length()));
+    }
+
+    /**
+     * Returns the segment files of the journal in the specified directory in
+     * the order of their records.
+     *
+     * @param directory the directory of the journal
+     * @return paths of the segment files
+     * @throws IOException if the directory could not be listed
+     */
+    static List<Path> segments(Path directory) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(path -> path.getFileName().toString().endsWith(SEGMENT_SUFFIX))
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    /**
+     * Returns the number of complete records in the specified segment file.
+     *
+     * @param segment path of the segment file
+     * @return number of complete records
+     * @throws IOException if the segment could not be read
+     */
+    private static long countRecords(Path segment) throws IOException {
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+
+            long count = 0;
+            for (int position = 0; position + RECORD_SIZE <= buffer.limit(); position += RECORD_SIZE) {
+                if (buffer.getInt(position + OPERATION_OFFSET) == 0) {
+                    break;
+                }
+
+                count += 1;
+            }
+
+            return count;
+        }
+    }
+}
@@ -0,0 +1,230 @@
+package a11908284;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+/**
+ * The class that streams the records of an effect journal back, one segment
+ * after another.
+ * <p>
+ * The reader is a cursor: {@link EffectJournalReader#next()} moves to the
+ * next record, whose fields can then be read with the getters. Moving through
+ * the records does not allocate any objects, except for mapping the next
+ * segment.
+ */
+public final class EffectJournalReader implements AutoCloseable {
+
+    /**
+     * The segment files of the journal in the order of their records.
+     */
+    private final List<Path> segments;
+
+    /**
+     * The string representations of the spells by their number.
+     */
+    private final Map<Integer, String> spells = new HashMap<>();
+
+    /**
+     * The position of the segment that is currently read.
+     */
+    private int segmentIndex = -1;
+
+    /**
+     * The segment that is currently read.
+     */
+    private MappedByteBuffer segment;
+
+    /**
+     * The sequence number of the first record of the current segment.
+     */
+    private long firstSequence;
+
+    /**
+     * The position of the current record in the segment, or -1 before the
+     * first record.
+     */
+    private int position = -1;
+
+    /**
+     * Opens the journal in the specified directory for reading.
+     *
+     * @param directory the directory of the journal
+     * @throws IllegalArgumentException if directory is null
+     * @throws IOException              if the journal could not be opened
+     */
+    public EffectJournalReader(Path directory) throws IOException {
+        if (directory == null) {
+            throw new IllegalArgumentException("The directory of the journal must not be null.");
+        }
+
+        segments = EffectJournal.segments(directory);
+
+        Path spellsFile = directory.resolve(EffectJournal.SPELLS_FILE);
+        if (Files.exists(spellsFile)) {
+            for (String line : Files.readAllLines(spellsFile, StandardCharsets.UTF_8)) {
+                int tab = line.indexOf('\t');
+                spells.put(Integer.parseInt(line.substring(0, tab)), line.substring(tab + 1));
+            }
+        }
+    }
+
+    /**
+     * Moves to the next record of the journal.
+     *
+     * @return whether there is a next record
+     * @throws UncheckedIOException if the next segment could not be read
+     */
+    public boolean next() {
+        if (segment != null) {
+            int nextPosition = position + EffectJournal.RECORD_SIZE;
+
+            if (nextPosition + EffectJournal.RECORD_SIZE <= segment.limit()
+                    && segment.getInt(nextPosition + EffectJournal.OPERATION_OFFSET) != 0) {
+                position = nextPosition;
+                return true;
+            }
+        }
+
+        // The rest of the segment is empty, so the records continue in the
+        // next segment, if there is one
+        while (segmentIndex + 1 < segments.size()) {
+            segmentIndex += 1;
+            Path path = segments.get(segmentIndex);
+
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+                segment = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+
+            firstSequence = EffectJournal.firstSequence(path);
+            position = 0;
+
+            if (segment.limit() >= EffectJournal.RECORD_SIZE
+                    && segment.getInt(EffectJournal.OPERATION_OFFSET) != 0) {
+                return true;
+            }
+        }
+
+        segment = null;
+        return false;
+    }
+
+    /**
+     * Returns the sequence number of the current record.
+     *
+     * @return sequence number of the record
+     * @throws NoSuchElementException if there is no current record
+     */
+    public long getSequence() {
+        checkRecord();
+        return firstSequence + position / EffectJournal.RECORD_SIZE;
+    }
+
+    /**
+     * Returns the time of the current record in milliseconds since the epoch.
+     *
+     * @return time of the record
+     * @throws NoSuchElementException if there is no current record
+     */
+    public long getTime() {
+        checkRecord();
+        return segment.getLong(position + EffectJournal.TIME_OFFSET);
+    }
+
+    /**
+     * Returns the operation of the current record.
+     *
+     * @return operation of the record
+     * @throws NoSuchElementException if there is no current record
+     */
+    public EffectJournal.Operation getOperation() {
+        checkRecord();
+        return EffectJournal.Operation.ofCode(segment.getInt(position + EffectJournal.OPERATION_OFFSET));
+    }
+
+    /**
+     * Returns the identifier of the target of the current record.
+     *
+     * @return identifier of the target
+     * @throws NoSuchElementException if there is no current record
+     */
+    public int getTarget() {
+        checkRecord();
+        return segment.getInt(position + EffectJournal.TARGET_OFFSET);
+    }
+
+    /**
+     * Returns the identifier of the source of the current record.
+     *
+     * @return identifier of the source or {@link EffectJournal#NONE}
+     * @throws NoSuchElementException if there is no current record
+     */
+    public int getSource() {
+        checkRecord();
+        return segment.getInt(position + EffectJournal.SOURCE_OFFSET);
+    }
+
+    /**
+     * Returns the number of the spell of the current record.
+     *
+     * @return number of the spell or {@link EffectJournal#NONE}
+     * @throws NoSuchElementException if there is no current record
+     */
+    public int getSpell() {
+        checkRecord();
+        return segment.getInt(position + EffectJournal.SPELL_OFFSET);
+    }
+
+    /**
+     * Returns the operand of the current record.
+     *
+     * @return operand of the record
+     * @throws NoSuchElementException if there is no current record
+     */
+    public int getOperand() {
+        checkRecord();
+        return segment.getInt(position + EffectJournal.OPERAND_OFFSET);
+    }
+
+    /**
+     * Returns the string representation of the spell with the specified
+     * number.
+     *
+     * @param spell number of the spell
+     * @return string representation of the spell or null if it is unknown
+     */
+    public String spellName(int spell) {
+        return spells.get(spell);
+    }
+
+    /**
+     * Closes the reader.
+     */
+    @Override
+    public void close() {
+        segment = null;
+        segmentIndex = segments.size();
+    }
+
+    /**
+     * Checks that the reader is positioned on a record.
+     *
+     * @throws NoSuchElementException if there is no current record
+     */
+    private void checkRecord() {
+        if (segment == null) {
+            throw new NoSuchElementException("The reader is not positioned on a record.");
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package a11908284;
+
+/**
+ * The class that holds the arithmetic of the magic effects on health and mana
+ * points, so that every representation of a wizard computes the same points.
+ * <p>
+ * Relative amounts are percentages of the base points. They are calculated
+ * exactly with integers, rounding the resulting points down, so that no
+ * floating point error can take away an extra point. The results never drop
+ * below zero and never exceed {@link Integer#MAX_VALUE} for the relative
+ * amounts.
+ */
+final class EffectMath {
+
+    private EffectMath() {
+    }
+
+    /**
+     * Returns the points after an absolute decrease.
+     *
+     * @param points current points
+     * @param amount absolute decrease
+     * @return points after the decrease
+     */
+    static int decrease(int points, int amount) {
+        return Math.max(points - amount, 0);
+    }
+
+    /**
+     * Returns the points after a decrease by a percentage of the base points.
+     *
+     * @param points     current points
+     * @param base       base points
+     * @param percentage relative decrease (value between [0;100])
+     * @return points after the decrease
+     */
+    static int decreasePercent(int points, int base, int percentage) {
+        // Rounding the points down means rounding the decrease up
+        long decrease = ((long) base * percentage + 99) / 100;
+
+        return (int) Math.max(points - decrease, 0);
+    }
+
+    /**
+     * Returns the points after an absolute increase.
+     *
+     * @param points current points
+     * @param amount absolute increase
+     * @return points after the increase
+     */
+    static int increase(int points, int amount) {
+        return points + amount;
+    }
+
+    /**
+     * Returns the points after an increase by a percentage of the base points.
+     *
+     * @param points     current points
+     * @param base       base points
+     * @param percentage relative increase (value between [0;100])
+     * @return points after the increase
+     */
+    static int increasePercent(int points, int base, int percentage) {
+        long increase = (long) base * percentage / 100;
+
+        return (int) Math.min(points + increase, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Returns the points after regenerating toward the base points for the
+     * specified number of ticks, which is the same as adding the points per
+     * tick once per tick, but never beyond the base points. Points that are
+     * already at or above the base points are not changed.
+     *
+     * @param points  current points
+     * @param base    base points
+     * @param perTick points regenerated per tick
+     * @param ticks   number of ticks
+     * @return points after the regeneration
+     */
+    static int regenerate(int points, int base, int perTick, long ticks) {
+        if (points >= base) {
+            return points;
+        }
+
+        // Every tick adds at least one point, so more ticks than base points
+        // cannot matter and the product cannot overflow
+        long regenerated = (long) perTick * Math.min(ticks, base);
+
+        return (int) Math.min(points + regenerated, base);
+    }
+}
@@ -0,0 +1,378 @@
+package a11908284;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * The class that schedules delayed and periodic effects in ticks, such as
+ * damage over time, regeneration and protections that expire.
+ * <p>
+ * The pending timers are kept in a hierarchical timing wheel of four levels
+ * with 256 slots each. A level covers 256 times the ticks of the level below,
+ * so the four levels cover every delay of an int. A timer is put into the
+ * slot of its deadline on the lowest level whose range covers its delay, and
+ * each slot is a doubly linked list, so scheduling and cancelling a timer take
+ * constant time, no matter how many timers are pending. Whenever the lower
+ * levels have gone round once, the timers of the next slot of a higher level
+ * are moved down to the levels below, and the timers of the current slot of
+ * the lowest level are fired. Every timer is moved down at most three times.
+ * <p>
+ * Actions may schedule and cancel timers while they are fired. The scheduler
+ * is not thread-safe.
+ */
+public final class EffectScheduler {
+
+    /**
+     * The number of bits of a tick that select the slot on a level.
+     */
+    private static final int BITS = 8;
+
+    /**
+     * The number of slots of a level.
+     */
+    private static final int SLOTS = 1 << BITS;
+
+    /**
+     * The number of levels of the wheel.
+     */
+    private static final int LEVELS = 4;
+
+    /**
+     * The slots of all levels, the slot {@code s} of level {@code l} at
+     * position {@code l * SLOTS + s}. Every slot is the sentinel of a
+     * circular list of the timers in it.
+     */
+    private final Timer[] slots = new Timer[LEVELS * SLOTS];
+
+    /**
+     * The number of ticks that have passed so far.
+     */
+    private long tick;
+
+    /**
+     * The number of pending timers.
+     */
+    private int size;
+
+    /**
+     * Creates an effect scheduler without pending timers at tick 0.
+     */
+    public EffectScheduler() {
+        for (int i = 0; i < slots.length; i++) {
+            Timer sentinel = new Timer(0, 0, null);
+            sentinel.previous = sentinel;
+            sentinel.next = sentinel;
+            slots[i] = sentinel;
+        }
+    }
+
+    /**
+     * Returns the number of ticks that have passed so far.
+     *
+     * @return current tick
+     */
+    public long getTick() {
+        return tick;
+    }
+
+    /**
+     * Returns the number of timers that are pending.
+     *
+     * @return number of pending timers
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Schedules the action to be run once after the specified number of ticks.
+     *
+     * @param delay  the number of ticks until the action is run
+     * @param action the action to run
+     * @return the timer of the action
+     * @throws IllegalArgumentException if delay is not positive or action is
+     *                                  null
+     */
+    public Timer schedule(int delay, Runnable action) {
+        return schedule(delay, delay, 1, action);
+    }
+
+    /**
+     * Schedules the action to be run repeatedly, the first time after the
+     * specified delay and then every period ticks, until it ran the specified
+     * number of times or the timer is cancelled.
+     *
+     * @param delay       the number of ticks until the first run
+     * @param period      the number of ticks between two runs
+     * @param repetitions the number of runs
+     * @param action      the action to run
+     * @return the timer of the action
+     * @throws IllegalArgumentException if delay, period or repetitions is not
+     *                                  positive or action is null
+     */
+    public Timer schedule(int delay, int period, int repetitions, Runnable action) {
+        if (delay <= 0 || period <= 0) {
+            throw new IllegalArgumentException("The delay and period of a timer must be positive.");
+        }
+
+        if (repetitions <= 0) {
+            throw new IllegalArgumentException("The repetitions of a timer must be positive.");
+        }
+
+        if (action == null) {
+            throw new IllegalArgumentException("The action of a timer must not be null.");
+        }
+
+        Timer timer = new Timer(period, repetitions, action);
+        timer.deadline = tick + delay;
+        insert(timer);
+        size += 1;
+
+        return timer;
+    }
+
+    /**
+     * Schedules damage over time: the target takes the specified damage every
+     * period ticks, the specified number of times.
+     *
+     * @param target      the target that takes the damage
+     * @param amount      the damage of a single run
+     * @param period      the number of ticks between two runs, and until the
+     *                    first one
+     * @param repetitions the number of runs
+     * @return the timer of the damage
+     * @throws IllegalArgumentException if target is null, amount is negative,
+     *                                  or period or repetitions is not positive
+     */
+    public Timer scheduleDamage(MagicEffectRealization target, int amount, int period, int repetitions) {
+        if (target == null) {
+            throw new IllegalArgumentException("The target of the damage must not be null.");
+        }
+
+        if (amount < 0) {
+            throw new IllegalArgumentException("The damage must not be negative.");
+        }
+
+        return schedule(period, period, repetitions, () -> target.takeDamage(amount));
+    }
+
+    /**
+     * Schedules regeneration: the target is healed by the specified amount
+     * every period ticks, the specified number of times.
+     *
+     * @param target      the target that is healed
+     * @param amount      the healing of a single run
+     * @param period      the number of ticks between two runs, and until the
+     *                    first one
+     * @param repetitions the number of runs
+     * @return the timer of the healing
+     * @throws IllegalArgumentException if target is null, amount is negative,
+     *                                  or period or repetitions is not positive
+     */
+    public Timer scheduleHealing(MagicEffectRealization target, int amount, int period, int repetitions) {
+        if (target == null) {
+            throw new IllegalArgumentException("The target of the healing must not be null.");
+        }
+
+        if (amount < 0) {
+            throw new IllegalArgumentException("The healing must not be negative.");
+        }
+
+        return schedule(period, period, repetitions, () -> target.heal(amount));
+    }
+
+    /**
+     * Protects the target from the specified spells now and removes the
+     * protections after the specified number of ticks. Cancelling the timer
+     * keeps the protections until they are removed otherwise.
+     *
+     * @param target   the target to protect
+     * @param attacks  the spells the target is protected from
+     * @param duration the number of ticks the protections last
+     * @return the timer that removes the protections
+     * @throws IllegalArgumentException if target or attacks is null or
+     *                                  duration is not positive
+     */
+    public Timer protect(MagicEffectRealization target, Set<AttackingSpell> attacks, int duration) {
+        if (target == null) {
+            throw new IllegalArgumentException("The target of the protection must not be null.");
+        }
+
+        if (attacks == null) {
+            throw new IllegalArgumentException("The attacks to protect from must not be null.");
+        }
+
+        if (duration <= 0) {
+            throw new IllegalArgumentException("The duration of the protection must be positive.");
+        }
+
+        Set<AttackingSpell> protections = new HashSet<>(attacks);
+        target.setProtection(protections);
+
+        return schedule(duration, () -> target.removeProtection(protections));
+    }
+
+    /**
+     * Advances the scheduler by the specified number of ticks.
+     *
+     * @param ticks number of ticks to advance
+     * @throws IllegalArgumentException if ticks is negative
+     */
+    public void advance(int ticks) {
+        if (ticks < 0) {
+            throw new IllegalArgumentException("The number of ticks must not be negative.");
+        }
+
+        for (int i = 0; i < ticks; i++) {
+            advance();
+        }
+    }
+
+    /**
+     * Advances the scheduler by a single tick and runs the actions of the
+     * timers that are due, in the order they were put into their slot.
+     */
+    public void advance() {
+        tick += 1;
+
+        // Move the timers of the higher levels down, starting at the top, so
+        // that a timer can fall through several levels in the same tick
+        for (int level = LEVELS - 1; level > 0; level--) {
+            if ((tick & ((1L << (BITS * level)) - 1)) == 0) {
+                Timer slot = slots[level * SLOTS + (int) ((tick >>> (BITS * level)) & (SLOTS - 1))];
+
+                while (slot.next != slot) {
+                    Timer timer = slot.next;
+                    unlink(timer);
+                    insert(timer);
+                }
+            }
+        }
+
+        Timer slot = slots[(int) (tick & (SLOTS - 1))];
+        while (slot.next != slot) {
+            Timer timer = slot.next;
+            unlink(timer);
+            timer.remaining -= 1;
+
+            if (timer.remaining > 0) {
+                timer.deadline += timer.period;
+                insert(timer);
+            } else {
+                size -= 1;
+            }
+
+            timer.action.run();
+        }
+    }
+
+    /**
+     * Puts the timer into the slot of its deadline on the lowest level whose
+     * range covers the remaining ticks.
+     *
+     * @param timer timer that is not in any slot
+     */
+    private void insert(Timer timer) {
+        long delay = timer.deadline - tick;
+        int level = 0;
+        while (level < LEVELS - 1 && delay >= 1L << (BITS * (level + 1))) {
+            level += 1;
+        }
+
+        Timer slot = slots[level * SLOTS + (int) ((timer.deadline >>> (BITS * level)) & (SLOTS - 1))];
+        timer.previous = slot.previous;
+        timer.next = slot;
+        slot.previous.next = timer;
+        slot.previous = timer;
+    }
+
+    /**
+     * Removes the timer from its slot.
+     *
+     * @param timer timer that is in a slot
+     */
+    private static void unlink(Timer timer) {
+        timer.previous.next = timer.next;
+        timer.next.previous = timer.previous;
+        timer.previous = null;
+        timer.next = null;
+    }
+
+    /**
+     * The class that represents a scheduled action, which can be cancelled
+     * while it is pending.
+     */
+    public final class Timer {
+
+        /**
+         * The number of ticks between two runs.
+         */
+        private final int period;
+
+        /**
+         * The action to run. This field is null for the sentinels.
+         */
+        private final Runnable action;
+
+        /**
+         * The tick of the next run.
+         */
+        private long deadline;
+
+        /**
+         * The number of runs that are left.
+         */
+        private int remaining;
+
+        /**
+         * The previous timer in the slot, or null if the timer is not pending.
+         */
+        private Timer previous;
+
+        /**
+         * The next timer in the slot, or null if the timer is not pending.
+         */
+        private Timer next;
+
+        private Timer(int period, int remaining, Runnable action) {
+            this.period = period;
+            this.remaining = remaining;
+            this.action = action;
+        }
+
+        /**
+         * Returns whether the timer will run its action again.
+         *
+         * @return whether the timer is pending
+         */
+        public boolean isPending() {
+            return next != null;
+        }
+
+        /**
+         * Returns the tick of the next run of the timer.
+         *
+         * @return tick of the next run, or of the last one if the timer is not
+         *         pending anymore
+         */
+        public long getDeadline() {
+            return deadline;
+        }
+
+        /**
+         * Cancels the timer, so that its action is not run anymore.
+         *
+         * @return whether the timer was pending
+         */
+        public boolean cancel() {
+            if (next == null) {
+                return false;
+            }
+
+            unlink(this);
+            size -= 1;
+
+            return true;
+        }
+    }
+}
@@ -5,6 +5,11 @@ package a11908284;
  */
 public class HealingSpell extends Spell {
 
+    /**
+     * The version of the serialized form.
+     */
+    private static final long serialVersionUID = 1L;
+
     /**
      * Whether health points (true) or mana points (false) are affected.
      */
@@ -24,6 +29,12 @@ public class HealingSpell extends Spell {
      */
     private final int amount;
 
+    /**
+     * The additional output of the healing spell, which is created on first use,
+     * as the healing never changes.
+     */
+    private transient String additionalOutput;
+
     /**
      * Create an healing spell instance.
      *
@@ -52,6 +63,33 @@ public class HealingSpell extends Spell {
         this.amount = amount;
     }
 
+    /**
+     * Returns whether health points (true) or mana points (false) are affected.
+     *
+     * @return whether health points (true) or mana points (false) are affected
+     */
+    boolean affectsHealth() {
+        return type;
+    }
+
+    /**
+     * Returns whether the amount is a percentage.
+     *
+     * @return whether the amount is a percentage
+     */
+    boolean isPercentage() {
+        return percentage;
+    }
+
+    /**
+     * Returns the healing of the healing spell.
+     *
+     * @return healing of the healing spell
+     */
+    int getAmount() {
+        return amount;
+    }
+
     /**
      * Performs the healing spell on the specified target.
      *
@@ -93,10 +131,16 @@ public class HealingSpell extends Spell {
      */
     @Override
     public String additionalOutputString() {
-        String typeString = type ? "HP" : "MP";
-        String percentageString = percentage ? " %" : "";
+        String output = additionalOutput;
+        if (output == null) {
+            String typeString = type ? "HP" : "MP";
+            String percentageString = percentage ? " %" : "";
+
+            output = "; +%d%s %s"
+                    .formatted(amount, percentageString, typeString);
+            additionalOutput = output;
+        }
 
-        return "; +%d%s %s"
-                .formatted(amount, percentageString, typeString);
+        return output;
     }
 }
\ No newline at end of file
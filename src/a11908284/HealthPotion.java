@@ -6,12 +6,23 @@ package a11908284;
  */
 public class HealthPotion extends Potion {
 
+    /**
+     * The version of the serialized form.
+     */
+    private static final long serialVersionUID = 1L;
+
     /**
      * The health points the potion will bring. This field must not be
      * negative.
      */
     private final int health;
 
+    /**
+     * The additional output of the health potion, which is created on first use,
+     * as the health never changes.
+     */
+    private transient String additionalOutput;
+
     /**
      * Creates an HealthPotion instance.
      *
@@ -33,6 +44,36 @@ public class HealthPotion extends Potion {
         this.health = health;
     }
 
+    /**
+     * Returns the health the potion will bring.
+     *
+     * @return health the potion will bring
+     */
+    int getHealth() {
+        return health;
+    }
+
+    /**
+     * Returns whether the specified health potion heals as much as this one.
+     *
+     * @param other health potion to compare with
+     * @return whether both potions bring the same health
+     */
+    @Override
+    boolean hasSameEffect(MagicItem other) {
+        return ((HealthPotion) other).health == health;
+    }
+
+    /**
+     * Returns a hash code of the health the potion brings.
+     *
+     * @return hash code of the effect
+     */
+    @Override
+    int effectHash() {
+        return health;
+    }
+
     /**
      * Uses the potion on the specified target.
      *
@@ -62,6 +103,12 @@ public class HealthPotion extends Potion {
      */
     @Override
     public String additionalOutputString() {
-        return "; +%d HP".formatted(health);
+        String output = additionalOutput;
+        if (output == null) {
+            output = "; +%d HP".formatted(health);
+            additionalOutput = output;
+        }
+
+        return output;
     }
 }
\ No newline at end of file
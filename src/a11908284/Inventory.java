@@ -0,0 +1,924 @@
+package a11908284;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.Serializable;
+import java.util.Arrays;
+
+/**
+ * The class that represents the inventory of a wizard as a multiset of items,
+ * in which interchangeable magic items are stored as a single stack with a
+ * count.
+ * <p>
+ * Magic items are interchangeable if they are of the same kind (see
+ * {@link MagicItem#sameKind}) and have the same remaining usages. An item
+ * joins the stack of its kind and usages at the time it is added. Its usages
+ * may be changed outside of the inventory in the meantime, so
+ * {@link Inventory#restack()} moves every item whose usages changed to the
+ * stack of its current usages before the stacks are looked at. The items
+ * that were added are tracked by identity, like in a set of items without
+ * stacks: the inventory contains exactly the items that were added and not
+ * removed again, and the same item is never counted twice. Other items are
+ * compared with {@link Object#equals}.
+ * <p>
+ * A stack can also hold items that were never handed to the inventory as
+ * objects of their own, see {@link Inventory#add(MagicItem, int)}. The
+ * inventory owns a copy of their kind and usages, which is never handed out,
+ * so a stack of thousands of identical potions takes the memory of one potion
+ * and one entry. Such an item becomes an object of its own, a copy, the first
+ * time it is picked by its position.
+ * <p>
+ * The stacks are stored in slots, which are looked up by an open addressing
+ * hash table, and the items that were added in a second hash table by
+ * identity. The slot of a stack does not
+ * change while the stack is not empty, and empty slots are reused. Every item
+ * has a position between 0 and {@link Inventory#size()} - 1, and the items of
+ * a stack have consecutive positions. A Fenwick tree over the counts of the
+ * slots finds the stack of a position in logarithmic time, so a random item is
+ * picked with the probability of its share of all items. This class is not
+ * thread-safe.
+ */
+final class Inventory implements Serializable {
+
+    /**
+     * The version of the serialized form.
+     */
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * The initial length of the slot arrays.
+     */
+    private static final int INITIAL_CAPACITY = 8;
+
+    /**
+     * An item of each stack in the slots 0 to {@link Inventory#slots} - 1, or
+     * null for an empty slot. The sample gives the kind of the stack. If the
+     * stack holds items that are no objects of their own, the sample is the
+     * copy owned by the inventory, otherwise it is one of the items.
+     */
+    private Tradeable[] samples;
+
+    /**
+     * The remaining usages of the items of each stack, as they were when the
+     * items were added or last restacked, in the same slots as in
+     * {@link Inventory#samples}.
+     */
+    private int[] usages;
+
+    /**
+     * The number of items of each stack, in the same slots as in
+     * {@link Inventory#samples}. The count of an empty slot is zero.
+     */
+    private int[] counts;
+
+    /**
+     * The items of each stack that are objects of their own, in the positions
+     * 0 to the claimed count of the stack minus one, in the same slots as in
+     * {@link Inventory#samples}. The arrays are kept for the next stack when
+     * a slot is emptied.
+     */
+    private Tradeable[][] members;
+
+    /**
+     * The number of items of each stack that are objects of their own, in the
+     * same slots as in {@link Inventory#samples}.
+     */
+    private int[] claimed;
+
+    /**
+     * The empty slots below {@link Inventory#slots}, in the positions 0 to
+     * {@link Inventory#freeSlots} - 1.
+     */
+    private int[] free;
+
+    /**
+     * The number of empty slots below {@link Inventory#slots}.
+     */
+    private int freeSlots;
+
+    /**
+     * The number of slots that have been used so far.
+     */
+    private int slots;
+
+    /**
+     * The number of stacks.
+     */
+    private int stacks;
+
+    /**
+     * The number of items in all stacks.
+     */
+    private int size;
+
+    /**
+     * The spread hash codes of the kinds and usages of the stacks, in the same
+     * slots as in {@link Inventory#samples}. The hash codes are rebuilt after
+     * deserialization.
+     */
+    private transient int[] hashes;
+
+    /**
+     * The hash table that maps the kinds and usages to the slot of their
+     * stack. Each entry holds the slot plus one, so that zero marks an empty
+     * entry. The length of the table is always a power of two and twice the
+     * length of the slot arrays.
+     */
+    private transient int[] table;
+
+    /**
+     * The Fenwick tree over the counts, in which the entry {@code i} holds the
+     * sum of the counts of the slots {@code i - (i & -i)} to {@code i - 1}.
+     * The entry 0 is unused.
+     */
+    private transient int[] tree;
+
+    /**
+     * The hash table of the items that are objects of their own, by identity.
+     * The length of the table is always a power of two and at least twice the
+     * number of these items.
+     */
+    private transient Tradeable[] claimedItems;
+
+    /**
+     * The slot of the stack of each item in {@link Inventory#claimedItems}.
+     */
+    private transient int[] claimedSlots;
+
+    /**
+     * The position of each item in {@link Inventory#claimedItems} among the
+     * members of its stack.
+     */
+    private transient int[] claimedPositions;
+
+    /**
+     * The number of items in {@link Inventory#claimedItems}.
+     */
+    private transient int claimedCount;
+
+    /**
+     * Creates an empty inventory.
+     */
+    Inventory() {
+        samples = new Tradeable[INITIAL_CAPACITY];
+        usages = new int[INITIAL_CAPACITY];
+        counts = new int[INITIAL_CAPACITY];
+        members = new Tradeable[INITIAL_CAPACITY][];
+        claimed = new int[INITIAL_CAPACITY];
+        free = new int[INITIAL_CAPACITY];
+        hashes = new int[INITIAL_CAPACITY];
+        table = new int[INITIAL_CAPACITY * 2];
+        tree = new int[INITIAL_CAPACITY + 1];
+        claimedItems = new Tradeable[INITIAL_CAPACITY * 2];
+        claimedSlots = new int[INITIAL_CAPACITY * 2];
+        claimedPositions = new int[INITIAL_CAPACITY * 2];
+    }
+
+    /**
+     * Returns the number of items in the inventory, counting every item of a
+     * stack.
+     *
+     * @return number of items
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * Returns whether the inventory does not contain any item.
+     *
+     * @return whether the inventory is empty
+     */
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Returns the number of stacks in the inventory.
+     *
+     * @return number of stacks
+     */
+    int stackCount() {
+        return stacks;
+    }
+
+    /**
+     * Returns the number of slots that have to be visited to find every
+     * stack. Some of these slots may be empty.
+     *
+     * @return upper bound of the slots of the stacks
+     */
+    int slotCount() {
+        return slots;
+    }
+
+    /**
+     * Returns an item of the kind of the stack in the specified slot, which
+     * must not be changed or handed out.
+     *
+     * @param slot slot of the stack (between 0 and slotCount() - 1)
+     * @return sample of the stack or null if the slot is empty
+     * @throws IndexOutOfBoundsException if the slot is out of range
+     */
+    Tradeable sampleAt(int slot) {
+        return samples[checkSlot(slot)];
+    }
+
+    /**
+     * Returns the number of items of the stack in the specified slot.
+     *
+     * @param slot slot of the stack (between 0 and slotCount() - 1)
+     * @return number of items of the stack or 0 if the slot is empty
+     * @throws IndexOutOfBoundsException if the slot is out of range
+     */
+    int countAt(int slot) {
+        return counts[checkSlot(slot)];
+    }
+
+    /**
+     * Returns the item at the specified position. An item of a stack that is
+     * not an object of its own yet becomes one, so the item can be used,
+     * traded and removed like any other item of the inventory.
+     *
+     * @param index position of the item (between 0 and size() - 1)
+     * @return item at the position
+     * @throws IndexOutOfBoundsException if the index is out of range
+     */
+    Tradeable get(int index) {
+        int slot = slotOf(index);
+        int offset = index - prefix(slot);
+
+        if (offset < claimed[slot]) {
+            return members[slot][offset];
+        }
+
+        if (!(samples[slot] instanceof MagicItem sample)) {
+            return samples[slot];
+        }
+
+        MagicItem item = sample.copy();
+        claim(slot, item);
+
+        return item;
+    }
+
+    /**
+     * Returns the item at the specified position without changing the
+     * inventory. An item of a stack that is not an object of its own is
+     * represented by the copy owned by the inventory, so the returned item
+     * must only be read.
+     *
+     * @param index position of the item (between 0 and size() - 1)
+     * @return item at the position or the owned copy of its kind and usages
+     * @throws IndexOutOfBoundsException if the index is out of range
+     */
+    Tradeable peek(int index) {
+        int slot = slotOf(index);
+        int offset = index - prefix(slot);
+
+        return offset < claimed[slot] ? members[slot][offset] : samples[slot];
+    }
+
+    /**
+     * Returns whether the inventory contains the item. A magic item is only
+     * contained if it was added itself.
+     *
+     * @param item the item to look for
+     * @return whether the item is contained
+     */
+    boolean contains(Tradeable item) {
+        if (item instanceof MagicItem) {
+            return findClaimed(item) >= 0;
+        }
+
+        return findEntry(item, 0, hash(item, 0)) >= 0;
+    }
+
+    /**
+     * Adds the item to the inventory. A magic item joins the stack of its kind
+     * and current usages, unless it is contained already. Any other item is
+     * only added if no equal item is contained.
+     *
+     * @param item the item to add
+     * @return whether the item was added
+     */
+    boolean add(Tradeable item) {
+        if (item instanceof MagicItem magicItem) {
+            return add(magicItem, 1);
+        }
+
+        if (size == Integer.MAX_VALUE) {
+            return false;
+        }
+
+        int hash = hash(item, 0);
+        if (findEntry(item, 0, hash) >= 0) {
+            return false;
+        }
+
+        int slot = newStack(item, 0, hash);
+        counts[slot] = 1;
+        adjust(slot, 1);
+        size += 1;
+
+        return true;
+    }
+
+    /**
+     * Adds the magic item and the specified number of items interchangeable
+     * with it minus one to the inventory, unless the item is contained
+     * already. Only the item itself is kept, the others are counted and stay
+     * in the stack without an object of their own until they are picked by
+     * their position.
+     *
+     * @param item  the item to add
+     * @param count the number of items to add (at least 1)
+     * @return whether the items were added
+     */
+    boolean add(MagicItem item, int count) {
+        if (size > Integer.MAX_VALUE - count || findClaimed(item) >= 0) {
+            return false;
+        }
+
+        // The usages may be changed concurrently, so they are read once and
+        // the copy is taken before the item is inspected any further
+        MagicItem copy = count > 1 ? item.copy() : null;
+        int current = copy != null ? copy.getUsages() : item.getUsages();
+        int hash = hash(item, current);
+        int entry = findEntry(item, current, hash);
+        int slot = entry >= 0 ? table[entry] - 1 : newStack(item, current, hash);
+
+        if (copy != null && (samples[slot] == item || counts[slot] == claimed[slot])) {
+            samples[slot] = copy;
+        }
+
+        claim(slot, item);
+        counts[slot] += count;
+        adjust(slot, count);
+        size += count;
+
+        return true;
+    }
+
+    /**
+     * Removes the item from the inventory. A magic item is only removed if it
+     * was added itself, whatever its usages are now.
+     *
+     * @param item the item to remove
+     * @return whether the item was removed
+     */
+    boolean remove(Tradeable item) {
+        int slot;
+
+        if (item instanceof MagicItem) {
+            int position = findClaimed(item);
+            if (position < 0) {
+                return false;
+            }
+
+            slot = claimedSlots[position];
+            unclaim(position);
+        } else {
+            int entry = findEntry(item, 0, hash(item, 0));
+            if (entry < 0) {
+                return false;
+            }
+
+            slot = table[entry] - 1;
+        }
+
+        counts[slot] -= 1;
+        adjust(slot, -1);
+        size -= 1;
+
+        if (counts[slot] == 0) {
+            freeStack(slot);
+        } else if (samples[slot] == item) {
+            // The stack only holds objects of its own, since the copy would
+            // be its sample otherwise
+            samples[slot] = members[slot][0];
+        }
+
+        return true;
+    }
+
+    /**
+     * Moves every item whose remaining usages changed since it was added or
+     * last restacked to the stack of its kind and current usages, so that the
+     * items of every stack have the usages of the stack again. The items that
+     * are no objects of their own never change, as they are only represented
+     * by the copy owned by the inventory.
+     */
+    void restack() {
+        for (int slot = 0; slot < slots; slot++) {
+            int position = 0;
+
+            while (position < claimed[slot]) {
+                // Removing the item moves the last member of the stack into
+                // its position, and adding it again may reuse the emptied slot
+                if (members[slot][position] instanceof MagicItem item && item.getUsages() != usages[slot]) {
+                    remove(item);
+                    add(item, 1);
+                } else {
+                    position += 1;
+                }
+            }
+        }
+    }
+
+    /**
+     * Removes all items from the inventory.
+     */
+    void clear() {
+        for (int slot = 0; slot < slots; slot++) {
+            if (members[slot] != null) {
+                Arrays.fill(members[slot], 0, claimed[slot], null);
+            }
+        }
+
+        Arrays.fill(samples, 0, slots, null);
+        Arrays.fill(counts, 0, slots, 0);
+        Arrays.fill(claimed, 0, slots, 0);
+        Arrays.fill(table, 0);
+        Arrays.fill(tree, 0);
+        Arrays.fill(claimedItems, null);
+        freeSlots = 0;
+        slots = 0;
+        stacks = 0;
+        size = 0;
+        claimedCount = 0;
+    }
+
+    /**
+     * Checks the specified slot.
+     *
+     * @param slot slot to check
+     * @return the slot
+     * @throws IndexOutOfBoundsException if the slot is out of range
+     */
+    private int checkSlot(int slot) {
+        if (slot < 0 || slot >= slots) {
+            throw new IndexOutOfBoundsException(slot);
+        }
+
+        return slot;
+    }
+
+    /**
+     * Returns the slot of the stack of the item at the specified position.
+     *
+     * @param index position of the item
+     * @return slot of the stack
+     * @throws IndexOutOfBoundsException if the index is out of range
+     */
+    private int slotOf(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException(index);
+        }
+
+        // Descend the implicit tree to the last slot whose preceding counts
+        // do not exceed the index, which is never an empty slot
+        int position = 0;
+        for (int step = Integer.highestOneBit(tree.length - 1); step > 0; step >>>= 1) {
+            int next = position + step;
+
+            if (next < tree.length && tree[next] <= index) {
+                position = next;
+                index -= tree[next];
+            }
+        }
+
+        return position;
+    }
+
+    /**
+     * Returns the number of items in the slots before the specified slot.
+     *
+     * @param slot slot of a stack
+     * @return sum of the counts of the preceding slots
+     */
+    private int prefix(int slot) {
+        int sum = 0;
+        for (int i = slot; i > 0; i -= i & -i) {
+            sum += tree[i];
+        }
+
+        return sum;
+    }
+
+    /**
+     * Adds the delta to the count of the specified slot in the Fenwick tree.
+     *
+     * @param slot  slot of the stack
+     * @param delta change of the count
+     */
+    private void adjust(int slot, int delta) {
+        for (int i = slot + 1; i < tree.length; i += i & -i) {
+            tree[i] += delta;
+        }
+    }
+
+    /**
+     * Creates an empty stack of the specified item and usages in an empty
+     * slot.
+     *
+     * @param item   sample of the stack
+     * @param usages remaining usages of the items of the stack
+     * @param hash   spread hash code of the kind and usages
+     * @return slot of the stack
+     */
+    private int newStack(Tradeable item, int usages, int hash) {
+        int slot;
+
+        if (freeSlots > 0) {
+            freeSlots -= 1;
+            slot = free[freeSlots];
+        } else {
+            if (slots == samples.length) {
+                grow();
+            }
+
+            slot = slots;
+            slots += 1;
+        }
+
+        samples[slot] = item;
+        this.usages[slot] = usages;
+        hashes[slot] = hash;
+        table[freeEntry(hash)] = slot + 1;
+        stacks += 1;
+
+        return slot;
+    }
+
+    /**
+     * Empties the stack in the specified slot, whose count is zero.
+     *
+     * @param slot slot of the stack
+     */
+    private void freeStack(int slot) {
+        deleteEntry(findSlotEntry(slot));
+        samples[slot] = null;
+        free[freeSlots] = slot;
+        freeSlots += 1;
+        stacks -= 1;
+    }
+
+    /**
+     * Records the magic item as an object of its own of the stack in the
+     * specified slot, without changing the count of the stack.
+     *
+     * @param slot slot of the stack
+     * @param item item to record
+     */
+    private void claim(int slot, Tradeable item) {
+        if ((claimedCount + 1) * 2 > claimedItems.length) {
+            rehashClaimed(claimedItems.length * 2);
+        }
+
+        Tradeable[] list = members[slot];
+        int position = claimed[slot];
+
+        if (list == null) {
+            list = new Tradeable[1];
+            members[slot] = list;
+        } else if (position == list.length) {
+            list = Arrays.copyOf(list, position * 2);
+            members[slot] = list;
+        }
+
+        list[position] = item;
+        claimed[slot] = position + 1;
+
+        int i = freeClaimed(item);
+        claimedItems[i] = item;
+        claimedSlots[i] = slot;
+        claimedPositions[i] = position;
+        claimedCount += 1;
+    }
+
+    /**
+     * Removes the item at the specified position of the identity table from
+     * the members of its stack, and moves the last member of the stack into
+     * its place.
+     *
+     * @param entry position of the item in the identity table
+     */
+    private void unclaim(int entry) {
+        int slot = claimedSlots[entry];
+        int position = claimedPositions[entry];
+        Tradeable[] list = members[slot];
+        int last = claimed[slot] - 1;
+
+        deleteClaimed(entry);
+
+        if (position != last) {
+            list[position] = list[last];
+            claimedPositions[findClaimed(list[position])] = position;
+        }
+
+        list[last] = null;
+        claimed[slot] = last;
+    }
+
+    /**
+     * Returns the position of the specified item in the identity table.
+     *
+     * @param item item to look for
+     * @return position of the item or -1 if it is not contained
+     */
+    private int findClaimed(Tradeable item) {
+        int mask = claimedItems.length - 1;
+
+        for (int i = identityHash(item) & mask; ; i = (i + 1) & mask) {
+            Tradeable candidate = claimedItems[i];
+
+            if (candidate == item) {
+                return i;
+            }
+
+            if (candidate == null) {
+                return -1;
+            }
+        }
+    }
+
+    /**
+     * Returns the position of the first empty entry of the identity table for
+     * the specified item.
+     *
+     * @param item item to insert
+     * @return position of an empty entry
+     */
+    private int freeClaimed(Tradeable item) {
+        int mask = claimedItems.length - 1;
+        int i = identityHash(item) & mask;
+
+        while (claimedItems[i] != null) {
+            i = (i + 1) & mask;
+        }
+
+        return i;
+    }
+
+    /**
+     * Clears the entry of the identity table at the specified position and
+     * shifts the following entries of the probe sequence back.
+     *
+     * @param entry position of the entry to clear
+     * @see Inventory#deleteEntry(int)
+     */
+    private void deleteClaimed(int entry) {
+        int mask = claimedItems.length - 1;
+        int hole = entry;
+
+        for (int i = (entry + 1) & mask; claimedItems[i] != null; i = (i + 1) & mask) {
+            int home = identityHash(claimedItems[i]) & mask;
+
+            boolean reachable = hole <= i
+                    ? home <= hole || home > i
+                    : home <= hole && home > i;
+
+            if (reachable) {
+                claimedItems[hole] = claimedItems[i];
+                claimedSlots[hole] = claimedSlots[i];
+                claimedPositions[hole] = claimedPositions[i];
+                hole = i;
+            }
+        }
+
+        claimedItems[hole] = null;
+        claimedCount -= 1;
+    }
+
+    /**
+     * Rebuilds the identity table with the specified length from the members
+     * of the stacks.
+     *
+     * @param length new length of the table (a power of two)
+     */
+    private void rehashClaimed(int length) {
+        claimedItems = new Tradeable[length];
+        claimedSlots = new int[length];
+        claimedPositions = new int[length];
+
+        for (int slot = 0; slot < slots; slot++) {
+            for (int position = 0; position < claimed[slot]; position++) {
+                Tradeable item = members[slot][position];
+                int i = freeClaimed(item);
+
+                claimedItems[i] = item;
+                claimedSlots[i] = slot;
+                claimedPositions[i] = position;
+            }
+        }
+    }
+
+    /**
+     * Returns the position of the hash table entry of the stack of the kind
+     * of the specified item with the specified usages.
+     *
+     * @param item   item to look for
+     * @param usages remaining usages of the item
+     * @param hash   spread hash code of the kind and usages
+     * @return position of the entry or -1 if there is no such stack
+     */
+    private int findEntry(Tradeable item, int usages, int hash) {
+        int mask = table.length - 1;
+
+        for (int i = hash & mask; ; i = (i + 1) & mask) {
+            int slot = table[i];
+
+            if (slot == 0) {
+                return -1;
+            }
+
+            if (hashes[slot - 1] == hash && this.usages[slot - 1] == usages
+                    && interchangeable(samples[slot - 1], item)) {
+                return i;
+            }
+        }
+    }
+
+    /**
+     * Returns the position of the hash table entry that refers to the
+     * specified slot.
+     *
+     * @param slot slot of the stack
+     * @return position of the entry
+     */
+    private int findSlotEntry(int slot) {
+        int mask = table.length - 1;
+        int i = hashes[slot] & mask;
+
+        while (table[i] != slot + 1) {
+            i = (i + 1) & mask;
+        }
+
+        return i;
+    }
+
+    /**
+     * Returns the position of the first empty hash table entry for the
+     * specified hash code.
+     *
+     * @param hash spread hash code of the stack to insert
+     * @return position of an empty entry
+     */
+    private int freeEntry(int hash) {
+        int mask = table.length - 1;
+        int i = hash & mask;
+
+        while (table[i] != 0) {
+            i = (i + 1) & mask;
+        }
+
+        return i;
+    }
+
+    /**
+     * Clears the hash table entry at the specified position and shifts the
+     * following entries of the probe sequence back, so that no tombstones are
+     * needed.
+     *
+     * @param entry position of the entry to clear
+     */
+    private void deleteEntry(int entry) {
+        int mask = table.length - 1;
+        int hole = entry;
+
+        for (int i = (entry + 1) & mask; table[i] != 0; i = (i + 1) & mask) {
+            int home = hashes[table[i] - 1] & mask;
+
+            // Move the entry into the hole, unless its home lies cyclically
+            // between the hole and its current position
+            boolean reachable = hole <= i
+                    ? home <= hole || home > i
+                    : home <= hole && home > i;
+
+            if (reachable) {
+                table[hole] = table[i];
+                hole = i;
+            }
+        }
+
+        table[hole] = 0;
+    }
+
+    /**
+     * Doubles the length of the slot arrays and the hash table.
+     */
+    private void grow() {
+        int length = samples.length * 2;
+
+        samples = Arrays.copyOf(samples, length);
+        usages = Arrays.copyOf(usages, length);
+        counts = Arrays.copyOf(counts, length);
+        members = Arrays.copyOf(members, length);
+        claimed = Arrays.copyOf(claimed, length);
+        free = Arrays.copyOf(free, length);
+        hashes = Arrays.copyOf(hashes, length);
+        rebuild();
+    }
+
+    /**
+     * Rebuilds the hash table and the Fenwick tree from the stacks, in linear
+     * time.
+     */
+    private void rebuild() {
+        table = new int[samples.length * 2];
+        tree = new int[samples.length + 1];
+
+        for (int slot = 0; slot < slots; slot++) {
+            if (samples[slot] != null) {
+                table[freeEntry(hashes[slot])] = slot + 1;
+            }
+        }
+
+        // Every entry passes its sum on to its parent, including the entries
+        // of empty slots, which may hold the sums of their children
+        for (int i = 1; i < tree.length; i++) {
+            tree[i] += counts[i - 1];
+
+            int parent = i + (i & -i);
+            if (parent < tree.length) {
+                tree[parent] += tree[i];
+            }
+        }
+    }
+
+    /**
+     * Restores the hash codes and both hash tables, which are not serialized,
+     * since hash codes of identity may differ in another run.
+     *
+     * @param input the stream to read from
+     * @throws IOException            if reading fails
+     * @throws ClassNotFoundException if a class of an item is unknown
+     */
+    private void readObject(ObjectInputStream input) throws IOException, ClassNotFoundException {
+        input.defaultReadObject();
+
+        hashes = new int[samples.length];
+        for (int slot = 0; slot < slots; slot++) {
+            if (samples[slot] != null) {
+                hashes[slot] = hash(samples[slot], usages[slot]);
+            }
+        }
+
+        rebuild();
+
+        int length = INITIAL_CAPACITY * 2;
+        for (int slot = 0; slot < slots; slot++) {
+            claimedCount += claimed[slot];
+        }
+
+        while (claimedCount * 2 > length) {
+            length *= 2;
+        }
+
+        rehashClaimed(length);
+    }
+
+    /**
+     * Returns whether both items belong to the same stack if they have the
+     * same usages.
+     *
+     * @param a the first item
+     * @param b the second item
+     * @return whether the items are of the same kind or equal
+     */
+    private static boolean interchangeable(Tradeable a, Tradeable b) {
+        if (a instanceof MagicItem first) {
+            return b instanceof MagicItem second && first.sameKind(second);
+        }
+
+        return !(b instanceof MagicItem) && a.equals(b);
+    }
+
+    /**
+     * Returns the spread hash code of the stack of the specified item with the
+     * specified usages.
+     *
+     * @param item   item to hash
+     * @param usages remaining usages of the item
+     * @return spread hash code
+     */
+    private static int hash(Tradeable item, int usages) {
+        int h = item instanceof MagicItem magicItem ? 31 * magicItem.kindHash() + usages : item.hashCode();
+        h *= 0x9E3779B9;
+
+        return h ^ (h >>> 16);
+    }
+
+    /**
+     * Returns the spread identity hash code of the specified item.
+     *
+     * @param item item to hash
+     * @return spread hash code
+     */
+    private static int identityHash(Tradeable item) {
+        int h = System.identityHashCode(item) * 0x9E3779B9;
+
+        return h ^ (h >>> 16);
+    }
+}
@@ -0,0 +1,160 @@
+package a11908284;
+
+import java.util.Set;
+
+/**
+ * The class that applies magic effects to a target and appends a record of
+ * every effect to an effect journal.
+ * <p>
+ * The records name the source and the spell that was set last by
+ * {@link JournalingEffectRealization#setSource(int, Spell)}, e.g.:
+ * <pre>
+ * journaling.setSource(casterId, fireball);
+ * caster.castSpell(fireball, journaling);
+ * </pre>
+ * The operand of a record is the amount or percentage of the effect. For
+ * protections one record is appended for every attacking spell, with the
+ * number of the attacking spell as the operand. Protection checks name the
+ * queried spell instead of the current one, and the operand is one if the
+ * target is protected and zero otherwise.
+ */
+public class JournalingEffectRealization implements MagicEffectRealization {
+
+    /**
+     * The target the effects are applied to.
+     */
+    private final MagicEffectRealization delegate;
+
+    /**
+     * The journal the records are appended to.
+     */
+    private final EffectJournal journal;
+
+    /**
+     * The identifier of the target in the journal.
+     */
+    private final int target;
+
+    /**
+     * The identifier of the current source in the journal.
+     */
+    private int source = EffectJournal.NONE;
+
+    /**
+     * The spell that currently causes the effects or null.
+     */
+    private Spell spell;
+
+    /**
+     * Creates a journaling effect realization instance.
+     *
+     * @param delegate the target the effects are applied to
+     * @param journal  the journal the records are appended to
+     * @param target   the identifier of the target in the journal
+     * @throws IllegalArgumentException if delegate or journal is null
+     */
+    public JournalingEffectRealization(MagicEffectRealization delegate, EffectJournal journal, int target) {
+        if (delegate == null) {
+            throw new IllegalArgumentException("The target of the effects must not be null.");
+        }
+
+        if (journal == null) {
+            throw new IllegalArgumentException("The journal of the effects must not be null.");
+        }
+
+        this.delegate = delegate;
+        this.journal = journal;
+        this.target = target;
+    }
+
+    /**
+     * Sets the source and the spell of the following effects.
+     *
+     * @param source the identifier of the source or {@link EffectJournal#NONE}
+     * @param spell  the spell that causes the effects or null
+     */
+    public void setSource(int source, Spell spell) {
+        this.source = source;
+        this.spell = spell;
+    }
+
+    @Override
+    public void takeDamage(int amount) {
+        delegate.takeDamage(amount);
+        journal.append(EffectJournal.Operation.TAKE_DAMAGE, target, source, spell, amount);
+    }
+
+    @Override
+    public void takeDamagePercent(int percentage) {
+        delegate.takeDamagePercent(percentage);
+        journal.append(EffectJournal.Operation.TAKE_DAMAGE_PERCENT, target, source, spell, percentage);
+    }
+
+    @Override
+    public void weakenMagic(int amount) {
+        delegate.weakenMagic(amount);
+        journal.append(EffectJournal.Operation.WEAKEN_MAGIC, target, source, spell, amount);
+    }
+
+    @Override
+    public void weakenMagicPercent(int percentage) {
+        delegate.weakenMagicPercent(percentage);
+        journal.append(EffectJournal.Operation.WEAKEN_MAGIC_PERCENT, target, source, spell, percentage);
+    }
+
+    @Override
+    public void heal(int amount) {
+        delegate.heal(amount);
+        journal.append(EffectJournal.Operation.HEAL, target, source, spell, amount);
+    }
+
+    @Override
+    public void healPercent(int percentage) {
+        delegate.healPercent(percentage);
+        journal.append(EffectJournal.Operation.HEAL_PERCENT, target, source, spell, percentage);
+    }
+
+    @Override
+    public void enforceMagic(int amount) {
+        delegate.enforceMagic(amount);
+        journal.append(EffectJournal.Operation.ENFORCE_MAGIC, target, source, spell, amount);
+    }
+
+    @Override
+    public void enforceMagicPercent(int percentage) {
+        delegate.enforceMagicPercent(percentage);
+        journal.append(EffectJournal.Operation.ENFORCE_MAGIC_PERCENT, target, source, spell, percentage);
+    }
+
+    @Override
+    public boolean isProtected(Spell spell) {
+        boolean isProtected = delegate.isProtected(spell);
+        journal.append(EffectJournal.Operation.IS_PROTECTED, target, source, spell, isProtected ? 1 : 0);
+
+        return isProtected;
+    }
+
+    @Override
+    public void setProtection(Set<AttackingSpell> attacks) {
+        delegate.setProtection(attacks);
+
+        for (AttackingSpell attack : attacks) {
+            journal.append(EffectJournal.Operation.SET_PROTECTION, target, source, spell, journal.spellNumber(attack));
+        }
+    }
+
+    @Override
+    public void removeProtection(Set<AttackingSpell> attacks) {
+        delegate.removeProtection(attacks);
+
+        for (AttackingSpell attack : attacks) {
+            journal.append(EffectJournal.Operation.REMOVE_PROTECTION, target, source, spell, journal.spellNumber(attack));
+        }
+    }
+
+    @Override
+    public void removeProtectionFrom(AttackingSpell attack) {
+        delegate.removeProtectionFrom(attack);
+        journal.append(EffectJournal.Operation.REMOVE_PROTECTION, target, source, spell, journal.spellNumber(attack));
+    }
+}
@@ -0,0 +1,313 @@
+package a11908284;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.ToIntFunction;
+
+/**
+ * The class that chooses which items a looter takes from a corpse, so that the
+ * total value of the taken items is as high as possible without exceeding the
+ * capacity of the looter.
+ * <p>
+ * Items with the same weight and value are interchangeable, so they are
+ * grouped and every group is split into pieces of 1, 2, 4, ... items. The
+ * pieces are then chosen with the dynamic programming solution of the 0/1
+ * knapsack problem over the capacity, which takes time and bits of memory in
+ * the order of the number of pieces times the capacity. The weights and the
+ * capacity are divided by the greatest common divisor of the weights first.
+ * If the table would still exceed {@link LootPlanner#TABLE_LIMIT} cells or
+ * {@link LootPlanner#CAPACITY_LIMIT} columns, the items are instead chosen
+ * greedily by their value per weight, which is at least half as valuable as
+ * the best choice.
+ */
+public final class LootPlanner {
+
+    /**
+     * The highest number of cells of the dynamic programming table, above
+     * which the items are chosen greedily.
+     */
+    static final long TABLE_LIMIT = 1L << 25;
+
+    /**
+     * The highest capacity of the dynamic programming table, above which the
+     * items are chosen greedily.
+     */
+    static final int CAPACITY_LIMIT = 1 << 20;
+
+    private LootPlanner() {
+    }
+
+    /**
+     * Chooses the items with the highest total value whose total weight does
+     * not exceed the specified capacity. Items without any value are never
+     * chosen, items without weight but with a value are always chosen.
+     *
+     * @param items    the items to choose from
+     * @param capacity the weight the looter can carry additionally
+     * @param value    the function that returns the value of an item
+     * @return chosen items in the order of the specified items
+     * @throws IllegalArgumentException if items or value is null, items
+     *                                  contains null or capacity is negative
+     */
+    public static List<Tradeable> choose(Collection<? extends Tradeable> items, int capacity, ToIntFunction<? super Tradeable> value) {
+        if (items == null) {
+            throw new IllegalArgumentException("The items to choose from must not be null.");
+        }
+
+        if (capacity < 0) {
+            throw new IllegalArgumentException("The capacity must not be negative.");
+        }
+
+        if (value == null) {
+            throw new IllegalArgumentException("The value function must not be null.");
+        }
+
+        // Only the items that are worth something and fit at all are candidates
+        List<Tradeable> candidates = new ArrayList<>();
+        long totalWeight = 0;
+        int unit = 0;
+        for (Tradeable item : items) {
+            if (item == null) {
+                throw new IllegalArgumentException("The items to choose from must not contain null.");
+            }
+
+            if (value.applyAsInt(item) > 0 && item.getWeight() <= capacity) {
+                candidates.add(item);
+                totalWeight += item.getWeight();
+                unit = gcd(unit, item.getWeight());
+            }
+        }
+
+        if (totalWeight <= capacity) {
+            return candidates;
+        }
+
+        List<Group> groups = group(candidates, value);
+        List<Piece> pieces = split(groups);
+
+        int columns = capacity / unit;
+        boolean[] chosen = columns <= CAPACITY_LIMIT && (long) pieces.size() * (columns + 1) <= TABLE_LIMIT
+                ? solve(pieces, columns, unit)
+                : approximate(pieces, capacity);
+
+        // The items of a group are interchangeable, so take them from the front
+        for (int i = 0; i < pieces.size(); i++) {
+            if (chosen[i]) {
+                pieces.get(i).group.taken += pieces.get(i).count;
+            }
+        }
+
+        Set<Tradeable> taken = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (Group group : groups) {
+            taken.addAll(group.items.subList(0, group.taken));
+        }
+
+        candidates.removeIf(item -> !taken.contains(item));
+        return candidates;
+    }
+
+    /**
+     * Groups the items with the same weight and value.
+     *
+     * @param items the items to group
+     * @param value the function that returns the value of an item
+     * @return groups in the order of their first item
+     */
+    private static List<Group> group(List<Tradeable> items, ToIntFunction<? super Tradeable> value) {
+        Map<Long, Group> groups = new HashMap<>();
+        List<Group> ordered = new ArrayList<>();
+
+        for (Tradeable item : items) {
+            int weight = item.getWeight();
+            int worth = value.applyAsInt(item);
+
+            Group group = groups.get((long) weight << 32 | worth);
+            if (group == null) {
+                group = new Group(weight, worth);
+                groups.put((long) weight << 32 | worth, group);
+                ordered.add(group);
+            }
+
+            group.items.add(item);
+        }
+
+        return ordered;
+    }
+
+    /**
+     * Splits every group into pieces of 1, 2, 4, ... items and a last piece
+     * with the remaining items, so that every number of items of the group
+     * is the sum of some of its pieces.
+     *
+     * @param groups the groups to split
+     * @return pieces of all groups
+     */
+    private static List<Piece> split(List<Group> groups) {
+        List<Piece> pieces = new ArrayList<>();
+
+        for (Group group : groups) {
+            int remaining = group.items.size();
+
+            for (int count = 1; remaining > 0; count *= 2) {
+                int size = Math.min(count, remaining);
+                pieces.add(new Piece(group, size));
+                remaining -= size;
+            }
+        }
+
+        return pieces;
+    }
+
+    /**
+     * Returns the greatest common divisor of two weights.
+     *
+     * @param a first weight
+     * @param b second weight
+     * @return greatest common divisor, or the other weight if one is zero
+     */
+    private static int gcd(int a, int b) {
+        while (b != 0) {
+            int rest = a % b;
+            a = b;
+            b = rest;
+        }
+
+        return a;
+    }
+
+    /**
+     * Chooses the pieces with the highest total value exactly.
+     *
+     * @param pieces   the pieces to choose from
+     * @param capacity the weight that can be carried, in units
+     * @param unit     the weight that divides the weights of all pieces
+     * @return whether each piece is chosen
+     */
+    private static boolean[] solve(List<Piece> pieces, int capacity, int unit) {
+        int width = capacity + 1;
+        long[] best = new long[width];
+        long[] taken = new long[(int) (((long) pieces.size() * width + 63) >>> 6)];
+
+        for (int i = 0; i < pieces.size(); i++) {
+            Piece piece = pieces.get(i);
+            long weight = piece.weight() / unit;
+            long worth = piece.value();
+            long row = (long) i * width;
+
+            for (int w = capacity; w >= weight; w--) {
+                long with = best[(int) (w - weight)] + worth;
+
+                if (with > best[w]) {
+                    best[w] = with;
+
+                    long bit = row + w;
+                    taken[(int) (bit >>> 6)] |= 1L << bit;
+                }
+            }
+        }
+
+        boolean[] chosen = new boolean[pieces.size()];
+        int w = capacity;
+        for (int i = pieces.size() - 1; i >= 0; i--) {
+            long bit = (long) i * width + w;
+
+            if ((taken[(int) (bit >>> 6)] & (1L << bit)) != 0) {
+                chosen[i] = true;
+                w -= (int) (pieces.get(i).weight() / unit);
+            }
+        }
+
+        return chosen;
+    }
+
+    /**
+     * Chooses the pieces greedily by their value per weight, or only the most
+     * valuable piece if that is worth more.
+     *
+     * @param pieces   the pieces to choose from
+     * @param capacity the weight that can be carried
+     * @return whether each piece is chosen
+     */
+    private static boolean[] approximate(List<Piece> pieces, int capacity) {
+        List<Integer> order = new ArrayList<>();
+        for (int i = 0; i < pieces.size(); i++) {
+            order.add(i);
+        }
+
+        // Compare value / weight as value * other weight to stay exact
+        order.sort(Comparator.comparing(pieces::get, (a, b) ->
+                Long.compare(b.value() * a.weight(), a.value() * b.weight())));
+
+        boolean[] chosen = new boolean[pieces.size()];
+        long remaining = capacity;
+        long total = 0;
+        for (int i : order) {
+            Piece piece = pieces.get(i);
+
+            if (piece.weight() <= remaining) {
+                chosen[i] = true;
+                remaining -= piece.weight();
+                total += piece.value();
+            }
+        }
+
+        int mostValuable = -1;
+        for (int i = 0; i < pieces.size(); i++) {
+            Piece piece = pieces.get(i);
+
+            if (piece.weight() <= capacity && (mostValuable < 0 || piece.value() > pieces.get(mostValuable).value())) {
+                mostValuable = i;
+            }
+        }
+
+        if (mostValuable >= 0 && pieces.get(mostValuable).value() > total) {
+            chosen = new boolean[pieces.size()];
+            chosen[mostValuable] = true;
+        }
+
+        return chosen;
+    }
+
+    /**
+     * The class for the items that have the same weight and value.
+     */
+    private static final class Group {
+        private final int weight;
+        private final int value;
+        private final List<Tradeable> items = new ArrayList<>();
+        private int taken;
+
+        Group(int weight, int value) {
+            this.weight = weight;
+            this.value = value;
+        }
+    }
+
+    /**
+     * The class for a number of items of a group that are chosen together.
+     */
+    private static final class Piece {
+        private final Group group;
+        private final int count;
+
+        Piece(Group group, int count) {
+            this.group = group;
+            this.count = count;
+        }
+
+        long weight() {
+            return (long) group.weight * count;
+        }
+
+        long value() {
+            return (long) group.value * count;
+        }
+    }
+}
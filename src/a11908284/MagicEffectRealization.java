@@ -178,4 +178,20 @@ public interface MagicEffectRealization {
 
         // Do nothing, we don't have a set of protections
     }
+
+    /**
+     * Removes the protection from the specified spell. This is the same as
+     * removing a set that only contains the spell, but implementations can
+     * avoid creating the set.
+     *
+     * @param attack spell the object loses protection for
+     * @throws IllegalArgumentException if the specified spell is null
+     */
+    default void removeProtectionFrom(AttackingSpell attack) {
+        if (attack == null) {
+            throw new IllegalArgumentException("Spell to remove protection for must not be null.");
+        }
+
+        removeProtection(Set.of(attack));
+    }
 }
\ No newline at end of file
@@ -1,10 +1,36 @@
 package a11908284;
 
+import java.io.Serializable;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+
 /**
  * The abstract class that represents items which can be traded, can have and
  * cause magic effects.
+ * <p>
+ * The remaining usages are updated with atomic compare-and-set operations, so
+ * an item that is shared by several threads never hands out a usage twice and
+ * never drops below zero usages, even while it is damaged.
  */
-public abstract class MagicItem implements Tradeable, MagicEffectRealization, MagicSource {
+public abstract class MagicItem implements Tradeable, MagicEffectRealization, MagicSource, Serializable, Cloneable {
+
+    /**
+     * The version of the serialized form.
+     */
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * The handle for atomic updates of {@link MagicItem#usages}.
+     */
+    private static final VarHandle USAGES;
+
+    static {
+        try {
+            USAGES = MethodHandles.lookup().findVarHandle(MagicItem.class, "usages", int.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
 
     /**
      * The name of the magic item. This field must not be null.
@@ -20,9 +46,15 @@ public abstract class MagicItem implements Tradeable, MagicEffectRealization, Ma
     private final int weight;
     /**
      * The number of usages that are remaining. This field must not be
-     * negative.
+     * negative. This field must only be updated by compare-and-set.
+     */
+    private volatile int usages;
+
+    /**
+     * The part of the string representation before the usages, which is
+     * created on first use.
      */
-    private int usages;
+    private transient String descriptionPrefix;
 
     /**
      * Creates a magic item instance.
@@ -57,6 +89,15 @@ public abstract class MagicItem implements Tradeable, MagicEffectRealization, Ma
         this.weight = weight;
     }
 
+    /**
+     * Returns the name of the magic item.
+     *
+     * @return name of the magic item
+     */
+    String getName() {
+        return name;
+    }
+
     /**
      * Returns the amount of remaining usages.
      *
@@ -72,15 +113,116 @@ public abstract class MagicItem implements Tradeable, MagicEffectRealization, Ma
      * @return whether the magic item can still be used
      */
     public boolean tryUsage() {
-        if (usages > 0) {
-            usages -= 1;
+        while (true) {
+            int current = usages;
 
-            return true;
-        } else {
-            return false;
+            if (current == 0) {
+                return false;
+            }
+
+            if (USAGES.compareAndSet(this, current, current - 1)) {
+                return true;
+            }
         }
     }
 
+    /**
+     * Claims the specified number of usages at once, if that many are left.
+     * Either all or none of the usages are claimed.
+     *
+     * @param count number of usages to claim
+     * @return whether the usages were claimed
+     * @throws IllegalArgumentException if count is negative
+     */
+    public boolean tryUsage(int count) {
+        if (count < 0) {
+            throw new IllegalArgumentException("The number of usages to claim must not be negative.");
+        }
+
+        while (true) {
+            int current = usages;
+
+            if (current < count) {
+                return false;
+            }
+
+            if (count == 0 || USAGES.compareAndSet(this, current, current - count)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Returns a copy of the magic item with the same remaining usages, whose
+     * usages are used up independently of this item. The other fields are
+     * immutable and shared with the copy.
+     *
+     * @return copy of the magic item
+     */
+    MagicItem copy() {
+        try {
+            return (MagicItem) clone();
+        } catch (CloneNotSupportedException e) {
+            throw new IllegalStateException("A magic item must be cloneable.", e);
+        }
+    }
+
+    /**
+     * Returns whether the specified item is of the same kind as this item, so
+     * that both are interchangeable in an inventory as long as they also have
+     * the same remaining usages. That is the case if both have the same type,
+     * name, price, weight and effect, which never change.
+     *
+     * @param other the item to compare with
+     * @return whether both items are of the same kind
+     */
+    final boolean sameKind(MagicItem other) {
+        return other == this || other != null
+                && other.getClass() == getClass()
+                && other.price == price
+                && other.weight == weight
+                && other.name.equals(name)
+                && hasSameEffect(other);
+    }
+
+    /**
+     * Returns a hash code that is equal for all items of the same kind.
+     *
+     * @return hash code of the kind of the item
+     * @see MagicItem#sameKind(MagicItem)
+     */
+    final int kindHash() {
+        int hash = getClass().getName().hashCode();
+        hash = 31 * hash + name.hashCode();
+        hash = 31 * hash + price;
+        hash = 31 * hash + weight;
+
+        return 31 * hash + effectHash();
+    }
+
+    /**
+     * Returns whether the specified item of the same class has the same effect
+     * as this item. Items whose class does not override this method are only
+     * of the same kind as themselves.
+     *
+     * @param other item of the same class
+     * @return whether both items have the same effect
+     */
+    boolean hasSameEffect(MagicItem other) {
+        return other == this;
+    }
+
+    /**
+     * Returns a hash code of the effect of the item, which must be equal for
+     * items that have the same effect.
+     *
+     * @return hash code of the effect
+     * @see MagicItem#hasSameEffect(MagicItem)
+     */
+    int effectHash() {
+        return System.identityHashCode(this);
+    }
+
     /**
      * Returns the suffix depending on the amount of remaining usages
      *
@@ -169,7 +311,14 @@ public abstract class MagicItem implements Tradeable, MagicEffectRealization, Ma
             throw new IllegalArgumentException("Relative amount of damage must not be below 0 or above 100.");
         }
 
-        usages = (int) (usages * (1 - percentage / 100.0));
+        while (true) {
+            int current = usages;
+            int damaged = (int) ((long) current * (100 - percentage) / 100);
+
+            if (damaged == current || USAGES.compareAndSet(this, current, damaged)) {
+                return;
+            }
+        }
     }
 
     /**
@@ -190,11 +339,39 @@ public abstract class MagicItem implements Tradeable, MagicEffectRealization, Ma
      */
     @Override
     public String toString() {
-        String currencyString = currencyString();
-        String usageString = usageString();
-        String additionalOutput = additionalOutputString();
+        return appendTo(new StringBuilder()).toString();
+    }
+
+    /**
+     * Appends the string representation of the magic item to the specified
+     * builder. The name, weight and price never change, so their part is
+     * created once. The usages, the usage suffix and the additional output
+     * are rendered on every call, through the methods a subclass may
+     * override.
+     *
+     * @param builder the builder to append to
+     * @return the builder
+     * @throws IllegalArgumentException if builder is null
+     * @see MagicItem#toString()
+     */
+    public StringBuilder appendTo(StringBuilder builder) {
+        if (builder == null) {
+            throw new IllegalArgumentException("The builder to append to must not be null.");
+        }
+
+        // Several threads may create the prefix at the same time, but they
+        // all create the same string
+        String prefix = descriptionPrefix;
+        if (prefix == null) {
+            prefix = "[%s; %d g; %d %s; ".formatted(name, weight, price, currencyString());
+            descriptionPrefix = prefix;
+        }
 
-        return "[%s; %d g; %d %s; %d %s%s]"
-                .formatted(name, weight, price, currencyString, usages, usageString, additionalOutput);
+        return builder.append(prefix)
+                .append(usages)
+                .append(' ')
+                .append(usageString())
+                .append(additionalOutputString())
+                .append(']');
     }
 }
\ No newline at end of file
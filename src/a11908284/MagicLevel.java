@@ -29,6 +29,21 @@ public enum MagicLevel {
         return manaPoints;
     }
 
+    /**
+     * Appends the asterisks of this level to the specified builder.
+     *
+     * @param builder the builder to append to
+     * @return the builder
+     * @throws IllegalArgumentException if builder is null
+     */
+    public StringBuilder appendTo(StringBuilder builder) {
+        if (builder == null) {
+            throw new IllegalArgumentException("The builder to append to must not be null.");
+        }
+
+        return builder.append(toString());
+    }
+
     @Override
     public String toString() {
         return switch (this) {
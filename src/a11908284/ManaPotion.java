@@ -6,11 +6,22 @@ package a11908284;
  */
 public class ManaPotion extends Potion {
 
+    /**
+     * The version of the serialized form.
+     */
+    private static final long serialVersionUID = 1L;
+
     /**
      * The mana points the potion will bring. This field must not be negative.
      */
     private final int mana;
 
+    /**
+     * The additional output of the mana potion, which is created on first use,
+     * as the mana never changes.
+     */
+    private transient String additionalOutput;
+
     /**
      * Creates an ManaPotion instance.
      *
@@ -32,6 +43,37 @@ public class ManaPotion extends Potion {
         this.mana = mana;
     }
 
+    /**
+     * Returns the mana the potion will bring.
+     *
+     * @return mana the potion will bring
+     */
+    int getMana() {
+        return mana;
+    }
+
+    /**
+     * Returns whether the specified mana potion restores as much mana as this
+     * one.
+     *
+     * @param other mana potion to compare with
+     * @return whether both potions bring the same mana
+     */
+    @Override
+    boolean hasSameEffect(MagicItem other) {
+        return ((ManaPotion) other).mana == mana;
+    }
+
+    /**
+     * Returns a hash code of the mana the potion brings.
+     *
+     * @return hash code of the effect
+     */
+    @Override
+    int effectHash() {
+        return mana;
+    }
+
     /**
      * Uses the potion on the specified target.
      *
@@ -60,6 +102,12 @@ public class ManaPotion extends Potion {
      */
     @Override
     public String additionalOutputString() {
-        return "; +%d MP".formatted(mana);
+        String output = additionalOutput;
+        if (output == null) {
+            output = "; +%d MP".formatted(mana);
+            additionalOutput = output;
+        }
+
+        return output;
     }
 }
\ No newline at end of file
@@ -0,0 +1,512 @@
+package a11908284;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The class that matches the buy and sell orders of many traders for items of
+ * the same kind.
+ * <p>
+ * A trader posts a bid to buy any item of a kind for at most a price, or an
+ * ask to sell a specific item of a kind for at least a price. A new order is
+ * matched against the orders of the other side with price-time priority: the
+ * best price is matched first, and orders of the same price are matched in the
+ * order they were posted. A match is executed at the price of the order that
+ * was already waiting, as a single trade of {@link TradeEngine}, so the
+ * traders pay, earn and move the item through their usual contract. An order
+ * that cannot be matched completely waits in the order book until it is
+ * matched or cancelled.
+ * <p>
+ * Whether the traders can still carry out an order is only checked when the
+ * order is matched. If the seller no longer has the item, the ask is removed;
+ * if the buyer cannot afford or carry the item, the bid is removed; if the
+ * trade fails otherwise, the waiting order is removed. A trader never trades
+ * with themselves: the waiting order of the same trader is cancelled instead.
+ * <p>
+ * The price levels of a book are kept in a sorted array of primitive prices,
+ * and the orders are kept in parallel arrays that link the orders of a price
+ * level in a queue and are reused once an order is done, so posting and
+ * matching orders does not allocate once the arrays are large enough. All
+ * methods are synchronized.
+ */
+public final class Marketplace {
+
+    /**
+     * The initial number of orders and price levels the arrays can hold.
+     */
+    private static final int INITIAL_CAPACITY = 16;
+
+    /**
+     * The index that stands for no order.
+     */
+    private static final int NONE = -1;
+
+    /**
+     * The order books, by item kind.
+     */
+    private final Map<String, Book> books = new HashMap<>();
+
+    /**
+     * The traders that posted the orders, indexed by the slot of the order.
+     */
+    private Trader[] traders = new Trader[INITIAL_CAPACITY];
+
+    /**
+     * The items of the asks, or null for bids, indexed by the slot of the
+     * order.
+     */
+    private Tradeable[] items = new Tradeable[INITIAL_CAPACITY];
+
+    /**
+     * The limit prices of the orders, indexed by the slot of the order.
+     */
+    private int[] prices = new int[INITIAL_CAPACITY];
+
+    /**
+     * The side the order waits on, or null if the order does not wait in a
+     * book, indexed by the slot of the order.
+     */
+    private Side[] sides = new Side[INITIAL_CAPACITY];
+
+    /**
+     * The previous order of the same price level, indexed by the slot of the
+     * order.
+     */
+    private int[] previous = new int[INITIAL_CAPACITY];
+
+    /**
+     * The next order of the same price level, or the next free slot, indexed
+     * by the slot of the order.
+     */
+    private int[] next = new int[INITIAL_CAPACITY];
+
+    /**
+     * The number of times each slot was freed, which tells an order apart
+     * from the later orders in the same slot.
+     */
+    private int[] generations = new int[INITIAL_CAPACITY];
+
+    /**
+     * The number of slots that were ever used.
+     */
+    private int used;
+
+    /**
+     * The first free slot, or {@link Marketplace#NONE} if all used slots are
+     * taken.
+     */
+    private int free = NONE;
+
+    /**
+     * The number of orders that were matched and executed.
+     */
+    private long matches;
+
+    /**
+     * Posts a bid to buy any item of the specified kind for at most the
+     * specified price, and matches it against the waiting asks.
+     *
+     * @param kind  the kind of item to buy
+     * @param buyer the trader that buys the item
+     * @param price the highest price the buyer pays
+     * @return identifier of the order, which stays open while the order waits
+     * @throws IllegalArgumentException if kind is null or empty, buyer is null
+     *                                  or price is negative
+     */
+    public synchronized long bid(String kind, Trader buyer, int price) {
+        if (buyer == null) {
+            throw new IllegalArgumentException("The buyer must not be null.");
+        }
+
+        return post(kind, buyer, null, price);
+    }
+
+    /**
+     * Posts an ask to sell the specified item of the specified kind for at
+     * least the specified price, and matches it against the waiting bids.
+     *
+     * @param kind   the kind of the item
+     * @param seller the trader that sells the item
+     * @param item   the item to sell
+     * @param price  the lowest price the seller accepts
+     * @return identifier of the order, which stays open while the order waits
+     * @throws IllegalArgumentException if kind is null or empty, seller or
+     *                                  item is null or price is negative
+     */
+    public synchronized long ask(String kind, Trader seller, Tradeable item, int price) {
+        if (seller == null) {
+            throw new IllegalArgumentException("The seller must not be null.");
+        }
+
+        if (item == null) {
+            throw new IllegalArgumentException("The item to sell must not be null.");
+        }
+
+        return post(kind, seller, item, price);
+    }
+
+    /**
+     * Cancels the specified order, if it still waits in its book.
+     *
+     * @param order identifier of the order
+     * @return whether the order was cancelled
+     */
+    public synchronized boolean cancel(long order) {
+        if (!isOpen(order)) {
+            return false;
+        }
+
+        int slot = (int) order;
+        sides[slot].remove(slot);
+        release(slot);
+
+        return true;
+    }
+
+    /**
+     * Returns whether the specified order still waits in its book.
+     *
+     * @param order identifier of the order
+     * @return whether the order is open
+     */
+    public synchronized boolean isOpen(long order) {
+        int slot = (int) order;
+
+        return slot >= 0 && slot < used && generations[slot] == (int) (order >>> 32) && sides[slot] != null;
+    }
+
+    /**
+     * Returns the highest price of the bids that wait for the specified kind.
+     *
+     * @param kind the kind of item
+     * @return highest bid or -1 if no bid waits
+     * @throws IllegalArgumentException if kind is null
+     */
+    public synchronized int bestBid(String kind) {
+        return best(kind, false);
+    }
+
+    /**
+     * Returns the lowest price of the asks that wait for the specified kind.
+     *
+     * @param kind the kind of item
+     * @return lowest ask or -1 if no ask waits
+     * @throws IllegalArgumentException if kind is null
+     */
+    public synchronized int bestAsk(String kind) {
+        return best(kind, true);
+    }
+
+    /**
+     * Returns the number of orders that were matched and executed.
+     *
+     * @return number of matches
+     */
+    public synchronized long getMatches() {
+        return matches;
+    }
+
+    /**
+     * Creates the order, matches it against the other side of its book and
+     * lets it wait if it was neither matched nor rejected.
+     *
+     * @param kind   the kind of item
+     * @param trader the trader that posts the order
+     * @param item   the item to sell, or null for a bid
+     * @param price  the limit price of the order
+     * @return identifier of the order
+     */
+    private long post(String kind, Trader trader, Tradeable item, int price) {
+        if (kind == null || kind.isBlank()) {
+            throw new IllegalArgumentException("The kind of item must not be null or empty.");
+        }
+
+        if (price < 0) {
+            throw new IllegalArgumentException("The price of an order must not be negative.");
+        }
+
+        Book book = books.get(kind);
+        if (book == null) {
+            book = new Book();
+            books.put(kind, book);
+        }
+
+        int slot = acquire(trader, item, price);
+        long order = (long) generations[slot] << 32 | slot;
+
+        boolean selling = item != null;
+        if (match(slot, selling ? book.bids : book.asks)) {
+            release(slot);
+        } else {
+            (selling ? book.asks : book.bids).add(slot);
+        }
+
+        return order;
+    }
+
+    /**
+     * Matches the new order against the waiting orders of the other side until
+     * it is executed, rejected or the prices no longer cross.
+     *
+     * @param slot     slot of the new order
+     * @param opposite the side the new order is matched against
+     * @return whether the new order is done, because it was executed or can
+     *         never be executed
+     */
+    private boolean match(int slot, Side opposite) {
+        boolean buying = opposite.selling;
+
+        while (opposite.count > 0) {
+            int bestPrice = opposite.bestPrice();
+            if (buying ? bestPrice > prices[slot] : bestPrice < prices[slot]) {
+                return false;
+            }
+
+            int waiting = opposite.heads[opposite.count - 1];
+            if (traders[waiting] == traders[slot]) {
+                opposite.remove(waiting);
+                release(waiting);
+                continue;
+            }
+
+            int ask = buying ? waiting : slot;
+            int bid = buying ? slot : waiting;
+            Outcome outcome = TradeEngine.sell(items[ask], traders[ask], traders[bid], bestPrice);
+
+            if (outcome == Outcome.PURCHASED) {
+                matches += 1;
+                opposite.remove(waiting);
+                release(waiting);
+
+                return true;
+            }
+
+            boolean rejected = buying
+                    ? outcome == Outcome.TRADE_NO_CAPACITY || outcome == Outcome.TRADE_CANNOT_AFFORD
+                    : outcome == Outcome.TRADE_ITEM_MISSING;
+            if (rejected) {
+                return true;
+            }
+
+            opposite.remove(waiting);
+            release(waiting);
+        }
+
+        return false;
+    }
+
+    /**
+     * Returns the best price of the specified side of a book.
+     *
+     * @param kind    the kind of item
+     * @param selling whether the asks (true) or bids (false) are looked up
+     * @return best price or -1 if no order waits
+     */
+    private int best(String kind, boolean selling) {
+        if (kind == null) {
+            throw new IllegalArgumentException("The kind of item must not be null.");
+        }
+
+        Book book = books.get(kind);
+        if (book == null) {
+            return -1;
+        }
+
+        Side side = selling ? book.asks : book.bids;
+
+        return side.count > 0 ? side.bestPrice() : -1;
+    }
+
+    /**
+     * Stores a new order in a free slot, growing the arrays if every slot is
+     * taken.
+     *
+     * @param trader the trader that posts the order
+     * @param item   the item to sell, or null for a bid
+     * @param price  the limit price of the order
+     * @return slot of the order
+     */
+    private int acquire(Trader trader, Tradeable item, int price) {
+        int slot = free;
+        if (slot != NONE) {
+            free = next[slot];
+        } else {
+            if (used == traders.length) {
+                int capacity = used * 2;
+
+                traders = Arrays.copyOf(traders, capacity);
+                items = Arrays.copyOf(items, capacity);
+                prices = Arrays.copyOf(prices, capacity);
+                sides = Arrays.copyOf(sides, capacity);
+                previous = Arrays.copyOf(previous, capacity);
+                next = Arrays.copyOf(next, capacity);
+                generations = Arrays.copyOf(generations, capacity);
+            }
+
+            slot = used;
+            used += 1;
+        }
+
+        traders[slot] = trader;
+        items[slot] = item;
+        prices[slot] = price;
+        sides[slot] = null;
+
+        return slot;
+    }
+
+    /**
+     * Frees the slot of an order that is done, so that the identifier of the
+     * order is no longer open.
+     *
+     * @param slot slot of the order
+     */
+    private void release(int slot) {
+        traders[slot] = null;
+        items[slot] = null;
+        sides[slot] = null;
+        generations[slot] += 1;
+
+        next[slot] = free;
+        free = slot;
+    }
+
+    /**
+     * The class that holds the bids and asks for one kind of item.
+     */
+    private final class Book {
+        private final Side bids = new Side(false);
+        private final Side asks = new Side(true);
+    }
+
+    /**
+     * The class that holds the price levels of one side of a book. The levels
+     * are sorted so that the best price is the last one, and every level is a
+     * queue of orders linked through {@link Marketplace#next} and
+     * {@link Marketplace#previous}.
+     */
+    private final class Side {
+
+        /**
+         * Whether this side holds the asks (true) or the bids (false).
+         */
+        private final boolean selling;
+
+        /**
+         * The sort keys of the price levels in ascending order. The key of a
+         * bid is its price and the key of an ask is its negated price, so the
+         * best price is always the last one.
+         */
+        private int[] keys = new int[INITIAL_CAPACITY];
+
+        /**
+         * The oldest order of each price level.
+         */
+        private int[] heads = new int[INITIAL_CAPACITY];
+
+        /**
+         * The newest order of each price level.
+         */
+        private int[] tails = new int[INITIAL_CAPACITY];
+
+        /**
+         * The number of price levels.
+         */
+        private int count;
+
+        Side(boolean selling) {
+            this.selling = selling;
+        }
+
+        /**
+         * Returns the best price of this side, which must not be empty.
+         *
+         * @return best price
+         */
+        int bestPrice() {
+            int key = keys[count - 1];
+
+            return selling ? -key : key;
+        }
+
+        /**
+         * Appends the order to the queue of its price level, creating the
+         * level if needed.
+         *
+         * @param slot slot of the order
+         */
+        void add(int slot) {
+            int key = selling ? -prices[slot] : prices[slot];
+            int level = Arrays.binarySearch(keys, 0, count, key);
+
+            if (level < 0) {
+                level = -level - 1;
+
+                if (count == keys.length) {
+                    keys = Arrays.copyOf(keys, count * 2);
+                    heads = Arrays.copyOf(heads, count * 2);
+                    tails = Arrays.copyOf(tails, count * 2);
+                }
+
+                System.arraycopy(keys, level, keys, level + 1, count - level);
+                System.arraycopy(heads, level, heads, level + 1, count - level);
+                System.arraycopy(tails, level, tails, level + 1, count - level);
+
+                keys[level] = key;
+                heads[level] = NONE;
+                tails[level] = NONE;
+                count += 1;
+            }
+
+            int tail = tails[level];
+            previous[slot] = tail;
+            next[slot] = NONE;
+            sides[slot] = this;
+
+            if (tail == NONE) {
+                heads[level] = slot;
+            } else {
+                next[tail] = slot;
+            }
+
+            tails[level] = slot;
+        }
+
+        /**
+         * Unlinks the order from the queue of its price level, removing the
+         * level if it becomes empty.
+         *
+         * @param slot slot of the order
+         */
+        void remove(int slot) {
+            int key = selling ? -prices[slot] : prices[slot];
+            int level = Arrays.binarySearch(keys, 0, count, key);
+
+            int before = previous[slot];
+            int after = next[slot];
+
+            if (before == NONE) {
+                heads[level] = after;
+            } else {
+                next[before] = after;
+            }
+
+            if (after == NONE) {
+                tails[level] = before;
+            } else {
+                previous[after] = before;
+            }
+
+            sides[slot] = null;
+
+            if (heads[level] == NONE) {
+                count -= 1;
+
+                System.arraycopy(keys, level + 1, keys, level, count - level);
+                System.arraycopy(heads, level + 1, heads, level, count - level);
+                System.arraycopy(tails, level + 1, tails, level, count - level);
+            }
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package a11908284;
+
+/**
+ * The class that holds the {@link MetricsSink} the game operations report their
+ * outcomes to.
+ * <p>
+ * By default the outcomes are reported to {@link MetricsSink#NONE}, so that a
+ * disabled sink only costs a read of a field and a call that the virtual
+ * machine can inline away.
+ */
+public final class Metrics {
+
+    /**
+     * The sink the outcomes are reported to. This field must not be null.
+     */
+    private static volatile MetricsSink sink = MetricsSink.NONE;
+
+    private Metrics() {
+    }
+
+    /**
+     * Returns the sink the outcomes are reported to.
+     *
+     * @return current sink
+     */
+    public static MetricsSink getSink() {
+        return sink;
+    }
+
+    /**
+     * Reports the outcomes to the specified sink from now on.
+     *
+     * @param sink the sink to report to, or {@link MetricsSink#NONE} to
+     *             disable the metrics
+     * @throws IllegalArgumentException if sink is null
+     */
+    public static void setSink(MetricsSink sink) {
+        if (sink == null) {
+            throw new IllegalArgumentException("The metrics sink must not be null.");
+        }
+
+        Metrics.sink = sink;
+    }
+
+    /**
+     * Reports the specified outcome to the current sink.
+     *
+     * @param outcome outcome of an operation
+     */
+    static void record(Outcome outcome) {
+        sink.record(outcome);
+    }
+}
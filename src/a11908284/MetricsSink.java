@@ -0,0 +1,21 @@
+package a11908284;
+
+/**
+ * The interface that receives the outcomes of the game operations. A sink is
+ * called on the thread that carried out the operation, often while traders
+ * are locked, so it must be thread-safe and must return quickly.
+ */
+public interface MetricsSink {
+    /**
+     * The sink that ignores every outcome.
+     */
+    MetricsSink NONE = outcome -> {
+    };
+
+    /**
+     * Records that an operation had the specified outcome.
+     *
+     * @param outcome outcome of the operation
+     */
+    void record(Outcome outcome);
+}
@@ -0,0 +1,128 @@
+package a11908284;
+
+/**
+ * The enumeration for the outcomes of the game operations that are reported to
+ * the {@link MetricsSink} of {@link Metrics}. Every outcome names the
+ * operation and either its success or the reason why it failed.
+ */
+public enum Outcome {
+    /**
+     * A spell had its effect on a target.
+     */
+    CAST_AFFECTED,
+
+    /**
+     * A target was protected from a spell, which used up the protection
+     * instead of having its effect.
+     */
+    CAST_BLOCKED,
+
+    /**
+     * A spell was not cast, because its source did not provide the mana.
+     */
+    CAST_NO_MANA,
+
+    /**
+     * A wizard could not cast a spell, because they are dead.
+     */
+    CAST_CASTER_DEAD,
+
+    /**
+     * A wizard could not cast a spell, because they do not know it.
+     */
+    CAST_UNKNOWN_SPELL,
+
+    /**
+     * A wizard provided the mana for a spell.
+     */
+    MANA_PROVIDED,
+
+    /**
+     * A wizard could not provide mana, because they are dead.
+     */
+    MANA_SOURCE_DEAD,
+
+    /**
+     * A wizard could not provide mana, because their magic level is too low.
+     */
+    MANA_LEVEL_TOO_LOW,
+
+    /**
+     * A wizard could not provide mana, because they do not have enough of it.
+     */
+    MANA_INSUFFICIENT,
+
+    /**
+     * An item was given away.
+     */
+    GIVEN,
+
+    /**
+     * An item was purchased.
+     */
+    PURCHASED,
+
+    /**
+     * An item could not be traded, because the giver or seller does not have
+     * it.
+     */
+    TRADE_ITEM_MISSING,
+
+    /**
+     * An item could not be traded, because the taker or buyer cannot carry
+     * it.
+     */
+    TRADE_NO_CAPACITY,
+
+    /**
+     * An item could not be purchased, because the buyer cannot afford it.
+     */
+    TRADE_CANNOT_AFFORD,
+
+    /**
+     * An item could not be traded, because a step of the trade failed and the
+     * trade was undone.
+     */
+    TRADE_UNDONE,
+
+    /**
+     * An item was stolen.
+     */
+    STOLEN,
+
+    /**
+     * Nothing was stolen, because the thief cannot steal.
+     */
+    STEAL_THIEF_UNABLE,
+
+    /**
+     * Nothing was stolen, because the victim does not have any item.
+     */
+    STEAL_NOTHING,
+
+    /**
+     * An item was taken from the victim, but the thief could not carry it.
+     */
+    STEAL_ITEM_LOST,
+
+    /**
+     * At least one item was looted.
+     */
+    LOOTED,
+
+    /**
+     * Nothing was looted, because the looter cannot loot.
+     */
+    LOOT_LOOTER_UNABLE,
+
+    /**
+     * Nothing was looted, because the victim is not lootable.
+     */
+    LOOT_NOT_LOOTABLE,
+
+    /**
+     * Nothing was looted, because the victim did not have any item the looter
+     * could carry.
+     */
+    LOOT_NOTHING
+}
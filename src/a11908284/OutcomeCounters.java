@@ -0,0 +1,87 @@
+package a11908284;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The class that counts the outcomes of the game operations.
+ * <p>
+ * Every outcome has its own striped {@link LongAdder}, so threads that
+ * report outcomes at the same time do not contend on a single counter. The
+ * counts are only exact while no outcome is reported concurrently.
+ */
+public final class OutcomeCounters implements MetricsSink {
+
+    /**
+     * The counters, indexed by the ordinal of their outcome.
+     */
+    private final LongAdder[] counters = new LongAdder[Outcome.values().length];
+
+    /**
+     * Creates counters that all start at zero.
+     */
+    public OutcomeCounters() {
+        for (int i = 0; i < counters.length; i++) {
+            counters[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * Counts the specified outcome.
+     *
+     * @param outcome outcome of an operation
+     * @throws IllegalArgumentException if outcome is null
+     */
+    @Override
+    public void record(Outcome outcome) {
+        if (outcome == null) {
+            throw new IllegalArgumentException("The outcome to record must not be null.");
+        }
+
+        counters[outcome.ordinal()].increment();
+    }
+
+    /**
+     * Returns how often the specified outcome was counted.
+     *
+     * @param outcome the outcome to look up
+     * @return count of the outcome
+     * @throws IllegalArgumentException if outcome is null
+     */
+    public long count(Outcome outcome) {
+        if (outcome == null) {
+            throw new IllegalArgumentException("The outcome to look up must not be null.");
+        }
+
+        return counters[outcome.ordinal()].sum();
+    }
+
+    /**
+     * Returns the counts of all outcomes that were counted at least once.
+     *
+     * @return counts by outcome
+     */
+    public Map<Outcome, Long> snapshot() {
+        Map<Outcome, Long> counts = new EnumMap<>(Outcome.class);
+
+        for (Outcome outcome : Outcome.values()) {
+            long count = counters[outcome.ordinal()].sum();
+
+            if (count > 0) {
+                counts.put(outcome, count);
+            }
+        }
+
+        return counts;
+    }
+
+    /**
+     * Resets all counts to zero.
+     */
+    public void reset() {
+        for (LongAdder counter : counters) {
+            counter.reset();
+        }
+    }
+}
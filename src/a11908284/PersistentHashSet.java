@@ -0,0 +1,491 @@
+package a11908284;
+
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * The class that represents an immutable set as a hash array mapped trie.
+ * <p>
+ * Every level of the trie consumes five bits of the hash code of an element,
+ * so a node has at most 32 entries, and a bitmap records which of them are
+ * present. Adding or removing an element copies only the nodes on the path to
+ * the element and returns a new set that shares all other nodes with the old
+ * one, so both operations take time and memory in the order of the depth of
+ * the trie. Elements whose hash codes are equal end up in the same collision
+ * node. This set does not permit null elements, and the mutating methods of
+ * {@link java.util.Set} throw an {@link UnsupportedOperationException}.
+ *
+ * @param <E> the type of the elements in this set
+ */
+public final class PersistentHashSet<E> extends AbstractSet<E> {
+
+    /**
+     * The number of hash bits consumed on every level.
+     */
+    private static final int BITS = 5;
+
+    /**
+     * The mask for the hash bits of one level.
+     */
+    private static final int MASK = (1 << BITS) - 1;
+
+    /**
+     * The set that does not contain any element.
+     */
+    private static final PersistentHashSet<?> EMPTY = new PersistentHashSet<>(BitmapNode.EMPTY, 0);
+
+    /**
+     * The root node of the trie. This field must not be null.
+     */
+    private final Node root;
+
+    /**
+     * The number of elements in the set.
+     */
+    private final int size;
+
+    private PersistentHashSet(Node root, int size) {
+        this.root = root;
+        this.size = size;
+    }
+
+    /**
+     * Returns the empty set.
+     *
+     * @param <E> the type of the elements
+     * @return empty set
+     */
+    @SuppressWarnings("unchecked")
+    public static <E> PersistentHashSet<E> empty() {
+        return (PersistentHashSet<E>) EMPTY;
+    }
+
+    /**
+     * Returns a set that contains the specified elements.
+     *
+     * @param elements the elements of the set
+     * @param <E>      the type of the elements
+     * @return set of the elements
+     * @throws IllegalArgumentException if elements is or contains null
+     */
+    public static <E> PersistentHashSet<E> copyOf(Iterable<? extends E> elements) {
+        if (elements == null) {
+            throw new IllegalArgumentException("The elements to copy must not be null.");
+        }
+
+        PersistentHashSet<E> set = empty();
+        for (E element : elements) {
+            set = set.plus(element);
+        }
+
+        return set;
+    }
+
+    /**
+     * Returns a set that contains the elements of this set and the specified
+     * element.
+     *
+     * @param element element to add
+     * @return this set if it already contains the element, otherwise a new set
+     * @throws IllegalArgumentException if element is null
+     */
+    public PersistentHashSet<E> plus(E element) {
+        if (element == null) {
+            throw new IllegalArgumentException("The element to add must not be null.");
+        }
+
+        Node added = root.plus(element, element.hashCode(), 0);
+
+        return added == root ? this : new PersistentHashSet<>(added, size + 1);
+    }
+
+    /**
+     * Returns a set that contains the elements of this set except the
+     * specified element.
+     *
+     * @param element element to remove
+     * @return this set if it does not contain the element, otherwise a new set
+     */
+    public PersistentHashSet<E> minus(Object element) {
+        if (element == null) {
+            return this;
+        }
+
+        Node removed = root.minus(element, element.hashCode(), 0);
+        if (removed == root) {
+            return this;
+        }
+
+        return new PersistentHashSet<>(removed == null ? BitmapNode.EMPTY : removed, size - 1);
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        return o != null && root.contains(o, o.hashCode(), 0);
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public Iterator<E> iterator() {
+        return new Iterator<>() {
+            // The nodes on the path to the next element and the position of
+            // the next entry in each of them
+            private final Object[][] nodes = new Object[Integer.SIZE / BITS + 2][];
+            private final int[] positions = new int[nodes.length];
+            private int depth;
+            private Object next;
+
+            {
+                nodes[0] = root.entries();
+                advance();
+            }
+
+            @Override
+            public boolean hasNext() {
+                return next != null;
+            }
+
+            @Override
+            @SuppressWarnings("unchecked")
+            public E next() {
+                if (next == null) {
+                    throw new NoSuchElementException();
+                }
+
+                Object element = next;
+                advance();
+
+                return (E) element;
+            }
+
+            /**
+             * Moves on to the next element of the trie, descending into the
+             * nodes and going back up once a node is exhausted.
+             */
+            private void advance() {
+                while (depth >= 0) {
+                    Object[] entries = nodes[depth];
+
+                    if (positions[depth] == entries.length) {
+                        depth -= 1;
+                        continue;
+                    }
+
+                    Object entry = entries[positions[depth]++];
+                    if (entry instanceof Node node) {
+                        depth += 1;
+                        nodes[depth] = node.entries();
+                        positions[depth] = 0;
+                    } else {
+                        next = entry;
+                        return;
+                    }
+                }
+
+                next = null;
+            }
+        };
+    }
+
+    /**
+     * Returns the position of the hash bits of a level in a bitmap.
+     *
+     * @param hash  the hash code of an element
+     * @param shift the number of hash bits consumed by the levels above
+     * @return bit of the entry in the bitmap
+     */
+    private static int bit(int hash, int shift) {
+        return 1 << ((hash >>> shift) & MASK);
+    }
+
+    /**
+     * The base class of the nodes of the trie. An entry of a node is either an
+     * element or a child node.
+     */
+    private abstract static class Node {
+
+        /**
+         * Returns whether the node contains the element.
+         *
+         * @param element the element to look for
+         * @param hash    the hash code of the element
+         * @param shift   the number of hash bits consumed by the levels above
+         * @return whether the element is contained
+         */
+        abstract boolean contains(Object element, int hash, int shift);
+
+        /**
+         * Returns a node that contains the entries of this node and the
+         * element.
+         *
+         * @param element the element to add
+         * @param hash    the hash code of the element
+         * @param shift   the number of hash bits consumed by the levels above
+         * @return this node if it contains the element, otherwise a new node
+         */
+        abstract Node plus(Object element, int hash, int shift);
+
+        /**
+         * Returns a node that contains the entries of this node except the
+         * element.
+         *
+         * @param element the element to remove
+         * @param hash    the hash code of the element
+         * @param shift   the number of hash bits consumed by the levels above
+         * @return this node if it does not contain the element, null if the
+         *         node becomes empty, otherwise a new node
+         */
+        abstract Node minus(Object element, int hash, int shift);
+
+        /**
+         * Returns the entries of the node, which must not be modified.
+         *
+         * @return entries of the node
+         */
+        abstract Object[] entries();
+    }
+
+    /**
+     * The node that stores its entries densely in the order of the hash bits
+     * of its level, with a bitmap that tells which of the 32 possible entries
+     * are present.
+     */
+    private static final class BitmapNode extends Node {
+        private static final BitmapNode EMPTY = new BitmapNode(0, new Object[0]);
+
+        private final int bitmap;
+        private final Object[] entries;
+
+        BitmapNode(int bitmap, Object[] entries) {
+            this.bitmap = bitmap;
+            this.entries = entries;
+        }
+
+        /**
+         * Returns the position of the entry of the bit in the entries.
+         *
+         * @param bit bit of the entry
+         * @return index of the entry
+         */
+        private int index(int bit) {
+            return Integer.bitCount(bitmap & (bit - 1));
+        }
+
+        @Override
+        boolean contains(Object element, int hash, int shift) {
+            int bit = bit(hash, shift);
+            if ((bitmap & bit) == 0) {
+                return false;
+            }
+
+            Object entry = entries[index(bit)];
+            if (entry instanceof Node node) {
+                return node.contains(element, hash, shift + BITS);
+            }
+
+            return entry.equals(element);
+        }
+
+        @Override
+        Node plus(Object element, int hash, int shift) {
+            int bit = bit(hash, shift);
+            int index = index(bit);
+
+            if ((bitmap & bit) == 0) {
+                Object[] grown = new Object[entries.length + 1];
+                System.arraycopy(entries, 0, grown, 0, index);
+                grown[index] = element;
+                System.arraycopy(entries, index, grown, index + 1, entries.length - index);
+
+                return new BitmapNode(bitmap | bit, grown);
+            }
+
+            Object entry = entries[index];
+            Node child;
+            if (entry instanceof Node node) {
+                child = node.plus(element, hash, shift + BITS);
+                if (child == node) {
+                    return this;
+                }
+            } else {
+                if (entry.equals(element)) {
+                    return this;
+                }
+
+                child = pair(entry, entry.hashCode(), element, hash, shift + BITS);
+            }
+
+            Object[] copy = entries.clone();
+            copy[index] = child;
+
+            return new BitmapNode(bitmap, copy);
+        }
+
+        @Override
+        Node minus(Object element, int hash, int shift) {
+            int bit = bit(hash, shift);
+            if ((bitmap & bit) == 0) {
+                return this;
+            }
+
+            int index = index(bit);
+            Object entry = entries[index];
+
+            if (entry instanceof Node node) {
+                Node child = node.minus(element, hash, shift + BITS);
+                if (child == node) {
+                    return this;
+                }
+
+                Object[] copy = entries.clone();
+                // A child that is left with a single element is replaced by it
+                Object[] childEntries = child == null ? null : child.entries();
+                if (childEntries != null && childEntries.length == 1 && !(childEntries[0] instanceof Node)) {
+                    copy[index] = childEntries[0];
+                } else if (child == null) {
+                    return without(bit, index);
+                } else {
+                    copy[index] = child;
+                }
+
+                return new BitmapNode(bitmap, copy);
+            }
+
+            if (!entry.equals(element)) {
+                return this;
+            }
+
+            return without(bit, index);
+        }
+
+        /**
+         * Returns a node without the entry of the bit.
+         *
+         * @param bit   bit of the entry
+         * @param index index of the entry
+         * @return node without the entry, or null if it would be empty
+         */
+        private Node without(int bit, int index) {
+            if (entries.length == 1) {
+                return null;
+            }
+
+            Object[] shrunk = new Object[entries.length - 1];
+            System.arraycopy(entries, 0, shrunk, 0, index);
+            System.arraycopy(entries, index + 1, shrunk, index, shrunk.length - index);
+
+            return new BitmapNode(bitmap & ~bit, shrunk);
+        }
+
+        @Override
+        Object[] entries() {
+            return entries;
+        }
+
+        /**
+         * Returns a node that contains the two different elements.
+         *
+         * @param first       the first element
+         * @param firstHash   the hash code of the first element
+         * @param second      the second element
+         * @param secondHash  the hash code of the second element
+         * @param shift       the number of hash bits consumed by the levels
+         *                    above
+         * @return node of both elements
+         */
+        private static Node pair(Object first, int firstHash, Object second, int secondHash, int shift) {
+            if (firstHash == secondHash) {
+                return new CollisionNode(firstHash, new Object[]{first, second});
+            }
+
+            int firstBit = bit(firstHash, shift);
+            int secondBit = bit(secondHash, shift);
+
+            if (firstBit == secondBit) {
+                return new BitmapNode(firstBit, new Object[]{pair(first, firstHash, second, secondHash, shift + BITS)});
+            }
+
+            Object[] entries = Integer.compareUnsigned(firstBit, secondBit) < 0 ? new Object[]{first, second} : new Object[]{second, first};
+
+            return new BitmapNode(firstBit | secondBit, entries);
+        }
+    }
+
+    /**
+     * The node that stores the elements that have the same hash code.
+     */
+    private static final class CollisionNode extends Node {
+        private final int hash;
+        private final Object[] elements;
+
+        CollisionNode(int hash, Object[] elements) {
+            this.hash = hash;
+            this.elements = elements;
+        }
+
+        /**
+         * Returns the position of the element in this node.
+         *
+         * @param element the element to look for
+         * @return index of the element or -1 if it is not contained
+         */
+        private int indexOf(Object element) {
+            for (int i = 0; i < elements.length; i++) {
+                if (elements[i].equals(element)) {
+                    return i;
+                }
+            }
+
+            return -1;
+        }
+
+        @Override
+        boolean contains(Object element, int hash, int shift) {
+            return this.hash == hash && indexOf(element) >= 0;
+        }
+
+        @Override
+        Node plus(Object element, int hash, int shift) {
+            if (this.hash != hash) {
+                // Push this node down below a bitmap node of its own level
+                BitmapNode parent = new BitmapNode(bit(this.hash, shift), new Object[]{this});
+
+                return parent.plus(element, hash, shift);
+            }
+
+            if (indexOf(element) >= 0) {
+                return this;
+            }
+
+            Object[] grown = Arrays.copyOf(elements, elements.length + 1);
+            grown[elements.length] = element;
+
+            return new CollisionNode(hash, grown);
+        }
+
+        @Override
+        Node minus(Object element, int hash, int shift) {
+            int index = this.hash == hash ? indexOf(element) : -1;
+            if (index < 0) {
+                return this;
+            }
+
+            Object[] shrunk = new Object[elements.length - 1];
+            System.arraycopy(elements, 0, shrunk, 0, index);
+            System.arraycopy(elements, index + 1, shrunk, index, shrunk.length - index);
+
+            return new CollisionNode(hash, shrunk);
+        }
+
+        @Override
+        Object[] entries() {
+            return elements;
+        }
+    }
+}
@@ -0,0 +1,981 @@
+package a11908284;
+
+import java.util.Set;
+
+/**
+ * The class that represents an immutable version of the state of a wizard, for
+ * evaluating hypothetical sequences of actions without copying the wizard.
+ * <p>
+ * Every operation returns a new version and leaves the old one untouched. The
+ * health points, mana points and money are plain values of a version, and the
+ * known spells, protections and inventory are {@link PersistentHashSet}s, so
+ * a new version shares all unchanged sets with the old one and a changed set
+ * shares all but the path to the changed element. An operation that fails or
+ * has no effect returns the same version.
+ * <p>
+ * Spells, items and trades act on the interfaces of the game, therefore a
+ * {@link Branch} follows a line of versions and implements
+ * {@link MagicSource}, {@link MagicEffectRealization} and {@link Trader} by
+ * moving on to the next version on every operation. Forking a branch is
+ * constant time, since both branches start from the same version.
+ * <p>
+ * The items are shared by a version with the wizard it was taken from and with
+ * the versions that follow it, so that they can be traded by reference. No
+ * version ever changes an item: a branch that uses an item replaces it by a
+ * used copy, so the wizard and every other version keep the item unchanged.
+ */
+public final class PersistentWizard {
+
+    /**
+     * The name of the wizard. This field must not be null or empty.
+     */
+    private final String name;
+
+    /**
+     * The magic level the wizard is on. This field must not be null.
+     */
+    private final MagicLevel level;
+
+    /**
+     * The base level of health points. This field must not be negative.
+     */
+    private final int healthBase;
+
+    /**
+     * The health points of the wizard. This field must not be negative.
+     */
+    private final int health;
+
+    /**
+     * The base level of mana points. This field must not be negative.
+     */
+    private final int manaBase;
+
+    /**
+     * The mana points of the wizard. This field must not be negative.
+     */
+    private final int mana;
+
+    /**
+     * The money the wizard has. This field must not be negative.
+     */
+    private final int money;
+
+    /**
+     * The spells the wizard can use. This field must not be null.
+     */
+    private final PersistentHashSet<Spell> knownSpells;
+
+    /**
+     * The spells the wizard is protected from. This field must not be null.
+     */
+    private final PersistentHashSet<AttackingSpell> protectedFrom;
+
+    /**
+     * The capacity of the wizard's inventory. This field must not be negative.
+     */
+    private final int carryingCapacity;
+
+    /**
+     * The inventory of the wizard. This field must not be null.
+     */
+    private final PersistentHashSet<Tradeable> inventory;
+
+    /**
+     * The total weight of all items in the {@link PersistentWizard#inventory}.
+     */
+    private final int inventoryWeight;
+
+    private PersistentWizard(
+            String name,
+            MagicLevel level,
+            int healthBase,
+            int health,
+            int manaBase,
+            int mana,
+            int money,
+            PersistentHashSet<Spell> knownSpells,
+            PersistentHashSet<AttackingSpell> protectedFrom,
+            int carryingCapacity,
+            PersistentHashSet<Tradeable> inventory,
+            int inventoryWeight
+    ) {
+        this.name = name;
+        this.level = level;
+        this.healthBase = healthBase;
+        this.health = health;
+        this.manaBase = manaBase;
+        this.mana = mana;
+        this.money = money;
+        this.knownSpells = knownSpells;
+        this.protectedFrom = protectedFrom;
+        this.carryingCapacity = carryingCapacity;
+        this.inventory = inventory;
+        this.inventoryWeight = inventoryWeight;
+    }
+
+    /**
+     * Returns a version with the current state of the specified wizard.
+     *
+     * @param wizard the wizard to take the state from
+     * @return version of the wizard
+     * @throws IllegalArgumentException if wizard is null
+     */
+    public static PersistentWizard of(Wizard wizard) {
+        if (wizard == null) {
+            throw new IllegalArgumentException("The wizard must not be null.");
+        }
+
+        PersistentHashSet<Spell> knownSpells = PersistentHashSet.empty();
+        for (int i = 0; i < wizard.spellCount(); i++) {
+            knownSpells = knownSpells.plus(wizard.spellAt(i));
+        }
+
+        PersistentHashSet<Tradeable> inventory = PersistentHashSet.empty();
+        int inventoryWeight = 0;
+        for (int i = 0; i < wizard.itemCount(); i++) {
+            // The items of a stack are single items of their own in a version
+            Tradeable item = wizard.itemAt(i);
+            inventory = inventory.plus(item);
+            inventoryWeight += item.getWeight();
+        }
+
+        return new PersistentWizard(wizard.getName(), wizard.getLevel(), wizard.getHealthBase(), wizard.getHealth(),
+                wizard.getManaBase(), wizard.getMana(), wizard.getMoney(), knownSpells,
+                PersistentHashSet.copyOf(wizard.getProtections()), wizard.getCarryingCapacity(), inventory,
+                inventoryWeight);
+    }
+
+    /**
+     * Returns a new branch that starts at this version.
+     *
+     * @return branch of this version
+     */
+    public Branch branch() {
+        return new Branch(this);
+    }
+
+    /**
+     * Returns a version with the specified points and money and the sets of
+     * this version.
+     *
+     * @param health health points of the version
+     * @param mana   mana points of the version
+     * @param money  money of the version
+     * @return this version if nothing changed, otherwise a new version
+     */
+    private PersistentWizard with(int health, int mana, int money) {
+        if (health == this.health && mana == this.mana && money == this.money) {
+            return this;
+        }
+
+        return new PersistentWizard(name, level, healthBase, health, manaBase, mana, money,
+                knownSpells, protectedFrom, carryingCapacity, inventory, inventoryWeight);
+    }
+
+    /**
+     * Returns a version with the specified sets and the points and money of
+     * this version.
+     *
+     * @param knownSpells     known spells of the version
+     * @param protectedFrom   protections of the version
+     * @param inventory       inventory of the version
+     * @param inventoryWeight total weight of the inventory
+     * @return this version if nothing changed, otherwise a new version
+     */
+    private PersistentWizard with(
+            PersistentHashSet<Spell> knownSpells,
+            PersistentHashSet<AttackingSpell> protectedFrom,
+            PersistentHashSet<Tradeable> inventory,
+            int inventoryWeight
+    ) {
+        if (knownSpells == this.knownSpells && protectedFrom == this.protectedFrom && inventory == this.inventory) {
+            return this;
+        }
+
+        return new PersistentWizard(name, level, healthBase, health, manaBase, mana, money,
+                knownSpells, protectedFrom, carryingCapacity, inventory, inventoryWeight);
+    }
+
+    /**
+     * Returns the name of the wizard.
+     *
+     * @return name of the wizard
+     */
+    String getName() {
+        return name;
+    }
+
+    /**
+     * Returns the current health points of the wizard.
+     *
+     * @return health points of the wizard
+     */
+    int getHealth() {
+        return health;
+    }
+
+    /**
+     * Returns the current mana points of the wizard.
+     *
+     * @return mana points of the wizard
+     */
+    int getMana() {
+        return mana;
+    }
+
+    /**
+     * Returns the money of the wizard.
+     *
+     * @return money of the wizard
+     */
+    int getMoney() {
+        return money;
+    }
+
+    /**
+     * Returns whether the wizard is dead.
+     *
+     * @return whether the wizard is dead
+     */
+    public boolean isDead() {
+        return health == 0;
+    }
+
+    /**
+     * Returns whether the wizard knows the specified spell.
+     *
+     * @param spell the spell to test for
+     * @return whether the spell is known
+     * @throws IllegalArgumentException if spell is null
+     */
+    public boolean knows(Spell spell) {
+        if (spell == null) {
+            throw new IllegalArgumentException("The spell must not be null.");
+        }
+
+        return knownSpells.contains(spell);
+    }
+
+    /**
+     * Returns a version in which the wizard knows the specified spell, if they
+     * are not dead.
+     *
+     * @param spell the spell to learn
+     * @return version that knows the spell
+     * @throws IllegalArgumentException if spell is null
+     * @see Wizard#learn(Spell)
+     */
+    public PersistentWizard learn(Spell spell) {
+        if (spell == null) {
+            throw new IllegalArgumentException("The spell to learn must not be null.");
+        }
+
+        return isDead() ? this : with(knownSpells.plus(spell), protectedFrom, inventory, inventoryWeight);
+    }
+
+    /**
+     * Returns a version in which the wizard forgot the specified spell, if
+     * they are not dead.
+     *
+     * @param spell the spell to forget
+     * @return version that does not know the spell
+     * @throws IllegalArgumentException if spell is null
+     * @see Wizard#forget(Spell)
+     */
+    public PersistentWizard forget(Spell spell) {
+        if (spell == null) {
+            throw new IllegalArgumentException("The spell to forget must not be null.");
+        }
+
+        return isDead() ? this : with(knownSpells.minus(spell), protectedFrom, inventory, inventoryWeight);
+    }
+
+    /**
+     * Returns whether the wizard can provide the mana for a spell.
+     *
+     * @param levelNeeded magic level minimum to provide the mana points
+     * @param manaAmount  amount of mana points that will be provided
+     * @return whether the wizard is alive and has the level and mana
+     * @throws IllegalArgumentException when the needed magic level is null
+     *                                  and/or the mana amount is negative
+     */
+    public boolean canProvideMana(MagicLevel levelNeeded, int manaAmount) {
+        if (levelNeeded == null) {
+            throw new IllegalArgumentException("The needed level must not be null.");
+        }
+
+        if (manaAmount < 0) {
+            throw new IllegalArgumentException("Mana amount must not be negative.");
+        }
+
+        return !isDead() && level.compareTo(levelNeeded) >= 0 && mana >= manaAmount;
+    }
+
+    /**
+     * Returns a version in which the wizard provided the mana, if they can.
+     *
+     * @param levelNeeded magic level minimum to provide the mana points
+     * @param manaAmount  amount of mana points that will be provided
+     * @return version with the mana debited
+     * @throws IllegalArgumentException when the needed magic level is null
+     *                                  and/or the mana amount is negative
+     * @see Wizard#provideMana(MagicLevel, int)
+     */
+    public PersistentWizard provideMana(MagicLevel levelNeeded, int manaAmount) {
+        return canProvideMana(levelNeeded, manaAmount) ? with(health, mana - manaAmount, money) : this;
+    }
+
+    /**
+     * Returns whether the wizard possesses the specified item.
+     *
+     * @param item item to test for
+     * @return whether the item is possessed
+     * @throws IllegalArgumentException if item is null
+     */
+    public boolean possesses(Tradeable item) {
+        if (item == null) {
+            throw new IllegalArgumentException("The item to check possession for must not be null.");
+        }
+
+        return inventory.contains(item);
+    }
+
+    /**
+     * Returns whether the wizard can afford the specified money amount.
+     *
+     * @param amount amount to test for
+     * @return whether the wizard can afford the amount
+     * @throws IllegalArgumentException if amount is negative
+     */
+    public boolean canAfford(int amount) {
+        if (amount < 0) {
+            throw new IllegalArgumentException("Amount to check for must not be negative.");
+        }
+
+        return money >= amount;
+    }
+
+    /**
+     * Returns whether the wizard can carry the specified additional weight.
+     *
+     * @param weight weight to test for
+     * @return whether the wizard can carry the additional weight
+     * @throws IllegalArgumentException if weight is negative
+     */
+    public boolean hasCapacity(int weight) {
+        if (weight < 0) {
+            throw new IllegalArgumentException("Weight must not be negative.");
+        }
+
+        return inventoryWeight + weight <= carryingCapacity;
+    }
+
+    /**
+     * Returns a version in which the wizard paid the specified amount, if they
+     * are alive and can afford it.
+     *
+     * @param amount amount to pay
+     * @return version with the amount paid
+     * @throws IllegalArgumentException if amount is negative
+     * @see Wizard#pay(int)
+     */
+    public PersistentWizard pay(int amount) {
+        return !isDead() && canAfford(amount) ? with(health, mana, money - amount) : this;
+    }
+
+    /**
+     * Returns a version in which the wizard earned the specified amount, if
+     * they are alive.
+     *
+     * @param amount amount to earn
+     * @return version with the amount earned
+     * @throws IllegalArgumentException if amount is negative
+     * @see Wizard#earn(int)
+     */
+    public PersistentWizard earn(int amount) {
+        if (amount < 0) {
+            throw new IllegalArgumentException("Amount to earn must not be negative.");
+        }
+
+        return isDead() ? this : with(health, mana, money + amount);
+    }
+
+    /**
+     * Returns a version with the specified item in the inventory, if the
+     * wizard can carry it.
+     *
+     * @param item item to add to the inventory
+     * @return version with the item
+     * @throws IllegalArgumentException if the item is null
+     * @see Wizard#addToInventory(Tradeable)
+     */
+    public PersistentWizard addToInventory(Tradeable item) {
+        if (item == null) {
+            throw new IllegalArgumentException("The item to add must not be null.");
+        }
+
+        int weight = item.getWeight();
+        if (!hasCapacity(weight)) {
+            return this;
+        }
+
+        PersistentHashSet<Tradeable> added = inventory.plus(item);
+
+        return with(knownSpells, protectedFrom, added, added == inventory ? inventoryWeight : inventoryWeight + weight);
+    }
+
+    /**
+     * Returns a version without the specified item in the inventory.
+     *
+     * @param item item to remove from the inventory
+     * @return version without the item
+     * @throws IllegalArgumentException if the item is null
+     * @see Wizard#removeFromInventory(Tradeable)
+     */
+    public PersistentWizard removeFromInventory(Tradeable item) {
+        if (item == null) {
+            throw new IllegalArgumentException("The item to remove must not be null.");
+        }
+
+        PersistentHashSet<Tradeable> removed = inventory.minus(item);
+
+        return with(knownSpells, protectedFrom, removed, removed == inventory ? inventoryWeight : inventoryWeight - item.getWeight());
+    }
+
+    /**
+     * Returns a version with an empty inventory.
+     *
+     * @return version without any item
+     */
+    public PersistentWizard clearInventory() {
+        return with(knownSpells, protectedFrom, PersistentHashSet.empty(), 0);
+    }
+
+    /**
+     * Returns a version with the health points reduced by the specified,
+     * absolute amount of damage.
+     *
+     * @param amount absolute amount of damage
+     * @return version with the damage taken
+     * @throws IllegalArgumentException if the amount is negative
+     */
+    public PersistentWizard takeDamage(int amount) {
+        if (amount < 0) {
+            throw new IllegalArgumentException("The damage must not be negative.");
+        }
+
+        return with(EffectMath.decrease(health, amount), mana, money);
+    }
+
+    /**
+     * Returns a version with the health points reduced by the specified
+     * percentage of the base health points.
+     *
+     * @param percentage relative amount of damage (value between [0;100])
+     * @return version with the damage taken
+     * @throws IllegalArgumentException if the percentage is out of range
+     */
+    public PersistentWizard takeDamagePercent(int percentage) {
+        checkPercentage(percentage);
+
+        return with(EffectMath.decreasePercent(health, healthBase, percentage), mana, money);
+    }
+
+    /**
+     * Returns a version with the mana points reduced by the specified,
+     * absolute amount.
+     *
+     * @param amount absolute amount of mana reduction
+     * @return version with the mana reduced
+     * @throws IllegalArgumentException if the amount is negative
+     */
+    public PersistentWizard weakenMagic(int amount) {
+        if (amount < 0) {
+            throw new IllegalArgumentException("The mana reduction must not be negative.");
+        }
+
+        return with(health, EffectMath.decrease(mana, amount), money);
+    }
+
+    /**
+     * Returns a version with the mana points reduced by the specified
+     * percentage of the base mana points.
+     *
+     * @param percentage relative amount of mana reduction (value between
+     *                   [0;100])
+     * @return version with the mana reduced
+     * @throws IllegalArgumentException if the percentage is out of range
+     */
+    public PersistentWizard weakenMagicPercent(int percentage) {
+        checkPercentage(percentage);
+
+        return with(health, EffectMath.decreasePercent(mana, manaBase, percentage), money);
+    }
+
+    /**
+     * Returns a version with the health points increased by the specified,
+     * absolute amount.
+     *
+     * @param amount absolute amount of healing
+     * @return version with the healing applied
+     * @throws IllegalArgumentException if the amount is negative
+     */
+    public PersistentWizard heal(int amount) {
+        if (amount < 0) {
+            throw new IllegalArgumentException("The healing must not be negative.");
+        }
+
+        return with(EffectMath.increase(health, amount), mana, money);
+    }
+
+    /**
+     * Returns a version with the health points increased by the specified
+     * percentage of the base health points.
+     *
+     * @param percentage relative amount of healing (value between [0;100])
+     * @return version with the healing applied
+     * @throws IllegalArgumentException if the percentage is out of range
+     */
+    public PersistentWizard healPercent(int percentage) {
+        checkPercentage(percentage);
+
+        return with(EffectMath.increasePercent(health, healthBase, percentage), mana, money);
+    }
+
+    /**
+     * Returns a version with the mana points increased by the specified,
+     * absolute amount.
+     *
+     * @param amount absolute amount of mana
+     * @return version with the mana increased
+     * @throws IllegalArgumentException if the amount is negative
+     */
+    public PersistentWizard enforceMagic(int amount) {
+        if (amount < 0) {
+            throw new IllegalArgumentException("The mana increase must not be negative.");
+        }
+
+        return with(health, EffectMath.increase(mana, amount), money);
+    }
+
+    /**
+     * Returns a version with the mana points increased by the specified
+     * percentage of the base mana points.
+     *
+     * @param percentage relative amount of mana (value between [0;100])
+     * @return version with the mana increased
+     * @throws IllegalArgumentException if the percentage is out of range
+     */
+    public PersistentWizard enforceMagicPercent(int percentage) {
+        checkPercentage(percentage);
+
+        return with(health, EffectMath.increasePercent(mana, manaBase, percentage), money);
+    }
+
+    /**
+     * Checks that the percentage is between 0 and 100.
+     *
+     * @param percentage the percentage to check
+     * @throws IllegalArgumentException if the percentage is out of range
+     */
+    private static void checkPercentage(int percentage) {
+        if (percentage < 0 || percentage > 100) {
+            throw new IllegalArgumentException("The percentage must be a value from 0 to 100.");
+        }
+    }
+
+    /**
+     * Returns whether the wizard is protected from the specified spell.
+     *
+     * @param spell the spell to test for
+     * @return whether the wizard is protected from the spell
+     * @throws IllegalArgumentException if spell is null
+     */
+    public boolean isProtected(Spell spell) {
+        if (spell == null) {
+            throw new IllegalArgumentException("The spell must not be null.");
+        }
+
+        return spell instanceof AttackingSpell && protectedFrom.contains(spell);
+    }
+
+    /**
+     * Returns a version that is additionally protected from the specified
+     * spells.
+     *
+     * @param attacks spells the wizard gains protection from
+     * @return version with the protections
+     * @throws IllegalArgumentException if attacks is null
+     */
+    public PersistentWizard setProtection(Set<AttackingSpell> attacks) {
+        if (attacks == null) {
+            throw new IllegalArgumentException("List of attacks to add must not be empty.");
+        }
+
+        PersistentHashSet<AttackingSpell> protections = protectedFrom;
+        for (AttackingSpell attack : attacks) {
+            protections = protections.plus(attack);
+        }
+
+        return with(knownSpells, protections, inventory, inventoryWeight);
+    }
+
+    /**
+     * Returns a version that is no longer protected from the specified spells.
+     *
+     * @param attacks spells the wizard loses protection for
+     * @return version without the protections
+     * @throws IllegalArgumentException if attacks is null
+     */
+    public PersistentWizard removeProtection(Set<AttackingSpell> attacks) {
+        if (attacks == null) {
+            throw new IllegalArgumentException("List of attacks to remove must not be empty.");
+        }
+
+        PersistentHashSet<AttackingSpell> protections = protectedFrom;
+        for (AttackingSpell attack : attacks) {
+            protections = protections.minus(attack);
+        }
+
+        return with(knownSpells, protections, inventory, inventoryWeight);
+    }
+
+    /**
+     * Returns a version that is no longer protected from the specified spell.
+     *
+     * @param attack spell the wizard loses protection for
+     * @return version without the protection
+     * @throws IllegalArgumentException if attack is null
+     */
+    public PersistentWizard removeProtectionFrom(AttackingSpell attack) {
+        if (attack == null) {
+            throw new IllegalArgumentException("The attack to remove must not be null.");
+        }
+
+        return with(knownSpells, protectedFrom.minus(attack), inventory, inventoryWeight);
+    }
+
+    /**
+     * Returns the string representation of the version in the format of
+     * {@link Wizard#toString()}. The spells and items are listed in the order
+     * of their hash codes.
+     *
+     * @return string representation of the version
+     */
+    @Override
+    public String toString() {
+        return "[%s(%s): %d/%d %d/%d; %d %s; knows %s; carries %s]".formatted(name, level, health, healthBase,
+                mana, manaBase, money, money == 1 ? "Knut" : "Knuts", knownSpells, inventory);
+    }
+
+    /**
+     * The class that follows a line of versions of a wizard. Every operation
+     * of the game interfaces moves the branch on to the resulting version,
+     * while the versions it passed stay unchanged. A branch is not
+     * thread-safe.
+     */
+    public static final class Branch implements MagicSource, MagicEffectRealization, Trader {
+
+        /**
+         * The version the branch is at. This field must not be null.
+         */
+        private PersistentWizard version;
+
+        private Branch(PersistentWizard version) {
+            this.version = version;
+        }
+
+        /**
+         * Returns the version the branch is at.
+         *
+         * @return current version
+         */
+        public PersistentWizard version() {
+            return version;
+        }
+
+        /**
+         * Returns a new branch that starts at the version this branch is at.
+         *
+         * @return forked branch
+         */
+        public Branch fork() {
+            return new Branch(version);
+        }
+
+        /**
+         * Moves the branch back to the specified version, e.g. to undo the
+         * operations of a hypothetical sequence.
+         *
+         * @param version the version to move to
+         * @throws IllegalArgumentException if version is null
+         */
+        public void reset(PersistentWizard version) {
+            if (version == null) {
+                throw new IllegalArgumentException("The version must not be null.");
+            }
+
+            this.version = version;
+        }
+
+        /**
+         * Makes the wizard cast the specified spell on the specified target.
+         *
+         * @param spell  spell to be cast
+         * @param target target of the spell
+         * @return whether the casting was successful
+         * @throws IllegalArgumentException if spell or target is null
+         * @see Wizard#castSpell(Spell, MagicEffectRealization)
+         */
+        public boolean castSpell(Spell spell, MagicEffectRealization target) {
+            if (spell == null) {
+                throw new IllegalArgumentException("The spell to cast must not be null.");
+            }
+
+            if (target == null) {
+                throw new IllegalArgumentException("The target of the spell must not be null.");
+            }
+
+            if (version.isDead() || !version.knows(spell)) {
+                return false;
+            }
+
+            spell.cast(this, target);
+            return true;
+        }
+
+        /**
+         * Makes the wizard use the specified item on the specified target.
+         * The item itself is left unchanged, since the wizard and other
+         * versions may share it. The branch uses a copy instead, which
+         * replaces the item in its inventory from now on.
+         *
+         * @param item   item to be used
+         * @param target target to use the item on
+         * @return whether the usage was successful
+         * @throws IllegalArgumentException if item or target is null
+         * @see Wizard#useItem(Tradeable, MagicEffectRealization)
+         */
+        public boolean useItem(Tradeable item, MagicEffectRealization target) {
+            if (item == null) {
+                throw new IllegalArgumentException("The item to use must not be null.");
+            }
+
+            if (target == null) {
+                throw new IllegalArgumentException("The target to use the item on must not be null.");
+            }
+
+            if (version.isDead() || !version.possesses(item)) {
+                return false;
+            }
+
+            if (!(item instanceof MagicItem magicItem)) {
+                item.useOn(target);
+                return true;
+            }
+
+            // The copy takes the place of the item before it is used, in case
+            // the target is this branch
+            MagicItem used = magicItem.copy();
+            version = version.with(version.knownSpells, version.protectedFrom,
+                    version.inventory.minus(item).plus(used), version.inventoryWeight);
+            used.useOn(target);
+            return true;
+        }
+
+        @Override
+        public boolean provideMana(MagicLevel levelNeeded, int manaAmount) {
+            PersistentWizard before = version;
+            version = version.provideMana(levelNeeded, manaAmount);
+
+            return before.canProvideMana(levelNeeded, manaAmount);
+        }
+
+        @Override
+        public boolean possesses(Tradeable item) {
+            return version.possesses(item);
+        }
+
+        @Override
+        public boolean canAfford(int amount) {
+            return version.canAfford(amount);
+        }
+
+        @Override
+        public boolean hasCapacity(int weight) {
+            return version.hasCapacity(weight);
+        }
+
+        @Override
+        public int getRemainingCapacity() {
+            return Math.max(version.carryingCapacity - version.inventoryWeight, 0);
+        }
+
+        @Override
+        public boolean pay(int amount) {
+            PersistentWizard before = version;
+            version = version.pay(amount);
+
+            return !before.isDead() && before.canAfford(amount);
+        }
+
+        @Override
+        public boolean earn(int amount) {
+            PersistentWizard before = version;
+            version = version.earn(amount);
+
+            return !before.isDead();
+        }
+
+        @Override
+        public boolean addToInventory(Tradeable item) {
+            PersistentWizard before = version;
+            version = version.addToInventory(item);
+
+            return version != before;
+        }
+
+        @Override
+        public boolean removeFromInventory(Tradeable item) {
+            PersistentWizard before = version;
+            version = version.removeFromInventory(item);
+
+            return version != before;
+        }
+
+        @Override
+        public boolean canSteal() {
+            return !version.isDead();
+        }
+
+        /**
+         * Makes the specified thief steal an item from the wizard. Unlike
+         * {@link Wizard#steal(Trader)}, the first item in the order of the
+         * inventory is stolen instead of a random one, so that a hypothetical
+         * sequence always has the same result.
+         *
+         * @param thief the thief that steals from this wizard
+         * @return whether the stealing was successful
+         * @throws IllegalArgumentException if thief is null
+         */
+        @Override
+        public boolean steal(Trader thief) {
+            if (thief == null) {
+                throw new IllegalArgumentException("Thief must not be null.");
+            }
+
+            if (!thief.canSteal() || version.inventory.isEmpty()) {
+                return false;
+            }
+
+            Tradeable item = version.inventory.iterator().next();
+            version = version.removeFromInventory(item);
+
+            return thief.addToInventory(item);
+        }
+
+        @Override
+        public boolean isLootable() {
+            return version.isDead();
+        }
+
+        @Override
+        public boolean canLoot() {
+            return !version.isDead();
+        }
+
+        /**
+         * Makes the specified looter loot the wizard. Every item the looter can
+         * carry is moved to the looter and all other items vanish.
+         *
+         * @param looter the looter that loots from the wizard
+         * @return whether the looter can loot and at least one item was looted
+         * @throws IllegalArgumentException if looter is null
+         */
+        @Override
+        public boolean loot(Trader looter) {
+            if (looter == null) {
+                throw new IllegalArgumentException("Looter must not be null.");
+            }
+
+            if (!looter.canLoot() || !isLootable()) {
+                return false;
+            }
+
+            boolean anyAdded = false;
+            for (Tradeable item : version.inventory) {
+                anyAdded |= looter.addToInventory(item);
+            }
+
+            version = version.clearInventory();
+
+            return anyAdded;
+        }
+
+        @Override
+        public void takeDamage(int amount) {
+            version = version.takeDamage(amount);
+        }
+
+        @Override
+        public void takeDamagePercent(int percentage) {
+            version = version.takeDamagePercent(percentage);
+        }
+
+        @Override
+        public void weakenMagic(int amount) {
+            version = version.weakenMagic(amount);
+        }
+
+        @Override
+        public void weakenMagicPercent(int percentage) {
+            version = version.weakenMagicPercent(percentage);
+        }
+
+        @Override
+        public void heal(int amount) {
+            version = version.heal(amount);
+        }
+
+        @Override
+        public void healPercent(int percentage) {
+            version = version.healPercent(percentage);
+        }
+
+        @Override
+        public void enforceMagic(int amount) {
+            version = version.enforceMagic(amount);
+        }
+
+        @Override
+        public void enforceMagicPercent(int percentage) {
+            version = version.enforceMagicPercent(percentage);
+        }
+
+        @Override
+        public boolean isProtected(Spell spell) {
+            return version.isProtected(spell);
+        }
+
+        @Override
+        public void setProtection(Set<AttackingSpell> attacks) {
+            version = version.setProtection(attacks);
+        }
+
+        @Override
+        public void removeProtection(Set<AttackingSpell> attacks) {
+            version = version.removeProtection(attacks);
+        }
+
+        @Override
+        public void removeProtectionFrom(AttackingSpell attack) {
+            version = version.removeProtectionFrom(attack);
+        }
+
+        @Override
+        public String toString() {
+            return version.toString();
+        }
+    }
+}
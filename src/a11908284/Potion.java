@@ -6,6 +6,11 @@ package a11908284;
  */
 public abstract class Potion extends MagicItem {
 
+    /**
+     * The version of the serialized form.
+     */
+    private static final long serialVersionUID = 1L;
+
     /**
      * Creates a Potion instance.
      *
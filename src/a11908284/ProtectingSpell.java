@@ -1,5 +1,6 @@
 package a11908284;
 
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.Set;
 
@@ -9,12 +10,30 @@ import java.util.Set;
  */
 public class ProtectingSpell extends Spell {
 
+    /**
+     * The version of the serialized form.
+     */
+    private static final long serialVersionUID = 1L;
+
     /**
      * The set of attacking spells that the target is protected from. This field
      * must not be null or empty.
      */
     private final Set<AttackingSpell> attacks;
 
+    /**
+     * The same attacking spells as {@link ProtectingSpell#attacks} as a spell
+     * bit set, so that a wizard can add them to their protections with a
+     * bitwise or.
+     */
+    private final SpellBitSet<AttackingSpell> attackBits;
+
+    /**
+     * The additional output of the protecting spell, which is created on first use,
+     * as the attacks never change.
+     */
+    private transient String additionalOutput;
+
     /**
      * Create an protecting spell instance.
      *
@@ -35,6 +54,16 @@ public class ProtectingSpell extends Spell {
         }
 
         this.attacks = new HashSet<>(attacks);
+        this.attackBits = new SpellBitSet<>(attacks);
+    }
+
+    /**
+     * Returns the attacking spells that the target is protected from.
+     *
+     * @return attacking spells that the target is protected from
+     */
+    Set<AttackingSpell> getAttacks() {
+        return Collections.unmodifiableSet(attacks);
     }
 
     /**
@@ -49,7 +78,7 @@ public class ProtectingSpell extends Spell {
             throw new IllegalArgumentException("target must not be null.");
         }
 
-        target.setProtection(attacks);
+        target.setProtection(attackBits);
     }
 
     /**
@@ -64,6 +93,12 @@ public class ProtectingSpell extends Spell {
      */
     @Override
     public String additionalOutputString() {
-        return "; protects against %s".formatted(attacks);
+        String output = additionalOutput;
+        if (output == null) {
+            output = "; protects against %s".formatted(attacks);
+            additionalOutput = output;
+        }
+
+        return output;
     }
 }
\ No newline at end of file
@@ -0,0 +1,72 @@
+package a11908284;
+
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.random.RandomGenerator;
+
+/**
+ * The class that hands out independent, reproducible random streams for a
+ * simulation, one per index.
+ * <p>
+ * The stream of an index is a {@link SplittableRandom} whose seed is derived
+ * from the seed of the simulation and the index with the finalizer of
+ * SplitMix64, so it only depends on the seed and the index and not on the
+ * thread that asks for it or on how many threads there are. A simulation that
+ * gives every wizard (or every task) the stream of its position is
+ * reproducible for any number of threads, as long as every stream is only
+ * used by one thread at a time. Further streams can be split off a stream.
+ */
+public final class RandomStreams {
+
+    /**
+     * The seed of the simulation.
+     */
+    private final long seed;
+
+    /**
+     * Creates random streams for a simulation with the specified seed.
+     *
+     * @param seed the seed of the simulation
+     */
+    public RandomStreams(long seed) {
+        this.seed = seed;
+    }
+
+    /**
+     * Returns a new stream for the specified index. Every call with the same
+     * index returns a new stream that produces the same numbers.
+     *
+     * @param index the index of the stream
+     * @return new random stream of the index
+     */
+    public RandomGenerator.SplittableGenerator stream(long index) {
+        long z = seed + (index + 1) * 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+
+        return new SplittableRandom(z ^ (z >>> 31));
+    }
+
+    /**
+     * Sets the stream of its position in the list as the random generator of
+     * every wizard.
+     *
+     * @param wizards the wizards to set the streams on
+     * @throws IllegalArgumentException if wizards is or contains null
+     */
+    public void assign(List<? extends Wizard> wizards) {
+        if (wizards == null) {
+            throw new IllegalArgumentException("The wizards to assign streams to must not be null.");
+        }
+
+        for (Wizard wizard : wizards) {
+            if (wizard == null) {
+                throw new IllegalArgumentException("The wizards to assign streams to must not contain null.");
+            }
+        }
+
+        for (int i = 0; i < wizards.size(); i++) {
+            wizards.get(i).setRandomGenerator(stream(i));
+        }
+    }
+}
@@ -6,12 +6,23 @@ package a11908284;
  */
 public class Scroll extends MagicItem {
 
+    /**
+     * The version of the serialized form.
+     */
+    private static final long serialVersionUID = 1L;
+
     /**
      * The spell that is written on the scroll and can be cast. This field must
      * not be null.
      */
     private final Spell spell;
 
+    /**
+     * The additional output of the scroll, which is created on first use,
+     * as the spell never changes.
+     */
+    private transient String additionalOutput;
+
     /**
      * Creates a scroll instance.
      *
@@ -33,6 +44,36 @@ public class Scroll extends MagicItem {
         this.spell = spell;
     }
 
+    /**
+     * Returns the spell that is cast by reading the scroll.
+     *
+     * @return spell that is cast by reading the scroll
+     */
+    Spell getSpell() {
+        return spell;
+    }
+
+    /**
+     * Returns whether the specified scroll has the same spell written on it.
+     *
+     * @param other scroll to compare with
+     * @return whether both scrolls cast the same spell
+     */
+    @Override
+    boolean hasSameEffect(MagicItem other) {
+        return ((Scroll) other).spell == spell;
+    }
+
+    /**
+     * Returns a hash code of the spell on the scroll.
+     *
+     * @return hash code of the effect
+     */
+    @Override
+    int effectHash() {
+        return spell.hashCode();
+    }
+
     /**
      * If usages is greater than 0 reduce usages by 1 (tryUsage method) and cast
      * the spell using this as magic source and parameter target as target
@@ -63,6 +104,12 @@ public class Scroll extends MagicItem {
      */
     @Override
     public String additionalOutputString() {
-        return "; casts %s".formatted(spell);
+        String output = additionalOutput;
+        if (output == null) {
+            output = "; casts %s".formatted(spell);
+            additionalOutput = output;
+        }
+
+        return output;
     }
 }
\ No newline at end of file
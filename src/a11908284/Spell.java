@@ -1,9 +1,32 @@
 package a11908284;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
 /**
  * The abstract class that generates the magic effect on a target.
  */
-public abstract class Spell {
+public abstract class Spell implements Serializable {
+
+    /**
+     * The version of the serialized form.
+     */
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * The number of targets below which a parallel cast applies the effects
+     * sequentially.
+     */
+    static final int PARALLEL_THRESHOLD = 1024;
+
     /**
      * The name of the spell. This field must not be empty.
      */
@@ -20,6 +43,38 @@ public abstract class Spell {
      */
     private final MagicLevel levelNeeded;
 
+    /**
+     * The number of spells created or deserialized so far in this virtual
+     * machine.
+     */
+    private static final AtomicLong CREATED = new AtomicLong();
+
+    /**
+     * The order in which the spells were created or deserialized, which is
+     * the order in which sets of spells list them.
+     */
+    static final Comparator<Spell> CREATION_ORDER = Comparator.comparingLong(spell -> spell.serial);
+
+    /**
+     * The position of the spell in the order in which the spells were created
+     * or deserialized.
+     */
+    private transient long serial;
+
+    /**
+     * The identifier of the spell in the {@link SpellRegistry} plus one, or
+     * zero if the spell has not been registered yet. A deserialized spell is
+     * not registered, so it receives a new identifier.
+     */
+    private transient volatile int registration;
+
+    /**
+     * The part of the string representation before the additional output,
+     * which is created on first use. The name, level and mana cost never
+     * change, so it never has to be created again.
+     */
+    private transient String descriptionPrefix;
+
     /**
      * Create a abstract Spell instance.
      *
@@ -45,10 +100,84 @@ public abstract class Spell {
         this.name = name;
         this.manaCost = manaCost;
         this.levelNeeded = levelNeeded;
+        this.serial = CREATED.getAndIncrement();
     }
 
     /**
-     * Perform a cast between a source and a target.
+     * Reads the fields of the spell and places it after all spells created so
+     * far.
+     *
+     * @param input the stream to read from
+     * @throws IOException            if the stream could not be read
+     * @throws ClassNotFoundException if a class of a field is unknown
+     */
+    private void readObject(ObjectInputStream input) throws IOException, ClassNotFoundException {
+        input.defaultReadObject();
+        serial = CREATED.getAndIncrement();
+    }
+
+    /**
+     * Returns the identifier of the spell in the {@link SpellRegistry}. The
+     * spell is registered on the first call.
+     *
+     * @return identifier of the spell
+     */
+    public int getId() {
+        int current = registration;
+
+        return current != 0 ? current - 1 : SpellRegistry.register(this);
+    }
+
+    /**
+     * Returns the identifier of the spell in the {@link SpellRegistry}
+     * without registering it.
+     *
+     * @return identifier of the spell or -1 if it is not registered
+     */
+    int registeredId() {
+        return registration - 1;
+    }
+
+    /**
+     * Stores the identifier the {@link SpellRegistry} registered the spell
+     * under.
+     *
+     * @param id identifier of the spell
+     */
+    void setId(int id) {
+        registration = id + 1;
+    }
+
+    /**
+     * Returns the name of the spell.
+     *
+     * @return name of the spell
+     */
+    String getName() {
+        return name;
+    }
+
+    /**
+     * Returns the amount of mana points needed for the spell.
+     *
+     * @return amount of mana points needed for the spell
+     */
+    int getManaCost() {
+        return manaCost;
+    }
+
+    /**
+     * Returns the magic level needed for the spell.
+     *
+     * @return magic level needed for the spell
+     */
+    MagicLevel getLevelNeeded() {
+        return levelNeeded;
+    }
+
+    /**
+     * Perform a cast between a source and a target. The outcome of the cast is
+     * reported to {@link Metrics}.
      *
      * @param source caster of the spell
      * @param target target of the spell
@@ -65,18 +194,143 @@ public abstract class Spell {
 
         boolean satisfyCriteria = source.provideMana(levelNeeded, manaCost);
 
-        if (satisfyCriteria) {
-            doEffect(target);
+        if (!satisfyCriteria) {
+            Metrics.record(Outcome.CAST_NO_MANA);
+            return;
+        }
+
+        Metrics.record(applyEffect(target) ? Outcome.CAST_AFFECTED : Outcome.CAST_BLOCKED);
+    }
+
+    /**
+     * Performs a single cast between a source and many targets. The level and
+     * mana of the source are checked and the mana is debited only once, then
+     * the effect is applied to each target in the order of the collection. A
+     * cast without any targets does not debit any mana. The outcome on every
+     * target is reported to {@link Metrics}, a cast without mana is reported
+     * once.
+     *
+     * @param source  caster of the spell
+     * @param targets targets of the spell
+     * @return outcomes of the spell in the order of the targets
+     * @throws IllegalArgumentException if source or targets is null or the
+     *                                  targets contain null
+     */
+    public CastOutcome[] castOnAll(MagicSource source, Collection<? extends MagicEffectRealization> targets) {
+        return castOnAll(source, targets, null);
+    }
+
+    /**
+     * Performs a single cast between a source and many targets like
+     * {@link Spell#castOnAll(MagicSource, Collection)}, but applies the effects in
+     * parallel on the specified pool if there are many targets. The targets
+     * must be distinct, and their effects must be safe to apply from several
+     * threads.
+     *
+     * @param source  caster of the spell
+     * @param targets distinct targets of the spell
+     * @param pool    the pool the effects are applied on, or null to apply
+     *                them sequentially
+     * @return outcomes of the spell in the order of the targets
+     * @throws IllegalArgumentException if source or targets is null or the
+     *                                  targets contain null
+     */
+    public CastOutcome[] castOnAll(MagicSource source, Collection<? extends MagicEffectRealization> targets, ForkJoinPool pool) {
+        if (source == null) {
+            throw new IllegalArgumentException("Source of the spell must not be null.");
+        }
+
+        if (targets == null) {
+            throw new IllegalArgumentException("Targets of the spell must not be null.");
+        }
+
+        MagicEffectRealization[] array = targets.toArray(new MagicEffectRealization[0]);
+        for (MagicEffectRealization target : array) {
+            if (target == null) {
+                throw new IllegalArgumentException("Targets of the spell must not contain null.");
+            }
         }
+
+        CastOutcome[] outcomes = new CastOutcome[array.length];
+        if (array.length == 0) {
+            return outcomes;
+        }
+
+        if (!source.provideMana(levelNeeded, manaCost)) {
+            Metrics.record(Outcome.CAST_NO_MANA);
+            Arrays.fill(outcomes, CastOutcome.NOT_CAST);
+            return outcomes;
+        }
+
+        if (pool != null && array.length >= PARALLEL_THRESHOLD) {
+            pool.invoke(new EffectTask(array, outcomes, 0, array.length));
+        } else {
+            applyEffects(array, outcomes, 0, array.length);
+        }
+
+        return outcomes;
     }
 
     /**
-     * Performs the spell on the specified target.
+     * Performs a single cast between a source and the targets of the specified
+     * stream like {@link Spell#castOnAll(MagicSource, Collection)}.
+     *
+     * @param source  caster of the spell
+     * @param targets targets of the spell
+     * @return outcomes of the spell in the encounter order of the targets
+     * @throws IllegalArgumentException if source or targets is null or the
+     *                                  targets contain null
+     */
+    public CastOutcome[] castOnAll(MagicSource source, Stream<? extends MagicEffectRealization> targets) {
+        if (targets == null) {
+            throw new IllegalArgumentException("Targets of the spell must not be null.");
+        }
+
+        return castOnAll(source, targets.toList());
+    }
+
+    /**
+     * Performs the spell on the specified target. This is the method to
+     * override for the effect of a spell, every cast performs it.
      *
      * @param target target of the spell
      */
     public abstract void doEffect(MagicEffectRealization target);
 
+    /**
+     * Performs the spell on the specified target with
+     * {@link Spell#doEffect(MagicEffectRealization)} and returns whether it had
+     * its effect. Only {@link AttackingSpell}, which can be blocked by a
+     * protection, overrides this method, and it still performs the effect of
+     * a subclass that overrides
+     * {@link AttackingSpell#doEffect(MagicEffectRealization)}, so a cast never
+     * skips an overridden effect.
+     *
+     * @param target target of the spell
+     * @return whether the target was affected by the spell
+     */
+    boolean applyEffect(MagicEffectRealization target) {
+        doEffect(target);
+        return true;
+    }
+
+    /**
+     * Applies the effect to a range of the targets and stores the outcomes.
+     *
+     * @param targets  targets of the spell
+     * @param outcomes outcomes of the spell in the order of the targets
+     * @param from     first position of the range (inclusive)
+     * @param to       last position of the range (exclusive)
+     */
+    private void applyEffects(MagicEffectRealization[] targets, CastOutcome[] outcomes, int from, int to) {
+        for (int i = from; i < to; i++) {
+            boolean affected = applyEffect(targets[i]);
+
+            outcomes[i] = affected ? CastOutcome.AFFECTED : CastOutcome.BLOCKED;
+            Metrics.record(affected ? Outcome.CAST_AFFECTED : Outcome.CAST_BLOCKED);
+        }
+    }
+
     /**
      * Returns additional output for the spell.
      *
@@ -101,9 +355,64 @@ public abstract class Spell {
      */
     @Override
     public String toString() {
-        String additionalOutput = additionalOutputString();
+        return appendTo(new StringBuilder()).toString();
+    }
+
+    /**
+     * Appends the string representation of the spell to the specified
+     * builder. The additional output is appended through
+     * {@link Spell#additionalOutputString()} on every call, as a subclass may
+     * override it.
+     *
+     * @param builder the builder to append to
+     * @return the builder
+     * @throws IllegalArgumentException if builder is null
+     * @see Spell#toString()
+     */
+    public StringBuilder appendTo(StringBuilder builder) {
+        if (builder == null) {
+            throw new IllegalArgumentException("The builder to append to must not be null.");
+        }
+
+        // Several threads may create the prefix at the same time, but they
+        // all create the same string
+        String prefix = descriptionPrefix;
+        if (prefix == null) {
+            prefix = "[%s(%s): %d mana".formatted(name, levelNeeded, manaCost);
+            descriptionPrefix = prefix;
+        }
+
+        return builder.append(prefix).append(additionalOutputString()).append(']');
+    }
 
-        return "[%s(%s): %d mana%s]"
-                .formatted(name, levelNeeded, manaCost, additionalOutput);
+    /**
+     * The task that applies the effect to a range of the targets, splitting
+     * the range up while it is large.
+     */
+    private final class EffectTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final MagicEffectRealization[] targets;
+        private final CastOutcome[] outcomes;
+        private final int from;
+        private final int to;
+
+        EffectTask(MagicEffectRealization[] targets, CastOutcome[] outcomes, int from, int to) {
+            this.targets = targets;
+            this.outcomes = outcomes;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= PARALLEL_THRESHOLD) {
+                applyEffects(targets, outcomes, from, to);
+                return;
+            }
+
+            int middle = (from + to) >>> 1;
+            invokeAll(new EffectTask(targets, outcomes, from, middle), new EffectTask(targets, outcomes, middle, to));
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,422 @@
+package a11908284;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * The class that represents a set of spells as a set of bits, one bit per
+ * identifier of the {@link SpellRegistry}.
+ * <p>
+ * Checking whether a spell is contained is a single bit test, and adding or
+ * removing all spells of another spell bit set is a bitwise or and and-not of
+ * the words. The spells themselves are kept in an array in the order in which
+ * they were created, so that looking up a spell by its position takes
+ * constant time. The array also keeps the spells reachable, as the registry
+ * only refers weakly to them and hands out the identifier of a collected
+ * spell again. As the identifiers are only valid within the running virtual
+ * machine, a serialized set writes its spells and not its bits. This set does
+ * not permit null elements.
+ *
+ * @param <S> the type of the spells in this set
+ */
+final class SpellBitSet<S extends Spell> extends AbstractSet<S> implements Serializable {
+
+    /**
+     * The version of the serialized form.
+     */
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * The words of a set that does not contain any spell.
+     */
+    private static final long[] EMPTY = new long[0];
+
+    /**
+     * The members of a set that never contained any spell.
+     */
+    private static final Spell[] NO_SPELLS = new Spell[0];
+
+    /**
+     * The bits of the identifiers of the spells in this set. The bit of an
+     * identifier is bit {@code id % 64} of the word {@code id / 64}.
+     */
+    private transient long[] words = EMPTY;
+
+    /**
+     * The spells in this set in the order in which they were created,
+     * followed by null.
+     */
+    private transient Spell[] members = NO_SPELLS;
+
+    /**
+     * The number of spells in the set.
+     */
+    private transient int size;
+
+    /**
+     * The number of structural modifications, used to detect concurrent
+     * modifications while iterating.
+     */
+    private transient int modCount;
+
+    /**
+     * Creates an empty spell bit set.
+     */
+    SpellBitSet() {
+    }
+
+    /**
+     * Creates a spell bit set that contains the spells of the specified
+     * collection.
+     *
+     * @param collection the spells to add to the set
+     * @throws IllegalArgumentException if the collection is or contains null
+     */
+    SpellBitSet(Collection<? extends S> collection) {
+        if (collection == null) {
+            throw new IllegalArgumentException("The collection to copy must not be null.");
+        }
+
+        addAll(collection);
+    }
+
+    /**
+     * Returns the spell at the specified position in the order in which the
+     * spells were created.
+     *
+     * @param index the position of the spell (between 0 and size - 1)
+     * @return spell at the specified position
+     * @throws IndexOutOfBoundsException if the index is out of range
+     */
+    @SuppressWarnings("unchecked")
+    S get(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException(index);
+        }
+
+        return (S) members[index];
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        return o instanceof Spell spell && test(spell.registeredId());
+    }
+
+    /**
+     * Adds the specified spell to the set, if it is not already present.
+     *
+     * @param spell spell to add
+     * @return whether the spell was added
+     * @throws IllegalArgumentException if the spell is null
+     */
+    @Override
+    public boolean add(S spell) {
+        if (spell == null) {
+            throw new IllegalArgumentException("The spell to add must not be null.");
+        }
+
+        int id = spell.getId();
+        if (test(id)) {
+            return false;
+        }
+
+        int word = id >>> 6;
+        if (word >= words.length) {
+            grow(word + 1);
+        }
+
+        ensureCapacity(size + 1);
+        int position = -Arrays.binarySearch(members, 0, size, spell, Spell.CREATION_ORDER) - 1;
+        System.arraycopy(members, position, members, position + 1, size - position);
+        members[position] = spell;
+
+        words[word] |= 1L << id;
+        size += 1;
+        modCount += 1;
+
+        return true;
+    }
+
+    @Override
+    public boolean remove(Object o) {
+        if (!(o instanceof Spell spell) || !test(spell.registeredId())) {
+            return false;
+        }
+
+        int id = spell.getId();
+        int position = Arrays.binarySearch(members, 0, size, spell, Spell.CREATION_ORDER);
+        System.arraycopy(members, position + 1, members, position, size - position - 1);
+        members[size - 1] = null;
+
+        words[id >>> 6] &= ~(1L << id);
+        size -= 1;
+        modCount += 1;
+
+        return true;
+    }
+
+    /**
+     * Adds all spells of the specified collection. Another spell bit set is
+     * added with a bitwise or of the words and a merge of the members.
+     *
+     * @param collection spells to add
+     * @return whether the set changed
+     * @throws IllegalArgumentException if the collection is or contains null
+     */
+    @Override
+    public boolean addAll(Collection<? extends S> collection) {
+        if (collection == null) {
+            throw new IllegalArgumentException("The collection to add must not be null.");
+        }
+
+        if (!(collection instanceof SpellBitSet<?> other)) {
+            boolean changed = false;
+            for (S spell : collection) {
+                changed |= add(spell);
+            }
+
+            return changed;
+        }
+
+        if (other.words.length > words.length) {
+            grow(other.words.length);
+        }
+
+        int oldSize = size;
+        int newSize = 0;
+        for (int i = 0; i < words.length; i++) {
+            if (i < other.words.length) {
+                words[i] |= other.words[i];
+            }
+
+            newSize += Long.bitCount(words[i]);
+        }
+
+        if (newSize == oldSize) {
+            return false;
+        }
+
+        // Merges from the back, so that the members of this set are moved
+        // before they are overwritten
+        ensureCapacity(newSize);
+        int mine = oldSize - 1;
+        int theirs = other.size - 1;
+        for (int position = newSize - 1; theirs >= 0; position--) {
+            Spell spell = other.members[theirs];
+            int order = mine < 0 ? -1 : Spell.CREATION_ORDER.compare(members[mine], spell);
+
+            if (order > 0) {
+                members[position] = members[mine];
+                mine -= 1;
+            } else {
+                members[position] = spell;
+                theirs -= 1;
+                if (order == 0) {
+                    mine -= 1;
+                }
+            }
+        }
+
+        return update(newSize);
+    }
+
+    /**
+     * Removes all spells of the specified collection. Another spell bit set is
+     * removed with a bitwise and-not of the words.
+     *
+     * @param collection spells to remove
+     * @return whether the set changed
+     * @throws IllegalArgumentException if the collection is null
+     */
+    @Override
+    public boolean removeAll(Collection<?> collection) {
+        if (collection == null) {
+            throw new IllegalArgumentException("The collection to remove must not be null.");
+        }
+
+        if (!(collection instanceof SpellBitSet<?> other)) {
+            boolean changed = false;
+            for (Object o : collection) {
+                changed |= remove(o);
+            }
+
+            return changed;
+        }
+
+        int oldSize = size;
+        int newSize = 0;
+        for (int i = 0; i < words.length; i++) {
+            if (i < other.words.length) {
+                words[i] &= ~other.words[i];
+            }
+
+            newSize += Long.bitCount(words[i]);
+        }
+
+        if (newSize == oldSize) {
+            return false;
+        }
+
+        int position = 0;
+        for (int i = 0; i < oldSize; i++) {
+            if (test(members[i].getId())) {
+                members[position] = members[i];
+                position += 1;
+            }
+        }
+
+        Arrays.fill(members, newSize, oldSize, null);
+
+        return update(newSize);
+    }
+
+    @Override
+    public void clear() {
+        words = EMPTY;
+        Arrays.fill(members, 0, size, null);
+        size = 0;
+        modCount += 1;
+    }
+
+    @Override
+    public Iterator<S> iterator() {
+        return new Iterator<>() {
+            private int next;
+            private int last = -1;
+            private int expectedModCount = modCount;
+
+            @Override
+            public boolean hasNext() {
+                return next < size;
+            }
+
+            @Override
+            @SuppressWarnings("unchecked")
+            public S next() {
+                if (modCount != expectedModCount) {
+                    throw new ConcurrentModificationException();
+                }
+
+                if (next >= size) {
+                    throw new NoSuchElementException();
+                }
+
+                last = next;
+                next += 1;
+
+                return (S) members[last];
+            }
+
+            @Override
+            public void remove() {
+                if (last < 0) {
+                    throw new IllegalStateException();
+                }
+
+                if (modCount != expectedModCount) {
+                    throw new ConcurrentModificationException();
+                }
+
+                SpellBitSet.this.remove(members[last]);
+                next = last;
+                last = -1;
+                expectedModCount = modCount;
+            }
+        };
+    }
+
+    /**
+     * Returns whether the bit of the specified identifier is set.
+     *
+     * @param id identifier of a spell
+     * @return whether the spell with the identifier is in the set
+     */
+    private boolean test(int id) {
+        int word = id >>> 6;
+
+        return word < words.length && (words[word] & (1L << id)) != 0;
+    }
+
+    /**
+     * Grows the words to at least the specified length.
+     *
+     * @param length the minimum number of words
+     */
+    private void grow(int length) {
+        long[] grown = new long[Math.max(length, words.length * 2)];
+        System.arraycopy(words, 0, grown, 0, words.length);
+        words = grown;
+    }
+
+    /**
+     * Grows the members to hold at least the specified number of spells.
+     *
+     * @param capacity the minimum number of spells
+     */
+    private void ensureCapacity(int capacity) {
+        if (capacity > members.length) {
+            members = Arrays.copyOf(members, Math.max(capacity, members.length * 2));
+        }
+    }
+
+    /**
+     * Stores the size after a bulk operation that changed the set.
+     *
+     * @param newSize size after the operation
+     * @return true, as the set changed
+     */
+    private boolean update(int newSize) {
+        size = newSize;
+        modCount += 1;
+
+        return true;
+    }
+
+    /**
+     * Writes the number of spells followed by the spells themselves.
+     *
+     * @param output the stream to write to
+     * @throws IOException if the stream could not be written
+     */
+    private void writeObject(ObjectOutputStream output) throws IOException {
+        output.defaultWriteObject();
+        output.writeInt(size);
+
+        for (S spell : this) {
+            output.writeObject(spell);
+        }
+    }
+
+    /**
+     * Reads the spells written by {@link SpellBitSet#writeObject} and sets the
+     * bits of their identifiers in this virtual machine.
+     *
+     * @param input the stream to read from
+     * @throws IOException            if the stream could not be read
+     * @throws ClassNotFoundException if the class of a spell is unknown
+     */
+    @SuppressWarnings("unchecked")
+    private void readObject(ObjectInputStream input) throws IOException, ClassNotFoundException {
+        input.defaultReadObject();
+        words = EMPTY;
+        members = NO_SPELLS;
+
+        int count = input.readInt();
+        for (int i = 0; i < count; i++) {
+            add((S) input.readObject());
+        }
+    }
+}
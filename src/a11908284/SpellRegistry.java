@@ -0,0 +1,159 @@
+package a11908284;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * The class that hands out dense integer identifiers to the spells of the
+ * game.
+ * <p>
+ * A spell receives its identifier when it is first asked for it, which
+ * happens when it is added to a set of spells, for example the known spells
+ * of a wizard. The identifiers are only valid within the running virtual
+ * machine, therefore a spell that is deserialized receives a new identifier
+ * as well. The registry only refers weakly to the spells, and the identifier
+ * of a spell that was garbage collected is handed out again, always the
+ * smallest free one first. A set of spells can therefore be stored as a set
+ * of bits as long as it keeps its spells reachable, and be mapped back to the
+ * spells by their identifiers.
+ * <p>
+ * Registering is synchronized, looking up a spell is lock-free.
+ */
+public final class SpellRegistry {
+
+    /**
+     * The initial length of the entry array.
+     */
+    private static final int INITIAL_CAPACITY = 64;
+
+    /**
+     * The queue the entries of garbage collected spells are put on.
+     */
+    private static final ReferenceQueue<Spell> COLLECTED = new ReferenceQueue<>();
+
+    /**
+     * The identifiers below {@link SpellRegistry#size} whose spells were
+     * garbage collected.
+     */
+    private static final BitSet FREE = new BitSet();
+
+    /**
+     * The entries of the registered spells, indexed by their identifier. The
+     * entry of a free identifier is null.
+     */
+    private static volatile Entry[] entries = new Entry[INITIAL_CAPACITY];
+
+    /**
+     * The number of identifiers handed out so far, including the free ones.
+     */
+    private static volatile int size;
+
+    private SpellRegistry() {
+    }
+
+    /**
+     * Returns the identifier of the specified spell and registers the spell
+     * under the smallest free identifier, if it has none yet.
+     *
+     * @param spell the spell to register
+     * @return identifier of the spell
+     * @throws IllegalArgumentException if spell is null
+     */
+    static synchronized int register(Spell spell) {
+        if (spell == null) {
+            throw new IllegalArgumentException("The spell to register must not be null.");
+        }
+
+        int id = spell.registeredId();
+        if (id >= 0) {
+            return id;
+        }
+
+        reclaim();
+
+        id = FREE.nextSetBit(0);
+        if (id >= 0) {
+            FREE.clear(id);
+        } else {
+            id = size;
+            if (id == entries.length) {
+                entries = Arrays.copyOf(entries, id * 2);
+            }
+
+            size = id + 1;
+        }
+
+        entries[id] = new Entry(spell, id);
+        // The identifier is published after the entry, so that a reader that
+        // sees the identifier also sees the spell
+        spell.setId(id);
+
+        return id;
+    }
+
+    /**
+     * Frees the identifiers of the spells that were garbage collected.
+     */
+    private static void reclaim() {
+        for (Entry entry = (Entry) COLLECTED.poll(); entry != null; entry = (Entry) COLLECTED.poll()) {
+            if (entries[entry.id] == entry) {
+                entries[entry.id] = null;
+                FREE.set(entry.id);
+            }
+        }
+    }
+
+    /**
+     * Returns the spell with the specified identifier.
+     *
+     * @param id identifier of the spell
+     * @return spell with the identifier
+     * @throws IllegalArgumentException if no spell has the identifier
+     */
+    public static Spell get(int id) {
+        Entry[] current = entries;
+        Entry entry = id >= 0 && id < current.length ? current[id] : null;
+        Spell spell = entry == null ? null : entry.get();
+
+        if (spell == null) {
+            throw new IllegalArgumentException("There is no spell with the identifier " + id + ".");
+        }
+
+        return spell;
+    }
+
+    /**
+     * Returns the number of identifiers handed out so far. Every identifier
+     * is less than this number, but some of them may be free.
+     *
+     * @return number of identifiers handed out
+     */
+    public static int size() {
+        return size;
+    }
+
+    /**
+     * The weak reference to a registered spell, which remembers the
+     * identifier to free once the spell was garbage collected.
+     */
+    private static final class Entry extends WeakReference<Spell> {
+
+        /**
+         * The identifier of the spell.
+         */
+        private final int id;
+
+        /**
+         * Creates an entry for the specified spell.
+         *
+         * @param spell the registered spell
+         * @param id    identifier of the spell
+         */
+        private Entry(Spell spell, int id) {
+            super(spell, COLLECTED);
+            this.id = id;
+        }
+    }
+}
@@ -0,0 +1,340 @@
+package a11908284;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * The class that carries out trades between two traders as a single
+ * transaction.
+ * <p>
+ * Both traders are locked in a global order given by
+ * {@link Trader#getTraderId()}, so that two threads trading crosswise between
+ * the same traders cannot deadlock. While both locks are held every
+ * precondition is checked once and the trade is applied completely or not at
+ * all: if a step fails, the steps that already succeeded are undone.
+ * <p>
+ * The trades are only atomic with respect to other trades carried out by this
+ * class, so all traders that are shared between threads should be traded with
+ * through {@link Tradeable#give(Trader, Trader)} and
+ * {@link Tradeable#purchase(Trader, Trader)}.
+ */
+final class TradeEngine {
+
+    /**
+     * The lock that is taken first if two different traders have the same
+     * identifier, so that their locking order cannot be ambiguous.
+     */
+    private static final Object TIE_LOCK = new Object();
+
+    private TradeEngine() {
+    }
+
+    /**
+     * Gives the item from the giver to the taker for free.
+     *
+     * @param item  the item to give
+     * @param giver the one who gives the item away
+     * @param taker the one who receives the item
+     * @return whether the giver had the item, the taker had the capacity and
+     *         the transfer was successful
+     */
+    static boolean give(Tradeable item, Trader giver, Trader taker) {
+        return trade(item, giver, taker, 0, false) == Outcome.GIVEN;
+    }
+
+    /**
+     * Sells the item from the seller to the buyer for its price.
+     *
+     * @param item   the item to sell
+     * @param seller the one who sells the item
+     * @param buyer  the one who buys the item
+     * @return whether the seller had the item, the buyer had the money and
+     *         capacity and the transfer was successful
+     */
+    static boolean purchase(Tradeable item, Trader seller, Trader buyer) {
+        return trade(item, seller, buyer, item.getPrice(), true) == Outcome.PURCHASED;
+    }
+
+    /**
+     * Sells the item from the seller to the buyer for the specified price
+     * instead of the price of the item.
+     *
+     * @param item   the item to sell
+     * @param seller the one who sells the item
+     * @param buyer  the one who buys the item
+     * @param price  the price the buyer pays
+     * @return outcome of the trade, {@link Outcome#PURCHASED} if it was
+     *         successful
+     */
+    static Outcome sell(Tradeable item, Trader seller, Trader buyer, int price) {
+        return trade(item, seller, buyer, price, true);
+    }
+
+    /**
+     * Sells all the items from the seller to the buyer in one transaction. The
+     * buyer pays the total price once and the items are either all transferred
+     * or none of them is.
+     *
+     * @param items  the items to sell
+     * @param seller the one who sells the items
+     * @param buyer  the one who buys the items
+     * @return the items that could not be bought, or an empty list if all
+     *         items were bought
+     */
+    static List<Tradeable> purchaseAll(List<? extends Tradeable> items, Trader seller, Trader buyer) {
+        long sellerId = seller.getTraderId();
+        long buyerId = buyer.getTraderId();
+
+        Trader first = sellerId <= buyerId ? seller : buyer;
+        Trader second = first == seller ? buyer : seller;
+
+        if (sellerId == buyerId) {
+            synchronized (TIE_LOCK) {
+                synchronized (first) {
+                    synchronized (second) {
+                        return purchaseAllLocked(items, seller, buyer);
+                    }
+                }
+            }
+        }
+
+        synchronized (first) {
+            synchronized (second) {
+                return purchaseAllLocked(items, seller, buyer);
+            }
+        }
+    }
+
+    /**
+     * Locks both traders in the global order and carries out the trade.
+     *
+     * @param item  the item to move
+     * @param from  the one who hands over the item
+     * @param to    the one who receives the item
+     * @param price the price the receiver pays
+     * @param paid  whether the receiver has to pay the price
+     * @return outcome of the trade
+     */
+    private static Outcome trade(Tradeable item, Trader from, Trader to, int price, boolean paid) {
+        long fromId = from.getTraderId();
+        long toId = to.getTraderId();
+
+        Trader first = fromId <= toId ? from : to;
+        Trader second = first == from ? to : from;
+
+        if (fromId == toId) {
+            synchronized (TIE_LOCK) {
+                synchronized (first) {
+                    synchronized (second) {
+                        return tradeLocked(item, from, to, price, paid);
+                    }
+                }
+            }
+        }
+
+        synchronized (first) {
+            synchronized (second) {
+                return tradeLocked(item, from, to, price, paid);
+            }
+        }
+    }
+
+    /**
+     * Carries out the trade while both traders are locked and reports its
+     * outcome to {@link Metrics}.
+     *
+     * @param item  the item to move
+     * @param from  the one who hands over the item
+     * @param to    the one who receives the item
+     * @param price the price the receiver pays
+     * @param paid  whether the receiver has to pay the price
+     * @return outcome of the trade
+     */
+    private static Outcome tradeLocked(Tradeable item, Trader from, Trader to, int price, boolean paid) {
+        Outcome outcome = transfer(item, from, to, price, paid);
+        Metrics.record(outcome);
+
+        return outcome;
+    }
+
+    /**
+     * Moves the item and the money while both traders are locked. Every step
+     * that already succeeded is undone if a later step fails.
+     *
+     * @param item  the item to move
+     * @param from  the one who hands over the item
+     * @param to    the one who receives the item
+     * @param price the price the receiver pays
+     * @param paid  whether the receiver has to pay the price
+     * @return outcome of the trade
+     */
+    private static Outcome transfer(Tradeable item, Trader from, Trader to, int price, boolean paid) {
+        if (!from.possesses(item)) {
+            return Outcome.TRADE_ITEM_MISSING;
+        }
+
+        if (!to.hasCapacity(item.getWeight())) {
+            return Outcome.TRADE_NO_CAPACITY;
+        }
+
+        if (paid && !to.canAfford(price)) {
+            return Outcome.TRADE_CANNOT_AFFORD;
+        }
+
+        if (!from.removeFromInventory(item)) {
+            return Outcome.TRADE_UNDONE;
+        }
+
+        if (!to.addToInventory(item)) {
+            from.addToInventory(item);
+            return Outcome.TRADE_UNDONE;
+        }
+
+        if (!paid) {
+            return Outcome.GIVEN;
+        }
+
+        if (!to.pay(price)) {
+            undoTransfer(item, from, to);
+            return Outcome.TRADE_UNDONE;
+        }
+
+        if (!from.earn(price)) {
+            // The seller died in the meantime, so the buyer gets the money back
+            to.earn(price);
+            undoTransfer(item, from, to);
+            return Outcome.TRADE_UNDONE;
+        }
+
+        return Outcome.PURCHASED;
+    }
+
+    /**
+     * Carries out the basket purchase while both traders are locked. Every
+     * item is checked once, the money is moved once and the items are moved
+     * afterwards. Every step that already succeeded is undone if a later step
+     * fails.
+     *
+     * @param items  the items to sell
+     * @param seller the one who sells the items
+     * @param buyer  the one who buys the items
+     * @return the items that could not be bought, or an empty list if all
+     *         items were bought
+     */
+    private static List<Tradeable> purchaseAllLocked(List<? extends Tradeable> items, Trader seller, Trader buyer) {
+        List<Tradeable> rejected = new ArrayList<>();
+        Set<Tradeable> seen = new HashSet<>();
+
+        long totalPrice = 0;
+        long totalWeight = 0;
+        for (Tradeable item : items) {
+            if (!seen.add(item) || !seller.possesses(item)) {
+                rejected.add(item);
+                continue;
+            }
+
+            totalPrice += item.getPrice();
+            totalWeight += item.getWeight();
+        }
+
+        if (!rejected.isEmpty()) {
+            return rejected;
+        }
+
+        if (totalPrice > Integer.MAX_VALUE || totalWeight > Integer.MAX_VALUE
+                || !buyer.canAfford((int) totalPrice) || !buyer.hasCapacity((int) totalWeight)) {
+            return unaffordable(items, buyer);
+        }
+
+        int price = (int) totalPrice;
+        if (!buyer.pay(price)) {
+            return new ArrayList<>(items);
+        }
+
+        if (!seller.earn(price)) {
+            // The seller is not able to earn money, so the buyer gets it back
+            buyer.earn(price);
+            return new ArrayList<>(items);
+        }
+
+        for (int i = 0; i < items.size(); i++) {
+            Tradeable item = items.get(i);
+
+            if (!seller.removeFromInventory(item)) {
+                undoBasket(items, i, seller, buyer, price);
+                return new ArrayList<>(Collections.singletonList(item));
+            }
+
+            if (!buyer.addToInventory(item)) {
+                seller.addToInventory(item);
+                undoBasket(items, i, seller, buyer, price);
+                return new ArrayList<>(Collections.singletonList(item));
+            }
+        }
+
+        return rejected;
+    }
+
+    /**
+     * Returns the items that exceed the money or the capacity of the buyer,
+     * when the items are bought one after another in the given order.
+     *
+     * @param items the items to buy
+     * @param buyer the one who buys the items
+     * @return the items that the buyer cannot afford or carry anymore
+     */
+    private static List<Tradeable> unaffordable(List<? extends Tradeable> items, Trader buyer) {
+        List<Tradeable> rejected = new ArrayList<>();
+
+        long price = 0;
+        long weight = 0;
+        for (Tradeable item : items) {
+            long nextPrice = price + item.getPrice();
+            long nextWeight = weight + item.getWeight();
+
+            if (nextPrice > Integer.MAX_VALUE || nextWeight > Integer.MAX_VALUE
+                    || !buyer.canAfford((int) nextPrice) || !buyer.hasCapacity((int) nextWeight)) {
+                rejected.add(item);
+            } else {
+                price = nextPrice;
+                weight = nextWeight;
+            }
+        }
+
+        return rejected;
+    }
+
+    /**
+     * Moves the first items of the basket back to the seller and returns the
+     * money to the buyer.
+     *
+     * @param items  the items of the basket
+     * @param moved  the number of items that were already moved
+     * @param seller the one who sold the items
+     * @param buyer  the one who bought the items
+     * @param price  the total price that was paid
+     */
+    private static void undoBasket(List<? extends Tradeable> items, int moved, Trader seller, Trader buyer, int price) {
+        for (int i = 0; i < moved; i++) {
+            undoTransfer(items.get(i), seller, buyer);
+        }
+
+        seller.pay(price);
+        buyer.earn(price);
+    }
+
+    /**
+     * Moves the item back from the receiver to the one who handed it over.
+     *
+     * @param item the item to move back
+     * @param from the one who handed over the item
+     * @param to   the one who received the item
+     */
+    private static void undoTransfer(Tradeable item, Trader from, Trader to) {
+        to.removeFromInventory(item);
+        from.addToInventory(item);
+    }
+}
@@ -1,5 +1,8 @@
 package a11908284;
 
+import java.util.ArrayList;
+import java.util.List;
+
 /**
  * The interface that adds the ability to trade an item.
  */
@@ -18,24 +21,12 @@ public interface Tradeable {
      */
     int getWeight();
 
-    /**
-     * Transfer the item from the specified trader's inventory to the other's
-     * inventory. This method does not check if the first has the item and the
-     * latter can carry the item.
-     *
-     * @param src  the inventory the item will be taken from
-     * @param dest the inventory the item will be transferred to
-     * @return whether the transfer succeeded
-     */
-    private boolean transfer(Trader src, Trader dest) {
-        // By default, remove the item from the source and add it to the destination
-        return src.removeFromInventory(this) && dest.addToInventory(this);
-    }
-
     /**
      * Gives the item from the specified giver to the specified taker for free.
      * This method will check whether the giver has the item and the taker can
-     * carry the item.
+     * carry the item. Both traders are locked while the item is transferred,
+     * and the transfer is undone if any step fails. The outcome is reported to
+     * {@link Metrics}.
      *
      * @param giver the one who gives the object away
      * @param taker the one who receives the object
@@ -53,18 +44,15 @@ public interface Tradeable {
             throw new IllegalArgumentException("Giver and taker must not be the same object.");
         }
 
-        int itemWeight = getWeight();
-        if (giver.possesses(this) && taker.hasCapacity(itemWeight)) {
-            return transfer(giver, taker);
-        }
-
-        return false;
+        return TradeEngine.give(this, giver, taker);
     }
 
     /**
      * Purchase the item from the specified seller to the specified buyer. This
      * method will check whether the seller has the item, the taker can afford
-     * and carry the item and then does the transfer.
+     * and carry the item and then does the transfer. Both traders are locked
+     * while the item and the money are transferred, and the trade is undone if
+     * any step fails. The outcome is reported to {@link Metrics}.
      *
      * @param seller the one who sells the item
      * @param buyer  the one who buys the item
@@ -82,13 +70,45 @@ public interface Tradeable {
             throw new IllegalArgumentException("Seller and buyer must not be the same object.");
         }
 
-        int itemPrice = getPrice();
-        int itemWeight = getWeight();
-        if (seller.possesses(this) && buyer.canAfford(itemPrice) && buyer.hasCapacity(itemWeight)) {
-            return buyer.pay(itemPrice) && seller.earn(itemPrice) && transfer(seller, buyer);
+        return TradeEngine.purchase(this, seller, buyer);
+    }
+
+    /**
+     * Purchases all the specified items from the specified seller to the
+     * specified buyer in one transaction. This method checks once that the
+     * seller has every item and the buyer can afford and carry all of them
+     * together, then the buyer pays the total price once and all items are
+     * transferred. Either all items are bought or none of them is.
+     *
+     * @param items  the items to buy
+     * @param seller the one who sells the items
+     * @param buyer  the one who buys the items
+     * @return the items that could not be bought (e.g. because the seller did
+     *         not have them or the buyer could not afford or carry them), or
+     *         an empty list if all items were bought
+     * @throws IllegalArgumentException if the items are or contain null, or
+     *                                  the seller and/or buyer is/are null or
+     *                                  are the same object
+     */
+    static List<Tradeable> purchaseAll(List<? extends Tradeable> items, Trader seller, Trader buyer) {
+        if (items == null) {
+            throw new IllegalArgumentException("Items to purchase must not be null.");
+        }
+
+        List<Tradeable> basket = new ArrayList<>(items);
+        if (basket.contains(null)) {
+            throw new IllegalArgumentException("Items to purchase must not contain null.");
+        }
+
+        if (seller == null || buyer == null) {
+            throw new IllegalArgumentException("Seller and buyer must not be null.");
+        }
+
+        if (seller == buyer) {
+            throw new IllegalArgumentException("Seller and buyer must not be the same object.");
         }
 
-        return false;
+        return TradeEngine.purchaseAll(basket, seller, buyer);
     }
 
     /**
@@ -5,6 +5,18 @@ package a11908284;
  * wallet, trade items, use items, and steal and loot from other traders.
  */
 public interface Trader {
+    /**
+     * Returns the identifier that determines the order in which traders are
+     * locked when a trade involves several of them. Traders should return a
+     * stable and preferably unique identifier.
+     *
+     * @return identifier of the trader
+     */
+    default long getTraderId() {
+        // By default, fall back to the identity hash code of the object
+        return System.identityHashCode(this);
+    }
+
     /**
      * Checks whether the specified item is possessed by the object.
      *
@@ -33,6 +45,33 @@ public interface Trader {
      */
     boolean hasCapacity(int weight);
 
+    /**
+     * Returns the weight that can be additionally carried by the object.
+     *
+     * @return weight that can be additionally carried
+     */
+    default int getRemainingCapacity() {
+        // By default, search the largest weight that can still be carried
+        int low = 0;
+        int high = Integer.MAX_VALUE;
+
+        if (!hasCapacity(0)) {
+            return 0;
+        }
+
+        while (low < high) {
+            int middle = low + (high - low + 1) / 2;
+
+            if (hasCapacity(middle)) {
+                low = middle;
+            } else {
+                high = middle - 1;
+            }
+        }
+
+        return low;
+    }
+
     /**
      * Pay the specified amount.
      *
@@ -1,16 +1,99 @@
 package a11908284;
 
-import java.util.HashSet;
-import java.util.Optional;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.Serializable;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
 import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
 import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+import java.util.function.ToIntFunction;
+import java.util.random.RandomGenerator;
 
 /**
  * The class that represents a wizard that is the primary actor in the game. A
  * wizard can use and trade items, provide magic energy, cast spells, and can be
  * affected by various magical effects.
+ * <p>
+ * The health points, mana points and money of a wizard are updated with atomic
+ * compare-and-set operations, so magical effects, payments and earnings can be
+ * applied to the same wizard from several threads without losing updates. The
+ * health and mana points are packed into a single word, so that checking
+ * whether the wizard is dead and debiting mana happen atomically. The spells,
+ * protections and inventory of a wizard are not thread-safe.
+ * <p>
+ * The known spells and protections are stored as bits indexed by the
+ * identifiers of the {@link SpellRegistry}, together with the spells in the
+ * order in which they were created, so the known spells are listed in that
+ * order.
+ * <p>
+ * The random spells and items are picked with {@link ThreadLocalRandom}, unless
+ * a random generator is set with
+ * {@link Wizard#setRandomGenerator(RandomGenerator)}. A wizard with a seeded
+ * generator makes the same random picks whenever it performs the same actions,
+ * for example with a stream of {@link RandomStreams} per wizard.
+ * <p>
+ * A wizard can regenerate health and mana points toward their base points
+ * over the ticks of a clock, see
+ * {@link Wizard#setRegeneration(LongSupplier, int, int)}. The regenerated
+ * points are only added when the points are read or changed, so a wizard
+ * that nobody looks at costs nothing per tick.
+ * <p>
+ * Interchangeable magic items, with the same type, name, price, weight, effect
+ * and usages, are kept in the inventory as a single stack with a count (see
+ * {@link Inventory}). Possessing, adding, removing, trading and using items
+ * work on a stack like on the single items, which are still told apart by
+ * identity: a wizard only possesses the items that were added to their
+ * inventory, and the same item is never counted twice. Many identical items
+ * can be added at once with {@link Wizard#addToInventory(Tradeable, int)},
+ * which only keeps one item and a count until the others are picked.
  */
-public class Wizard implements MagicSource, Trader, MagicEffectRealization {
+public class Wizard implements MagicSource, Trader, MagicEffectRealization, Serializable {
+
+    /**
+     * The version of the serialized form.
+     */
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * The handle for atomic updates of {@link Wizard#vitals}.
+     */
+    private static final VarHandle VITALS;
+
+    /**
+     * The handle for atomic updates of {@link Wizard#money}.
+     */
+    private static final VarHandle MONEY;
+
+    /**
+     * The sequence that hands out the trader identifiers of the wizards.
+     */
+    private static final AtomicLong TRADER_IDS = new AtomicLong();
+
+    static {
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.lookup();
+            VITALS = lookup.findVarHandle(Wizard.class, "vitals", long.class);
+            MONEY = lookup.findVarHandle(Wizard.class, "money", int.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    /**
+     * The unique identifier of the wizard, which orders the wizard when several
+     * traders are locked at once. A deserialized wizard receives a new
+     * identifier, so that it is never mistaken for the original.
+     */
+    private transient long traderId = TRADER_IDS.getAndIncrement();
 
     /**
      * The name of the wizard. This field must not be null or empty.
@@ -29,10 +112,12 @@ public class Wizard implements MagicSource, Trader, MagicEffectRealization {
     private final int healthBase;
 
     /**
-     * The health points of the wizard (basicHP by default). This field must not
-     * be negative.
+     * The health points (upper 32 bits) and the mana points (lower 32 bits) of
+     * the wizard, packed into a single word. The health points are healthBase
+     * and the mana points are manaBase by default. Both must not be negative.
+     * This field must only be updated by compare-and-set.
      */
-    private int health;
+    private volatile long vitals;
 
     /**
      * The base level of mana points, which is used for magic calculations. This
@@ -42,25 +127,24 @@ public class Wizard implements MagicSource, Trader, MagicEffectRealization {
     private final int manaBase;
 
     /**
-     * The mana points of the wizard (basicMP by default). This field must not
-     * be negative.
-     */
-    private int mana;
-
-    /**
-     * The money the wizard has. This field must not be negative.
+     * The money the wizard has. This field must not be negative. This field
+     * must only be updated by compare-and-set.
      */
-    private int money;
+    private volatile int money;
 
     /**
-     * The spells the wizard can use. This field must not be null.
+     * The spells the wizard can use. This field must not be null. The spells
+     * are stored as a spell bit set, so that checking whether the wizard knows
+     * a spell is a single bit test.
      */
-    private final Set<Spell> knownSpells;
+    private final SpellBitSet<Spell> knownSpells;
 
     /**
      * The spells the wizard is protected from. This field must not be null.
+     * The spells are stored as a spell bit set, so that the protections of a
+     * protecting spell are granted with a bitwise or.
      */
-    private final Set<AttackingSpell> protectedFrom;
+    private final SpellBitSet<AttackingSpell> protectedFrom;
 
     /**
      * The capacity of the wizard's inventory. This field must not be negative.
@@ -69,9 +153,32 @@ public class Wizard implements MagicSource, Trader, MagicEffectRealization {
 
     /**
      * The inventory of the wizard. This field must not be null. This field's
-     * value must neve exceed the {@link Wizard#carryingCapacity}.
+     * value must neve exceed the {@link Wizard#carryingCapacity}. The items
+     * are stored in stacks of interchangeable items, so that many identical
+     * potions take the memory of one, and a random item can be picked in
+     * logarithmic time.
+     */
+    private final Inventory inventory;
+
+    /**
+     * The total weight of all items in the {@link Wizard#inventory}. This field
+     * is kept up to date by every method that changes the inventory, so the
+     * capacity checks do not have to sum up the whole inventory every time.
      */
-    private final Set<Tradeable> inventory;
+    private int inventoryWeight;
+
+    /**
+     * The generator of the random picks, or null to use the
+     * {@link ThreadLocalRandom} of the current thread. The generator is not
+     * serialized.
+     */
+    private transient volatile RandomGenerator random;
+
+    /**
+     * The regeneration of the health and mana points, or null if the wizard
+     * does not regenerate. The regeneration is not serialized.
+     */
+    private transient volatile Regeneration regeneration;
 
     /**
      * Creates a wizard instance.
@@ -152,14 +259,147 @@ public class Wizard implements MagicSource, Trader, MagicEffectRealization {
         this.name = name;
         this.level = level;
         this.healthBase = healthBase;
-        this.health = health;
+        this.vitals = pack(health, mana);
         this.manaBase = manaBase;
-        this.mana = mana;
         this.money = money;
-        this.knownSpells = new HashSet<>(knownSpells);
-        this.protectedFrom = new HashSet<>(protectedFrom);
+        this.knownSpells = new SpellBitSet<>(knownSpells);
+        this.protectedFrom = new SpellBitSet<>(protectedFrom);
         this.carryingCapacity = carryingCapacity;
-        this.inventory = new HashSet<>(inventory);
+        this.inventory = new Inventory();
+        for (Tradeable item : inventory) {
+            this.inventory.add(item);
+        }
+        this.inventoryWeight = totalWeight;
+    }
+
+    /**
+     * Reads the fields of the wizard and gives it a new trader identifier.
+     *
+     * @param input the stream to read from
+     * @throws IOException            if the stream could not be read
+     * @throws ClassNotFoundException if a class of a field is unknown
+     */
+    private void readObject(ObjectInputStream input) throws IOException, ClassNotFoundException {
+        input.defaultReadObject();
+        traderId = TRADER_IDS.getAndIncrement();
+    }
+
+    /**
+     * Sets the generator of the random spells and items the wizard picks. The
+     * generator is used by every thread that makes the wizard pick, so a
+     * generator that is not thread-safe must only be set on a wizard that is
+     * used by a single thread at a time.
+     *
+     * @param random generator of the random picks, or null to use the
+     *               {@link ThreadLocalRandom} of the current thread
+     */
+    public void setRandomGenerator(RandomGenerator random) {
+        this.random = random;
+    }
+
+    /**
+     * Returns the generator of the random picks of the current thread.
+     *
+     * @return the set generator or the {@link ThreadLocalRandom} of the current
+     *         thread if none is set
+     */
+    RandomGenerator random() {
+        RandomGenerator random = this.random;
+
+        return random != null ? random : ThreadLocalRandom.current();
+    }
+
+    /**
+     * Lets the wizard regenerate the specified health and mana points per tick
+     * of the specified clock, toward their base points. The ticks before are
+     * regenerated with the previous rates, if any.
+     * <p>
+     * The points are not regenerated on every tick, but once the wizard's
+     * points are read or changed, for all ticks since the last time. The
+     * result is the same as adding the points on every tick, as long as the
+     * wizard is not changed concurrently: a living wizard whose points are
+     * below their base points regenerates up to the base points, a dead
+     * wizard does not regenerate at all. A clock that goes back is ignored
+     * until it has caught up again.
+     *
+     * @param clock         the clock whose ticks are regenerated, e.g.
+     *                      {@link EffectScheduler#getTick()}
+     * @param healthPerTick health points regenerated per tick
+     * @param manaPerTick   mana points regenerated per tick
+     * @throws IllegalArgumentException if clock is null or a rate is negative
+     */
+    public void setRegeneration(LongSupplier clock, int healthPerTick, int manaPerTick) {
+        if (clock == null) {
+            throw new IllegalArgumentException("The clock of the regeneration must not be null.");
+        }
+
+        if (healthPerTick < 0 || manaPerTick < 0) {
+            throw new IllegalArgumentException("The regenerated points per tick must not be negative.");
+        }
+
+        vitals();
+        regeneration = new Regeneration(clock, healthPerTick, manaPerTick, clock.getAsLong());
+    }
+
+    /**
+     * Stops the regeneration of the wizard, after regenerating the ticks so
+     * far.
+     */
+    public void stopRegeneration() {
+        vitals();
+        regeneration = null;
+    }
+
+    /**
+     * Returns the packed health and mana points after adding the regenerated
+     * points of the ticks since they were last read. Every method that reads
+     * or changes the points must read them through this method.
+     *
+     * @return packed health and mana points
+     */
+    private long vitals() {
+        Regeneration regeneration = this.regeneration;
+        if (regeneration != null && regeneration.clock.getAsLong() > regeneration.lastTick) {
+            regenerate(regeneration);
+        }
+
+        return vitals;
+    }
+
+    /**
+     * Adds the regenerated points of the ticks since the last regeneration.
+     * Only one thread regenerates at a time, so that no tick is regenerated
+     * twice.
+     *
+     * @param regeneration the regeneration of the wizard
+     */
+    private void regenerate(Regeneration regeneration) {
+        synchronized (regeneration) {
+            long now = regeneration.clock.getAsLong();
+            long ticks = now - regeneration.lastTick;
+            if (ticks <= 0) {
+                return;
+            }
+
+            while (true) {
+                long current = vitals;
+                int health = health(current);
+
+                if (health == 0) {
+                    break;
+                }
+
+                health = EffectMath.regenerate(health, healthBase, regeneration.healthPerTick, ticks);
+                int mana = EffectMath.regenerate(mana(current), manaBase, regeneration.manaPerTick, ticks);
+                long next = pack(health, mana);
+
+                if (next == current || VITALS.compareAndSet(this, current, next)) {
+                    break;
+                }
+            }
+
+            regeneration.lastTick = now;
+        }
     }
 
     /**
@@ -168,16 +408,215 @@ public class Wizard implements MagicSource, Trader, MagicEffectRealization {
      * @return whether the wizard is dead
      */
     public boolean isDead() {
-        return health == 0;
+        return health(vitals()) == 0;
+    }
+
+    /**
+     * Packs the specified health and mana points into a single word.
+     *
+     * @param health health points
+     * @param mana   mana points
+     * @return packed health and mana points
+     */
+    private static long pack(int health, int mana) {
+        return ((long) health << 32) | (mana & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Returns the health points of the specified packed vitals.
+     *
+     * @param vitals packed health and mana points
+     * @return health points
+     */
+    private static int health(long vitals) {
+        return (int) (vitals >>> 32);
+    }
+
+    /**
+     * Returns the mana points of the specified packed vitals.
+     *
+     * @param vitals packed health and mana points
+     * @return mana points
+     */
+    private static int mana(long vitals) {
+        return (int) vitals;
+    }
+
+    /**
+     * Returns the name of the wizard.
+     *
+     * @return name of the wizard
+     */
+    String getName() {
+        return name;
+    }
+
+    /**
+     * Returns the magic level the wizard is on.
+     *
+     * @return magic level of the wizard
+     */
+    MagicLevel getLevel() {
+        return level;
+    }
+
+    /**
+     * Returns the base health points of the wizard.
+     *
+     * @return base health points of the wizard
+     */
+    int getHealthBase() {
+        return healthBase;
+    }
+
+    /**
+     * Returns the base mana points of the wizard.
+     *
+     * @return base mana points of the wizard
+     */
+    int getManaBase() {
+        return manaBase;
+    }
+
+    /**
+     * Returns the money of the wizard.
+     *
+     * @return money of the wizard
+     */
+    int getMoney() {
+        return money;
+    }
+
+    /**
+     * Returns the carrying capacity of the wizard.
+     *
+     * @return carrying capacity of the wizard
+     */
+    int getCarryingCapacity() {
+        return carryingCapacity;
+    }
+
+    /**
+     * Returns the spells the wizard is protected from.
+     *
+     * @return unmodifiable view of the spells the wizard is protected from
+     */
+    Set<AttackingSpell> getProtections() {
+        return Collections.unmodifiableSet(protectedFrom);
+    }
+
+    /**
+     * Returns the current health points of the wizard.
+     *
+     * @return health points of the wizard
+     */
+    int getHealth() {
+        return health(vitals());
+    }
+
+    /**
+     * Returns the current mana points of the wizard.
+     *
+     * @return mana points of the wizard
+     */
+    int getMana() {
+        return mana(vitals());
     }
 
     /**
-     * Returns the total weight of all the items in the inventory.
+     * Returns the number of spells the wizard knows.
+     *
+     * @return number of known spells
+     */
+    int spellCount() {
+        return knownSpells.size();
+    }
+
+    /**
+     * Returns the known spell at the specified position in the order of the
+     * spell identifiers. The positions change whenever the wizard learns or
+     * forgets a spell.
+     *
+     * @param index position of the spell (between 0 and spellCount() - 1)
+     * @return known spell at the specified position
+     */
+    Spell spellAt(int index) {
+        return knownSpells.get(index);
+    }
+
+    /**
+     * Returns the number of items in the inventory, counting every item of a
+     * stack.
+     *
+     * @return number of items in the inventory
+     */
+    int itemCount() {
+        return inventory.size();
+    }
+
+    /**
+     * Returns the item at the specified position of the inventory. An item
+     * that was added as part of a count becomes an item of its own, so it can
+     * be used and traded like the other items. The positions change whenever
+     * an item is removed from the inventory.
+     *
+     * @param index position of the item (between 0 and itemCount() - 1)
+     * @return item at the specified position
+     */
+    Tradeable itemAt(int index) {
+        return inventory.get(index);
+    }
+
+    /**
+     * Returns the item at the specified position of the inventory, like
+     * {@link Wizard#itemAt(int)}, but without changing the inventory. An item
+     * that was added as part of a count is represented by the copy that the
+     * inventory keeps of its stack, so the returned item must only be read,
+     * e.g. to copy it.
+     *
+     * @param index position of the item (between 0 and itemCount() - 1)
+     * @return item at the specified position or the copy of its stack
+     */
+    Tradeable peekItemAt(int index) {
+        return inventory.peek(index);
+    }
+
+    /**
+     * Returns the number of stacks of interchangeable items in the inventory.
+     *
+     * @return number of stacks in the inventory
+     */
+    int stackCount() {
+        inventory.restack();
+        return inventory.stackCount();
+    }
+
+    /**
+     * Returns the total weight of all the items in the inventory by summing up
+     * the weight of every item.
      *
      * @return total weight of all items in inventory
      */
     private int inventoryTotalWeight() {
-        return inventory.stream().mapToInt(Tradeable::getWeight).sum();
+        int weight = 0;
+        for (int slot = 0; slot < inventory.slotCount(); slot++) {
+            if (inventory.countAt(slot) > 0) {
+                weight += inventory.sampleAt(slot).getWeight() * inventory.countAt(slot);
+            }
+        }
+
+        return weight;
+    }
+
+    /**
+     * Checks whether the cached total weight of the inventory matches the sum
+     * of the weights of all items in the inventory. This method runs in linear
+     * time and is meant for verifying the bookkeeping, not for hot paths.
+     *
+     * @return whether the cached inventory weight is consistent
+     */
+    public boolean isInventoryWeightConsistent() {
+        return inventoryWeight == inventoryTotalWeight();
     }
 
     /**
@@ -219,7 +658,8 @@ public class Wizard implements MagicSource, Trader, MagicEffectRealization {
     }
 
     /**
-     * Makes the wizard cast the specified spell on the specified target.
+     * Makes the wizard cast the specified spell on the specified target. The
+     * outcome of the cast is reported to {@link Metrics}.
      *
      * @param spell  spell to be cast
      * @param target target of the spell
@@ -235,7 +675,13 @@ public class Wizard implements MagicSource, Trader, MagicEffectRealization {
             throw new IllegalArgumentException("The target of the spell must not be null.");
         }
 
-        if (isDead() || !knownSpells.contains(spell)) {
+        if (isDead()) {
+            Metrics.record(Outcome.CAST_CASTER_DEAD);
+            return false;
+        }
+
+        if (!knownSpells.contains(spell)) {
+            Metrics.record(Outcome.CAST_UNKNOWN_SPELL);
             return false;
         }
 
@@ -243,6 +689,65 @@ public class Wizard implements MagicSource, Trader, MagicEffectRealization {
         return true;
     }
 
+    /**
+     * Makes the wizard cast the specified spell once on all specified targets,
+     * debiting the mana only once.
+     *
+     * @param spell   spell to be cast
+     * @param targets targets of the spell
+     * @return outcomes of the spell in the order of the targets, all
+     *         {@link CastOutcome#NOT_CAST} if the wizard is dead or does not
+     *         know the spell
+     * @throws IllegalArgumentException if spell or targets is null or the
+     *                                  targets contain null
+     * @see Spell#castOnAll(MagicSource, Collection)
+     */
+    public CastOutcome[] castSpellOnAll(Spell spell, Collection<? extends MagicEffectRealization> targets) {
+        return castSpellOnAll(spell, targets, null);
+    }
+
+    /**
+     * Makes the wizard cast the specified spell once on all specified targets,
+     * debiting the mana only once and applying the effects in parallel on the
+     * specified pool if there are many targets.
+     *
+     * @param spell   spell to be cast
+     * @param targets distinct targets of the spell
+     * @param pool    the pool the effects are applied on, or null to apply
+     *                them sequentially
+     * @return outcomes of the spell in the order of the targets, all
+     *         {@link CastOutcome#NOT_CAST} if the wizard is dead or does not
+     *         know the spell
+     * @throws IllegalArgumentException if spell or targets is null or the
+     *                                  targets contain null
+     * @see Spell#castOnAll(MagicSource, Collection, ForkJoinPool)
+     */
+    public CastOutcome[] castSpellOnAll(Spell spell, Collection<? extends MagicEffectRealization> targets, ForkJoinPool pool) {
+        if (spell == null) {
+            throw new IllegalArgumentException("The spell to cast must not be null.");
+        }
+
+        if (targets == null) {
+            throw new IllegalArgumentException("The targets of the spell must not be null.");
+        }
+
+        if (isDead() || !knownSpells.contains(spell)) {
+            for (MagicEffectRealization target : targets) {
+                if (target == null) {
+                    throw new IllegalArgumentException("The targets of the spell must not contain null.");
+                }
+            }
+
+            CastOutcome[] outcomes = new CastOutcome[targets.size()];
+            Arrays.fill(outcomes, CastOutcome.NOT_CAST);
+
+            Metrics.record(isDead() ? Outcome.CAST_CASTER_DEAD : Outcome.CAST_UNKNOWN_SPELL);
+            return outcomes;
+        }
+
+        return spell.castOnAll(this, targets, pool);
+    }
+
     /**
      * Makes the wizard cast a random spell.
      *
@@ -259,11 +764,9 @@ public class Wizard implements MagicSource, Trader, MagicEffectRealization {
             return false;
         }
 
-        int randomInt = ThreadLocalRandom.current().nextInt(knownSpells.size());
-
-        Optional<Spell> randomSpell = knownSpells.stream().skip(randomInt).findFirst();
+        int randomInt = random().nextInt(knownSpells.size());
 
-        return randomSpell.filter(spell -> castSpell(spell, target)).isPresent();
+        return castSpell(knownSpells.get(randomInt), target);
     }
 
     /**
@@ -283,27 +786,31 @@ public class Wizard implements MagicSource, Trader, MagicEffectRealization {
             throw new IllegalArgumentException("The target to use the item on must not be null.");
         }
 
-        if (isDead() || !possesses(item)) {
+        if (isDead() || !inventory.remove(item)) {
             return false;
         }
 
+        // The item leaves its stack while it is used, and joins the stack of
+        // its remaining usages afterwards
         item.useOn(target);
+        inventory.add(item);
+
         return true;
     }
 
     /**
      * Returns a random item from the inventory.
      *
-     * @return random item from the inventory or none
+     * @return random item from the inventory or null if it is empty
      */
-    private Optional<Tradeable> getRandomItem() {
+    private Tradeable getRandomItem() {
         if (inventory.isEmpty()) {
-            return Optional.empty();
+            return null;
         }
 
-        int randomInt = ThreadLocalRandom.current().nextInt(inventory.size());
+        int randomInt = random().nextInt(inventory.size());
 
-        return inventory.stream().skip(randomInt).findFirst();
+        return inventory.get(randomInt);
     }
 
     /**
@@ -318,9 +825,9 @@ public class Wizard implements MagicSource, Trader, MagicEffectRealization {
             throw new IllegalArgumentException("Trader to use random item on must not be empty.");
         }
 
-        Optional<Tradeable> randomItem = getRandomItem();
+        Tradeable randomItem = getRandomItem();
 
-        return randomItem.filter(item -> useItem(item, target)).isPresent();
+        return randomItem != null && useItem(randomItem, target);
     }
 
     /**
@@ -359,14 +866,14 @@ public class Wizard implements MagicSource, Trader, MagicEffectRealization {
             throw new IllegalArgumentException("Trader to sell random item to must not be empty.");
         }
 
-        Optional<Tradeable> randomItem = getRandomItem();
+        Tradeable randomItem = getRandomItem();
 
-        return randomItem.filter(item -> sellItem(item, target)).isPresent();
+        return randomItem != null && sellItem(randomItem, target);
     }
 
     /**
      * Makes the wizard provide the mana, if they are not dead and have the
-     * sufficient level and mana.
+     * sufficient level and mana. The outcome is reported to {@link Metrics}.
      *
      * @param levelNeeded magic level minimum to provide the mana points
      * @param manaAmount  amount of mana points that will be provided
@@ -385,15 +892,42 @@ public class Wizard implements MagicSource, Trader, MagicEffectRealization {
         }
 
         boolean hasLevel = level.compareTo(levelNeeded) >= 0;
-        boolean hasMana = mana >= manaAmount;
+        if (!hasLevel) {
+            Metrics.record(Outcome.MANA_LEVEL_TOO_LOW);
+            return false;
+        }
 
-        if (!isDead() && hasLevel && hasMana) {
-            mana -= manaAmount;
+        while (true) {
+            long current = vitals();
+            int health = health(current);
+            int mana = mana(current);
 
-            return true;
+            if (health == 0) {
+                Metrics.record(Outcome.MANA_SOURCE_DEAD);
+                return false;
+            }
+
+            if (mana < manaAmount) {
+                Metrics.record(Outcome.MANA_INSUFFICIENT);
+                return false;
+            }
+
+            if (VITALS.compareAndSet(this, current, pack(health, mana - manaAmount))) {
+                Metrics.record(Outcome.MANA_PROVIDED);
+                return true;
+            }
         }
+    }
 
-        return false;
+    /**
+     * Returns the unique identifier of the wizard, which orders the wizard
+     * when several traders are locked at once.
+     *
+     * @return unique identifier of the wizard
+     */
+    @Override
+    public long getTraderId() {
+        return traderId;
     }
 
     /**
@@ -442,7 +976,17 @@ public class Wizard implements MagicSource, Trader, MagicEffectRealization {
             throw new IllegalArgumentException("Weight must not be negative.");
         }
 
-        return inventoryTotalWeight() + weight <= carryingCapacity;
+        return inventoryWeight + weight <= carryingCapacity;
+    }
+
+    /**
+     * Returns the weight the wizard can additionally carry.
+     *
+     * @return carrying capacity minus the weight of the inventory
+     */
+    @Override
+    public int getRemainingCapacity() {
+        return Math.max(carryingCapacity - inventoryWeight, 0);
     }
 
     /**
@@ -458,13 +1002,17 @@ public class Wizard implements MagicSource, Trader, MagicEffectRealization {
             throw new IllegalArgumentException("Amount to pay must not be negative.");
         }
 
-        if (!isDead() && canAfford(amount)) {
-            money -= amount;
+        while (true) {
+            int current = money;
 
-            return true;
-        }
+            if (isDead() || current < amount) {
+                return false;
+            }
 
-        return false;
+            if (MONEY.compareAndSet(this, current, current - amount)) {
+                return true;
+            }
+        }
     }
 
     /**
@@ -480,13 +1028,17 @@ public class Wizard implements MagicSource, Trader, MagicEffectRealization {
             throw new IllegalArgumentException("Amount to earn must not be negative.");
         }
 
-        if (!isDead()) {
-            money += amount;
+        while (true) {
+            int current = money;
 
-            return true;
-        }
+            if (isDead()) {
+                return false;
+            }
 
-        return false;
+            if (MONEY.compareAndSet(this, current, current + amount)) {
+                return true;
+            }
+        }
     }
 
     /**
@@ -503,7 +1055,57 @@ public class Wizard implements MagicSource, Trader, MagicEffectRealization {
             throw new IllegalArgumentException("The item to add must not be null.");
         }
 
-        return hasCapacity(item.getWeight()) && inventory.add(item);
+        int itemWeight = item.getWeight();
+        if (hasCapacity(itemWeight) && inventory.add(item)) {
+            inventoryWeight += itemWeight;
+
+            return true;
+        }
+
+        return false;
+    }
+
+    /**
+     * Adds the magic item and the specified number of items interchangeable
+     * with it minus one to the inventory of the wizard, if they can carry all
+     * of them. Only the item itself is kept, the others are counted in its
+     * stack and become items of their own, copies of the item, when they are
+     * picked, e.g. by {@link Wizard#sellRandomItem(Trader)} or
+     * {@link Wizard#loot}.
+     *
+     * @param item  item to add to the inventory
+     * @param count number of items to add
+     * @return whether they can carry all the items and the item was not
+     *         contained yet
+     * @throws IllegalArgumentException if the item is null, count is not
+     *                                  positive or count is greater than 1
+     *                                  for an item that is no magic item
+     */
+    public boolean addToInventory(Tradeable item, int count) {
+        if (item == null) {
+            throw new IllegalArgumentException("The item to add must not be null.");
+        }
+
+        if (count < 1) {
+            throw new IllegalArgumentException("The number of items to add must be positive.");
+        }
+
+        if (!(item instanceof MagicItem magicItem)) {
+            if (count > 1) {
+                throw new IllegalArgumentException("Only magic items can be added several times at once.");
+            }
+
+            return addToInventory(item);
+        }
+
+        long weight = (long) item.getWeight() * count;
+        if (weight <= getRemainingCapacity() && inventory.add(magicItem, count)) {
+            inventoryWeight += (int) weight;
+
+            return true;
+        }
+
+        return false;
     }
 
     /**
@@ -519,7 +1121,13 @@ public class Wizard implements MagicSource, Trader, MagicEffectRealization {
             throw new IllegalArgumentException("The item to remove must not be null.");
         }
 
-        return inventory.contains(item) && inventory.remove(item);
+        if (inventory.remove(item)) {
+            inventoryWeight -= item.getWeight();
+
+            return true;
+        }
+
+        return false;
     }
 
     /**
@@ -533,7 +1141,8 @@ public class Wizard implements MagicSource, Trader, MagicEffectRealization {
     }
 
     /**
-     * Makes the specified thief steal from the wizard, if possible.
+     * Makes the specified thief steal from the wizard, if possible. The
+     * outcome is reported to {@link Metrics}.
      *
      * @param thief the thief that steals from this object
      * @return whether the stealing was successful
@@ -544,18 +1153,22 @@ public class Wizard implements MagicSource, Trader, MagicEffectRealization {
             throw new IllegalArgumentException("Thief must not be null.");
         }
 
-        if (thief.canSteal()) {
-            Optional<Tradeable> optRandomItem = getRandomItem();
-
-            if (optRandomItem.isPresent()) {
-                Tradeable randomItem = optRandomItem.get();
+        if (!thief.canSteal()) {
+            Metrics.record(Outcome.STEAL_THIEF_UNABLE);
+            return false;
+        }
 
-                removeFromInventory(randomItem);
-                return thief.addToInventory(randomItem);
-            }
+        Tradeable randomItem = getRandomItem();
+        if (randomItem == null) {
+            Metrics.record(Outcome.STEAL_NOTHING);
+            return false;
         }
 
-        return false;
+        removeFromInventory(randomItem);
+        boolean stolen = thief.addToInventory(randomItem);
+
+        Metrics.record(stolen ? Outcome.STOLEN : Outcome.STEAL_ITEM_LOST);
+        return stolen;
     }
 
     /**
@@ -579,7 +1192,8 @@ public class Wizard implements MagicSource, Trader, MagicEffectRealization {
     }
 
     /**
-     * Makes the specified looter loot the wizard.
+     * Makes the specified looter loot the wizard. The outcome is reported to
+     * {@link Metrics}.
      *
      * @param looter the looter that loots from the object
      * @return whether the looting was successful
@@ -590,16 +1204,90 @@ public class Wizard implements MagicSource, Trader, MagicEffectRealization {
             throw new IllegalArgumentException("Looter must not be null.");
         }
 
-        if (looter.canLoot() && isLootable()) {
-            boolean anyAdded = inventory.stream()
-                    .map(looter::addToInventory).anyMatch(item -> item);
+        if (!looter.canLoot()) {
+            Metrics.record(Outcome.LOOT_LOOTER_UNABLE);
+            return false;
+        }
+
+        if (!isLootable()) {
+            Metrics.record(Outcome.LOOT_NOT_LOOTABLE);
+            return false;
+        }
+
+        boolean anyAdded = false;
+        for (int i = 0; i < inventory.size(); i++) {
+            anyAdded |= looter.addToInventory(inventory.get(i));
+        }
+
+        inventory.clear();
+        inventoryWeight = 0;
+
+        Metrics.record(anyAdded ? Outcome.LOOTED : Outcome.LOOT_NOTHING);
+        return anyAdded;
+    }
+
+    /**
+     * Makes the specified looter loot the items of the wizard with the highest
+     * total price that fit into the remaining capacity of the looter. The
+     * other items stay with the wizard for the next looter. The outcome is
+     * reported to {@link Metrics}.
+     *
+     * @param looter the looter that loots from the wizard
+     * @return whether the looting was successful
+     * @throws IllegalArgumentException if looter is null
+     * @see LootPlanner#choose(Collection, int, ToIntFunction)
+     */
+    public boolean lootBest(Trader looter) {
+        return lootBest(looter, Tradeable::getPrice);
+    }
+
+    /**
+     * Makes the specified looter loot the items of the wizard with the highest
+     * total value that fit into the remaining capacity of the looter, like
+     * {@link Wizard#lootBest(Trader)}.
+     *
+     * @param looter the looter that loots from the wizard
+     * @param value  the function that returns the value of an item
+     * @return whether the looting was successful
+     * @throws IllegalArgumentException if looter or value is null
+     * @see LootPlanner#choose(Collection, int, ToIntFunction)
+     */
+    public boolean lootBest(Trader looter, ToIntFunction<? super Tradeable> value) {
+        if (looter == null) {
+            throw new IllegalArgumentException("Looter must not be null.");
+        }
+
+        if (value == null) {
+            throw new IllegalArgumentException("The value function must not be null.");
+        }
 
-            inventory.clear();
+        if (!looter.canLoot()) {
+            Metrics.record(Outcome.LOOT_LOOTER_UNABLE);
+            return false;
+        }
+
+        if (!isLootable()) {
+            Metrics.record(Outcome.LOOT_NOT_LOOTABLE);
+            return false;
+        }
 
-            return anyAdded;
+        // The planner takes the items of a stack one by one, so every item
+        // becomes an item of its own
+        List<Tradeable> items = new ArrayList<>(inventory.size());
+        for (int i = 0; i < inventory.size(); i++) {
+            items.add(inventory.get(i));
         }
 
-        return false;
+        boolean anyAdded = false;
+        for (Tradeable item : LootPlanner.choose(items, looter.getRemainingCapacity(), value)) {
+            if (looter.addToInventory(item)) {
+                removeFromInventory(item);
+                anyAdded = true;
+            }
+        }
+
+        Metrics.record(anyAdded ? Outcome.LOOTED : Outcome.LOOT_NOTHING);
+        return anyAdded;
     }
 
     /**
@@ -615,13 +1303,20 @@ public class Wizard implements MagicSource, Trader, MagicEffectRealization {
             throw new IllegalArgumentException("The damage must not be negative.");
         }
 
-        health = Math.max(health - amount, 0);
+        while (true) {
+            long current = vitals();
+            int health = EffectMath.decrease(health(current), amount);
+
+            if (VITALS.compareAndSet(this, current, pack(health, mana(current)))) {
+                return;
+            }
+        }
     }
 
     /**
      * Reduces the health points by the specified, relative amount of damage as
-     * a percentage of the health points of the object. The calculation are done
-     * with the double precision type. This method ensures that the health
+     * a percentage of the health points of the object. The calculation is done
+     * exactly with integers. This method ensures that the health
      * points will never drop below zero.
      *
      * @param percentage relative amount of damage (value between [0;100])
@@ -633,7 +1328,14 @@ public class Wizard implements MagicSource, Trader, MagicEffectRealization {
             throw new IllegalArgumentException("The relative damage must not be less than 0 or greater than 100.");
         }
 
-        health = (int) Math.max(health - healthBase * (percentage / 100.0), 0);
+        while (true) {
+            long current = vitals();
+            int health = EffectMath.decreasePercent(health(current), healthBase, percentage);
+
+            if (VITALS.compareAndSet(this, current, pack(health, mana(current)))) {
+                return;
+            }
+        }
     }
 
     /**
@@ -649,13 +1351,20 @@ public class Wizard implements MagicSource, Trader, MagicEffectRealization {
             throw new IllegalArgumentException("The mana decrease must not be negative.");
         }
 
-        mana = Math.max(mana - amount, 0);
+        while (true) {
+            long current = vitals();
+            int mana = EffectMath.decrease(mana(current), amount);
+
+            if (VITALS.compareAndSet(this, current, pack(health(current), mana))) {
+                return;
+            }
+        }
     }
 
     /**
      * Reduces the mana points by the specified, relative amount of damage as a
-     * percentage of the mana points of the object. The calculation are done
-     * with the double precision type. This method ensures that the mana points
+     * percentage of the mana points of the object. The calculation is done
+     * exactly with integers. This method ensures that the mana points
      * will never drop below zero.
      *
      * @param percentage relative amount of damage (value between [0;100])
@@ -667,7 +1376,14 @@ public class Wizard implements MagicSource, Trader, MagicEffectRealization {
             throw new IllegalArgumentException("The relative mana decrease must not be less than 0 or greater than 100.");
         }
 
-        mana = (int) Math.max(mana - manaBase * (percentage / 100.0), 0);
+        while (true) {
+            long current = vitals();
+            int mana = EffectMath.decreasePercent(mana(current), manaBase, percentage);
+
+            if (VITALS.compareAndSet(this, current, pack(health(current), mana))) {
+                return;
+            }
+        }
     }
 
     /**
@@ -683,13 +1399,20 @@ public class Wizard implements MagicSource, Trader, MagicEffectRealization {
             throw new IllegalArgumentException("The healing must not be negative.");
         }
 
-        health += amount;
+        while (true) {
+            long current = vitals();
+            int health = EffectMath.increase(health(current), amount);
+
+            if (VITALS.compareAndSet(this, current, pack(health, mana(current)))) {
+                return;
+            }
+        }
     }
 
     /**
      * Increases the health points by the specified, relative amount of healing
-     * as a percentage of the health points of the object. The calculation are
-     * done with the double precision type.
+     * as a percentage of the health points of the object. The calculation is
+     * done exactly with integers.
      *
      * @param percentage relative amount of healing (value between [0;100])
      * @throws IllegalArgumentException if the amount does not meet criteria
@@ -700,7 +1423,14 @@ public class Wizard implements MagicSource, Trader, MagicEffectRealization {
             throw new IllegalArgumentException("The relative healing must not be less than 0 or greater than 100.");
         }
 
-        health = (int) Math.max(health + healthBase * (percentage / 100.0), 0);
+        while (true) {
+            long current = vitals();
+            int health = EffectMath.increasePercent(health(current), healthBase, percentage);
+
+            if (VITALS.compareAndSet(this, current, pack(health, mana(current)))) {
+                return;
+            }
+        }
     }
 
     /**
@@ -715,13 +1445,20 @@ public class Wizard implements MagicSource, Trader, MagicEffectRealization {
             throw new IllegalArgumentException("The mana increase must not be negative.");
         }
 
-        mana += amount;
+        while (true) {
+            long current = vitals();
+            int mana = EffectMath.increase(mana(current), amount);
+
+            if (VITALS.compareAndSet(this, current, pack(health(current), mana))) {
+                return;
+            }
+        }
     }
 
     /**
      * Increases the mana points by the specified, relative amount of healing as
-     * a percentage of the mana points of the object. The calculation are done
-     * with the double precision type.
+     * a percentage of the mana points of the object. The calculation is done
+     * exactly with integers.
      *
      * @param percentage relative amount of healing (value between [0;100])
      * @throws IllegalArgumentException if the amount does not meet criteria
@@ -732,7 +1469,14 @@ public class Wizard implements MagicSource, Trader, MagicEffectRealization {
             throw new IllegalArgumentException("The relative mana increase must not be less than 0 or greater than 100.");
         }
 
-        mana = (int) Math.max(mana + manaBase * (percentage / 100.0), 0);
+        while (true) {
+            long current = vitals();
+            int mana = EffectMath.increasePercent(mana(current), manaBase, percentage);
+
+            if (VITALS.compareAndSet(this, current, pack(health(current), mana))) {
+                return;
+            }
+        }
     }
 
     /**
@@ -785,6 +1529,21 @@ public class Wizard implements MagicSource, Trader, MagicEffectRealization {
         protectedFrom.removeAll(attacks);
     }
 
+    /**
+     * Removes the protection from the specified spell without creating a set.
+     *
+     * @param attack spell the wizard loses protection for
+     * @throws IllegalArgumentException if the specified spell is null
+     */
+    @Override
+    public void removeProtectionFrom(AttackingSpell attack) {
+        if (attack == null) {
+            throw new IllegalArgumentException("The attack to remove must not be null.");
+        }
+
+        protectedFrom.remove(attack);
+    }
+
     /**
      * Returns the string representation of the wizard in the format:
      * <p>
@@ -792,20 +1551,108 @@ public class Wizard implements MagicSource, Trader, MagicEffectRealization {
      * <ul>
      *     <li>{@link Wizard#name}</li>
      *     <li>{@link Wizard#level}</li>
-     *     <li>{@link Wizard#health}/{@link Wizard#healthBase}</li>
-     *     <li>{@link Wizard#mana}/{@link Wizard#manaBase}</li>
+     *     <li>health points/{@link Wizard#healthBase}</li>
+     *     <li>mana points/{@link Wizard#manaBase}</li>
      *     <li>{@link Wizard#money} (with the currency sign)</li>
      *     <li>{@link Wizard#knownSpells}</li>
-     *     <li>{@link Wizard#inventory}</li>
+     *     <li>{@link Wizard#inventory} (a stack of several items as
+     *     "%dx %s" with its count)</li>
      * </ul>
      *
      * @return string representation of the wizard
      */
     @Override
     public String toString() {
-        String currencyString = money == 1 ? "Knut" : "Knuts";
+        return appendTo(new StringBuilder()).toString();
+    }
+
+    /**
+     * Appends the string representation of the wizard to the specified
+     * builder. The spells and items append the cached parts of their
+     * descriptions that never change, so mostly the points, money and usages
+     * are rendered on every call. The items whose
+     * usages were changed outside of the inventory are moved to the stack of
+     * their current usages first.
+     *
+     * @param builder the builder to append to
+     * @return the builder
+     * @throws IllegalArgumentException if builder is null
+     * @see Wizard#toString()
+     */
+    public StringBuilder appendTo(StringBuilder builder) {
+        if (builder == null) {
+            throw new IllegalArgumentException("The builder to append to must not be null.");
+        }
+
+        long vitals = vitals();
+        int money = this.money;
+
+        builder.append('[').append(name).append('(');
+        level.appendTo(builder)
+                .append("): ")
+                .append(health(vitals)).append('/').append(healthBase).append(' ')
+                .append(mana(vitals)).append('/').append(manaBase).append("; ")
+                .append(money).append(money == 1 ? " Knut" : " Knuts")
+                .append("; knows [");
+
+        for (int i = 0; i < knownSpells.size(); i++) {
+            if (i > 0) {
+                builder.append(", ");
+            }
 
-        return "[%s(%s): %d/%d %d/%d; %d %s; knows %s; carries %s]"
-                .formatted(name, level, health, healthBase, mana, manaBase, money, currencyString, knownSpells, inventory);
+            knownSpells.get(i).appendTo(builder);
+        }
+
+        builder.append("]; carries [");
+
+        inventory.restack();
+        boolean firstStack = true;
+        for (int slot = 0; slot < inventory.slotCount(); slot++) {
+            int count = inventory.countAt(slot);
+            if (count == 0) {
+                continue;
+            }
+
+            if (!firstStack) {
+                builder.append(", ");
+            }
+            firstStack = false;
+
+            if (count > 1) {
+                builder.append(count).append("x ");
+            }
+
+            Tradeable item = inventory.sampleAt(slot);
+            if (item instanceof MagicItem magicItem) {
+                magicItem.appendTo(builder);
+            } else {
+                builder.append(item);
+            }
+        }
+
+        return builder.append("]]");
+    }
+
+    /**
+     * The class that holds the clock and rates of the regeneration of a
+     * wizard, and the tick up to which the points were regenerated.
+     */
+    private static final class Regeneration {
+        private final LongSupplier clock;
+        private final int healthPerTick;
+        private final int manaPerTick;
+
+        /**
+         * The tick up to which the points were regenerated. This field must
+         * only be updated while holding the lock of this object.
+         */
+        private volatile long lastTick;
+
+        Regeneration(LongSupplier clock, int healthPerTick, int manaPerTick, long lastTick) {
+            this.clock = clock;
+            this.healthPerTick = healthPerTick;
+            this.manaPerTick = manaPerTick;
+            this.lastTick = lastTick;
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,716 @@
+package a11908284;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * The class that confines a wizard to an actor, which processes the commands
+ * for the wizard one after another from its own mailbox.
+ * <p>
+ * The mailbox is a lock-free queue that any number of threads may send to,
+ * but that only the actor takes from. Whenever a message arrives at an idle
+ * actor, the actor is scheduled on its executor and processes a batch of
+ * messages, so that a hundred thousand actors can share a handful of threads
+ * (or run on virtual threads, if the executor creates them). As the wizard is
+ * only ever touched by the actor, the commands never need to lock it.
+ * <p>
+ * Commands that involve two wizards are carried out as an exchange of
+ * messages between their actors. Every actor only changes its own wizard, and
+ * no actor ever waits for another one, so the exchanges cannot deadlock:
+ * <ul>
+ *  <li>Spells and items are cast or used by the caster on a recording of
+ *  their effects, which is then replayed on the target by its actor.</li>
+ *  <li>An item that is sold is reserved by the seller, bought by the buyer
+ *  and finally handed over by the seller, who refunds the buyer if it cannot
+ *  complete the sale anymore.</li>
+ *  <li>Stolen and looted items are handed over by the victim to the thief or
+ *  looter.</li>
+ * </ul>
+ * <p>
+ * The mailbox is bounded: a command is rejected with a
+ * {@link RejectedExecutionException} if the mailbox of the actor it is sent
+ * to is full. The follow-up messages of an exchange that has already started
+ * are always accepted, so that an exchange is never left half done. A wizard
+ * that is wrapped into an actor must not be used directly anymore.
+ */
+public final class WizardActor {
+
+    /**
+     * The maximum number of messages an actor processes before it gives its
+     * thread back to the executor, so that busy actors cannot starve others.
+     */
+    private static final int BATCH_SIZE = 64;
+
+    /**
+     * The wizard that is confined to this actor.
+     */
+    private final Wizard wizard;
+
+    /**
+     * The executor the actor processes its messages on.
+     */
+    private final Executor executor;
+
+    /**
+     * The maximum number of commands waiting in the mailbox.
+     */
+    private final int capacity;
+
+    /**
+     * The messages that wait to be processed.
+     */
+    private final Queue<Runnable> mailbox = new ConcurrentLinkedQueue<>();
+
+    /**
+     * The number of messages in the mailbox.
+     */
+    private final AtomicInteger pending = new AtomicInteger();
+
+    /**
+     * Whether the actor is scheduled on or running on the executor.
+     */
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+
+    /**
+     * The items that are reserved for a sale in progress. This field is only
+     * accessed by the actor.
+     */
+    private final Set<Tradeable> reserved = new HashSet<>();
+
+    /**
+     * Creates a wizard actor instance.
+     *
+     * @param wizard   the wizard to confine to the actor
+     * @param executor the executor the actor processes its messages on
+     * @param capacity the maximum number of commands waiting in the mailbox
+     * @throws IllegalArgumentException if wizard or executor is null or the
+     *                                  capacity is not positive
+     */
+    public WizardActor(Wizard wizard, Executor executor, int capacity) {
+        if (wizard == null) {
+            throw new IllegalArgumentException("The wizard of the actor must not be null.");
+        }
+
+        if (executor == null) {
+            throw new IllegalArgumentException("The executor of the actor must not be null.");
+        }
+
+        if (capacity < 1) {
+            throw new IllegalArgumentException("The capacity of the mailbox must be positive.");
+        }
+
+        this.wizard = wizard;
+        this.executor = executor;
+        this.capacity = capacity;
+    }
+
+    /**
+     * Runs the specified command on the wizard inside the actor.
+     *
+     * @param command the command to run on the wizard
+     * @param <T>     the type of the result of the command
+     * @return future of the result of the command
+     * @throws IllegalArgumentException if the command is null
+     */
+    public <T> CompletableFuture<T> ask(Function<? super Wizard, ? extends T> command) {
+        if (command == null) {
+            throw new IllegalArgumentException("The command for the wizard must not be null.");
+        }
+
+        return send(command, true);
+    }
+
+    /**
+     * Makes the wizard cast the specified spell on the wizard of the target
+     * actor.
+     *
+     * @param spell  spell to be cast
+     * @param target actor of the target of the spell
+     * @return future of whether the casting was successful
+     * @throws IllegalArgumentException if spell or target is null
+     */
+    public CompletableFuture<Boolean> castSpell(Spell spell, WizardActor target) {
+        if (spell == null) {
+            throw new IllegalArgumentException("The spell to cast must not be null.");
+        }
+
+        return affect(target, (w, effects) -> w.castSpell(spell, effects));
+    }
+
+    /**
+     * Makes the wizard cast a random spell on the wizard of the target actor.
+     *
+     * @param target actor of the target of the spell
+     * @return future of whether the casting was successful
+     * @throws IllegalArgumentException if target is null
+     */
+    public CompletableFuture<Boolean> castRandomSpell(WizardActor target) {
+        return affect(target, Wizard::castRandomSpell);
+    }
+
+    /**
+     * Makes the wizard use the specified item on the wizard of the target
+     * actor.
+     *
+     * @param item   item to be used
+     * @param target actor of the target to use the item on
+     * @return future of whether the usage was successful
+     * @throws IllegalArgumentException if item or target is null
+     */
+    public CompletableFuture<Boolean> useItem(Tradeable item, WizardActor target) {
+        if (item == null) {
+            throw new IllegalArgumentException("The item to use must not be null.");
+        }
+
+        return affect(target, (w, effects) -> w.useItem(item, effects));
+    }
+
+    /**
+     * Makes the wizard use a random item on the wizard of the target actor.
+     *
+     * @param target actor of the target to use the item on
+     * @return future of whether the usage was successful
+     * @throws IllegalArgumentException if target is null
+     */
+    public CompletableFuture<Boolean> useRandomItem(WizardActor target) {
+        return affect(target, Wizard::useRandomItem);
+    }
+
+    /**
+     * Makes the wizard sell the specified item to the wizard of the buyer
+     * actor for its price.
+     *
+     * @param item  item to sell
+     * @param buyer actor of the wizard that buys the item
+     * @return future of whether the selling was successful
+     * @throws IllegalArgumentException if item or buyer is null, or the buyer
+     *                                  is this actor
+     */
+    public CompletableFuture<Boolean> sellItem(Tradeable item, WizardActor buyer) {
+        if (item == null) {
+            throw new IllegalArgumentException("The item to sell must not be null.");
+        }
+
+        return sell(buyer, w -> reserve(w, item));
+    }
+
+    /**
+     * Makes the wizard sell a random item to the wizard of the buyer actor for
+     * its price.
+     *
+     * @param buyer actor of the wizard that buys the item
+     * @return future of whether the selling was successful
+     * @throws IllegalArgumentException if buyer is null or is this actor
+     */
+    public CompletableFuture<Boolean> sellRandomItem(WizardActor buyer) {
+        return sell(buyer, w -> w.itemCount() == 0
+                ? null
+                : reserve(w, w.itemAt(w.random().nextInt(w.itemCount()))));
+    }
+
+    /**
+     * Makes the wizard steal a random item from the wizard of the victim
+     * actor. If the wizard cannot carry the stolen item, it is given back.
+     *
+     * @param victim actor of the wizard to steal from
+     * @return future of whether the stealing was successful
+     * @throws IllegalArgumentException if victim is null or is this actor
+     */
+    public CompletableFuture<Boolean> steal(WizardActor victim) {
+        checkOther(victim, "The victim to steal from must not be null or the thief themselves.");
+
+        return send(Wizard::canSteal, true)
+                .thenCompose(canSteal -> !canSteal
+                        ? CompletableFuture.completedFuture(null)
+                        : victim.send(victim::handOverRandomItem, false))
+                .thenCompose(item -> item == null
+                        ? CompletableFuture.completedFuture(false)
+                        : send(w -> w.addToInventory(item), false)
+                        .thenCompose(added -> added
+                                ? CompletableFuture.completedFuture(true)
+                                : victim.send(w -> {
+                                    w.addToInventory(item);
+                                    return false;
+                                }, false)));
+    }
+
+    /**
+     * Makes the wizard loot all items from the wizard of the corpse actor,
+     * if the wizard can loot and the corpse is lootable. The items the wizard
+     * cannot carry are lost, like with {@link Wizard#loot(Trader)}.
+     *
+     * @param corpse actor of the wizard to loot
+     * @return future of whether any item was looted
+     * @throws IllegalArgumentException if corpse is null or is this actor
+     */
+    public CompletableFuture<Boolean> loot(WizardActor corpse) {
+        checkOther(corpse, "The corpse to loot must not be null or the looter themselves.");
+
+        return send(Wizard::canLoot, true)
+                .thenCompose(canLoot -> !canLoot
+                        ? CompletableFuture.completedFuture(List.<Tradeable>of())
+                        : corpse.send(WizardActor::handOverAllItems, false))
+                .thenCompose(items -> items.isEmpty()
+                        ? CompletableFuture.completedFuture(false)
+                        : send(w -> {
+                            boolean anyAdded = false;
+
+                            for (Tradeable item : items) {
+                                anyAdded |= w.addToInventory(item);
+                            }
+
+                            return anyAdded;
+                        }, false));
+    }
+
+    /**
+     * Returns a string representation of the wizard, as seen by the actor
+     * once all earlier messages are processed.
+     *
+     * @return future of the string representation of the wizard
+     */
+    public CompletableFuture<String> describe() {
+        return send(Wizard::toString, true);
+    }
+
+    /**
+     * Lets the wizard cast or use something on a recording of the effects and
+     * replays the recorded effects on the wizard of the target actor.
+     *
+     * @param target actor of the target of the effects
+     * @param action the action of the wizard on the recording
+     * @return future of the result of the action
+     * @throws IllegalArgumentException if target is null
+     */
+    private CompletableFuture<Boolean> affect(WizardActor target, Action action) {
+        if (target == null) {
+            throw new IllegalArgumentException("The target actor must not be null.");
+        }
+
+        return send(w -> {
+            EffectRecording effects = new EffectRecording();
+            boolean done = action.perform(w, effects);
+
+            return done ? effects : null;
+        }, true).thenCompose(effects -> {
+            if (effects == null) {
+                return CompletableFuture.completedFuture(false);
+            }
+
+            if (effects.isEmpty()) {
+                return CompletableFuture.completedFuture(true);
+            }
+
+            return target.send(w -> {
+                effects.replay(w);
+                return true;
+            }, false);
+        });
+    }
+
+    /**
+     * Sells the item reserved by the specified step to the wizard of the buyer
+     * actor.
+     *
+     * @param buyer   actor of the wizard that buys the item
+     * @param reserve the step that reserves the item, returning null if no
+     *                item can be sold
+     * @return future of whether the selling was successful
+     * @throws IllegalArgumentException if buyer is null or is this actor
+     */
+    private CompletableFuture<Boolean> sell(WizardActor buyer, Function<Wizard, Tradeable> reserve) {
+        checkOther(buyer, "The buyer of the item must not be null or the seller themselves.");
+
+        return send(reserve, true).thenCompose(item -> {
+            if (item == null) {
+                return CompletableFuture.completedFuture(false);
+            }
+
+            int price = item.getPrice();
+
+            return buyer.send(w -> buy(w, item, price), false).thenCompose(bought -> {
+                if (!bought) {
+                    return send(w -> {
+                        reserved.remove(item);
+                        return false;
+                    }, false);
+                }
+
+                return send(w -> completeSale(w, item, price), false)
+                        .thenCompose(sold -> sold
+                                ? CompletableFuture.completedFuture(true)
+                                : buyer.send(w -> refund(w, item, price), false));
+            });
+        });
+    }
+
+    /**
+     * Reserves the item for a sale, if the wizard is alive, possesses the
+     * item and has not reserved it already. Items are reserved by identity,
+     * and every unit of a stack is an item of its own once it is picked, so
+     * reserving one unit leaves the other units of its stack for sale.
+     *
+     * @param w    the wizard of this actor
+     * @param item the item to reserve
+     * @return the reserved item or null if it cannot be sold
+     */
+    private Tradeable reserve(Wizard w, Tradeable item) {
+        if (w.isDead() || !w.possesses(item) || !reserved.add(item)) {
+            return null;
+        }
+
+        return item;
+    }
+
+    /**
+     * Adds the item to the inventory of the buyer and makes them pay for it,
+     * if they can carry and afford it.
+     *
+     * @param w     the wizard of the buyer actor
+     * @param item  the item to buy
+     * @param price the price of the item
+     * @return whether the item was bought
+     */
+    private static boolean buy(Wizard w, Tradeable item, int price) {
+        if (!w.canAfford(price) || !w.addToInventory(item)) {
+            return false;
+        }
+
+        if (!w.pay(price)) {
+            w.removeFromInventory(item);
+            return false;
+        }
+
+        return true;
+    }
+
+    /**
+     * Releases the reservation of the item that the buyer bought and hands it
+     * over, if the seller still possesses it and is able to earn the price.
+     *
+     * @param w     the wizard of this actor
+     * @param item  the item that was reserved
+     * @param price the price of the item
+     * @return whether the sale is complete, otherwise the buyer has to be
+     *         refunded
+     */
+    private boolean completeSale(Wizard w, Tradeable item, int price) {
+        reserved.remove(item);
+
+        if (!w.removeFromInventory(item)) {
+            return false;
+        }
+
+        if (!w.earn(price)) {
+            w.addToInventory(item);
+            return false;
+        }
+
+        return true;
+    }
+
+    /**
+     * Gives the item back and the buyer gets the money back.
+     *
+     * @param w     the wizard of the buyer actor
+     * @param item  the item that was bought
+     * @param price the price that was paid
+     * @return always false, as the sale failed
+     */
+    private static boolean refund(Wizard w, Tradeable item, int price) {
+        w.removeFromInventory(item);
+        w.earn(price);
+
+        return false;
+    }
+
+    /**
+     * Removes a random item that is not reserved from the inventory of the
+     * wizard, if the wizard is alive.
+     *
+     * @param w the wizard of this actor
+     * @return the removed item or null if there was none
+     */
+    private Tradeable handOverRandomItem(Wizard w) {
+        int count = w.itemCount();
+        if (count == 0) {
+            return null;
+        }
+
+        Tradeable item = w.itemAt(w.random().nextInt(count));
+        if (reserved.contains(item) || !w.removeFromInventory(item)) {
+            return null;
+        }
+
+        return item;
+    }
+
+    /**
+     * Removes all items from the inventory of the wizard, if the wizard is
+     * lootable.
+     *
+     * @param w the wizard of the corpse actor
+     * @return the removed items
+     */
+    private static List<Tradeable> handOverAllItems(Wizard w) {
+        if (!w.isLootable()) {
+            return List.of();
+        }
+
+        List<Tradeable> items = new ArrayList<>(w.itemCount());
+        for (int i = 0; i < w.itemCount(); i++) {
+            items.add(w.itemAt(i));
+        }
+
+        items.forEach(w::removeFromInventory);
+
+        return items;
+    }
+
+    /**
+     * Checks that the specified actor is another actor.
+     *
+     * @param other   the actor to check
+     * @param message the message of the exception
+     * @throws IllegalArgumentException if the actor is null or this actor
+     */
+    private void checkOther(WizardActor other, String message) {
+        if (other == null || other == this) {
+            throw new IllegalArgumentException(message);
+        }
+    }
+
+    /**
+     * Puts a message that runs the specified command into the mailbox and
+     * schedules the actor, if it is idle.
+     *
+     * @param command the command to run on the wizard
+     * @param bounded whether the message is rejected if the mailbox is full
+     * @param <T>     the type of the result of the command
+     * @return future of the result of the command
+     */
+    private <T> CompletableFuture<T> send(Function<? super Wizard, ? extends T> command, boolean bounded) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+
+        if (pending.incrementAndGet() > capacity && bounded) {
+            pending.decrementAndGet();
+            result.completeExceptionally(new RejectedExecutionException("The mailbox of the wizard actor is full."));
+            return result;
+        }
+
+        mailbox.add(() -> {
+            try {
+                result.complete(command.apply(wizard));
+            } catch (RuntimeException e) {
+                result.completeExceptionally(e);
+            }
+        });
+
+        schedule();
+
+        return result;
+    }
+
+    /**
+     * Schedules the actor on its executor, unless it is already scheduled.
+     */
+    private void schedule() {
+        if (scheduled.compareAndSet(false, true)) {
+            executor.execute(this::processMessages);
+        }
+    }
+
+    /**
+     * Processes a batch of messages from the mailbox and schedules the actor
+     * again if more messages arrived in the meantime.
+     */
+    private void processMessages() {
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            Runnable message = mailbox.poll();
+
+            if (message == null) {
+                break;
+            }
+
+            pending.decrementAndGet();
+            message.run();
+        }
+
+        scheduled.set(false);
+
+        // A message may have arrived after the last poll but before the flag
+        // was cleared, in which case its sender did not schedule the actor
+        if (!mailbox.isEmpty()) {
+            schedule();
+        }
+    }
+
+    /**
+     * The action of a wizard that casts or uses something on a target.
+     */
+    @FunctionalInterface
+    private interface Action {
+        boolean perform(Wizard wizard, MagicEffectRealization target);
+    }
+
+    /**
+     * The class that records the effects of spells and items, so that they can
+     * be replayed on the target later.
+     * <p>
+     * Whether the target is protected against an attacking spell is not known
+     * while recording, so the recording answers that it is not and remembers
+     * the question. When the recording is replayed on a target that is
+     * protected against the spell, the protection is removed instead of
+     * applying the effect that followed the question, which is what
+     * {@link AttackingSpell#doEffect(MagicEffectRealization)} does.
+     */
+    private static final class EffectRecording implements MagicEffectRealization {
+        private static final int TAKE_DAMAGE = 0;
+        private static final int TAKE_DAMAGE_PERCENT = 1;
+        private static final int WEAKEN_MAGIC = 2;
+        private static final int WEAKEN_MAGIC_PERCENT = 3;
+        private static final int HEAL = 4;
+        private static final int HEAL_PERCENT = 5;
+        private static final int ENFORCE_MAGIC = 6;
+        private static final int ENFORCE_MAGIC_PERCENT = 7;
+        private static final int SET_PROTECTION = 8;
+        private static final int REMOVE_PROTECTION = 9;
+        private static final int UNLESS_PROTECTED = 10;
+
+        private int[] codes = new int[2];
+        private int[] amounts = new int[2];
+        private Object[] arguments = new Object[2];
+        private int size;
+
+        boolean isEmpty() {
+            return size == 0;
+        }
+
+        private void record(int code, int amount, Object argument) {
+            if (size == codes.length) {
+                codes = Arrays.copyOf(codes, size * 2);
+                amounts = Arrays.copyOf(amounts, size * 2);
+                arguments = Arrays.copyOf(arguments, size * 2);
+            }
+
+            codes[size] = code;
+            amounts[size] = amount;
+            arguments[size] = argument;
+            size += 1;
+        }
+
+        /**
+         * Applies the recorded effects to the specified target in the order
+         * they were recorded.
+         *
+         * @param target target of the effects
+         */
+        @SuppressWarnings("unchecked")
+        void replay(MagicEffectRealization target) {
+            for (int i = 0; i < size; i++) {
+                int amount = amounts[i];
+
+                switch (codes[i]) {
+                    case TAKE_DAMAGE -> target.takeDamage(amount);
+                    case TAKE_DAMAGE_PERCENT -> target.takeDamagePercent(amount);
+                    case WEAKEN_MAGIC -> target.weakenMagic(amount);
+                    case WEAKEN_MAGIC_PERCENT -> target.weakenMagicPercent(amount);
+                    case HEAL -> target.heal(amount);
+                    case HEAL_PERCENT -> target.healPercent(amount);
+                    case ENFORCE_MAGIC -> target.enforceMagic(amount);
+                    case ENFORCE_MAGIC_PERCENT -> target.enforceMagicPercent(amount);
+                    case SET_PROTECTION -> target.setProtection((Set<AttackingSpell>) arguments[i]);
+                    case REMOVE_PROTECTION -> target.removeProtection((Set<AttackingSpell>) arguments[i]);
+                    case UNLESS_PROTECTED -> {
+                        Spell spell = (Spell) arguments[i];
+
+                        if (spell instanceof AttackingSpell attack && target.isProtected(spell)) {
+                            target.removeProtectionFrom(attack);
+                            i += 1;
+                        }
+                    }
+                    default -> throw new IllegalStateException("Unknown effect code " + codes[i] + ".");
+                }
+            }
+        }
+
+        @Override
+        public void takeDamage(int amount) {
+            MagicEffectRealization.super.takeDamage(amount);
+            record(TAKE_DAMAGE, amount, null);
+        }
+
+        @Override
+        public void takeDamagePercent(int percentage) {
+            MagicEffectRealization.super.takeDamagePercent(percentage);
+            record(TAKE_DAMAGE_PERCENT, percentage, null);
+        }
+
+        @Override
+        public void weakenMagic(int amount) {
+            MagicEffectRealization.super.weakenMagic(amount);
+            record(WEAKEN_MAGIC, amount, null);
+        }
+
+        @Override
+        public void weakenMagicPercent(int percentage) {
+            MagicEffectRealization.super.weakenMagicPercent(percentage);
+            record(WEAKEN_MAGIC_PERCENT, percentage, null);
+        }
+
+        @Override
+        public void heal(int amount) {
+            MagicEffectRealization.super.heal(amount);
+            record(HEAL, amount, null);
+        }
+
+        @Override
+        public void healPercent(int percentage) {
+            MagicEffectRealization.super.healPercent(percentage);
+            record(HEAL_PERCENT, percentage, null);
+        }
+
+        @Override
+        public void enforceMagic(int amount) {
+            MagicEffectRealization.super.enforceMagic(amount);
+            record(ENFORCE_MAGIC, amount, null);
+        }
+
+        @Override
+        public void enforceMagicPercent(int percentage) {
+            MagicEffectRealization.super.enforceMagicPercent(percentage);
+            record(ENFORCE_MAGIC_PERCENT, percentage, null);
+        }
+
+        @Override
+        public boolean isProtected(Spell spell) {
+            MagicEffectRealization.super.isProtected(spell);
+            record(UNLESS_PROTECTED, 0, spell);
+
+            return false;
+        }
+
+        @Override
+        public void setProtection(Set<AttackingSpell> attacks) {
+            MagicEffectRealization.super.setProtection(attacks);
+            record(SET_PROTECTION, 0, attacks);
+        }
+
+        @Override
+        public void removeProtection(Set<AttackingSpell> attacks) {
+            MagicEffectRealization.super.removeProtection(attacks);
+            record(REMOVE_PROTECTION, 0, attacks);
+        }
+    }
+}
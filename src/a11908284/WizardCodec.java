@@ -0,0 +1,704 @@
+package a11908284;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The class that writes wizards, together with their spells and items, to a
+ * compact binary snapshot and reads them back.
+ * <p>
+ * A snapshot starts with a table of all spells the wizards refer to, in
+ * which every spell instance is written once. The spells are written in the
+ * order in which they were created, with the attacking spells of a
+ * protecting spell moved before it, so that a protecting spell only
+ * refers to attacking spells that were read before it. Wizards and items
+ * refer to the spells by their position in the table, so that spells that are
+ * shared before writing are shared after reading as well. The wizards follow
+ * with their items written inline, in the order of their known spells and
+ * inventory, so that random picks of the read wizards behave the same.
+ * <p>
+ * All numbers are written as variable-length integers, signed numbers in
+ * zigzag encoding, so that small values only take a single byte. The snapshot
+ * is written to and read from channels through a buffer.
+ * <p>
+ * Only the spells and items of this package can be written; subclasses and
+ * other implementations of {@link Spell} and {@link Tradeable} are rejected.
+ */
+public final class WizardCodec {
+
+    /**
+     * The number that every snapshot starts with ("WIZ1").
+     */
+    private static final int MAGIC = 0x57495A31;
+
+    private static final int ATTACKING_SPELL = 0;
+    private static final int HEALING_SPELL = 1;
+    private static final int PROTECTING_SPELL = 2;
+
+    private static final int SCROLL = 0;
+    private static final int HEALTH_POTION = 1;
+    private static final int MANA_POTION = 2;
+    private static final int CONCOCTION = 3;
+
+    /**
+     * The flag that marks that health points (and not mana points) are
+     * affected by a spell.
+     */
+    private static final int AFFECTS_HEALTH = 1;
+
+    /**
+     * The flag that marks that the amount of a spell is a percentage.
+     */
+    private static final int PERCENTAGE = 2;
+
+    /**
+     * The size of the buffer between the codec and the channel.
+     */
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    /**
+     * The magic levels, indexed by their ordinal.
+     */
+    private static final MagicLevel[] LEVELS = MagicLevel.values();
+
+    private WizardCodec() {
+    }
+
+    /**
+     * Writes the specified wizards to the channel.
+     *
+     * @param wizards the wizards to write
+     * @param channel the channel to write to
+     * @throws IllegalArgumentException if wizards or channel is null, the
+     *                                  wizards contain null or any spell or
+     *                                  item cannot be written
+     * @throws IOException              if the channel could not be written
+     */
+    public static void write(List<Wizard> wizards, WritableByteChannel channel) throws IOException {
+        if (wizards == null) {
+            throw new IllegalArgumentException("The wizards to write must not be null.");
+        }
+
+        if (channel == null) {
+            throw new IllegalArgumentException("The channel to write to must not be null.");
+        }
+
+        Map<Spell, Integer> spellIds = spellTable(wizards);
+        Output output = new Output(channel);
+
+        output.writeInt(MAGIC);
+        output.writeVarint(spellIds.size());
+        for (Spell spell : spellIds.keySet()) {
+            writeSpell(output, spell, spellIds);
+        }
+
+        output.writeVarint(wizards.size());
+        for (Wizard wizard : wizards) {
+            writeWizard(output, wizard, spellIds);
+        }
+
+        output.flush();
+    }
+
+    /**
+     * Reads the wizards from the channel.
+     *
+     * @param channel the channel to read from
+     * @return the wizards that were read
+     * @throws IllegalArgumentException if channel is null or the snapshot is
+     *                                  malformed
+     * @throws IOException              if the channel could not be read or
+     *                                  ends before the snapshot does
+     */
+    public static List<Wizard> read(ReadableByteChannel channel) throws IOException {
+        if (channel == null) {
+            throw new IllegalArgumentException("The channel to read from must not be null.");
+        }
+
+        Input input = new Input(channel);
+
+        if (input.readInt() != MAGIC) {
+            throw new IllegalArgumentException("The channel does not contain a wizard snapshot.");
+        }
+
+        Spell[] spells = new Spell[input.readLength()];
+        for (int i = 0; i < spells.length; i++) {
+            spells[i] = readSpell(input, spells, i);
+        }
+
+        int count = input.readLength();
+        List<Wizard> wizards = new ArrayList<>(Math.min(count, BUFFER_SIZE));
+        for (int i = 0; i < count; i++) {
+            wizards.add(readWizard(input, spells, i));
+        }
+
+        return wizards;
+    }
+
+    /**
+     * Collects all spells the wizards refer to and numbers them in the order
+     * in which they were created, except that the attacking spells of a
+     * protecting spell are always numbered before it. Spells are compared by
+     * their identity.
+     *
+     * @param wizards the wizards to collect the spells of
+     * @return the numbers of the spells, in the order of their numbers
+     */
+    private static Map<Spell, Integer> spellTable(List<Wizard> wizards) {
+        Set<Spell> spells = new LinkedHashSet<>();
+
+        for (Wizard wizard : wizards) {
+            if (wizard == null) {
+                throw new IllegalArgumentException("The wizards to write must not contain null.");
+            }
+
+            for (int i = 0; i < wizard.spellCount(); i++) {
+                collectSpell(spells, wizard.spellAt(i));
+            }
+
+            wizard.getProtections().forEach(spell -> collectSpell(spells, spell));
+
+            for (int i = 0; i < wizard.itemCount(); i++) {
+                Tradeable item = wizard.peekItemAt(i);
+
+                if (item instanceof Scroll scroll) {
+                    collectSpell(spells, scroll.getSpell());
+                } else if (item instanceof Concoction concoction) {
+                    concoction.getSpells().forEach(spell -> collectSpell(spells, spell));
+                }
+            }
+        }
+
+        List<Spell> sorted = new ArrayList<>(spells);
+        sorted.sort(Spell.CREATION_ORDER);
+
+        // The read spells are created in the order of the table, so the
+        // wizards know their spells in the same order after reading
+        Map<Spell, Integer> ids = new LinkedHashMap<>();
+        for (Spell spell : sorted) {
+            spellKind(spell);
+
+            if (spell instanceof ProtectingSpell protecting) {
+                protecting.getAttacks().stream()
+                        .sorted(Spell.CREATION_ORDER)
+                        .forEach(attack -> ids.putIfAbsent(attack, ids.size()));
+            }
+
+            ids.putIfAbsent(spell, ids.size());
+        }
+
+        return ids;
+    }
+
+    /**
+     * Adds the spell and the attacking spells it protects from to the
+     * collected spells.
+     *
+     * @param spells the collected spells
+     * @param spell  the spell to add
+     */
+    private static void collectSpell(Set<Spell> spells, Spell spell) {
+        if (spells.add(spell) && spell instanceof ProtectingSpell protecting) {
+            spells.addAll(protecting.getAttacks());
+        }
+    }
+
+    /**
+     * Returns the kind of the specified spell.
+     *
+     * @param spell the spell to write
+     * @return kind of the spell
+     * @throws IllegalArgumentException if the spell cannot be written
+     */
+    private static int spellKind(Spell spell) {
+        Class<?> type = spell.getClass();
+
+        if (type == AttackingSpell.class) {
+            return ATTACKING_SPELL;
+        } else if (type == HealingSpell.class) {
+            return HEALING_SPELL;
+        } else if (type == ProtectingSpell.class) {
+            return PROTECTING_SPELL;
+        }
+
+        throw new IllegalArgumentException("The spell class " + type.getName() + " cannot be written.");
+    }
+
+    /**
+     * Writes the specified spell of the spell table.
+     *
+     * @param output   the output to write to
+     * @param spell    the spell to write
+     * @param spellIds the numbers of the spells
+     * @throws IOException if the channel could not be written
+     */
+    private static void writeSpell(Output output, Spell spell, Map<Spell, Integer> spellIds) throws IOException {
+        int kind = spellKind(spell);
+
+        output.writeByte(kind);
+        output.writeString(spell.getName());
+        output.writeVarint(spell.getManaCost());
+        output.writeByte(spell.getLevelNeeded().ordinal());
+
+        if (spell instanceof AttackingSpell attacking) {
+            output.writeByte(flags(attacking.affectsHealth(), attacking.isPercentage()));
+            output.writeVarint(attacking.getAmount());
+        } else if (spell instanceof HealingSpell healing) {
+            output.writeByte(flags(healing.affectsHealth(), healing.isPercentage()));
+            output.writeVarint(healing.getAmount());
+        } else {
+            Set<AttackingSpell> attacks = ((ProtectingSpell) spell).getAttacks();
+
+            output.writeVarint(attacks.size());
+            for (AttackingSpell attack : attacks) {
+                output.writeVarint(spellIds.get(attack));
+            }
+        }
+    }
+
+    /**
+     * Reads the spell with the specified number of the spell table.
+     *
+     * @param input  the input to read from
+     * @param spells the spells read so far
+     * @param index  the number of the spell
+     * @return the spell that was read
+     * @throws IOException if the channel could not be read
+     */
+    private static Spell readSpell(Input input, Spell[] spells, int index) throws IOException {
+        int kind = input.readByte();
+        String name = input.readString();
+        int manaCost = input.readVarint();
+        MagicLevel level = readLevel(input);
+
+        switch (kind) {
+            case ATTACKING_SPELL, HEALING_SPELL -> {
+                int flags = input.readByte();
+                boolean affectsHealth = (flags & AFFECTS_HEALTH) != 0;
+                boolean percentage = (flags & PERCENTAGE) != 0;
+                int amount = input.readVarint();
+
+                return kind == ATTACKING_SPELL
+                        ? new AttackingSpell(name, manaCost, level, affectsHealth, percentage, amount)
+                        : new HealingSpell(name, manaCost, level, affectsHealth, percentage, amount);
+            }
+            case PROTECTING_SPELL -> {
+                int count = input.readLength();
+                Set<AttackingSpell> attacks = new HashSet<>();
+
+                for (int i = 0; i < count; i++) {
+                    Spell attack = readSpellReference(input, spells, index);
+
+                    if (!(attack instanceof AttackingSpell attacking)) {
+                        throw new IllegalArgumentException("A protecting spell must only protect from attacking spells.");
+                    }
+
+                    attacks.add(attacking);
+                }
+
+                return new ProtectingSpell(name, manaCost, level, attacks);
+            }
+            default -> throw new IllegalArgumentException("Unknown spell kind " + kind + ".");
+        }
+    }
+
+    /**
+     * Writes the specified wizard with their items.
+     *
+     * @param output   the output to write to
+     * @param wizard   the wizard to write
+     * @param spellIds the numbers of the spells
+     * @throws IOException if the channel could not be written
+     */
+    private static void writeWizard(Output output, Wizard wizard, Map<Spell, Integer> spellIds) throws IOException {
+        output.writeString(wizard.getName());
+        output.writeByte(wizard.getLevel().ordinal());
+        output.writeVarint(wizard.getHealthBase());
+        output.writeVarint(wizard.getHealth());
+        output.writeVarint(wizard.getManaBase());
+        output.writeVarint(wizard.getMana());
+        output.writeVarint(wizard.getMoney());
+        output.writeVarint(wizard.getCarryingCapacity());
+
+        output.writeVarint(wizard.spellCount());
+        for (int i = 0; i < wizard.spellCount(); i++) {
+            output.writeVarint(spellIds.get(wizard.spellAt(i)));
+        }
+
+        Set<AttackingSpell> protections = wizard.getProtections();
+        output.writeVarint(protections.size());
+        for (AttackingSpell spell : protections) {
+            output.writeVarint(spellIds.get(spell));
+        }
+
+        output.writeVarint(wizard.itemCount());
+        for (int i = 0; i < wizard.itemCount(); i++) {
+            writeItem(output, wizard.peekItemAt(i), spellIds);
+        }
+    }
+
+    /**
+     * Reads a wizard with their items.
+     *
+     * @param input  the input to read from
+     * @param spells the spell table
+     * @param index  the position of the wizard in the snapshot
+     * @return the wizard that was read
+     * @throws IOException if the channel could not be read
+     */
+    private static Wizard readWizard(Input input, Spell[] spells, int index) throws IOException {
+        String name = input.readString();
+        MagicLevel level = readLevel(input);
+        int healthBase = input.readVarint();
+        int health = input.readVarint();
+        int manaBase = input.readVarint();
+        int mana = input.readVarint();
+        int money = input.readVarint();
+        int carryingCapacity = input.readVarint();
+
+        int spellCount = input.readLength();
+        Set<Spell> knownSpells = new LinkedHashSet<>();
+        for (int i = 0; i < spellCount; i++) {
+            knownSpells.add(readSpellReference(input, spells, spells.length));
+        }
+
+        int protectionCount = input.readLength();
+        Set<AttackingSpell> protectedFrom = new HashSet<>();
+        for (int i = 0; i < protectionCount; i++) {
+            Spell spell = readSpellReference(input, spells, spells.length);
+
+            if (!(spell instanceof AttackingSpell attacking)) {
+                throw new IllegalArgumentException("Wizard " + index + " must only be protected from attacking spells.");
+            }
+
+            protectedFrom.add(attacking);
+        }
+
+        int itemCount = input.readLength();
+        Set<Tradeable> inventory = new LinkedHashSet<>();
+        for (int i = 0; i < itemCount; i++) {
+            inventory.add(readItem(input, spells));
+        }
+
+        return new Wizard(name, level, healthBase, health, manaBase, mana, money,
+                knownSpells, protectedFrom, carryingCapacity, inventory);
+    }
+
+    /**
+     * Writes the specified item.
+     *
+     * @param output   the output to write to
+     * @param item     the item to write
+     * @param spellIds the numbers of the spells
+     * @throws IllegalArgumentException if the item cannot be written
+     * @throws IOException              if the channel could not be written
+     */
+    private static void writeItem(Output output, Tradeable item, Map<Spell, Integer> spellIds) throws IOException {
+        Class<?> type = item.getClass();
+
+        if (type == Scroll.class) {
+            output.writeByte(SCROLL);
+        } else if (type == HealthPotion.class) {
+            output.writeByte(HEALTH_POTION);
+        } else if (type == ManaPotion.class) {
+            output.writeByte(MANA_POTION);
+        } else if (type == Concoction.class) {
+            output.writeByte(CONCOCTION);
+        } else {
+            throw new IllegalArgumentException("The item class " + type.getName() + " cannot be written.");
+        }
+
+        MagicItem magicItem = (MagicItem) item;
+        output.writeString(magicItem.getName());
+        output.writeVarint(magicItem.getUsages());
+        output.writeVarint(magicItem.getPrice());
+        output.writeVarint(magicItem.getWeight());
+
+        if (item instanceof Scroll scroll) {
+            output.writeVarint(spellIds.get(scroll.getSpell()));
+        } else if (item instanceof HealthPotion potion) {
+            output.writeVarint(potion.getHealth());
+        } else if (item instanceof ManaPotion potion) {
+            output.writeVarint(potion.getMana());
+        } else if (item instanceof Concoction concoction) {
+            output.writeSignedVarint(concoction.getHealth());
+            output.writeSignedVarint(concoction.getMana());
+
+            List<Spell> spells = concoction.getSpells();
+            output.writeVarint(spells.size());
+            for (Spell spell : spells) {
+                output.writeVarint(spellIds.get(spell));
+            }
+        }
+    }
+
+    /**
+     * Reads an item.
+     *
+     * @param input  the input to read from
+     * @param spells the spell table
+     * @return the item that was read
+     * @throws IOException if the channel could not be read
+     */
+    private static Tradeable readItem(Input input, Spell[] spells) throws IOException {
+        int kind = input.readByte();
+        String name = input.readString();
+        int usages = input.readVarint();
+        int price = input.readVarint();
+        int weight = input.readVarint();
+
+        switch (kind) {
+            case SCROLL -> {
+                return new Scroll(name, usages, price, weight, readSpellReference(input, spells, spells.length));
+            }
+            case HEALTH_POTION -> {
+                return new HealthPotion(name, usages, price, weight, input.readVarint());
+            }
+            case MANA_POTION -> {
+                return new ManaPotion(name, usages, price, weight, input.readVarint());
+            }
+            case CONCOCTION -> {
+                int health = input.readSignedVarint();
+                int mana = input.readSignedVarint();
+                int count = input.readLength();
+
+                List<Spell> concoctionSpells = new ArrayList<>(Math.min(count, BUFFER_SIZE));
+                for (int i = 0; i < count; i++) {
+                    concoctionSpells.add(readSpellReference(input, spells, spells.length));
+                }
+
+                return new Concoction(name, usages, price, weight, health, mana, concoctionSpells);
+            }
+            default -> throw new IllegalArgumentException("Unknown item kind " + kind + ".");
+        }
+    }
+
+    /**
+     * Reads the number of a spell and returns the spell, which must have been
+     * read before.
+     *
+     * @param input  the input to read from
+     * @param spells the spells read so far
+     * @param limit  the number of spells read so far
+     * @return the spell with the number
+     * @throws IOException if the input could not be read
+     */
+    private static Spell readSpellReference(Input input, Spell[] spells, int limit) throws IOException {
+        int id = input.readVarint();
+
+        if (id < 0 || id >= limit) {
+            throw new IllegalArgumentException("The spell number " + id + " does not refer to a spell read before.");
+        }
+
+        return spells[id];
+    }
+
+    /**
+     * Reads a magic level by its ordinal.
+     *
+     * @param input the input to read from
+     * @return the magic level that was read
+     * @throws IOException if the channel could not be read
+     */
+    private static MagicLevel readLevel(Input input) throws IOException {
+        int ordinal = input.readByte();
+
+        if (ordinal >= LEVELS.length) {
+            throw new IllegalArgumentException("Unknown magic level " + ordinal + ".");
+        }
+
+        return LEVELS[ordinal];
+    }
+
+    /**
+     * Returns the flags of an attacking or healing spell.
+     *
+     * @param affectsHealth whether health points are affected
+     * @param percentage    whether the amount is a percentage
+     * @return flags of the spell
+     */
+    private static int flags(boolean affectsHealth, boolean percentage) {
+        return (affectsHealth ? AFFECTS_HEALTH : 0) | (percentage ? PERCENTAGE : 0);
+    }
+
+    /**
+     * The class that writes the encoded values into a buffer, which is
+     * drained to a channel whenever it is full.
+     */
+    private static final class Output {
+        private final WritableByteChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+
+        Output(WritableByteChannel channel) {
+            this.channel = channel;
+        }
+
+        void writeByte(int value) throws IOException {
+            ensure(1);
+            buffer.put((byte) value);
+        }
+
+        void writeInt(int value) throws IOException {
+            ensure(Integer.BYTES);
+            buffer.putInt(value);
+        }
+
+        /**
+         * Writes a non-negative number in groups of seven bits, lowest group
+         * first, with the highest bit set on every group but the last.
+         *
+         * @param value the number to write
+         * @throws IOException if the channel could not be written
+         */
+        void writeVarint(int value) throws IOException {
+            ensure(5);
+
+            while ((value & ~0x7F) != 0) {
+                buffer.put((byte) ((value & 0x7F) | 0x80));
+                value >>>= 7;
+            }
+
+            buffer.put((byte) value);
+        }
+
+        /**
+         * Writes a signed number in zigzag encoding, which maps numbers with
+         * a small absolute value to small non-negative numbers.
+         *
+         * @param value the number to write
+         * @throws IOException if the channel could not be written
+         */
+        void writeSignedVarint(int value) throws IOException {
+            writeVarint((value << 1) ^ (value >> 31));
+        }
+
+        void writeString(String value) throws IOException {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            writeVarint(bytes.length);
+
+            int offset = 0;
+            while (offset < bytes.length) {
+                ensure(1);
+
+                int length = Math.min(buffer.remaining(), bytes.length - offset);
+                buffer.put(bytes, offset, length);
+                offset += length;
+            }
+        }
+
+        void flush() throws IOException {
+            buffer.flip();
+
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+
+            buffer.clear();
+        }
+
+        private void ensure(int bytes) throws IOException {
+            if (buffer.remaining() < bytes) {
+                flush();
+            }
+        }
+    }
+
+    /**
+     * The class that reads the encoded values from a buffer, which is filled
+     * from a channel whenever it runs empty.
+     */
+    private static final class Input {
+        private final ReadableByteChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE).flip();
+
+        Input(ReadableByteChannel channel) {
+            this.channel = channel;
+        }
+
+        int readByte() throws IOException {
+            ensure(1);
+            return buffer.get() & 0xFF;
+        }
+
+        int readInt() throws IOException {
+            ensure(Integer.BYTES);
+            return buffer.getInt();
+        }
+
+        int readVarint() throws IOException {
+            int value = 0;
+
+            for (int shift = 0; shift < 35; shift += 7) {
+                int group = readByte();
+                value |= (group & 0x7F) << shift;
+
+                if ((group & 0x80) == 0) {
+                    return value;
+                }
+            }
+
+            throw new IllegalArgumentException("A variable-length integer must not be longer than five bytes.");
+        }
+
+        int readSignedVarint() throws IOException {
+            int value = readVarint();
+            return (value >>> 1) ^ -(value & 1);
+        }
+
+        /**
+         * Reads a number of elements, which must not be negative.
+         *
+         * @return number of elements
+         * @throws IOException if the channel could not be read
+         */
+        int readLength() throws IOException {
+            int length = readVarint();
+
+            if (length < 0) {
+                throw new IllegalArgumentException("A number of elements must not be negative.");
+            }
+
+            return length;
+        }
+
+        String readString() throws IOException {
+            byte[] bytes = new byte[readLength()];
+
+            int offset = 0;
+            while (offset < bytes.length) {
+                ensure(1);
+
+                int length = Math.min(buffer.remaining(), bytes.length - offset);
+                buffer.get(bytes, offset, length);
+                offset += length;
+            }
+
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        private void ensure(int bytes) throws IOException {
+            if (buffer.remaining() >= bytes) {
+                return;
+            }
+
+            buffer.compact();
+            while (buffer.position() < bytes) {
+                if (channel.read(buffer) < 0) {
+                    throw new EOFException("The channel ended before the end of the wizard snapshot.");
+                }
+            }
+            buffer.flip();
+        }
+    }
+}
@@ -0,0 +1,836 @@
+package a11908284;
+
+import java.util.Arrays;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * The class that stores the state of many wizards in primitive arrays, one
+ * array per attribute, indexed by the identifier of the wizard.
+ * <p>
+ * Compared to a {@link Wizard} object, a wizard of the pool only takes a few
+ * bytes in each array and no objects of its own, except for the protections of
+ * a wizard that is protected from any spell. The pool does not hold names,
+ * spells or inventories. The effects use the same arithmetic as a
+ * {@link Wizard}, so applying the same spells in the same order gives the same
+ * points.
+ * <p>
+ * Besides the operations on a single wizard, the pool applies a spell to many
+ * wizards at once. Attacking and healing spells of this package are applied by
+ * a tight loop over the arrays, other spells fall back to
+ * {@link Spell#doEffect(MagicEffectRealization)} with an {@link Entity} of
+ * each wizard. The bulk operations can run in parallel on a
+ * {@link ForkJoinPool}, as long as no identifier is given twice. The pool is
+ * not thread-safe otherwise.
+ */
+public final class WizardPool {
+
+    /**
+     * The initial number of wizards the arrays can hold.
+     */
+    private static final int INITIAL_CAPACITY = 16;
+
+    /**
+     * The number of wizards below which a parallel bulk operation is no longer
+     * split up.
+     */
+    private static final int SEQUENTIAL_THRESHOLD = 4096;
+
+    /**
+     * All magic levels, indexed by their ordinal.
+     */
+    private static final MagicLevel[] LEVELS = MagicLevel.values();
+
+    /**
+     * The ordinals of the magic levels of the wizards.
+     */
+    private byte[] levels;
+
+    private int[] healthBases;
+    private int[] healths;
+    private int[] manaBases;
+    private int[] manas;
+    private int[] moneys;
+    private int[] carryingCapacities;
+
+    /**
+     * The spells the wizards are protected from, or null for a wizard that is
+     * not protected from any spell.
+     */
+    private SpellBitSet<?>[] protections;
+
+    /**
+     * The number of wizards in the pool.
+     */
+    private int size;
+
+    /**
+     * Creates an empty pool.
+     */
+    public WizardPool() {
+        this(INITIAL_CAPACITY);
+    }
+
+    /**
+     * Creates an empty pool with room for the specified number of wizards.
+     *
+     * @param capacity number of wizards the pool can hold before it grows
+     * @throws IllegalArgumentException if capacity is negative
+     */
+    public WizardPool(int capacity) {
+        if (capacity < 0) {
+            throw new IllegalArgumentException("The capacity of the pool must not be negative.");
+        }
+
+        levels = new byte[capacity];
+        healthBases = new int[capacity];
+        healths = new int[capacity];
+        manaBases = new int[capacity];
+        manas = new int[capacity];
+        moneys = new int[capacity];
+        carryingCapacities = new int[capacity];
+        protections = new SpellBitSet<?>[capacity];
+    }
+
+    /**
+     * Adds a wizard without protections to the pool.
+     *
+     * @param level            magic level the wizard is on
+     * @param healthBase       base level of health points
+     * @param health           initial health points of the wizard
+     * @param manaBase         base level of mana points
+     * @param mana             initial mana points of the wizard
+     * @param money            initial money the wizard has
+     * @param carryingCapacity capacity of the wizard's inventory
+     * @return identifier of the new wizard
+     * @throws IllegalArgumentException if the arguments do not meet the same
+     *                                  criteria as for a {@link Wizard}
+     */
+    public int add(MagicLevel level, int healthBase, int health, int manaBase, int mana, int money, int carryingCapacity) {
+        if (level == null) {
+            throw new IllegalArgumentException("The initial magic level of the wizard must not be null.");
+        }
+
+        if (healthBase < 0 || health < 0) {
+            throw new IllegalArgumentException("The (base) health points of the wizard must not be negative.");
+        }
+
+        if (manaBase < 0 || mana < 0) {
+            throw new IllegalArgumentException("The (base) mana points of the wizard must not be negative.");
+        }
+
+        if (manaBase < level.toMana()) {
+            throw new IllegalArgumentException("The mana base points of the wizard must not be less then required by their magic level.");
+        }
+
+        if (money < 0) {
+            throw new IllegalArgumentException("The initial money value of the wizard must not be negative.");
+        }
+
+        if (carryingCapacity < 0) {
+            throw new IllegalArgumentException("The initial carrying capacity of the wizard must not be negative.");
+        }
+
+        if (size == healths.length) {
+            grow();
+        }
+
+        int id = size;
+        levels[id] = (byte) level.ordinal();
+        healthBases[id] = healthBase;
+        healths[id] = health;
+        manaBases[id] = manaBase;
+        manas[id] = mana;
+        moneys[id] = money;
+        carryingCapacities[id] = carryingCapacity;
+        size += 1;
+
+        return id;
+    }
+
+    /**
+     * Adds a wizard to the pool with the level, points, money, carrying
+     * capacity and protections of the specified wizard.
+     *
+     * @param wizard the wizard to copy
+     * @return identifier of the new wizard
+     * @throws IllegalArgumentException if wizard is null
+     */
+    public int add(Wizard wizard) {
+        if (wizard == null) {
+            throw new IllegalArgumentException("The wizard to add must not be null.");
+        }
+
+        int id = add(wizard.getLevel(), wizard.getHealthBase(), wizard.getHealth(), wizard.getManaBase(),
+                wizard.getMana(), wizard.getMoney(), wizard.getCarryingCapacity());
+
+        Set<AttackingSpell> wizardProtections = wizard.getProtections();
+        if (!wizardProtections.isEmpty()) {
+            protections[id] = new SpellBitSet<>(wizardProtections);
+        }
+
+        return id;
+    }
+
+    /**
+     * Returns the number of wizards in the pool.
+     *
+     * @return number of wizards
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns a view of the wizard with the specified identifier, which can be
+     * the source and target of spells and items.
+     *
+     * @param id identifier of the wizard
+     * @return view of the wizard
+     * @throws IllegalArgumentException if there is no such wizard
+     */
+    public Entity entity(int id) {
+        checkId(id);
+        return new Entity(id);
+    }
+
+    /**
+     * Returns the magic level of the wizard.
+     *
+     * @param id identifier of the wizard
+     * @return magic level of the wizard
+     * @throws IllegalArgumentException if there is no such wizard
+     */
+    public MagicLevel getLevel(int id) {
+        checkId(id);
+        return LEVELS[levels[id]];
+    }
+
+    /**
+     * Returns the base level of health points of the wizard.
+     *
+     * @param id identifier of the wizard
+     * @return base level of health points of the wizard
+     * @throws IllegalArgumentException if there is no such wizard
+     */
+    public int getHealthBase(int id) {
+        checkId(id);
+        return healthBases[id];
+    }
+
+    /**
+     * Returns the health points of the wizard.
+     *
+     * @param id identifier of the wizard
+     * @return health points of the wizard
+     * @throws IllegalArgumentException if there is no such wizard
+     */
+    public int getHealth(int id) {
+        checkId(id);
+        return healths[id];
+    }
+
+    /**
+     * Returns the base level of mana points of the wizard.
+     *
+     * @param id identifier of the wizard
+     * @return base level of mana points of the wizard
+     * @throws IllegalArgumentException if there is no such wizard
+     */
+    public int getManaBase(int id) {
+        checkId(id);
+        return manaBases[id];
+    }
+
+    /**
+     * Returns the mana points of the wizard.
+     *
+     * @param id identifier of the wizard
+     * @return mana points of the wizard
+     * @throws IllegalArgumentException if there is no such wizard
+     */
+    public int getMana(int id) {
+        checkId(id);
+        return manas[id];
+    }
+
+    /**
+     * Returns the money of the wizard.
+     *
+     * @param id identifier of the wizard
+     * @return money of the wizard
+     * @throws IllegalArgumentException if there is no such wizard
+     */
+    public int getMoney(int id) {
+        checkId(id);
+        return moneys[id];
+    }
+
+    /**
+     * Returns the carrying capacity of the wizard.
+     *
+     * @param id identifier of the wizard
+     * @return carrying capacity of the wizard
+     * @throws IllegalArgumentException if there is no such wizard
+     */
+    public int getCarryingCapacity(int id) {
+        checkId(id);
+        return carryingCapacities[id];
+    }
+
+    /**
+     * Returns whether the wizard with the specified identifier is dead.
+     *
+     * @param id identifier of the wizard
+     * @return whether the wizard is dead
+     * @throws IllegalArgumentException if there is no such wizard
+     */
+    public boolean isDead(int id) {
+        checkId(id);
+        return healths[id] == 0;
+    }
+
+    /**
+     * Debits the specified mana points from the wizard, if the wizard is alive,
+     * is on the needed level and has enough mana points.
+     *
+     * @param id          identifier of the wizard
+     * @param levelNeeded magic level minimum to provide the mana points
+     * @param manaAmount  amount of mana points that will be provided
+     * @return whether the mana could be provided
+     * @throws IllegalArgumentException if there is no such wizard, the needed
+     *                                  magic level is null or the mana amount
+     *                                  is negative
+     */
+    public boolean provideMana(int id, MagicLevel levelNeeded, int manaAmount) {
+        checkId(id);
+
+        if (levelNeeded == null) {
+            throw new IllegalArgumentException("The needed level must not be null.");
+        }
+
+        if (manaAmount < 0) {
+            throw new IllegalArgumentException("Mana amount must not be negative.");
+        }
+
+        if (levels[id] < levelNeeded.ordinal() || healths[id] == 0 || manas[id] < manaAmount) {
+            return false;
+        }
+
+        manas[id] -= manaAmount;
+        return true;
+    }
+
+    /**
+     * Reduces the health points by the specified, absolute amount of damage,
+     * but never below zero.
+     *
+     * @param id     identifier of the wizard
+     * @param amount absolute amount of damage
+     * @throws IllegalArgumentException if there is no such wizard or the
+     *                                  amount is negative
+     */
+    public void takeDamage(int id, int amount) {
+        checkId(id);
+        checkAmount(amount, "The damage must not be negative.");
+        healths[id] = EffectMath.decrease(healths[id], amount);
+    }
+
+    /**
+     * Reduces the health points by the specified percentage of the base
+     * health points, but never below zero.
+     *
+     * @param id         identifier of the wizard
+     * @param percentage relative amount of damage (value between [0;100])
+     * @throws IllegalArgumentException if there is no such wizard or the
+     *                                  percentage is not between 0 and 100
+     */
+    public void takeDamagePercent(int id, int percentage) {
+        checkId(id);
+        checkPercentage(percentage, "The relative damage must not be less than 0 or greater than 100.");
+        healths[id] = EffectMath.decreasePercent(healths[id], healthBases[id], percentage);
+    }
+
+    /**
+     * Reduces the mana points by the specified, absolute amount, but never
+     * below zero.
+     *
+     * @param id     identifier of the wizard
+     * @param amount absolute amount of mana decrease
+     * @throws IllegalArgumentException if there is no such wizard or the
+     *                                  amount is negative
+     */
+    public void weakenMagic(int id, int amount) {
+        checkId(id);
+        checkAmount(amount, "The mana decrease must not be negative.");
+        manas[id] = EffectMath.decrease(manas[id], amount);
+    }
+
+    /**
+     * Reduces the mana points by the specified percentage of the base mana
+     * points, but never below zero.
+     *
+     * @param id         identifier of the wizard
+     * @param percentage relative amount of mana decrease (value between [0;100])
+     * @throws IllegalArgumentException if there is no such wizard or the
+     *                                  percentage is not between 0 and 100
+     */
+    public void weakenMagicPercent(int id, int percentage) {
+        checkId(id);
+        checkPercentage(percentage, "The relative mana decrease must not be less than 0 or greater than 100.");
+        manas[id] = EffectMath.decreasePercent(manas[id], manaBases[id], percentage);
+    }
+
+    /**
+     * Increases the health points by the specified, absolute amount of
+     * healing.
+     *
+     * @param id     identifier of the wizard
+     * @param amount absolute amount of healing
+     * @throws IllegalArgumentException if there is no such wizard or the
+     *                                  amount is negative
+     */
+    public void heal(int id, int amount) {
+        checkId(id);
+        checkAmount(amount, "The healing must not be negative.");
+        healths[id] = EffectMath.increase(healths[id], amount);
+    }
+
+    /**
+     * Increases the health points by the specified percentage of the base
+     * health points.
+     *
+     * @param id         identifier of the wizard
+     * @param percentage relative amount of healing (value between [0;100])
+     * @throws IllegalArgumentException if there is no such wizard or the
+     *                                  percentage is not between 0 and 100
+     */
+    public void healPercent(int id, int percentage) {
+        checkId(id);
+        checkPercentage(percentage, "The relative healing must not be less than 0 or greater than 100.");
+        healths[id] = EffectMath.increasePercent(healths[id], healthBases[id], percentage);
+    }
+
+    /**
+     * Increases the mana points by the specified, absolute amount.
+     *
+     * @param id     identifier of the wizard
+     * @param amount absolute amount of mana increase
+     * @throws IllegalArgumentException if there is no such wizard or the
+     *                                  amount is negative
+     */
+    public void enforceMagic(int id, int amount) {
+        checkId(id);
+        checkAmount(amount, "The mana increase must not be negative.");
+        manas[id] = EffectMath.increase(manas[id], amount);
+    }
+
+    /**
+     * Increases the mana points by the specified percentage of the base mana
+     * points.
+     *
+     * @param id         identifier of the wizard
+     * @param percentage relative amount of mana increase (value between [0;100])
+     * @throws IllegalArgumentException if there is no such wizard or the
+     *                                  percentage is not between 0 and 100
+     */
+    public void enforceMagicPercent(int id, int percentage) {
+        checkId(id);
+        checkPercentage(percentage, "The relative mana increase must not be less than 0 or greater than 100.");
+        manas[id] = EffectMath.increasePercent(manas[id], manaBases[id], percentage);
+    }
+
+    /**
+     * Checks whether the wizard is protected against the specified spell.
+     *
+     * @param id    identifier of the wizard
+     * @param spell specific spell to check for
+     * @return whether the wizard is protected against the specified spell
+     * @throws IllegalArgumentException if there is no such wizard or the
+     *                                  spell is null
+     */
+    public boolean isProtected(int id, Spell spell) {
+        checkId(id);
+
+        if (spell == null) {
+            throw new IllegalArgumentException("The spell must not be null.");
+        }
+
+        SpellBitSet<?> protection = protections[id];
+        return protection != null && protection.contains(spell);
+    }
+
+    /**
+     * Registers the specified spells that the wizard gains protection from.
+     *
+     * @param id      identifier of the wizard
+     * @param attacks spells the wizard gains protection from
+     * @throws IllegalArgumentException if there is no such wizard or the
+     *                                  attacks are null
+     */
+    public void setProtection(int id, Set<AttackingSpell> attacks) {
+        checkId(id);
+
+        if (attacks == null) {
+            throw new IllegalArgumentException("List of attacks to add must not be empty.");
+        }
+
+        protections(id).addAll(attacks);
+    }
+
+    /**
+     * Removes the specified spells that the wizard loses protection for.
+     *
+     * @param id      identifier of the wizard
+     * @param attacks spells the wizard loses protection for
+     * @throws IllegalArgumentException if there is no such wizard or the
+     *                                  attacks are null
+     */
+    public void removeProtection(int id, Set<AttackingSpell> attacks) {
+        checkId(id);
+
+        if (attacks == null) {
+            throw new IllegalArgumentException("List of attacks to remove must not be empty.");
+        }
+
+        SpellBitSet<?> protection = protections[id];
+        if (protection != null) {
+            protection.removeAll(attacks);
+        }
+    }
+
+    /**
+     * Applies the effect of the specified spell to the wizards with the
+     * specified identifiers, in the order of the identifiers. No mana is
+     * debited from anyone.
+     *
+     * @param spell the spell to apply
+     * @param ids   identifiers of the wizards
+     * @throws IllegalArgumentException if spell or ids is null or an
+     *                                  identifier does not belong to a wizard
+     */
+    public void apply(Spell spell, int[] ids) {
+        checkBulk(spell, ids);
+        apply(spell, ids, 0, ids.length);
+    }
+
+    /**
+     * Applies the effect of the specified spell to the wizards with the
+     * specified identifiers in parallel on the specified pool. Since every
+     * wizard is only changed by its own effect, the result is the same as with
+     * {@link WizardPool#apply(Spell, int[])}.
+     *
+     * @param spell the spell to apply
+     * @param ids   distinct identifiers of the wizards
+     * @param pool  the pool the spell is applied on
+     * @throws IllegalArgumentException if spell, ids or pool is null or an
+     *                                  identifier does not belong to a wizard
+     */
+    public void apply(Spell spell, int[] ids, ForkJoinPool pool) {
+        checkBulk(spell, ids);
+
+        if (pool == null) {
+            throw new IllegalArgumentException("The pool to apply the spell on must not be null.");
+        }
+
+        pool.invoke(new ApplyTask(spell, ids, 0, ids.length));
+    }
+
+    /**
+     * Applies the effect of the spell to the wizards in a range of the
+     * identifiers.
+     *
+     * @param spell the spell to apply
+     * @param ids   identifiers of the wizards
+     * @param from  first position of the range (inclusive)
+     * @param to    last position of the range (exclusive)
+     */
+    private void apply(Spell spell, int[] ids, int from, int to) {
+        Class<?> type = spell.getClass();
+
+        if (type == AttackingSpell.class) {
+            attack((AttackingSpell) spell, ids, from, to);
+        } else if (type == HealingSpell.class) {
+            heal((HealingSpell) spell, ids, from, to);
+        } else {
+            for (int i = from; i < to; i++) {
+                spell.doEffect(new Entity(ids[i]));
+            }
+        }
+    }
+
+    /**
+     * Applies an attacking spell to a range of the identifiers in the same way
+     * as {@link AttackingSpell#doEffect(MagicEffectRealization)}.
+     *
+     * @param spell the spell to apply
+     * @param ids   identifiers of the wizards
+     * @param from  first position of the range (inclusive)
+     * @param to    last position of the range (exclusive)
+     */
+    private void attack(AttackingSpell spell, int[] ids, int from, int to) {
+        int[] points = spell.affectsHealth() ? healths : manas;
+        int[] bases = spell.affectsHealth() ? healthBases : manaBases;
+        boolean percentage = spell.isPercentage();
+        int amount = spell.getAmount();
+
+        for (int i = from; i < to; i++) {
+            int id = ids[i];
+
+            // A protection is used up instead of taking the effect
+            SpellBitSet<?> protection = protections[id];
+            if (protection != null && protection.remove(spell)) {
+                continue;
+            }
+
+            points[id] = percentage
+                    ? EffectMath.decreasePercent(points[id], bases[id], amount)
+                    : EffectMath.decrease(points[id], amount);
+        }
+    }
+
+    /**
+     * Applies a healing spell to a range of the identifiers in the same way as
+     * {@link HealingSpell#doEffect(MagicEffectRealization)}.
+     *
+     * @param spell the spell to apply
+     * @param ids   identifiers of the wizards
+     * @param from  first position of the range (inclusive)
+     * @param to    last position of the range (exclusive)
+     */
+    private void heal(HealingSpell spell, int[] ids, int from, int to) {
+        int[] points = spell.affectsHealth() ? healths : manas;
+        int[] bases = spell.affectsHealth() ? healthBases : manaBases;
+        boolean percentage = spell.isPercentage();
+        int amount = spell.getAmount();
+
+        for (int i = from; i < to; i++) {
+            int id = ids[i];
+
+            points[id] = percentage
+                    ? EffectMath.increasePercent(points[id], bases[id], amount)
+                    : EffectMath.increase(points[id], amount);
+        }
+    }
+
+    /**
+     * Returns the protections of the wizard, creating them if the wizard is
+     * not protected from any spell yet.
+     *
+     * @param id identifier of the wizard
+     * @return protections of the wizard
+     */
+    @SuppressWarnings("unchecked")
+    private SpellBitSet<AttackingSpell> protections(int id) {
+        if (protections[id] == null) {
+            protections[id] = new SpellBitSet<AttackingSpell>();
+        }
+
+        return (SpellBitSet<AttackingSpell>) protections[id];
+    }
+
+    /**
+     * Doubles the capacity of the arrays.
+     */
+    private void grow() {
+        int capacity = Math.max(healths.length * 2, INITIAL_CAPACITY);
+
+        levels = Arrays.copyOf(levels, capacity);
+        healthBases = Arrays.copyOf(healthBases, capacity);
+        healths = Arrays.copyOf(healths, capacity);
+        manaBases = Arrays.copyOf(manaBases, capacity);
+        manas = Arrays.copyOf(manas, capacity);
+        moneys = Arrays.copyOf(moneys, capacity);
+        carryingCapacities = Arrays.copyOf(carryingCapacities, capacity);
+        protections = Arrays.copyOf(protections, capacity);
+    }
+
+    /**
+     * Checks that a wizard with the specified identifier is in the pool.
+     *
+     * @param id identifier of the wizard
+     * @throws IllegalArgumentException if there is no such wizard
+     */
+    private void checkId(int id) {
+        if (id < 0 || id >= size) {
+            throw new IllegalArgumentException("There is no wizard with the identifier " + id + " in the pool.");
+        }
+    }
+
+    /**
+     * Checks the arguments of a bulk operation before anything is applied.
+     *
+     * @param spell the spell to apply
+     * @param ids   identifiers of the wizards
+     * @throws IllegalArgumentException if spell or ids is null or an
+     *                                  identifier does not belong to a wizard
+     */
+    private void checkBulk(Spell spell, int[] ids) {
+        if (spell == null) {
+            throw new IllegalArgumentException("The spell to apply must not be null.");
+        }
+
+        if (ids == null) {
+            throw new IllegalArgumentException("The identifiers of the wizards must not be null.");
+        }
+
+        for (int id : ids) {
+            checkId(id);
+        }
+    }
+
+    /**
+     * Checks that the specified amount is not negative.
+     *
+     * @param amount  the amount to check
+     * @param message the message of the exception
+     * @throws IllegalArgumentException if the amount is negative
+     */
+    private static void checkAmount(int amount, String message) {
+        if (amount < 0) {
+            throw new IllegalArgumentException(message);
+        }
+    }
+
+    /**
+     * Checks that the specified percentage is between 0 and 100.
+     *
+     * @param percentage the percentage to check
+     * @param message    the message of the exception
+     * @throws IllegalArgumentException if the percentage is out of range
+     */
+    private static void checkPercentage(int percentage, String message) {
+        if (percentage < 0 || percentage > 100) {
+            throw new IllegalArgumentException(message);
+        }
+    }
+
+    /**
+     * The class that is the view of a single wizard of the pool, so that it
+     * can be the source and target of spells and items.
+     */
+    public final class Entity implements MagicSource, MagicEffectRealization {
+
+        /**
+         * The identifier of the wizard in the pool.
+         */
+        private final int id;
+
+        private Entity(int id) {
+            this.id = id;
+        }
+
+        /**
+         * Returns the identifier of the wizard in the pool.
+         *
+         * @return identifier of the wizard
+         */
+        public int getId() {
+            return id;
+        }
+
+        @Override
+        public boolean provideMana(MagicLevel levelNeeded, int manaAmount) {
+            return WizardPool.this.provideMana(id, levelNeeded, manaAmount);
+        }
+
+        @Override
+        public void takeDamage(int amount) {
+            WizardPool.this.takeDamage(id, amount);
+        }
+
+        @Override
+        public void takeDamagePercent(int percentage) {
+            WizardPool.this.takeDamagePercent(id, percentage);
+        }
+
+        @Override
+        public void weakenMagic(int amount) {
+            WizardPool.this.weakenMagic(id, amount);
+        }
+
+        @Override
+        public void weakenMagicPercent(int percentage) {
+            WizardPool.this.weakenMagicPercent(id, percentage);
+        }
+
+        @Override
+        public void heal(int amount) {
+            WizardPool.this.heal(id, amount);
+        }
+
+        @Override
+        public void healPercent(int percentage) {
+            WizardPool.this.healPercent(id, percentage);
+        }
+
+        @Override
+        public void enforceMagic(int amount) {
+            WizardPool.this.enforceMagic(id, amount);
+        }
+
+        @Override
+        public void enforceMagicPercent(int percentage) {
+            WizardPool.this.enforceMagicPercent(id, percentage);
+        }
+
+        @Override
+        public boolean isProtected(Spell spell) {
+            return WizardPool.this.isProtected(id, spell);
+        }
+
+        @Override
+        public void setProtection(Set<AttackingSpell> attacks) {
+            WizardPool.this.setProtection(id, attacks);
+        }
+
+        @Override
+        public void removeProtection(Set<AttackingSpell> attacks) {
+            WizardPool.this.removeProtection(id, attacks);
+        }
+
+        @Override
+        public void removeProtectionFrom(AttackingSpell attack) {
+            if (attack == null) {
+                throw new IllegalArgumentException("The attack to remove must not be null.");
+            }
+
+            SpellBitSet<?> protection = protections[id];
+            if (protection != null) {
+                protection.remove(attack);
+            }
+        }
+    }
+
+    /**
+     * The task that applies a spell to a range of the identifiers, splitting
+     * the range up while it is large.
+     */
+    private final class ApplyTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final Spell spell;
+        private final int[] ids;
+        private final int from;
+        private final int to;
+
+        ApplyTask(Spell spell, int[] ids, int from, int to) {
+            this.spell = spell;
+            this.ids = ids;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= SEQUENTIAL_THRESHOLD) {
+                apply(spell, ids, from, to);
+                return;
+            }
+
+            int middle = (from + to) >>> 1;
+            invokeAll(new ApplyTask(spell, ids, from, middle), new ApplyTask(spell, ids, middle, to));
+        }
+    }
+}
@@ -0,0 +1,183 @@
+import a11908284.AttackingSpell;
+import a11908284.HealingSpell;
+import a11908284.HealthPotion;
+import a11908284.MagicLevel;
+import a11908284.Marketplace;
+import a11908284.Metrics;
+import a11908284.MetricsSink;
+import a11908284.OutcomeCounters;
+import a11908284.ProtectingSpell;
+import a11908284.Scroll;
+import a11908284.Spell;
+import a11908284.Tradeable;
+import a11908284.Wizard;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Assumptions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Checks that the combat and trade operations do not allocate any objects
+ * once they are warmed up, by reading the allocation counter of the current
+ * thread around many invocations.
+ */
+class AllocationTest {
+    static final int PLENTY = 1_000_000_000;
+    static final int WARMUP = 200_000;
+    static final int OPERATIONS = 100_000;
+
+    static AttackingSpell fireball = new AttackingSpell("Fire Ball", 0, MagicLevel.NOOB, true, false, 1);
+    static AttackingSpell burn = new AttackingSpell("Burn", 0, MagicLevel.NOOB, true, true, 1);
+    static HealingSpell cure = new HealingSpell("Cure", 0, MagicLevel.NOOB, true, false, 1);
+    static HealingSpell renew = new HealingSpell("Renew", 0, MagicLevel.NOOB, true, true, 1);
+    static ProtectingSpell shield = new ProtectingSpell("Shield", 0, MagicLevel.NOOB, Set.of(fireball, burn));
+
+    Wizard caster;
+    Wizard target;
+    Tradeable potion;
+    Tradeable scroll;
+
+    @BeforeEach
+    void setUp() {
+        potion = new HealthPotion("Potion", PLENTY, 1, 1, 1);
+        scroll = new Scroll("Scroll", PLENTY, 1, 1, cure);
+        caster = wizard("Caster", new LinkedHashSet<>(List.of(fireball, burn, cure, renew, shield)), Set.of(potion, scroll));
+        target = wizard("Target", new HashSet<>(), Set.of());
+    }
+
+    static Wizard wizard(String name, Set<? extends Spell> spells, Set<Tradeable> items) {
+        return new Wizard(name, MagicLevel.MASTER, PLENTY, PLENTY / 2, PLENTY, PLENTY / 2, PLENTY / 2,
+                spells, new HashSet<>(), 100, new HashSet<>(items));
+    }
+
+    /**
+     * Returns the average number of bytes the current thread allocates per
+     * invocation of the operation, after warming the operation up.
+     */
+    static long allocatedBytesPerOperation(Runnable operation) {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        Assumptions.assumeTrue(threads.isThreadAllocatedMemorySupported() && threads.isThreadAllocatedMemoryEnabled());
+
+        long thread = Thread.currentThread().getId();
+        for (int i = 0; i < WARMUP; i++) {
+            operation.run();
+        }
+
+        long before = threads.getThreadAllocatedBytes(thread);
+        for (int i = 0; i < OPERATIONS; i++) {
+            operation.run();
+        }
+        long after = threads.getThreadAllocatedBytes(thread);
+
+        return (after - before) / OPERATIONS;
+    }
+
+    @Test
+    void castSpell() {
+        Assertions.assertEquals(0, allocatedBytesPerOperation(() -> {
+            caster.castSpell(fireball, target);
+            caster.castSpell(cure, target);
+        }));
+    }
+
+    @Test
+    void castSpellWithMetrics() {
+        OutcomeCounters counters = new OutcomeCounters();
+        Metrics.setSink(counters);
+
+        try {
+            Assertions.assertEquals(0, allocatedBytesPerOperation(() -> {
+                caster.castSpell(fireball, target);
+                potion.give(caster, target);
+                potion.give(target, caster);
+            }));
+        } finally {
+            Metrics.setSink(MetricsSink.NONE);
+        }
+    }
+
+    @Test
+    void castBlockedSpell() {
+        Assertions.assertEquals(0, allocatedBytesPerOperation(() -> {
+            caster.castSpell(shield, target);
+            caster.castSpell(fireball, target);
+            caster.castSpell(burn, target);
+            caster.castSpell(renew, target);
+        }));
+        Assertions.assertFalse(target.isProtected(fireball));
+    }
+
+    @Test
+    void castRandomSpell() {
+        Assertions.assertEquals(0, allocatedBytesPerOperation(() -> caster.castRandomSpell(target)));
+    }
+
+    @Test
+    void percentageEffects() {
+        Assertions.assertEquals(0, allocatedBytesPerOperation(() -> {
+            target.takeDamagePercent(1);
+            target.healPercent(1);
+            target.weakenMagicPercent(1);
+            target.enforceMagicPercent(1);
+        }));
+    }
+
+    @Test
+    void useItem() {
+        Assertions.assertEquals(0, allocatedBytesPerOperation(() -> {
+            caster.useItem(potion, target);
+            caster.useItem(scroll, target);
+            caster.useRandomItem(target);
+        }));
+    }
+
+    @Test
+    void give() {
+        Assertions.assertEquals(0, allocatedBytesPerOperation(() -> {
+            Assertions.assertTrue(potion.give(caster, target));
+            Assertions.assertTrue(potion.give(target, caster));
+        }));
+    }
+
+    @Test
+    void purchase() {
+        Assertions.assertEquals(0, allocatedBytesPerOperation(() -> {
+            Assertions.assertTrue(caster.sellItem(potion, target));
+            Assertions.assertTrue(target.sellItem(potion, caster));
+            Assertions.assertTrue(caster.sellRandomItem(target));
+            Assertions.assertTrue(target.sellRandomItem(caster));
+        }));
+    }
+
+    @Test
+    void render() {
+        StringBuilder builder = new StringBuilder(4096);
+        Assertions.assertEquals(0, allocatedBytesPerOperation(() -> {
+            builder.setLength(0);
+            caster.appendTo(builder);
+            target.appendTo(builder);
+        }));
+    }
+
+    @Test
+    void matchOrders() {
+        Marketplace market = new Marketplace();
+        Wizard[] traders = {caster, target};
+
+        Assertions.assertEquals(0, allocatedBytesPerOperation(() -> {
+            market.ask("potion", traders[0], potion, 1);
+            market.bid("potion", traders[1], 1);
+
+            Wizard swap = traders[0];
+            traders[0] = traders[1];
+            traders[1] = swap;
+        }));
+        Assertions.assertEquals(WARMUP + OPERATIONS, market.getMatches());
+    }
+}
@@ -0,0 +1,128 @@
+import a11908284.AttackingSpell;
+import a11908284.BattleEngine;
+import a11908284.HealingSpell;
+import a11908284.HealthPotion;
+import a11908284.MagicEffectRealization;
+import a11908284.MagicLevel;
+import a11908284.ProtectingSpell;
+import a11908284.Scroll;
+import a11908284.Spell;
+import a11908284.Tradeable;
+import a11908284.Wizard;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.stream.Collectors;
+
+class BattleEngineTest {
+    static AttackingSpell fireball = new AttackingSpell("Fire Ball", 5, MagicLevel.NOOB, true, false, 7);
+    static AttackingSpell drain = new AttackingSpell("Drain", 5, MagicLevel.NOOB, false, true, 10);
+    static HealingSpell cure = new HealingSpell("Cure", 5, MagicLevel.NOOB, true, true, 5);
+    static ProtectingSpell shield = new ProtectingSpell("Shield", 5, MagicLevel.NOOB, Set.of(fireball));
+
+    static List<Wizard> army(int size) {
+        List<Wizard> wizards = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            Set<Spell> spells = new LinkedHashSet<>(Arrays.asList(fireball, drain, cure, shield));
+            Set<Tradeable> items = new LinkedHashSet<>(Arrays.asList(
+                    new HealthPotion("Potion " + i, 3, 1, 1, 10),
+                    new Scroll("Scroll " + i, 2, 1, 1, fireball)));
+            wizards.add(new Wizard("Wizard " + i, MagicLevel.NOOB, 100, 100, 100, 100, 10,
+                    spells, new HashSet<>(), 10, items));
+        }
+        return wizards;
+    }
+
+    static List<String> fight(int parallelism, long seed) {
+        List<Wizard> wizards = army(300);
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            new BattleEngine(wizards, seed, pool).run(40);
+        } finally {
+            pool.shutdown();
+        }
+        return wizards.stream().map(Wizard::toString).collect(Collectors.toList());
+    }
+
+    @Test
+    void constructor() {
+        ForkJoinPool pool = ForkJoinPool.commonPool();
+        Wizard wizard = army(1).get(0);
+        Assertions.assertThrows(IllegalArgumentException.class, () -> new BattleEngine(null, 0, pool));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> new BattleEngine(army(2), 0, null));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> new BattleEngine(Arrays.asList(wizard, null), 0, pool));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> new BattleEngine(Arrays.asList(wizard, wizard), 0, pool));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> new BattleEngine(army(2), 0, pool).run(-1));
+    }
+
+    @Test
+    void tick() {
+        List<Wizard> wizards = army(2);
+        BattleEngine engine = new BattleEngine(wizards, 1, ForkJoinPool.commonPool());
+        List<String> before = wizards.stream().map(Wizard::toString).collect(Collectors.toList());
+        engine.tick();
+        Assertions.assertEquals(1, engine.getTick());
+        Assertions.assertNotEquals(before, wizards.stream().map(Wizard::toString).collect(Collectors.toList()));
+    }
+
+    @Test
+    void loneWizardDoesNothing() {
+        List<Wizard> wizards = army(1);
+        String before = wizards.get(0).toString();
+        new BattleEngine(wizards, 1, ForkJoinPool.commonPool()).run(10);
+        Assertions.assertEquals(before, wizards.get(0).toString());
+    }
+
+    @Test
+    void deadWizardsDoNothing() {
+        List<Wizard> wizards = army(2);
+        wizards.forEach(wizard -> wizard.takeDamage(100));
+        List<String> before = wizards.stream().map(Wizard::toString).collect(Collectors.toList());
+        new BattleEngine(wizards, 1, ForkJoinPool.commonPool()).run(10);
+        Assertions.assertEquals(before, wizards.stream().map(Wizard::toString).collect(Collectors.toList()));
+        Assertions.assertEquals(Collections.nCopies(2, true), wizards.stream().map(Wizard::isDead).collect(Collectors.toList()));
+    }
+
+    @Test
+    void itemsAreUsedSequentially() {
+        List<Boolean> inPool = Collections.synchronizedList(new ArrayList<>());
+        List<Wizard> wizards = new ArrayList<>();
+        for (int i = 0; i < 2; i++) {
+            Tradeable potion = new HealthPotion("Potion " + i, 100, 1, 1, 1) {
+                @Override
+                public void useOn(MagicEffectRealization target) {
+                    inPool.add(ForkJoinTask.inForkJoinPool());
+                    super.useOn(target);
+                }
+            };
+            wizards.add(new Wizard("Wizard " + i, MagicLevel.NOOB, 100, 100, 100, 100, 10,
+                    new HashSet<>(), new HashSet<>(), 10, new HashSet<>(Set.of(potion))));
+        }
+
+        ForkJoinPool pool = new ForkJoinPool(2);
+        try {
+            new BattleEngine(wizards, 1, pool).run(5);
+        } finally {
+            pool.shutdown();
+        }
+
+        Assertions.assertEquals(Collections.nCopies(10, false), inPool);
+    }
+
+    @Test
+    void reproducibleForAnyParallelism() {
+        List<String> sequential = fight(1, 42);
+        Assertions.assertEquals(sequential, fight(4, 42));
+        Assertions.assertEquals(sequential, fight(3, 42));
+        Assertions.assertNotEquals(sequential, fight(1, 43));
+    }
+}
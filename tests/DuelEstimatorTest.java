@@ -0,0 +1,115 @@
+import a11908284.AttackingSpell;
+import a11908284.DuelEstimator;
+import a11908284.HealthPotion;
+import a11908284.MagicLevel;
+import a11908284.Spell;
+import a11908284.Tradeable;
+import a11908284.Wizard;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+
+class DuelEstimatorTest {
+    static AttackingSpell fireball = new AttackingSpell("Fire Ball", 5, MagicLevel.NOOB, true, false, 20);
+    static AttackingSpell spark = new AttackingSpell("Spark", 5, MagicLevel.NOOB, true, false, 5);
+
+    static Wizard wizard(String name, int health, Set<Spell> spells, Set<Tradeable> items) {
+        return new Wizard(name, MagicLevel.NOOB, 100, health, 100, 100, 10, spells, new HashSet<>(), 10, items);
+    }
+
+    static Wizard strong() {
+        return wizard("Strong", 100, new LinkedHashSet<>(List.of(fireball, spark)), new LinkedHashSet<>());
+    }
+
+    static Wizard weak() {
+        return wizard("Weak", 70, new LinkedHashSet<>(List.of(fireball, spark)),
+                new LinkedHashSet<>(List.of(new HealthPotion("Potion", 2, 1, 1, 10))));
+    }
+
+    static DuelEstimator.Estimate estimate(Wizard first, Wizard second, int parallelism, long seed) {
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            return new DuelEstimator(first, second, 100, seed, pool).estimate(20_000, 0);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    void arguments() {
+        ForkJoinPool pool = ForkJoinPool.commonPool();
+        Wizard wizard = strong();
+        Assertions.assertThrows(IllegalArgumentException.class, () -> new DuelEstimator(null, wizard, 10, 0, pool));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> new DuelEstimator(wizard, null, 10, 0, pool));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> new DuelEstimator(wizard, wizard, 0, 0, pool));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> new DuelEstimator(wizard, wizard, 10, 0, null));
+
+        DuelEstimator estimator = new DuelEstimator(wizard, weak(), 10, 0, pool);
+        Assertions.assertThrows(IllegalArgumentException.class, () -> estimator.estimate(0, 0.1));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> estimator.estimate(10, -0.1));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> estimator.estimate(10, Double.NaN));
+    }
+
+    @Test
+    void strongerWizardWins() {
+        DuelEstimator.Estimate estimate = estimate(strong(), weak(), 4, 1);
+
+        Assertions.assertEquals(20_000, estimate.getDuels());
+        Assertions.assertEquals(estimate.getDuels(), estimate.getFirstWins() + estimate.getSecondWins() + estimate.getDraws());
+        Assertions.assertTrue(estimate.getProbability() > 0.6 && estimate.getProbability() < 1, estimate.toString());
+        Assertions.assertTrue(estimate.getLower() <= estimate.getProbability());
+        Assertions.assertTrue(estimate.getProbability() <= estimate.getUpper());
+        Assertions.assertTrue(estimate.getHalfWidth() < 0.01, estimate.toString());
+    }
+
+    @Test
+    void sameWizardsAreEven() {
+        DuelEstimator.Estimate estimate = estimate(strong(), strong(), 4, 2);
+
+        Assertions.assertEquals(0, estimate.getDraws());
+        Assertions.assertTrue(estimate.getLower() < 0.5 && 0.5 < estimate.getUpper(), estimate.toString());
+    }
+
+    @Test
+    void independentOfParallelism() {
+        Assertions.assertEquals(estimate(strong(), weak(), 1, 3).toString(), estimate(strong(), weak(), 7, 3).toString());
+        Assertions.assertNotEquals(estimate(strong(), weak(), 4, 3).toString(), estimate(strong(), weak(), 4, 4).toString());
+    }
+
+    @Test
+    void stopsEarly() {
+        DuelEstimator estimator = new DuelEstimator(strong(), weak(), 100, 5, ForkJoinPool.commonPool());
+        DuelEstimator.Estimate estimate = estimator.estimate(10_000_000, 0.05);
+
+        Assertions.assertTrue(estimate.getDuels() < 10_000_000);
+        Assertions.assertTrue(estimate.getHalfWidth() <= 0.05);
+    }
+
+    @Test
+    void drawsAfterMaxTurns() {
+        Wizard pacifist = wizard("Pacifist", 100, new LinkedHashSet<>(), new LinkedHashSet<>());
+        DuelEstimator.Estimate estimate = new DuelEstimator(pacifist, pacifist, 10, 6, ForkJoinPool.commonPool())
+                .estimate(100, 0);
+
+        Assertions.assertEquals(100, estimate.getDraws());
+        Assertions.assertEquals(0, estimate.getProbability());
+    }
+
+    @Test
+    void wizardsAreNotChanged() {
+        HealthPotion potion = new HealthPotion("Potion", 2, 1, 1, 10);
+        Wizard strong = strong();
+        Wizard weak = wizard("Weak", 70, new LinkedHashSet<>(List.of(fireball, spark)), new LinkedHashSet<>(List.of(potion)));
+        String before = strong + " " + weak;
+
+        estimate(strong, weak, 4, 7);
+
+        Assertions.assertEquals(before, strong + " " + weak);
+        Assertions.assertEquals(2, potion.getUsages());
+    }
+}
@@ -0,0 +1,139 @@
+import a11908284.AttackingSpell;
+import a11908284.EffectJournal;
+import a11908284.EffectJournalReader;
+import a11908284.HealingSpell;
+import a11908284.JournalingEffectRealization;
+import a11908284.MagicLevel;
+import a11908284.ProtectingSpell;
+import a11908284.Wizard;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+class EffectJournalTest {
+    static AttackingSpell fireball = new AttackingSpell("Fire Ball", 5, MagicLevel.NOOB, true, false, 7);
+    static HealingSpell cure = new HealingSpell("Cure", 5, MagicLevel.NOOB, true, true, 10);
+    static ProtectingSpell shield = new ProtectingSpell("Shield", 5, MagicLevel.NOOB, Set.of(fireball));
+
+    @TempDir
+    Path directory;
+    Wizard caster;
+    Wizard target;
+
+    @BeforeEach
+    void setUp() {
+        caster = new Wizard("Caster", MagicLevel.ADEPT, 100, 100, 100, 100, 100,
+                new HashSet<>(Set.of(fireball, cure, shield)), new HashSet<>(), 10, new HashSet<>());
+        target = new Wizard("Target", MagicLevel.ADEPT, 100, 50, 100, 50, 100,
+                new HashSet<>(), new HashSet<>(), 10, new HashSet<>());
+    }
+
+    static List<String> readAll(Path directory) throws IOException {
+        List<String> records = new ArrayList<>();
+
+        try (EffectJournalReader reader = new EffectJournalReader(directory)) {
+            while (reader.next()) {
+                records.add("%d %s %d %d %s %d".formatted(reader.getSequence(), reader.getOperation(),
+                        reader.getTarget(), reader.getSource(), reader.spellName(reader.getSpell()), reader.getOperand()));
+            }
+        }
+
+        return records;
+    }
+
+    @Test
+    void constructor() throws IOException {
+        Assertions.assertThrows(IllegalArgumentException.class, () -> new EffectJournal(null, 1));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> new EffectJournal(directory, 0));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> new EffectJournalReader(null));
+
+        try (EffectJournal journal = new EffectJournal(directory, 16)) {
+            Assertions.assertThrows(IllegalArgumentException.class, () -> new JournalingEffectRealization(null, journal, 1));
+            Assertions.assertThrows(IllegalArgumentException.class, () -> new JournalingEffectRealization(target, null, 1));
+            Assertions.assertThrows(IllegalArgumentException.class, () -> journal.append(null, 1, 1, null, 1));
+        }
+    }
+
+    @Test
+    void journalsEffects() throws IOException {
+        try (EffectJournal journal = new EffectJournal(directory, 16)) {
+            JournalingEffectRealization journaling = new JournalingEffectRealization(target, journal, 7);
+
+            journaling.setSource(3, fireball);
+            Assertions.assertTrue(caster.castSpell(fireball, journaling));
+            journaling.setSource(3, shield);
+            Assertions.assertTrue(caster.castSpell(shield, journaling));
+            journaling.setSource(3, fireball);
+            Assertions.assertTrue(caster.castSpell(fireball, journaling));
+            journaling.setSource(EffectJournal.NONE, null);
+            journaling.healPercent(10);
+            journaling.setSource(3, shield);
+            Assertions.assertFalse(journaling.isProtected(fireball));
+        }
+
+        Assertions.assertEquals("[Target(**): 53/100 50/100; 100 Knuts; knows []; carries []]", target.toString());
+        Assertions.assertEquals(List.of(
+                "0 IS_PROTECTED 7 3 " + fireball + " 0",
+                "1 TAKE_DAMAGE 7 3 " + fireball + " 7",
+                "2 SET_PROTECTION 7 3 " + shield + " 0",
+                "3 IS_PROTECTED 7 3 " + fireball + " 1",
+                "4 REMOVE_PROTECTION 7 3 " + fireball + " 0",
+                "5 HEAL_PERCENT 7 -1 null 10",
+                "6 IS_PROTECTED 7 3 " + fireball + " 0"), readAll(directory));
+    }
+
+    @Test
+    void rollsOverSegments() throws IOException {
+        try (EffectJournal journal = new EffectJournal(directory, 3)) {
+            JournalingEffectRealization journaling = new JournalingEffectRealization(target, journal, 1);
+
+            for (int i = 0; i < 7; i++) {
+                journaling.heal(i);
+            }
+
+            Assertions.assertEquals(7, journal.getSequence());
+        }
+
+        try (EffectJournal journal = new EffectJournal(directory, 3)) {
+            Assertions.assertEquals(7, journal.getSequence());
+            journal.append(EffectJournal.Operation.TAKE_DAMAGE, 2, 1, cure, 5);
+        }
+
+        List<String> records = readAll(directory);
+        Assertions.assertEquals(8, records.size());
+        for (int i = 0; i < 7; i++) {
+            Assertions.assertEquals(i + " HEAL 1 -1 null " + i, records.get(i));
+        }
+        Assertions.assertEquals("7 TAKE_DAMAGE 2 1 " + cure + " 5", records.get(7));
+    }
+
+    @Test
+    void emptyJournal() throws IOException {
+        new EffectJournal(directory, 4).close();
+        new EffectJournal(directory, 4).close();
+
+        try (EffectJournalReader reader = new EffectJournalReader(directory)) {
+            Assertions.assertFalse(reader.next());
+            Assertions.assertThrows(NoSuchElementException.class, reader::getOperation);
+        }
+    }
+
+    @Test
+    void closedJournal() throws IOException {
+        EffectJournal journal = new EffectJournal(directory, 4);
+        journal.close();
+        journal.close();
+
+        Assertions.assertThrows(IllegalStateException.class,
+                () -> journal.append(EffectJournal.Operation.HEAL, 1, 1, null, 1));
+    }
+}
@@ -0,0 +1,164 @@
+import a11908284.AttackingSpell;
+import a11908284.EffectScheduler;
+import a11908284.MagicLevel;
+import a11908284.Wizard;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+class EffectSchedulerTest {
+    static AttackingSpell fireball = new AttackingSpell("Fire Ball", 1, MagicLevel.NOOB, true, false, 10);
+
+    EffectScheduler scheduler;
+    Wizard dude;
+
+    @BeforeEach
+    void setUp() {
+        scheduler = new EffectScheduler();
+        dude = new Wizard("Dude", MagicLevel.NOOB, 100, 50, 100, 100, 0,
+                new HashSet<>(), new HashSet<>(), 0, new HashSet<>());
+    }
+
+    static int health(Wizard wizard) {
+        String text = wizard.toString();
+        return Integer.parseInt(text.substring(text.indexOf("): ") + 3, text.indexOf('/')));
+    }
+
+    @Test
+    void arguments() {
+        Assertions.assertThrows(IllegalArgumentException.class, () -> scheduler.schedule(0, () -> { }));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> scheduler.schedule(1, null));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> scheduler.schedule(1, 0, 1, () -> { }));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> scheduler.schedule(1, 1, 0, () -> { }));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> scheduler.scheduleDamage(null, 1, 1, 1));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> scheduler.scheduleDamage(dude, -1, 1, 1));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> scheduler.scheduleHealing(dude, -1, 1, 1));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> scheduler.protect(dude, null, 1));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> scheduler.protect(dude, Set.of(fireball), 0));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> scheduler.advance(-1));
+        Assertions.assertEquals(0, scheduler.size());
+    }
+
+    @Test
+    void damageOverTime() {
+        EffectScheduler.Timer poison = scheduler.scheduleDamage(dude, 5, 2, 3);
+        Assertions.assertEquals(2, poison.getDeadline());
+
+        scheduler.advance();
+        Assertions.assertEquals(50, health(dude));
+        scheduler.advance();
+        Assertions.assertEquals(45, health(dude));
+        scheduler.advance(4);
+        Assertions.assertEquals(35, health(dude));
+        Assertions.assertFalse(poison.isPending());
+        Assertions.assertEquals(0, scheduler.size());
+
+        scheduler.advance(10);
+        Assertions.assertEquals(35, health(dude));
+    }
+
+    @Test
+    void regeneration() {
+        EffectScheduler.Timer regeneration = scheduler.scheduleHealing(dude, 10, 1, 100);
+        scheduler.advance(3);
+        Assertions.assertEquals(80, health(dude));
+
+        Assertions.assertTrue(regeneration.cancel());
+        Assertions.assertFalse(regeneration.cancel());
+        scheduler.advance(3);
+        Assertions.assertEquals(80, health(dude));
+    }
+
+    @Test
+    void protectionExpires() {
+        scheduler.protect(dude, Set.of(fireball), 3);
+        Assertions.assertTrue(dude.isProtected(fireball));
+
+        scheduler.advance(2);
+        Assertions.assertTrue(dude.isProtected(fireball));
+        scheduler.advance();
+        Assertions.assertFalse(dude.isProtected(fireball));
+
+        scheduler.protect(dude, Set.of(fireball), 3).cancel();
+        scheduler.advance(10);
+        Assertions.assertTrue(dude.isProtected(fireball));
+    }
+
+    @Test
+    void actionsMayScheduleAndCancel() {
+        List<String> log = new ArrayList<>();
+        EffectScheduler.Timer[] later = new EffectScheduler.Timer[1];
+
+        scheduler.schedule(1, () -> {
+            log.add("first " + scheduler.getTick());
+            later[0].cancel();
+            scheduler.schedule(1, () -> log.add("scheduled " + scheduler.getTick()));
+        });
+        later[0] = scheduler.schedule(1, () -> log.add("cancelled"));
+        EffectScheduler.Timer self = scheduler.schedule(1, 1, 10, () -> log.add("self " + scheduler.getTick()));
+        scheduler.schedule(2, self::cancel);
+
+        scheduler.advance(5);
+        Assertions.assertEquals(List.of("first 1", "self 1", "scheduled 2"), log);
+        Assertions.assertEquals(0, scheduler.size());
+    }
+
+    @Test
+    void firesAtDeadlineOnAllLevels() {
+        int[] delays = {1, 2, 255, 256, 257, 511, 65_535, 65_536, 65_537, 70_000, 16_777_215, 16_777_216, 16_777_219};
+        Map<Integer, Long> fired = new HashMap<>();
+
+        scheduler.advance(12_345);
+        for (int delay : delays) {
+            scheduler.schedule(delay, () -> fired.put(delay, scheduler.getTick()));
+        }
+
+        scheduler.advance(16_777_219);
+        Assertions.assertEquals(delays.length, fired.size());
+        for (int delay : delays) {
+            Assertions.assertEquals(12_345L + delay, fired.get(delay));
+        }
+    }
+
+    @Test
+    void matchesBruteForce() {
+        Random random = new Random(1);
+        List<EffectScheduler.Timer> timers = new ArrayList<>();
+        Map<EffectScheduler.Timer, Long> expected = new HashMap<>();
+        Map<Integer, Long> fired = new HashMap<>();
+
+        for (int round = 0; round < 20; round++) {
+            for (int i = 0; i < 500; i++) {
+                int id = timers.size();
+                int delay = 1 + random.nextInt(1 << (1 + random.nextInt(18)));
+                EffectScheduler.Timer timer = scheduler.schedule(delay, () -> fired.put(id, scheduler.getTick()));
+                timers.add(timer);
+                expected.put(timer, scheduler.getTick() + delay);
+            }
+
+            for (int i = 0; i < 100; i++) {
+                EffectScheduler.Timer timer = timers.get(random.nextInt(timers.size()));
+                if (timer.cancel()) {
+                    expected.remove(timer);
+                }
+            }
+
+            scheduler.advance(random.nextInt(30_000));
+        }
+
+        scheduler.advance(1 << 19);
+        Assertions.assertEquals(0, scheduler.size());
+        Assertions.assertEquals(expected.size(), fired.size());
+        for (int id = 0; id < timers.size(); id++) {
+            Assertions.assertEquals(expected.get(timers.get(id)), fired.get(id));
+        }
+    }
+}
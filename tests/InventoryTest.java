@@ -0,0 +1,277 @@
+import a11908284.AttackingSpell;
+import a11908284.HealthPotion;
+import a11908284.MagicLevel;
+import a11908284.ManaPotion;
+import a11908284.Scroll;
+import a11908284.Tradeable;
+import a11908284.Wizard;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.HashSet;
+import java.util.SplittableRandom;
+
+class InventoryTest {
+    static AttackingSpell fireball = new AttackingSpell("Fire Ball", 1, MagicLevel.NOOB, true, false, 10);
+    static AttackingSpell spark = new AttackingSpell("Spark", 1, MagicLevel.NOOB, true, false, 10);
+
+    Wizard dude;
+    Wizard prey;
+
+    @BeforeEach
+    void setUp() {
+        dude = wizard("Dude", 1000);
+        prey = wizard("Prey", 100);
+    }
+
+    static Wizard wizard(String name, int money) {
+        return new Wizard(name, MagicLevel.ADEPT, 100, 50, 100, 100, money,
+                new HashSet<>(), new HashSet<>(), 1000, new HashSet<>());
+    }
+
+    static HealthPotion potion() {
+        return new HealthPotion("Potion", 2, 1, 1, 5);
+    }
+
+    static String carries(Wizard wizard) {
+        String text = wizard.toString();
+        return text.substring(text.indexOf("carries [") + 9, text.length() - 2);
+    }
+
+    static void fill(Wizard wizard, int count) {
+        for (int i = 0; i < count; i++) {
+            Assertions.assertTrue(wizard.addToInventory(potion()));
+        }
+    }
+
+    @Test
+    void stacksInterchangeableItems() {
+        fill(dude, 3);
+        Assertions.assertEquals("3x [Potion; 1 g; 1 Knut; 2 gulps; +5 HP]", carries(dude));
+
+        // Any difference in type, name, price, weight, effect or usages starts
+        // a stack of its own
+        Assertions.assertTrue(dude.addToInventory(new HealthPotion("Potion", 1, 1, 1, 5)));
+        Assertions.assertTrue(dude.addToInventory(new HealthPotion("Potion", 2, 2, 1, 5)));
+        Assertions.assertTrue(dude.addToInventory(new HealthPotion("Potion", 2, 1, 2, 5)));
+        Assertions.assertTrue(dude.addToInventory(new HealthPotion("Potion", 2, 1, 1, 6)));
+        Assertions.assertTrue(dude.addToInventory(new HealthPotion("Elixir", 2, 1, 1, 5)));
+        Assertions.assertTrue(dude.addToInventory(new ManaPotion("Potion", 2, 1, 1, 5)));
+        Assertions.assertTrue(dude.addToInventory(new Scroll("Scroll", 2, 1, 1, fireball)));
+        Assertions.assertTrue(dude.addToInventory(new Scroll("Scroll", 2, 1, 1, spark)));
+        Assertions.assertTrue(dude.addToInventory(new Scroll("Scroll", 2, 1, 1, fireball)));
+
+        Assertions.assertEquals(9, carries(dude).split("\\], ").length);
+        Assertions.assertTrue(carries(dude).startsWith("3x [Potion"));
+        Assertions.assertTrue(carries(dude).contains("2x [Scroll"));
+        Assertions.assertTrue(dude.isInventoryWeightConsistent());
+    }
+
+    @Test
+    void itemsAreToldApartByIdentity() {
+        HealthPotion first = potion();
+        HealthPotion second = potion();
+        Assertions.assertTrue(dude.addToInventory(first));
+        Assertions.assertTrue(dude.addToInventory(second));
+        Assertions.assertFalse(dude.addToInventory(first));
+        Assertions.assertFalse(dude.addToInventory(second));
+        Assertions.assertEquals("2x [Potion; 1 g; 1 Knut; 2 gulps; +5 HP]", carries(dude));
+
+        // An interchangeable item that was never added is not possessed
+        HealthPotion other = potion();
+        Assertions.assertFalse(dude.possesses(other));
+        Assertions.assertFalse(dude.removeFromInventory(other));
+
+        Assertions.assertTrue(dude.removeFromInventory(second));
+        Assertions.assertFalse(dude.possesses(second));
+        Assertions.assertFalse(dude.removeFromInventory(second));
+        Assertions.assertTrue(dude.possesses(first));
+        Assertions.assertEquals("[Potion; 1 g; 1 Knut; 2 gulps; +5 HP]", carries(dude));
+
+        Assertions.assertTrue(dude.removeFromInventory(first));
+        Assertions.assertEquals("", carries(dude));
+        Assertions.assertTrue(dude.isInventoryWeightConsistent());
+    }
+
+    @Test
+    void changingAnItemOutsideMovesItToAnotherStack() {
+        HealthPotion potion = potion();
+        HealthPotion damaged = potion();
+        Assertions.assertTrue(dude.addToInventory(potion));
+        Assertions.assertTrue(dude.addToInventory(damaged));
+        fill(dude, 2);
+
+        potion.useOn(prey);
+        Assertions.assertEquals(1, potion.getUsages());
+        Assertions.assertTrue(dude.possesses(potion));
+        Assertions.assertEquals("3x [Potion; 1 g; 1 Knut; 2 gulps; +5 HP], [Potion; 1 g; 1 Knut; 1 gulp; +5 HP]",
+                carries(dude));
+
+        damaged.takeDamagePercent(100);
+        Assertions.assertTrue(carries(dude).contains("2x [Potion; 1 g; 1 Knut; 2 gulps; +5 HP]"));
+        Assertions.assertTrue(carries(dude).contains("[Potion; 1 g; 1 Knut; 1 gulp; +5 HP]"));
+        Assertions.assertTrue(carries(dude).contains("[Potion; 1 g; 1 Knut; 0 gulps; +5 HP]"));
+
+        // Items whose usages changed alike end up in one stack again
+        potion.takeDamagePercent(100);
+        Assertions.assertTrue(carries(dude).contains("2x [Potion; 1 g; 1 Knut; 0 gulps; +5 HP]"));
+        Assertions.assertTrue(dude.removeFromInventory(potion));
+        Assertions.assertTrue(dude.removeFromInventory(damaged));
+        Assertions.assertEquals("2x [Potion; 1 g; 1 Knut; 2 gulps; +5 HP]", carries(dude));
+        Assertions.assertTrue(dude.isInventoryWeightConsistent());
+    }
+
+    @Test
+    void giveAndPurchaseMoveTheItemItself() {
+        HealthPotion potion = potion();
+        HealthPotion bought = potion();
+        Assertions.assertTrue(dude.addToInventory(potion));
+        Assertions.assertTrue(dude.addToInventory(bought));
+        fill(dude, 3);
+
+        Assertions.assertTrue(potion.give(dude, prey));
+        Assertions.assertFalse(dude.possesses(potion));
+        Assertions.assertTrue(prey.possesses(potion));
+        Assertions.assertFalse(potion.purchase(dude, prey));
+        Assertions.assertFalse(potion().purchase(dude, prey));
+        Assertions.assertTrue(bought.purchase(dude, prey));
+        Assertions.assertEquals("3x [Potion; 1 g; 1 Knut; 2 gulps; +5 HP]", carries(dude));
+        Assertions.assertEquals("2x [Potion; 1 g; 1 Knut; 2 gulps; +5 HP]", carries(prey));
+        Assertions.assertTrue(dude.toString().contains("; 1001 Knuts;"));
+        Assertions.assertTrue(prey.toString().contains("; 99 Knuts;"));
+
+        // Using the item of the buyer does not change the items of the seller
+        Assertions.assertTrue(prey.useItem(potion, prey));
+        Assertions.assertEquals("3x [Potion; 1 g; 1 Knut; 2 gulps; +5 HP]", carries(dude));
+        Assertions.assertTrue(dude.isInventoryWeightConsistent());
+        Assertions.assertTrue(prey.isInventoryWeightConsistent());
+    }
+
+    @Test
+    void usingAnItemMovesItToAnotherStack() {
+        HealthPotion first = potion();
+        Assertions.assertTrue(dude.addToInventory(first));
+        fill(dude, 2);
+
+        Assertions.assertTrue(dude.useItem(first, dude));
+        Assertions.assertEquals(1, first.getUsages());
+        Assertions.assertTrue(carries(dude).contains("2x [Potion; 1 g; 1 Knut; 2 gulps; +5 HP]"));
+        Assertions.assertTrue(carries(dude).contains("[Potion; 1 g; 1 Knut; 1 gulp; +5 HP]"));
+        Assertions.assertTrue(dude.possesses(first));
+
+        Assertions.assertFalse(dude.useItem(potion(), dude));
+        Assertions.assertTrue(dude.useItem(first, dude));
+        Assertions.assertTrue(carries(dude).contains("2x [Potion; 1 g; 1 Knut; 2 gulps; +5 HP]"));
+        Assertions.assertTrue(carries(dude).contains("[Potion; 1 g; 1 Knut; 0 gulps; +5 HP]"));
+        Assertions.assertTrue(dude.toString().startsWith("[Dude(**): 60/100"));
+    }
+
+    @Test
+    void addingManyItemsAtOnce() {
+        HealthPotion potion = potion();
+        Assertions.assertThrows(IllegalArgumentException.class, () -> dude.addToInventory(potion, 0));
+        Assertions.assertFalse(dude.addToInventory(potion, 1001));
+        Assertions.assertTrue(dude.addToInventory(potion, 1000));
+        Assertions.assertFalse(dude.addToInventory(potion, 1));
+        Assertions.assertEquals("1000x [Potion; 1 g; 1 Knut; 2 gulps; +5 HP]", carries(dude));
+        Assertions.assertEquals(0, dude.getRemainingCapacity());
+
+        // Changing the item that was added does not change the others
+        potion.takeDamagePercent(100);
+        Assertions.assertTrue(dude.removeFromInventory(potion));
+        Assertions.assertEquals("999x [Potion; 1 g; 1 Knut; 2 gulps; +5 HP]", carries(dude));
+
+        // Picking an item turns it into an item of its own
+        Assertions.assertTrue(dude.steal(prey));
+        Assertions.assertTrue(dude.sellRandomItem(prey));
+        Assertions.assertTrue(dude.useRandomItem(dude));
+        Assertions.assertTrue(carries(dude).startsWith("996x [Potion; 1 g; 1 Knut; 2 gulps; +5 HP]"));
+        Assertions.assertTrue(carries(dude).endsWith("[Potion; 1 g; 1 Knut; 1 gulp; +5 HP]"));
+        Assertions.assertEquals("2x [Potion; 1 g; 1 Knut; 2 gulps; +5 HP]", carries(prey));
+        Assertions.assertTrue(dude.isInventoryWeightConsistent());
+    }
+
+    @Test
+    void lootHandsOutSeparateItems() {
+        fill(prey, 2);
+        Assertions.assertTrue(prey.addToInventory(potion(), 3));
+        prey.takeDamage(100);
+
+        Assertions.assertTrue(prey.loot(dude));
+        Assertions.assertEquals("", carries(prey));
+        Assertions.assertEquals("5x [Potion; 1 g; 1 Knut; 2 gulps; +5 HP]", carries(dude));
+
+        Assertions.assertTrue(dude.useRandomItem(dude));
+        Assertions.assertTrue(carries(dude).contains("4x [Potion; 1 g; 1 Knut; 2 gulps; +5 HP]"));
+        Assertions.assertTrue(carries(dude).contains("[Potion; 1 g; 1 Knut; 1 gulp; +5 HP]"));
+    }
+
+    @Test
+    void lootBestTakesPartOfAStack() {
+        Wizard looter = new Wizard("Looter", MagicLevel.ADEPT, 100, 50, 100, 100, 0,
+                new HashSet<>(), new HashSet<>(), 2, new HashSet<>());
+        Assertions.assertTrue(prey.addToInventory(potion(), 5));
+        prey.takeDamage(100);
+
+        Assertions.assertTrue(prey.lootBest(looter));
+        Assertions.assertEquals("2x [Potion; 1 g; 1 Knut; 2 gulps; +5 HP]", carries(looter));
+        Assertions.assertEquals("3x [Potion; 1 g; 1 Knut; 2 gulps; +5 HP]", carries(prey));
+        Assertions.assertTrue(prey.isInventoryWeightConsistent());
+    }
+
+    @Test
+    void randomItemsAreWeightedByStackSize() {
+        ManaPotion rare = new ManaPotion("Rare", 1, 1, 1, 1);
+        Assertions.assertTrue(prey.addToInventory(potion(), 9));
+        Assertions.assertTrue(prey.addToInventory(rare));
+        prey.setRandomGenerator(new SplittableRandom(42));
+
+        int rareStolen = 0;
+        for (int i = 0; i < 10_000; i++) {
+            Assertions.assertTrue(prey.steal(dude));
+
+            if (dude.possesses(rare)) {
+                rareStolen += 1;
+            }
+
+            // The thief carries nothing else, so stealing back returns the item
+            Assertions.assertTrue(dude.steal(prey));
+        }
+
+        Assertions.assertTrue(rareStolen > 850 && rareStolen < 1150, "stolen " + rareStolen);
+        Assertions.assertTrue(carries(prey).contains("9x [Potion"));
+    }
+
+    @Test
+    void serialization() throws IOException, ClassNotFoundException {
+        fill(dude, 1);
+        Assertions.assertTrue(dude.addToInventory(potion(), 2));
+        Assertions.assertTrue(dude.addToInventory(new ManaPotion("Mana", 1, 1, 1, 1)));
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream output = new ObjectOutputStream(bytes)) {
+            output.writeObject(dude);
+        }
+
+        Wizard copy;
+        try (ObjectInputStream input = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            copy = (Wizard) input.readObject();
+        }
+
+        Assertions.assertEquals(dude.toString(), copy.toString());
+        Assertions.assertFalse(copy.possesses(potion()));
+        for (int i = 0; i < 4; i++) {
+            Assertions.assertTrue(copy.sellRandomItem(prey));
+        }
+
+        Assertions.assertEquals("", carries(copy));
+        Assertions.assertTrue(carries(prey).contains("3x [Potion; 1 g; 1 Knut; 2 gulps; +5 HP]"));
+        Assertions.assertTrue(carries(prey).contains("[Mana; 1 g; 1 Knut; 1 gulp; +1 MP]"));
+    }
+}
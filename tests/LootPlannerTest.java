@@ -0,0 +1,129 @@
+import a11908284.HealthPotion;
+import a11908284.LootPlanner;
+import a11908284.Tradeable;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+class LootPlannerTest {
+    static Tradeable item(int weight, int price) {
+        return new HealthPotion("Item", 1, price, weight, 1);
+    }
+
+    static int weight(List<Tradeable> items) {
+        return items.stream().mapToInt(Tradeable::getWeight).sum();
+    }
+
+    static int price(List<Tradeable> items) {
+        return items.stream().mapToInt(Tradeable::getPrice).sum();
+    }
+
+    /**
+     * Returns the highest total price of any subset that fits, by trying all
+     * subsets.
+     */
+    static int bruteForce(List<Tradeable> items, int capacity) {
+        int best = 0;
+        for (int mask = 0; mask < 1 << items.size(); mask++) {
+            int weight = 0;
+            int price = 0;
+            for (int i = 0; i < items.size(); i++) {
+                if ((mask & (1 << i)) != 0) {
+                    weight += items.get(i).getWeight();
+                    price += items.get(i).getPrice();
+                }
+            }
+
+            if (weight <= capacity) {
+                best = Math.max(best, price);
+            }
+        }
+        return best;
+    }
+
+    @Test
+    void arguments() {
+        Assertions.assertThrows(IllegalArgumentException.class, () -> LootPlanner.choose(null, 1, Tradeable::getPrice));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> LootPlanner.choose(List.of(), -1, Tradeable::getPrice));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> LootPlanner.choose(List.of(), 1, null));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> LootPlanner.choose(Arrays.asList(item(1, 1), null), 1, Tradeable::getPrice));
+    }
+
+    @Test
+    void everythingFits() {
+        Tradeable a = item(1, 1);
+        Tradeable b = item(0, 5);
+        Tradeable worthless = item(1, 0);
+        Tradeable tooHeavy = item(20, 100);
+
+        Assertions.assertEquals(List.of(a, b), LootPlanner.choose(List.of(a, worthless, tooHeavy, b), 10, Tradeable::getPrice));
+        Assertions.assertEquals(List.of(b), LootPlanner.choose(List.of(a, b), 0, Tradeable::getPrice));
+    }
+
+    @Test
+    void beatsFirstFit() {
+        Tradeable light = item(6, 6);
+        Tradeable left = item(5, 5);
+        Tradeable right = item(5, 5);
+
+        Assertions.assertEquals(List.of(left, right), LootPlanner.choose(List.of(light, left, right), 10, Tradeable::getPrice));
+        Assertions.assertEquals(List.of(light), LootPlanner.choose(List.of(light, left, right), 10, item -> item == light ? 100 : 1));
+    }
+
+    @Test
+    void optimal() {
+        Random random = new Random(42);
+        for (int round = 0; round < 200; round++) {
+            List<Tradeable> items = new ArrayList<>();
+            for (int i = 0; i < 12; i++) {
+                items.add(item(random.nextInt(4) * 3 + 3, random.nextInt(20)));
+            }
+            int capacity = random.nextInt(60);
+
+            List<Tradeable> chosen = LootPlanner.choose(items, capacity, Tradeable::getPrice);
+            Assertions.assertTrue(weight(chosen) <= capacity);
+            Assertions.assertEquals(bruteForce(items, capacity), price(chosen));
+        }
+    }
+
+    @Test
+    void manyIdenticalItems() {
+        List<Tradeable> items = new ArrayList<>();
+        for (int i = 0; i < 100_000; i++) {
+            items.add(item(3 + i % 2, 4 + i % 2));
+        }
+
+        List<Tradeable> chosen = LootPlanner.choose(items, 1_000, Tradeable::getPrice);
+        Assertions.assertTrue(weight(chosen) <= 1_000);
+        Assertions.assertEquals(bruteForceTwoKinds(1_000), price(chosen));
+    }
+
+    /**
+     * Returns the best price of items weighing 3 (worth 4) and 4 (worth 5)
+     * that fit, with plenty of items of both kinds.
+     */
+    static int bruteForceTwoKinds(int capacity) {
+        int best = 0;
+        for (int small = 0; small * 3 <= capacity; small++) {
+            best = Math.max(best, small * 4 + (capacity - small * 3) / 4 * 5);
+        }
+        return best;
+    }
+
+    @Test
+    void hugeCapacity() {
+        List<Tradeable> items = new ArrayList<>();
+        for (int i = 0; i < 1_000; i++) {
+            items.add(item(1_000_003 + i, 1 + i % 7));
+        }
+
+        int capacity = 100_000_000;
+        List<Tradeable> chosen = LootPlanner.choose(items, capacity, Tradeable::getPrice);
+        Assertions.assertTrue(weight(chosen) <= capacity);
+        Assertions.assertTrue(price(chosen) >= 6 * 98 / 2);
+    }
+}
@@ -5,6 +5,14 @@ import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+
 class MagicItemTest {
 
     static class MagicItemTestClass extends MagicItem {
@@ -51,6 +59,79 @@ class MagicItemTest {
         Assertions.assertEquals(0, tmp.getUsages());
     }
 
+    @Test
+    void tryUsageCount() {
+        MagicItemTestClass bigger = new MagicItemTestClass("a", 5, 1, 1);
+        Assertions.assertThrows(IllegalArgumentException.class, () -> bigger.tryUsage(-1));
+        Assertions.assertTrue(bigger.tryUsage(0));
+        Assertions.assertTrue(bigger.tryUsage(3));
+        Assertions.assertEquals(2, bigger.getUsages());
+        Assertions.assertFalse(bigger.tryUsage(3));
+        Assertions.assertEquals(2, bigger.getUsages());
+        Assertions.assertTrue(bigger.tryUsage(2));
+        Assertions.assertFalse(bigger.tryUsage(1));
+        Assertions.assertTrue(bigger.tryUsage(0));
+    }
+
+    // Lets the threads claim 1, 2 or 3 usages at a time until the item is
+    // used up and returns the number of usages claimed by all of them
+    static long useUp(MagicItem item, int threads, Runnable sideEffect) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(threads + 1);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<Long>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                int count = 1 + t % 3;
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    long claimed = 0;
+                    while (item.getUsages() > 0) {
+                        if (count == 1 ? item.tryUsage() : item.tryUsage(count)) {
+                            claimed += count;
+                        }
+                        sideEffect.run();
+                    }
+                    return claimed;
+                }));
+            }
+
+            start.countDown();
+            long claimed = 0;
+            for (Future<Long> future : futures) {
+                claimed += future.get();
+            }
+            return claimed;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void concurrentUsagesAreNotLost() throws Exception {
+        for (int round = 0; round < 20; round++) {
+            MagicItemTestClass stash = new MagicItemTestClass("Stash", 100_000, 1, 1);
+
+            Assertions.assertEquals(100_000, useUp(stash, 8, () -> { }));
+            Assertions.assertEquals(0, stash.getUsages());
+        }
+    }
+
+    @Test
+    void concurrentDamageNeverGoesNegative() throws Exception {
+        for (int round = 0; round < 20; round++) {
+            MagicItemTestClass stash = new MagicItemTestClass("Stash", 100_000, 1, 1);
+            long claimed = useUp(stash, 8, () -> {
+                if (ThreadLocalRandom.current().nextInt(1000) == 0) {
+                    stash.takeDamagePercent(1);
+                }
+                Assertions.assertTrue(stash.getUsages() >= 0);
+            });
+
+            Assertions.assertTrue(claimed < 100_000);
+            Assertions.assertEquals(0, stash.getUsages());
+        }
+    }
+
     @Test
     void usageString() {
         MagicItemTestClass bigger = new MagicItemTestClass("a", 2, 1, 1);
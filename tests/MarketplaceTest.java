@@ -0,0 +1,182 @@
+import a11908284.HealthPotion;
+import a11908284.MagicLevel;
+import a11908284.Marketplace;
+import a11908284.Tradeable;
+import a11908284.Wizard;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+
+class MarketplaceTest {
+    Marketplace market;
+    Wizard seller;
+    Wizard other;
+    Wizard buyer;
+    Tradeable potion;
+    Tradeable elixir;
+
+    static Wizard wizard(String name, int money, Set<Tradeable> items) {
+        return new Wizard(name, MagicLevel.NOOB, 100, 100, 50, 50, money,
+                new HashSet<>(), new HashSet<>(), 10, new HashSet<>(items));
+    }
+
+    static int money(Wizard wizard) {
+        int money = 0;
+        while (wizard.canAfford(money + 1)) {
+            money += 1;
+        }
+        return money;
+    }
+
+    @BeforeEach
+    void setUp() {
+        market = new Marketplace();
+        potion = new HealthPotion("Potion", 1, 5, 1, 10);
+        elixir = new HealthPotion("Elixir", 1, 5, 1, 20);
+        seller = wizard("Seller", 0, Set.of(potion));
+        other = wizard("Other", 0, Set.of(elixir));
+        buyer = wizard("Buyer", 100, Set.of());
+    }
+
+    @Test
+    void arguments() {
+        Assertions.assertThrows(IllegalArgumentException.class, () -> market.bid(null, buyer, 1));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> market.bid(" ", buyer, 1));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> market.bid("potion", null, 1));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> market.bid("potion", buyer, -1));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> market.ask("potion", null, potion, 1));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> market.ask("potion", seller, null, 1));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> market.ask("potion", seller, potion, -1));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> market.bestBid(null));
+        Assertions.assertEquals(-1, market.bestAsk("potion"));
+        Assertions.assertFalse(market.cancel(-1));
+        Assertions.assertFalse(market.isOpen(42));
+    }
+
+    @Test
+    void matchAtWaitingPrice() {
+        long ask = market.ask("potion", seller, potion, 7);
+        Assertions.assertTrue(market.isOpen(ask));
+        Assertions.assertEquals(7, market.bestAsk("potion"));
+        Assertions.assertEquals(-1, market.bestAsk("elixir"));
+
+        long bid = market.bid("potion", buyer, 10);
+        Assertions.assertFalse(market.isOpen(ask));
+        Assertions.assertFalse(market.isOpen(bid));
+        Assertions.assertEquals(1, market.getMatches());
+        Assertions.assertTrue(buyer.possesses(potion));
+        Assertions.assertFalse(seller.possesses(potion));
+        Assertions.assertEquals(93, money(buyer));
+        Assertions.assertEquals(7, money(seller));
+    }
+
+    @Test
+    void noMatchWithoutCrossingPrices() {
+        long bid = market.bid("potion", buyer, 5);
+        long ask = market.ask("potion", seller, potion, 6);
+
+        Assertions.assertTrue(market.isOpen(bid));
+        Assertions.assertTrue(market.isOpen(ask));
+        Assertions.assertEquals(5, market.bestBid("potion"));
+        Assertions.assertEquals(6, market.bestAsk("potion"));
+        Assertions.assertEquals(0, market.getMatches());
+
+        Assertions.assertTrue(market.cancel(bid));
+        Assertions.assertFalse(market.cancel(bid));
+        Assertions.assertEquals(-1, market.bestBid("potion"));
+    }
+
+    @Test
+    void priceTimePriority() {
+        Wizard late = wizard("Late", 100, Set.of());
+        Wizard low = wizard("Low", 100, Set.of());
+
+        long lowBid = market.bid("potion", low, 5);
+        long firstBid = market.bid("potion", buyer, 8);
+        long lateBid = market.bid("potion", late, 8);
+        Assertions.assertEquals(8, market.bestBid("potion"));
+
+        market.ask("potion", seller, potion, 1);
+        Assertions.assertTrue(buyer.possesses(potion));
+        Assertions.assertEquals(8, money(seller));
+        Assertions.assertFalse(market.isOpen(firstBid));
+        Assertions.assertTrue(market.isOpen(lateBid));
+
+        market.ask("potion", other, elixir, 1);
+        Assertions.assertTrue(late.possesses(elixir));
+        Assertions.assertEquals(5, market.bestBid("potion"));
+        Assertions.assertTrue(market.isOpen(lowBid));
+        Assertions.assertEquals(2, market.getMatches());
+    }
+
+    @Test
+    void staleOrdersAreRemoved() {
+        Wizard poor = wizard("Poor", 1, Set.of());
+
+        long poorBid = market.bid("potion", poor, 10);
+        long bid = market.bid("potion", buyer, 9);
+        market.ask("potion", seller, potion, 9);
+
+        Assertions.assertFalse(market.isOpen(poorBid));
+        Assertions.assertFalse(market.isOpen(bid));
+        Assertions.assertTrue(buyer.possesses(potion));
+
+        // The potion is sold already, so the second ask of the seller is removed
+        long staleAsk = market.ask("potion", seller, potion, 3);
+        long elixirAsk = market.ask("potion", other, elixir, 4);
+        long nextBid = market.bid("potion", buyer, 5);
+
+        Assertions.assertFalse(market.isOpen(staleAsk));
+        Assertions.assertFalse(market.isOpen(elixirAsk));
+        Assertions.assertFalse(market.isOpen(nextBid));
+        Assertions.assertTrue(buyer.possesses(elixir));
+        Assertions.assertEquals(2, market.getMatches());
+    }
+
+    @Test
+    void rejectedOrdersDoNotWait() {
+        Wizard poor = wizard("Poor", 1, Set.of());
+        long ask = market.ask("potion", seller, potion, 5);
+
+        long bid = market.bid("potion", poor, 5);
+        Assertions.assertFalse(market.isOpen(bid));
+        Assertions.assertTrue(market.isOpen(ask));
+        Assertions.assertEquals(-1, market.bestBid("potion"));
+    }
+
+    @Test
+    void noSelfTrade() {
+        long ask = market.ask("potion", seller, potion, 5);
+        long bid = market.bid("potion", seller, 5);
+
+        Assertions.assertFalse(market.isOpen(ask));
+        Assertions.assertTrue(market.isOpen(bid));
+        Assertions.assertTrue(seller.possesses(potion));
+        Assertions.assertEquals(0, market.getMatches());
+    }
+
+    @Test
+    void manyOrders() {
+        Wizard rich = wizard("Rich", 1_000_000, Set.of());
+        long[] bids = new long[1000];
+        for (int i = 0; i < bids.length; i++) {
+            bids[i] = market.bid("potion", rich, i % 100);
+        }
+
+        Assertions.assertEquals(99, market.bestBid("potion"));
+        for (int i = 0; i < bids.length; i++) {
+            if (i % 100 != 42) {
+                Assertions.assertTrue(market.cancel(bids[i]));
+            }
+        }
+
+        Assertions.assertEquals(42, market.bestBid("potion"));
+        market.ask("potion", seller, potion, 0);
+        Assertions.assertEquals(42, money(seller));
+        Assertions.assertTrue(market.isOpen(bids[142]));
+        Assertions.assertFalse(market.isOpen(bids[42]));
+    }
+}
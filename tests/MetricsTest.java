@@ -0,0 +1,180 @@
+import a11908284.AttackingSpell;
+import a11908284.HealthPotion;
+import a11908284.MagicLevel;
+import a11908284.Metrics;
+import a11908284.MetricsSink;
+import a11908284.Outcome;
+import a11908284.OutcomeCounters;
+import a11908284.ProtectingSpell;
+import a11908284.Tradeable;
+import a11908284.Wizard;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+class MetricsTest {
+    static AttackingSpell fireball = new AttackingSpell("Fire Ball", 10, MagicLevel.NOOB, true, false, 10);
+    static AttackingSpell meteor = new AttackingSpell("Meteor", 10, MagicLevel.MASTER, true, false, 10);
+    static ProtectingSpell shield = new ProtectingSpell("Shield", 10, MagicLevel.NOOB, Set.of(fireball));
+
+    OutcomeCounters counters;
+    Wizard dude;
+    Wizard prey;
+    Tradeable potion;
+
+    @BeforeEach
+    void setUp() {
+        counters = new OutcomeCounters();
+        Metrics.setSink(counters);
+
+        potion = new HealthPotion("Potion", 1, 5, 5, 1);
+        dude = new Wizard("Dude", MagicLevel.ADEPT, 100, 100, 100, 35, 10,
+                new HashSet<>(Set.of(fireball, meteor, shield)), new HashSet<>(), 10, new HashSet<>());
+        prey = new Wizard("Prey", MagicLevel.ADEPT, 100, 100, 100, 100, 10,
+                new HashSet<>(), new HashSet<>(), 10, new HashSet<>(Set.of(potion)));
+    }
+
+    @AfterEach
+    void tearDown() {
+        Metrics.setSink(MetricsSink.NONE);
+    }
+
+    @Test
+    void sink() {
+        Assertions.assertSame(counters, Metrics.getSink());
+        Assertions.assertThrows(IllegalArgumentException.class, () -> Metrics.setSink(null));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> counters.record(null));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> counters.count(null));
+
+        Metrics.setSink(MetricsSink.NONE);
+        Assertions.assertTrue(dude.castSpell(fireball, prey));
+        Assertions.assertEquals(Map.of(), counters.snapshot());
+    }
+
+    @Test
+    void casts() {
+        Assertions.assertTrue(dude.castSpell(fireball, prey));
+        Assertions.assertTrue(dude.castSpell(meteor, prey));
+        Assertions.assertTrue(dude.castSpell(shield, prey));
+        Assertions.assertTrue(dude.castSpell(fireball, prey));
+        Assertions.assertTrue(dude.castSpell(fireball, prey));
+        Assertions.assertFalse(prey.castSpell(fireball, dude));
+
+        Assertions.assertEquals(Map.of(
+                Outcome.CAST_AFFECTED, 2L,
+                Outcome.CAST_BLOCKED, 1L,
+                Outcome.CAST_NO_MANA, 2L,
+                Outcome.CAST_UNKNOWN_SPELL, 1L,
+                Outcome.MANA_PROVIDED, 3L,
+                Outcome.MANA_LEVEL_TOO_LOW, 1L,
+                Outcome.MANA_INSUFFICIENT, 1L), counters.snapshot());
+
+        dude.takeDamage(100);
+        Assertions.assertFalse(dude.castSpell(fireball, prey));
+        Assertions.assertFalse(dude.provideMana(MagicLevel.NOOB, 0));
+        Assertions.assertEquals(1, counters.count(Outcome.CAST_CASTER_DEAD));
+        Assertions.assertEquals(1, counters.count(Outcome.MANA_SOURCE_DEAD));
+
+        counters.reset();
+        Assertions.assertEquals(Map.of(), counters.snapshot());
+    }
+
+    @Test
+    void areaCasts() {
+        List<Wizard> targets = List.of(prey, new Wizard("Other", MagicLevel.NOOB, 100, 100, 50, 50, 0,
+                new HashSet<>(), new HashSet<>(Set.of(fireball)), 0, new HashSet<>()));
+
+        dude.castSpellOnAll(fireball, targets);
+        dude.castSpellOnAll(fireball, targets);
+        prey.castSpellOnAll(fireball, targets);
+
+        Assertions.assertEquals(Map.of(
+                Outcome.CAST_AFFECTED, 3L,
+                Outcome.CAST_BLOCKED, 1L,
+                Outcome.CAST_UNKNOWN_SPELL, 1L,
+                Outcome.MANA_PROVIDED, 2L), counters.snapshot());
+
+        dude.castSpellOnAll(fireball, targets);
+        dude.castSpellOnAll(fireball, targets);
+        Assertions.assertEquals(1, counters.count(Outcome.CAST_NO_MANA));
+        Assertions.assertEquals(1, counters.count(Outcome.MANA_INSUFFICIENT));
+        Assertions.assertEquals(5, counters.count(Outcome.CAST_AFFECTED));
+    }
+
+    @Test
+    void trades() {
+        Tradeable heavy = new HealthPotion("Heavy", 1, 1, 100, 1);
+        Tradeable pricey = new HealthPotion("Pricey", 1, 100, 1, 1);
+        prey.addToInventory(pricey);
+
+        Assertions.assertTrue(potion.purchase(prey, dude));
+        Assertions.assertFalse(potion.purchase(prey, dude));
+        Assertions.assertFalse(pricey.purchase(prey, dude));
+        Assertions.assertFalse(heavy.give(prey, dude));
+        Assertions.assertTrue(potion.give(dude, prey));
+
+        Assertions.assertEquals(Map.of(
+                Outcome.PURCHASED, 1L,
+                Outcome.GIVEN, 1L,
+                Outcome.TRADE_ITEM_MISSING, 2L,
+                Outcome.TRADE_CANNOT_AFFORD, 1L), counters.snapshot());
+
+        Wizard weak = new Wizard("Weak", MagicLevel.NOOB, 1, 1, 50, 50, 100,
+                new HashSet<>(), new HashSet<>(), 0, new HashSet<>());
+        Assertions.assertFalse(potion.give(prey, weak));
+        Assertions.assertEquals(1, counters.count(Outcome.TRADE_NO_CAPACITY));
+    }
+
+    @Test
+    void theftsAndLoot() {
+        Assertions.assertTrue(prey.steal(dude));
+        Assertions.assertFalse(prey.steal(dude));
+        Assertions.assertFalse(dude.loot(prey));
+
+        dude.takeDamage(100);
+        Assertions.assertFalse(prey.steal(dude));
+        Assertions.assertTrue(dude.loot(prey));
+        Assertions.assertFalse(dude.loot(prey));
+
+        prey.takeDamage(100);
+        Assertions.assertFalse(prey.loot(dude));
+
+        Assertions.assertEquals(Map.of(
+                Outcome.STOLEN, 1L,
+                Outcome.STEAL_NOTHING, 1L,
+                Outcome.STEAL_THIEF_UNABLE, 1L,
+                Outcome.LOOT_NOT_LOOTABLE, 1L,
+                Outcome.LOOTED, 1L,
+                Outcome.LOOT_NOTHING, 1L,
+                Outcome.LOOT_LOOTER_UNABLE, 1L), counters.snapshot());
+    }
+
+    @Test
+    void concurrentCounts() throws InterruptedException {
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            threads.add(new Thread(() -> {
+                for (int j = 0; j < 10_000; j++) {
+                    counters.record(Outcome.GIVEN);
+                }
+            }));
+        }
+
+        for (Thread thread : threads) {
+            thread.start();
+        }
+
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        Assertions.assertEquals(40_000, counters.count(Outcome.GIVEN));
+    }
+}
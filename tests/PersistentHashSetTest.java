@@ -0,0 +1,106 @@
+import a11908284.PersistentHashSet;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Random;
+import java.util.Set;
+
+class PersistentHashSetTest {
+    /**
+     * The key whose hash code is chosen freely, to force collisions.
+     */
+    record Key(int id, int hash) {
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    @Test
+    void arguments() {
+        Assertions.assertThrows(IllegalArgumentException.class, () -> PersistentHashSet.empty().plus(null));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> PersistentHashSet.copyOf(null));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> PersistentHashSet.copyOf(java.util.Arrays.asList(1, null)));
+        Assertions.assertSame(PersistentHashSet.empty(), PersistentHashSet.empty().minus(null));
+        Assertions.assertThrows(UnsupportedOperationException.class, () -> PersistentHashSet.<Integer>empty().add(1));
+    }
+
+    @Test
+    void versionsAreIndependent() {
+        PersistentHashSet<String> empty = PersistentHashSet.empty();
+        PersistentHashSet<String> one = empty.plus("a");
+        PersistentHashSet<String> two = one.plus("b");
+        PersistentHashSet<String> back = two.minus("a");
+
+        Assertions.assertEquals(Set.of(), empty);
+        Assertions.assertEquals(Set.of("a"), one);
+        Assertions.assertEquals(Set.of("a", "b"), two);
+        Assertions.assertEquals(Set.of("b"), back);
+        Assertions.assertSame(two, two.plus("a"));
+        Assertions.assertSame(two, two.minus("c"));
+        Assertions.assertTrue(empty.minus("a").isEmpty());
+    }
+
+    @Test
+    void collisions() {
+        Key a = new Key(1, 42);
+        Key b = new Key(2, 42);
+        Key c = new Key(3, 42);
+        Key d = new Key(4, 42 + 32);
+
+        PersistentHashSet<Key> set = PersistentHashSet.copyOf(List.of(a, b, c, d));
+        Assertions.assertEquals(Set.of(a, b, c, d), set);
+        Assertions.assertEquals(Set.of(a, c, d), set.minus(b));
+        Assertions.assertEquals(Set.of(d), set.minus(a).minus(b).minus(c));
+        Assertions.assertEquals(Set.of(a, b, c), set.minus(d));
+        Assertions.assertFalse(set.contains(new Key(5, 42)));
+        Assertions.assertTrue(set.minus(a).minus(b).minus(c).minus(d).isEmpty());
+    }
+
+    @Test
+    void matchesHashSet() {
+        Random random = new Random(7);
+        Set<Integer> expected = new HashSet<>();
+        PersistentHashSet<Integer> actual = PersistentHashSet.empty();
+        List<PersistentHashSet<Integer>> versions = new ArrayList<>();
+        List<Set<Integer>> snapshots = new ArrayList<>();
+
+        for (int i = 0; i < 20_000; i++) {
+            // Small values with a scrambled bit pattern reach deep levels
+            int value = random.nextInt(5_000) * 0x9E3779B1;
+            if (random.nextInt(3) == 0) {
+                expected.remove(value);
+                actual = actual.minus(value);
+            } else {
+                expected.add(value);
+                actual = actual.plus(value);
+            }
+
+            if (i % 1000 == 0) {
+                versions.add(actual);
+                snapshots.add(new HashSet<>(expected));
+            }
+        }
+
+        Assertions.assertEquals(expected, actual);
+        Assertions.assertEquals(expected.size(), actual.size());
+        Assertions.assertEquals(expected, new HashSet<>(actual));
+        for (int i = 0; i < versions.size(); i++) {
+            Assertions.assertEquals(snapshots.get(i), versions.get(i));
+        }
+    }
+
+    @Test
+    void iterator() {
+        Iterator<Integer> iterator = PersistentHashSet.copyOf(List.of(1)).iterator();
+        Assertions.assertTrue(iterator.hasNext());
+        Assertions.assertEquals(1, iterator.next());
+        Assertions.assertFalse(iterator.hasNext());
+        Assertions.assertThrows(NoSuchElementException.class, iterator::next);
+    }
+}
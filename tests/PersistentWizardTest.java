@@ -0,0 +1,169 @@
+import a11908284.AttackingSpell;
+import a11908284.HealingSpell;
+import a11908284.HealthPotion;
+import a11908284.MagicLevel;
+import a11908284.PersistentWizard;
+import a11908284.ProtectingSpell;
+import a11908284.Tradeable;
+import a11908284.Wizard;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+
+class PersistentWizardTest {
+    static AttackingSpell fireball = new AttackingSpell("Fire Ball", 5, MagicLevel.NOOB, true, false, 10);
+    static AttackingSpell drain = new AttackingSpell("Drain", 5, MagicLevel.NOOB, false, true, 10);
+    static HealingSpell cure = new HealingSpell("Cure", 5, MagicLevel.NOOB, true, true, 50);
+    static ProtectingSpell shield = new ProtectingSpell("Shield", 5, MagicLevel.NOOB, Set.of(fireball));
+
+    Tradeable potion;
+    Wizard dude;
+    Wizard prey;
+
+    @BeforeEach
+    void setUp() {
+        potion = new HealthPotion("Potion", 2, 10, 2, 20);
+        dude = new Wizard("Dude", MagicLevel.ADEPT, 100, 100, 100, 100, 50,
+                new HashSet<>(Set.of(fireball, cure, shield)), new HashSet<>(), 10, new HashSet<>(Set.of(potion)));
+        prey = new Wizard("Prey", MagicLevel.ADEPT, 100, 100, 100, 100, 50,
+                new HashSet<>(), new HashSet<>(Set.of(drain)), 10, new HashSet<>());
+    }
+
+    @Test
+    void arguments() {
+        PersistentWizard version = PersistentWizard.of(dude);
+
+        Assertions.assertThrows(IllegalArgumentException.class, () -> PersistentWizard.of(null));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> version.learn(null));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> version.takeDamage(-1));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> version.healPercent(101));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> version.pay(-1));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> version.addToInventory(null));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> version.setProtection(null));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> version.branch().reset(null));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> version.branch().castSpell(null, prey));
+    }
+
+    @Test
+    void versionsAreImmutable() {
+        PersistentWizard original = PersistentWizard.of(dude);
+        String rendered = original.toString();
+
+        PersistentWizard hurt = original.takeDamage(30).weakenMagicPercent(10).forget(fireball);
+        Assertions.assertEquals(rendered, original.toString());
+        Assertions.assertTrue(original.knows(fireball));
+        Assertions.assertFalse(hurt.knows(fireball));
+        Assertions.assertTrue(hurt.toString().startsWith("[Dude(**): 70/100 90/100; 50 Knuts"));
+
+        Assertions.assertSame(original, original.takeDamage(0));
+        Assertions.assertSame(original, original.learn(fireball));
+        Assertions.assertSame(original, original.pay(51));
+        Assertions.assertSame(original, original.removeFromInventory(new HealthPotion("Other", 1, 1, 1, 1)));
+
+        PersistentWizard dead = original.takeDamage(100);
+        Assertions.assertTrue(dead.isDead());
+        Assertions.assertSame(dead, dead.earn(10));
+        Assertions.assertSame(dead, dead.learn(drain));
+        Assertions.assertFalse(original.isDead());
+    }
+
+    @Test
+    void sameRulesAsWizard() {
+        PersistentWizard.Branch caster = PersistentWizard.of(dude).branch();
+        PersistentWizard.Branch target = PersistentWizard.of(prey).branch();
+
+        Assertions.assertTrue(caster.castSpell(fireball, target));
+        Assertions.assertTrue(dude.castSpell(fireball, prey));
+        Assertions.assertTrue(caster.castSpell(shield, target));
+        Assertions.assertTrue(dude.castSpell(shield, prey));
+        Assertions.assertTrue(caster.castSpell(fireball, target));
+        Assertions.assertTrue(dude.castSpell(fireball, prey));
+        Assertions.assertTrue(caster.castSpell(cure, target));
+        Assertions.assertTrue(dude.castSpell(cure, prey));
+        Assertions.assertFalse(caster.castSpell(drain, target));
+        Assertions.assertTrue(caster.useItem(potion, target));
+        Assertions.assertEquals(2, ((HealthPotion) potion).getUsages());
+        Assertions.assertTrue(dude.useItem(potion, prey));
+
+        Assertions.assertEquals(PersistentWizard.of(dude).toString(), caster.toString());
+        Assertions.assertEquals(PersistentWizard.of(prey).toString(), target.toString());
+        Assertions.assertFalse(target.isProtected(fireball));
+        Assertions.assertTrue(target.isProtected(drain));
+    }
+
+    @Test
+    void tradesBetweenBranches() {
+        PersistentWizard.Branch seller = PersistentWizard.of(dude).branch();
+        PersistentWizard.Branch buyer = PersistentWizard.of(prey).branch();
+        PersistentWizard before = seller.version();
+
+        Assertions.assertTrue(potion.purchase(seller, buyer));
+        Assertions.assertFalse(seller.possesses(potion));
+        Assertions.assertTrue(buyer.possesses(potion));
+        Assertions.assertTrue(seller.canAfford(60));
+        Assertions.assertFalse(buyer.canAfford(41));
+        Assertions.assertEquals(8, buyer.getRemainingCapacity());
+
+        // The real wizards and the old version are untouched
+        Assertions.assertTrue(dude.possesses(potion));
+        Assertions.assertTrue(before.possesses(potion));
+
+        Assertions.assertTrue(buyer.steal(seller));
+        Assertions.assertTrue(seller.possesses(potion));
+        Assertions.assertFalse(buyer.steal(seller));
+
+        seller.takeDamage(100);
+        Assertions.assertTrue(seller.loot(buyer));
+        Assertions.assertTrue(buyer.possesses(potion));
+        Assertions.assertFalse(seller.possesses(potion));
+    }
+
+    @Test
+    void usingAnItemLeavesItUnchanged() {
+        PersistentWizard.Branch root = PersistentWizard.of(dude).branch();
+        PersistentWizard start = root.version();
+        PersistentWizard.Branch first = root.fork();
+        PersistentWizard.Branch second = root.fork();
+
+        Assertions.assertTrue(first.useItem(potion, first));
+        Assertions.assertTrue(second.useItem(potion, second));
+
+        // Each branch carries its own used copy from now on
+        Assertions.assertFalse(first.possesses(potion));
+        Assertions.assertFalse(first.useItem(potion, first));
+        Assertions.assertTrue(first.toString().contains("1 gulp"));
+        Assertions.assertTrue(second.toString().contains("1 gulp"));
+        Assertions.assertTrue(start.toString().contains("2 gulps"));
+        Assertions.assertEquals(8, first.getRemainingCapacity());
+
+        Assertions.assertEquals(2, ((HealthPotion) potion).getUsages());
+        Assertions.assertTrue(dude.possesses(potion));
+        Assertions.assertTrue(start.possesses(potion));
+        Assertions.assertTrue(dude.useItem(potion, dude));
+        Assertions.assertTrue(dude.toString().contains("1 gulp"));
+    }
+
+    @Test
+    void forksAreIndependent() {
+        PersistentWizard.Branch root = PersistentWizard.of(dude).branch();
+        PersistentWizard start = root.version();
+
+        PersistentWizard.Branch attack = root.fork();
+        PersistentWizard.Branch defend = root.fork();
+        attack.takeDamage(40);
+        defend.setProtection(Set.of(fireball));
+        defend.pay(10);
+
+        Assertions.assertSame(start, root.version());
+        Assertions.assertTrue(attack.toString().startsWith("[Dude(**): 60/100 100/100; 50 Knuts"));
+        Assertions.assertTrue(defend.toString().startsWith("[Dude(**): 100/100 100/100; 40 Knuts"));
+        Assertions.assertTrue(defend.isProtected(fireball));
+        Assertions.assertFalse(attack.isProtected(fireball));
+
+        attack.reset(start);
+        Assertions.assertSame(start, attack.version());
+    }
+}
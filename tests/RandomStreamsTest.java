@@ -0,0 +1,81 @@
+import a11908284.AttackingSpell;
+import a11908284.HealingSpell;
+import a11908284.MagicLevel;
+import a11908284.RandomStreams;
+import a11908284.Spell;
+import a11908284.Wizard;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.random.RandomGenerator;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+class RandomStreamsTest {
+    static AttackingSpell fireball = new AttackingSpell("Fire Ball", 1, MagicLevel.NOOB, true, false, 7);
+    static AttackingSpell spark = new AttackingSpell("Spark", 1, MagicLevel.NOOB, true, false, 2);
+    static HealingSpell cure = new HealingSpell("Cure", 1, MagicLevel.NOOB, true, false, 5);
+
+    static List<Wizard> wizards(int count) {
+        List<Wizard> wizards = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            Set<Spell> spells = new LinkedHashSet<>(Arrays.asList(fireball, spark, cure));
+            wizards.add(new Wizard("Wizard " + i, MagicLevel.NOOB, 1000, 1000, 1000, 1000, 0,
+                    spells, new HashSet<>(), 0, new HashSet<>()));
+        }
+        return wizards;
+    }
+
+    static List<String> simulate(int parallelism, long seed) throws Exception {
+        List<Wizard> wizards = wizards(200);
+        new RandomStreams(seed).assign(wizards);
+
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            pool.submit(() -> IntStream.range(0, wizards.size()).parallel().forEach(i -> {
+                for (int turn = 0; turn < 50; turn++) {
+                    wizards.get(i).castRandomSpell(wizards.get(i));
+                }
+            })).get();
+        } finally {
+            pool.shutdown();
+        }
+        return wizards.stream().map(Wizard::toString).collect(Collectors.toList());
+    }
+
+    @Test
+    void assign() {
+        RandomStreams streams = new RandomStreams(1);
+        Assertions.assertThrows(IllegalArgumentException.class, () -> streams.assign(null));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> streams.assign(Arrays.asList(wizards(1).get(0), null)));
+    }
+
+    @Test
+    void streamsAreReproducible() {
+        RandomGenerator first = new RandomStreams(42).stream(3);
+        RandomGenerator second = new RandomStreams(42).stream(3);
+        RandomGenerator other = new RandomStreams(42).stream(4);
+        RandomGenerator otherSeed = new RandomStreams(43).stream(3);
+
+        long[] numbers = first.longs(10).toArray();
+        Assertions.assertArrayEquals(numbers, second.longs(10).toArray());
+        Assertions.assertFalse(Arrays.equals(numbers, other.longs(10).toArray()));
+        Assertions.assertFalse(Arrays.equals(numbers, otherSeed.longs(10).toArray()));
+    }
+
+    @Test
+    void independentOfParallelism() throws Exception {
+        List<String> sequential = simulate(1, 5);
+
+        Assertions.assertEquals(sequential, simulate(3, 5));
+        Assertions.assertEquals(sequential, simulate(8, 5));
+        Assertions.assertNotEquals(sequential, simulate(8, 6));
+    }
+}
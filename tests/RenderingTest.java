@@ -0,0 +1,133 @@
+import a11908284.AttackingSpell;
+import a11908284.Concoction;
+import a11908284.HealingSpell;
+import a11908284.HealthPotion;
+import a11908284.MagicItem;
+import a11908284.MagicLevel;
+import a11908284.ManaPotion;
+import a11908284.ProtectingSpell;
+import a11908284.Scroll;
+import a11908284.Spell;
+import a11908284.Tradeable;
+import a11908284.Wizard;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+class RenderingTest {
+    static AttackingSpell fireball = new AttackingSpell("Fire Ball", 5, MagicLevel.NOOB, true, false, 7);
+    static HealingSpell cure = new HealingSpell("Cure", 1, MagicLevel.ADEPT, false, true, 10);
+    static ProtectingSpell shield = new ProtectingSpell("Shield", 4, MagicLevel.MASTER, Set.of(fireball));
+
+    static String spell(String name, String level, int mana, String additional) {
+        return "[%s(%s): %d mana%s]".formatted(name, level, mana, additional);
+    }
+
+    @Test
+    void spells() {
+        Assertions.assertEquals(spell("Fire Ball", "*", 5, "; -7 HP"), fireball.toString());
+        Assertions.assertEquals(spell("Cure", "**", 1, "; +10 % MP"), cure.toString());
+        Assertions.assertEquals(spell("Shield", "*****", 4, "; protects against [" + fireball + "]"), shield.toString());
+
+        StringBuilder builder = new StringBuilder("> ");
+        Assertions.assertSame(builder, cure.appendTo(builder));
+        Assertions.assertEquals("> " + cure, builder.toString());
+        Assertions.assertEquals("*****", MagicLevel.MASTER.appendTo(new StringBuilder()).toString());
+        Assertions.assertThrows(IllegalArgumentException.class, () -> cure.appendTo(null));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> MagicLevel.NOOB.appendTo(null));
+    }
+
+    @Test
+    void overriddenOutputIsRendered() {
+        int[] charges = {3};
+        AttackingSpell bolt = new AttackingSpell("Bolt", 1, MagicLevel.NOOB, true, false, 2) {
+            @Override
+            public String additionalOutputString() {
+                return "; %d charges".formatted(charges[0]);
+            }
+        };
+        MagicItem flask = new HealthPotion("Flask", 2, 1, 1, 5) {
+            @Override
+            public String usageString() {
+                return "sips";
+            }
+        };
+
+        Assertions.assertEquals(spell("Bolt", "*", 1, "; 3 charges"), bolt.toString());
+        charges[0] = 2;
+        Assertions.assertEquals(spell("Bolt", "*", 1, "; 2 charges"), bolt.appendTo(new StringBuilder()).toString());
+        Assertions.assertEquals("[Flask; 1 g; 1 Knut; 2 sips; +5 HP]", flask.toString());
+    }
+
+    @Test
+    void itemsRenderCurrentUsages() {
+        MagicItem potion = new HealthPotion("Potion", 2, 1, 3, 5);
+        Wizard drinker = new Wizard("Drinker", MagicLevel.NOOB, 10, 10, 50, 50, 0,
+                new HashSet<>(), new HashSet<>(), 10, new HashSet<>());
+
+        Assertions.assertEquals("[Potion; 3 g; 1 Knut; 2 gulps; +5 HP]", potion.toString());
+        potion.useOn(drinker);
+        Assertions.assertEquals("[Potion; 3 g; 1 Knut; 1 gulp; +5 HP]", potion.toString());
+        potion.takeDamagePercent(100);
+        Assertions.assertEquals("[Potion; 3 g; 1 Knut; 0 gulps; +5 HP]", potion.toString());
+
+        MagicItem scroll = new Scroll("Scroll", 1, 2, 1, fireball);
+        Assertions.assertEquals("> [Scroll; 1 g; 2 Knuts; 1 use; casts " + fireball + "]",
+                scroll.appendTo(new StringBuilder("> ")).toString());
+        Assertions.assertThrows(IllegalArgumentException.class, () -> scroll.appendTo(null));
+
+        MagicItem concoction = new Concoction("Brew", 3, 4, 2, -5, 0, List.of(cure, fireball));
+        Assertions.assertEquals("[Brew; 2 g; 4 Knuts; 3 gulps; -5 HP; cast [" + cure + ", " + fireball + "]]",
+                concoction.toString());
+    }
+
+    @Test
+    void wizards() {
+        Tradeable potion = new ManaPotion("Mana", 4, 1, 2, 3);
+        Tradeable other = new Tradeable() {
+            @Override
+            public int getPrice() {
+                return 0;
+            }
+
+            @Override
+            public int getWeight() {
+                return 0;
+            }
+
+            @Override
+            public void useOn(a11908284.MagicEffectRealization target) {
+            }
+
+            @Override
+            public String toString() {
+                return "<other>";
+            }
+        };
+        Set<Spell> spells = new LinkedHashSet<>(List.of(shield, fireball, cure));
+        Wizard wizard = new Wizard("Dude", MagicLevel.EXPERT, 100, 90, 500, 480, 1,
+                spells, new HashSet<>(), 10, new LinkedHashSet<>(List.of(potion, other)));
+
+        String knows = "[" + fireball + ", " + cure + ", " + shield + "]";
+        Assertions.assertEquals("[Dude(****): 90/100 480/500; 1 Knut; knows " + knows + "; carries [" + potion + ", <other>]]",
+                wizard.toString());
+
+        wizard.takeDamage(10);
+        wizard.earn(1);
+        Assertions.assertEquals("[Dude(****): 80/100 480/500; 2 Knuts; knows " + knows + "; carries [" + potion + ", <other>]]",
+                wizard.toString());
+
+        StringBuilder builder = new StringBuilder("> ");
+        Assertions.assertSame(builder, wizard.appendTo(builder));
+        Assertions.assertEquals("> " + wizard, builder.toString());
+        Assertions.assertThrows(IllegalArgumentException.class, () -> wizard.appendTo(null));
+
+        Wizard empty = new Wizard("Empty", MagicLevel.NOOB, 1, 0, 50, 0, 0,
+                new HashSet<>(), new HashSet<>(), 0, new HashSet<>());
+        Assertions.assertEquals("[Empty(*): 0/1 0/50; 0 Knuts; knows []; carries []]", empty.toString());
+    }
+}
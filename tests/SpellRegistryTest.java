@@ -0,0 +1,133 @@
+import a11908284.AttackingSpell;
+import a11908284.HealingSpell;
+import a11908284.MagicLevel;
+import a11908284.ProtectingSpell;
+import a11908284.Spell;
+import a11908284.SpellRegistry;
+import a11908284.Wizard;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+class SpellRegistryTest {
+
+    @Test
+    void denseIds() {
+        int size = SpellRegistry.size();
+        AttackingSpell fireball = new AttackingSpell("Fire Ball", 5, MagicLevel.NOOB, true, false, 7);
+        HealingSpell cure = new HealingSpell("Cure", 5, MagicLevel.NOOB, true, true, 10);
+
+        // Spells are only registered when they are first asked for their identifier
+        Assertions.assertEquals(size, SpellRegistry.size());
+
+        Assertions.assertNotEquals(fireball.getId(), cure.getId());
+        Assertions.assertEquals(fireball.getId(), fireball.getId());
+        Assertions.assertTrue(cure.getId() < SpellRegistry.size());
+        Assertions.assertSame(fireball, SpellRegistry.get(fireball.getId()));
+        Assertions.assertSame(cure, SpellRegistry.get(cure.getId()));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> SpellRegistry.get(-1));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> SpellRegistry.get(SpellRegistry.size()));
+    }
+
+    @Test
+    void idsOfCollectedSpellsAreReused() {
+        for (int round = 0; round < 20; round++) {
+            Set<Spell> spells = new HashSet<>();
+            for (int i = 0; i < 1000; i++) {
+                spells.add(new AttackingSpell("Attack " + i, 1, MagicLevel.NOOB, true, false, 1));
+            }
+
+            Wizard wizard = new Wizard("Dude", MagicLevel.ADEPT, 100, 100, 100, 100, 100,
+                    spells, new HashSet<>(), 10, new HashSet<>());
+            Assertions.assertTrue(wizard.toString().contains("Attack 999"));
+
+            System.gc();
+        }
+
+        Assertions.assertTrue(SpellRegistry.size() < 10_000);
+    }
+
+    @Test
+    void protectionsAcrossWords() {
+        List<AttackingSpell> attacks = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            attacks.add(new AttackingSpell("Attack " + i, 1, MagicLevel.NOOB, true, false, 1));
+        }
+
+        ProtectingSpell shield = new ProtectingSpell("Shield", 1, MagicLevel.NOOB, new HashSet<>(attacks.subList(0, 150)));
+        ProtectingSpell ward = new ProtectingSpell("Ward", 1, MagicLevel.NOOB, new HashSet<>(attacks.subList(100, 200)));
+        Wizard wizard = new Wizard("Dude", MagicLevel.ADEPT, 100, 100, 100, 100, 100,
+                new HashSet<>(), new HashSet<>(Set.of(attacks.get(199))), 10, new HashSet<>());
+
+        shield.doEffect(wizard);
+        for (int i = 0; i < 200; i++) {
+            Assertions.assertEquals(i < 150 || i == 199, wizard.isProtected(attacks.get(i)));
+        }
+
+        wizard.removeProtection(Set.of(attacks.get(0), attacks.get(120)));
+        ward.doEffect(wizard);
+        for (int i = 0; i < 200; i++) {
+            Assertions.assertEquals(i != 0, wizard.isProtected(attacks.get(i)));
+        }
+    }
+
+    @Test
+    void knownSpellsInCreationOrder() {
+        AttackingSpell first = new AttackingSpell("First", 1, MagicLevel.NOOB, true, false, 1);
+        HealingSpell second = new HealingSpell("Second", 1, MagicLevel.NOOB, true, false, 1);
+        AttackingSpell third = new AttackingSpell("Third", 1, MagicLevel.NOOB, true, false, 1);
+
+        Wizard wizard = new Wizard("Dude", MagicLevel.ADEPT, 100, 100, 100, 100, 100,
+                new LinkedHashSet<>(List.of(third, first)), new HashSet<>(), 10, new HashSet<>());
+        Assertions.assertTrue(wizard.learn(second));
+        Assertions.assertFalse(wizard.learn(first));
+
+        Assertions.assertEquals("[Dude(**): 100/100 100/100; 100 Knuts; knows [" + first + ", " + second + ", " + third + "]; carries []]",
+                wizard.toString());
+
+        Assertions.assertTrue(wizard.forget(second));
+        Assertions.assertFalse(wizard.forget(second));
+        Assertions.assertEquals("[Dude(**): 100/100 100/100; 100 Knuts; knows [" + first + ", " + third + "]; carries []]",
+                wizard.toString());
+    }
+
+    @Test
+    void serialization() throws IOException, ClassNotFoundException {
+        AttackingSpell fireball = new AttackingSpell("Fire Ball", 5, MagicLevel.NOOB, true, false, 7);
+        ProtectingSpell shield = new ProtectingSpell("Shield", 4, MagicLevel.NOOB, Set.of(fireball));
+        Wizard wizard = new Wizard("Dude", MagicLevel.ADEPT, 100, 100, 100, 100, 100,
+                new HashSet<>(Set.of(fireball, shield)), new HashSet<>(Set.of(fireball)), 10, new HashSet<>());
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream output = new ObjectOutputStream(bytes)) {
+            output.writeObject(wizard);
+            output.writeObject(fireball);
+        }
+
+        Wizard copy;
+        AttackingSpell copiedFireball;
+        try (ObjectInputStream input = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            copy = (Wizard) input.readObject();
+            copiedFireball = (AttackingSpell) input.readObject();
+        }
+
+        Assertions.assertEquals(wizard.toString(), copy.toString());
+        Assertions.assertNotEquals(wizard.getTraderId(), copy.getTraderId());
+        Assertions.assertFalse(copy.isProtected(fireball));
+
+        // The copied spells are registered under new identifiers
+        Assertions.assertNotEquals(fireball.getId(), copiedFireball.getId());
+        Assertions.assertSame(copiedFireball, SpellRegistry.get(copiedFireball.getId()));
+        Assertions.assertTrue(copy.isProtected(copiedFireball));
+    }
+}
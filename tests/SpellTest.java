@@ -4,7 +4,13 @@ import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -44,6 +50,39 @@ class SpellTest {
         Assertions.assertTrue(dude.isDead());
     }
 
+    @Test
+    void castPerformsOverriddenEffect() {
+        HealingSpell drain = new HealingSpell("Drain", 1, MagicLevel.NOOB, true, false, 5) {
+            @Override
+            public void doEffect(MagicEffectRealization target) {
+                target.takeDamage(5);
+            }
+        };
+        Wizard dude = new Wizard("Dude", MagicLevel.ADEPT, 10, 10, 100, 10,
+                0, new HashSet<>(), new HashSet<>(), 0, new HashSet<>());
+
+        drain.cast(dude, dude);
+        Assertions.assertEquals("[Dude(**): 5/10 9/100; 0 Knuts; knows []; carries []]", dude.toString());
+        Assertions.assertArrayEquals(new CastOutcome[]{CastOutcome.AFFECTED}, drain.castOnAll(dude, List.of(dude)));
+        Assertions.assertTrue(dude.isDead());
+
+        int[] casts = {0};
+        AttackingSpell hex = new AttackingSpell("Hex", 1, MagicLevel.NOOB, true, false, 5) {
+            @Override
+            public void doEffect(MagicEffectRealization target) {
+                casts[0] += 1;
+                super.doEffect(target);
+            }
+        };
+        Wizard prey = new Wizard("Prey", MagicLevel.ADEPT, 10, 10, 100, 10,
+                0, new HashSet<>(), new HashSet<>(), 0, new HashSet<>());
+
+        hex.cast(prey, prey);
+        Assertions.assertArrayEquals(new CastOutcome[]{CastOutcome.AFFECTED}, hex.castOnAll(prey, List.of(prey)));
+        Assertions.assertEquals(2, casts[0]);
+        Assertions.assertTrue(prey.isDead());
+    }
+
     @Test
     void additionalOutputString() {
         Assertions.assertEquals("", tmp.additionalOutputString());
@@ -53,4 +92,63 @@ class SpellTest {
     void testToString() {
         Assertions.assertEquals("[TMP(**): 3 mana]", tmp.toString());
     }
-}
\ No newline at end of file
+
+    static List<Wizard> targets(int count) {
+        List<Wizard> targets = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            targets.add(new Wizard("Target " + i, MagicLevel.NOOB, 10, 10, 50, 0,
+                    0, new HashSet<>(), new HashSet<>(), 0, new HashSet<>()));
+        }
+        return targets;
+    }
+
+    @Test
+    void castMany() {
+        AttackingSpell fireball = new AttackingSpell("Fire Ball", 5, MagicLevel.NOOB, true, false, 4);
+        Wizard caster = new Wizard("Caster", MagicLevel.ADEPT, 10, 10, 100, 12,
+                0, new HashSet<>(), new HashSet<>(), 0, new HashSet<>());
+        List<Wizard> targets = targets(3);
+        targets.get(1).setProtection(Set.of(fireball));
+
+        Assertions.assertThrows(IllegalArgumentException.class, () -> fireball.castOnAll(null, targets));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> fireball.castOnAll(caster, (List<Wizard>) null));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> fireball.castOnAll(caster, (Stream<Wizard>) null));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> fireball.castOnAll(caster, Arrays.asList(caster, null)));
+
+        Assertions.assertArrayEquals(new CastOutcome[0], fireball.castOnAll(caster, List.of()));
+        Assertions.assertArrayEquals(new CastOutcome[]{CastOutcome.AFFECTED, CastOutcome.BLOCKED, CastOutcome.AFFECTED},
+                fireball.castOnAll(caster, targets));
+        Assertions.assertEquals("[Target 0(*): 6/10 0/50; 0 Knuts; knows []; carries []]", targets.get(0).toString());
+        Assertions.assertEquals("[Target 1(*): 10/10 0/50; 0 Knuts; knows []; carries []]", targets.get(1).toString());
+        Assertions.assertFalse(targets.get(1).isProtected(fireball));
+
+        // The mana was debited only once
+        Assertions.assertArrayEquals(new CastOutcome[]{CastOutcome.AFFECTED, CastOutcome.AFFECTED, CastOutcome.AFFECTED},
+                fireball.castOnAll(caster, targets.stream()));
+        Assertions.assertArrayEquals(new CastOutcome[]{CastOutcome.NOT_CAST, CastOutcome.NOT_CAST, CastOutcome.NOT_CAST},
+                fireball.castOnAll(caster, targets));
+        Assertions.assertEquals("[Target 0(*): 2/10 0/50; 0 Knuts; knows []; carries []]", targets.get(0).toString());
+    }
+
+    @Test
+    void castManyInParallel() {
+        HealingSpell heal = new HealingSpell("Heal", 1, MagicLevel.NOOB, true, false, 5);
+        Wizard caster = new Wizard("Caster", MagicLevel.ADEPT, 10, 10, 100, 100,
+                0, new HashSet<>(), new HashSet<>(), 0, new HashSet<>());
+        List<Wizard> targets = targets(5000);
+
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            CastOutcome[] outcomes = heal.castOnAll(caster, targets, pool);
+            Assertions.assertEquals(targets.size(), outcomes.length);
+            for (int i = 0; i < targets.size(); i++) {
+                Assertions.assertEquals(CastOutcome.AFFECTED, outcomes[i]);
+                Assertions.assertEquals("[Target " + i + "(*): 15/10 0/50; 0 Knuts; knows []; carries []]", targets.get(i).toString());
+            }
+        } finally {
+            pool.shutdown();
+        }
+
+        Assertions.assertEquals("[Caster(**): 10/10 99/100; 0 Knuts; knows []; carries []]", caster.toString());
+    }
+}
@@ -1,12 +1,18 @@
 import a11908284.MagicEffectRealization;
 import a11908284.MagicLevel;
 import a11908284.Tradeable;
+import a11908284.Trader;
 import a11908284.Wizard;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
 
 class TradeableTest {
     static class TradeableTestClass implements Tradeable {
@@ -86,4 +92,134 @@ class TradeableTest {
         Assertions.assertFalse(dude2.canAfford(1));
         Assertions.assertTrue(dude1.canAfford(6));
     }
-}
\ No newline at end of file
+
+    @Test
+    void purchaseRollsBackFailedTransfer() {
+        Trader clumsy = new Trader() {
+            @Override
+            public boolean possesses(Tradeable item) {
+                return false;
+            }
+
+            @Override
+            public boolean canAfford(int amount) {
+                return true;
+            }
+
+            @Override
+            public boolean hasCapacity(int weight) {
+                return true;
+            }
+
+            @Override
+            public boolean pay(int amount) {
+                return true;
+            }
+
+            @Override
+            public boolean earn(int amount) {
+                return true;
+            }
+
+            @Override
+            public boolean addToInventory(Tradeable item) {
+                return false;
+            }
+
+            @Override
+            public boolean removeFromInventory(Tradeable item) {
+                return false;
+            }
+
+            @Override
+            public boolean steal(Trader thief) {
+                return false;
+            }
+
+            @Override
+            public boolean loot(Trader looter) {
+                return false;
+            }
+        };
+        Assertions.assertFalse(item2.purchase(dude2, clumsy));
+        Assertions.assertTrue(dude2.possesses(item2));
+        Assertions.assertTrue(dude2.canAfford(3));
+        Assertions.assertFalse(dude2.canAfford(4));
+        Assertions.assertFalse(item2.give(dude2, clumsy));
+        Assertions.assertTrue(dude2.possesses(item2));
+        Assertions.assertTrue(dude2.isInventoryWeightConsistent());
+    }
+
+    @Test
+    void concurrentCrosswisePurchases() throws InterruptedException {
+        int traderCount = 8;
+        List<Wizard> traders = new ArrayList<>();
+        List<Tradeable> items = new ArrayList<>();
+        for (int i = 0; i < traderCount; i++) {
+            Wizard trader = new Wizard("Trader " + i, MagicLevel.ADEPT, 10, 10, 100, 3,
+                    1_000, new HashSet<>(), new HashSet<>(), 30, new HashSet<>());
+            for (int j = 0; j < 5; j++) {
+                Tradeable item = new TradeableTestClass();
+                trader.addToInventory(item);
+                items.add(item);
+            }
+            traders.add(trader);
+        }
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            Random random = new Random(t);
+            threads.add(new Thread(() -> {
+                for (int i = 0; i < 50_000; i++) {
+                    Wizard seller = traders.get(random.nextInt(traderCount));
+                    Wizard buyer = traders.get(random.nextInt(traderCount));
+                    if (seller != buyer) {
+                        items.get(random.nextInt(items.size())).purchase(seller, buyer);
+                    }
+                }
+            }));
+        }
+        threads.forEach(Thread::start);
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        int totalMoney = 0;
+        for (Wizard trader : traders) {
+            Assertions.assertTrue(trader.isInventoryWeightConsistent());
+            int money = 0;
+            while (trader.canAfford(money + 1)) {
+                money++;
+            }
+            totalMoney += money;
+        }
+        Assertions.assertEquals(traderCount * 1_000, totalMoney);
+        for (Tradeable item : items) {
+            Assertions.assertEquals(1, traders.stream().filter(trader -> trader.possesses(item)).count());
+        }
+    }
+
+    @Test
+    void purchaseAll() {
+        Tradeable item3 = new TradeableTestClass();
+        Assertions.assertThrows(IllegalArgumentException.class, () -> Tradeable.purchaseAll(null, dude2, dude1));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> Tradeable.purchaseAll(Arrays.asList(item2, null), dude2, dude1));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> Tradeable.purchaseAll(List.of(item2), null, dude1));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> Tradeable.purchaseAll(List.of(item2), dude2, dude2));
+        Assertions.assertEquals(List.of(item1), Tradeable.purchaseAll(List.of(item2, item1), dude2, dude1));
+        Assertions.assertEquals(List.of(item2), Tradeable.purchaseAll(List.of(item2, item2), dude2, dude1));
+        dude2.addToInventory(item3);
+        Assertions.assertEquals(List.of(item3), Tradeable.purchaseAll(List.of(item2, item3), dude2, dude1));
+        Assertions.assertTrue(dude2.possesses(item2));
+        Assertions.assertTrue(dude2.possesses(item3));
+        Assertions.assertTrue(dude1.canAfford(3));
+        Assertions.assertEquals(Collections.emptyList(), Tradeable.purchaseAll(List.of(item3), dude2, dude1));
+        Assertions.assertTrue(dude1.possesses(item3));
+        Assertions.assertFalse(dude2.possesses(item3));
+        Assertions.assertFalse(dude1.canAfford(1));
+        Assertions.assertTrue(dude2.canAfford(6));
+        Assertions.assertEquals(Collections.emptyList(), Tradeable.purchaseAll(List.of(item3), dude1, dude2));
+        Assertions.assertEquals(Collections.emptyList(), Tradeable.purchaseAll(List.of(item2, item3), dude2, new Wizard("Rich", MagicLevel.ADEPT,
+                10, 3, 100, 3, 6, new HashSet<>(), new HashSet<>(), 6, new HashSet<>())));
+        Assertions.assertTrue(dude2.canAfford(9));
+        Assertions.assertTrue(dude2.isInventoryWeightConsistent());
+    }
+}
@@ -0,0 +1,229 @@
+import a11908284.AttackingSpell;
+import a11908284.HealthPotion;
+import a11908284.MagicLevel;
+import a11908284.Spell;
+import a11908284.Tradeable;
+import a11908284.Wizard;
+import a11908284.WizardActor;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+
+class WizardActorTest {
+    static AttackingSpell fireball = new AttackingSpell("Fire Ball", 5, MagicLevel.NOOB, true, false, 7);
+    ExecutorService executor;
+    HealthPotion potion;
+    Wizard dude;
+    Wizard prey;
+    WizardActor dudeActor;
+    WizardActor preyActor;
+
+    static Wizard wizard(String name, Set<Spell> spells, Set<AttackingSpell> protectedFrom, Set<Tradeable> items) {
+        return new Wizard(name, MagicLevel.ADEPT, 100, 50, 100, 50, 100, spells, protectedFrom, 10, items);
+    }
+
+    @BeforeEach
+    void setUp() {
+        executor = Executors.newFixedThreadPool(4);
+        potion = new HealthPotion("Potion", 2, 30, 5, 10);
+        dude = wizard("Dude", new HashSet<>(Set.of(fireball)), new HashSet<>(), new HashSet<>(Set.of(potion)));
+        prey = wizard("Prey", new HashSet<>(), new HashSet<>(), new HashSet<>());
+        dudeActor = new WizardActor(dude, executor, 16);
+        preyActor = new WizardActor(prey, executor, 16);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdown();
+    }
+
+    @Test
+    void constructor() {
+        Assertions.assertThrows(IllegalArgumentException.class, () -> new WizardActor(null, executor, 1));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> new WizardActor(dude, null, 1));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> new WizardActor(dude, executor, 0));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> dudeActor.castSpell(null, preyActor));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> dudeActor.castSpell(fireball, null));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> dudeActor.sellItem(potion, dudeActor));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> dudeActor.steal(null));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> dudeActor.loot(dudeActor));
+    }
+
+    @Test
+    void castSpell() {
+        Assertions.assertTrue(dudeActor.castSpell(fireball, preyActor).join());
+        Assertions.assertEquals("[Prey(**): 43/100 50/100; 100 Knuts; knows []; carries []]", preyActor.describe().join());
+        Assertions.assertTrue(dudeActor.describe().join().startsWith("[Dude(**): 50/100 45/100;"));
+        Assertions.assertFalse(preyActor.castSpell(fireball, dudeActor).join());
+    }
+
+    @Test
+    void castSpellOnProtectedTarget() {
+        Wizard shielded = wizard("Shielded", new HashSet<>(), new HashSet<>(Set.of(fireball)), new HashSet<>());
+        WizardActor shieldedActor = new WizardActor(shielded, executor, 16);
+
+        Assertions.assertTrue(dudeActor.castSpell(fireball, shieldedActor).join());
+        Assertions.assertEquals("[Shielded(**): 50/100 50/100; 100 Knuts; knows []; carries []]", shieldedActor.describe().join());
+        Assertions.assertTrue(dudeActor.castSpell(fireball, shieldedActor).join());
+        Assertions.assertEquals("[Shielded(**): 43/100 50/100; 100 Knuts; knows []; carries []]", shieldedActor.describe().join());
+    }
+
+    @Test
+    void useItem() {
+        Assertions.assertTrue(dudeActor.useItem(potion, preyActor).join());
+        Assertions.assertEquals("[Prey(**): 60/100 50/100; 100 Knuts; knows []; carries []]", preyActor.describe().join());
+        Assertions.assertEquals(1, potion.getUsages());
+        Assertions.assertTrue(dudeActor.useRandomItem(dudeActor).join());
+        Assertions.assertEquals(0, potion.getUsages());
+        Assertions.assertFalse(preyActor.useItem(potion, dudeActor).join());
+    }
+
+    @Test
+    void sellItem() {
+        Assertions.assertFalse(preyActor.sellItem(potion, dudeActor).join());
+        Assertions.assertTrue(dudeActor.sellItem(potion, preyActor).join());
+        Assertions.assertTrue(preyActor.ask(wizard -> wizard.possesses(potion)).join());
+        Assertions.assertFalse(dudeActor.ask(wizard -> wizard.possesses(potion)).join());
+        Assertions.assertTrue(dudeActor.describe().join().contains("; 130 Knuts;"));
+        Assertions.assertTrue(preyActor.describe().join().contains("; 70 Knuts;"));
+        Assertions.assertFalse(dudeActor.sellRandomItem(preyActor).join());
+    }
+
+    @Test
+    void sellUnitsOfOneStack() {
+        Tradeable first = new HealthPotion("Tonic", 1, 10, 1, 1);
+        Tradeable second = new HealthPotion("Tonic", 1, 10, 1, 1);
+        Wizard merchant = wizard("Merchant", new HashSet<>(), new HashSet<>(), new HashSet<>(Set.of(first, second)));
+        WizardActor merchantActor = new WizardActor(merchant, executor, 16);
+
+        // Reserving one unit of the stack does not block the other one
+        CompletableFuture<Boolean> toPrey = merchantActor.sellItem(first, preyActor);
+        CompletableFuture<Boolean> toDude = merchantActor.sellItem(second, dudeActor);
+        Assertions.assertTrue(toPrey.join());
+        Assertions.assertTrue(toDude.join());
+        Assertions.assertTrue(preyActor.ask(wizard -> wizard.possesses(first)).join());
+        Assertions.assertTrue(dudeActor.ask(wizard -> wizard.possesses(second)).join());
+        Assertions.assertTrue(merchantActor.describe().join().endsWith("; carries []]"));
+    }
+
+    @Test
+    void randomPicksFollowTheGenerator() {
+        List<Tradeable> items = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            items.add(new HealthPotion("Potion " + i, 1, 1, 1, 1));
+        }
+
+        List<List<Tradeable>> sales = new ArrayList<>();
+        for (int run = 0; run < 2; run++) {
+            Wizard merchant = wizard("Merchant", new HashSet<>(), new HashSet<>(), new LinkedHashSet<>(items));
+            Wizard buyer = wizard("Buyer", new HashSet<>(), new HashSet<>(), new HashSet<>());
+            merchant.setRandomGenerator(new SplittableRandom(7));
+            WizardActor merchantActor = new WizardActor(merchant, executor, 16);
+            WizardActor buyerActor = new WizardActor(buyer, executor, 16);
+
+            List<Tradeable> sold = new ArrayList<>();
+            while (merchantActor.sellRandomItem(buyerActor).join()) {
+                for (Tradeable item : items) {
+                    if (!sold.contains(item) && buyerActor.ask(wizard -> wizard.possesses(item)).join()) {
+                        sold.add(item);
+                    }
+                }
+            }
+            sales.add(sold);
+        }
+
+        Assertions.assertEquals(5, sales.get(0).size());
+        Assertions.assertEquals(sales.get(0), sales.get(1));
+    }
+
+    @Test
+    void sellItemBuyerCannotAfford() {
+        preyActor.ask(wizard -> wizard.pay(90)).join();
+        Assertions.assertFalse(dudeActor.sellItem(potion, preyActor).join());
+        Assertions.assertTrue(dudeActor.ask(wizard -> wizard.possesses(potion)).join());
+        Assertions.assertTrue(preyActor.describe().join().contains("; 10 Knuts;"));
+    }
+
+    @Test
+    void stealAndLoot() {
+        Assertions.assertTrue(preyActor.steal(dudeActor).join());
+        Assertions.assertTrue(preyActor.ask(wizard -> wizard.possesses(potion)).join());
+        Assertions.assertFalse(preyActor.steal(dudeActor).join());
+
+        Assertions.assertFalse(dudeActor.loot(preyActor).join());
+        preyActor.ask(wizard -> {
+            wizard.takeDamage(100);
+            return null;
+        }).join();
+        Assertions.assertTrue(dudeActor.loot(preyActor).join());
+        Assertions.assertTrue(dudeActor.ask(wizard -> wizard.possesses(potion)).join());
+        Assertions.assertEquals("[Prey(**): 0/100 50/100; 100 Knuts; knows []; carries []]", preyActor.describe().join());
+    }
+
+    @Test
+    void fullMailbox() {
+        List<Runnable> scheduled = new ArrayList<>();
+        WizardActor actor = new WizardActor(dude, scheduled::add, 1);
+
+        CompletableFuture<Boolean> first = actor.ask(Wizard::isDead);
+        CompletableFuture<Boolean> second = actor.ask(Wizard::isDead);
+
+        CompletionException rejected = Assertions.assertThrows(CompletionException.class, second::join);
+        Assertions.assertTrue(rejected.getCause() instanceof RejectedExecutionException);
+        Assertions.assertEquals(1, scheduled.size());
+
+        scheduled.get(0).run();
+        Assertions.assertFalse(first.join());
+    }
+
+    @Test
+    void concurrentTrades() {
+        int count = 200;
+        List<Tradeable> items = new ArrayList<>();
+        List<WizardActor> actors = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            Tradeable item = new HealthPotion("Potion " + i, 1, 1, 1, 1);
+            items.add(item);
+            actors.add(new WizardActor(new Wizard("Wizard " + i, MagicLevel.NOOB, 100, 100, 100, 100, 1000,
+                    new HashSet<>(), new HashSet<>(), 1000, new HashSet<>(Set.of(item))), executor, 1000));
+        }
+
+        SplittableRandom random = new SplittableRandom(42);
+        List<CompletableFuture<Boolean>> trades = new ArrayList<>();
+        for (int i = 0; i < 5000; i++) {
+            int seller = random.nextInt(count);
+            int buyer = (seller + 1 + random.nextInt(count - 1)) % count;
+
+            if (random.nextBoolean()) {
+                trades.add(actors.get(seller).sellRandomItem(actors.get(buyer)));
+            } else {
+                trades.add(actors.get(buyer).steal(actors.get(seller)));
+            }
+        }
+        CompletableFuture.allOf(trades.toArray(new CompletableFuture<?>[0])).join();
+
+        int money = 0;
+        int owned = 0;
+        for (WizardActor actor : actors) {
+            String description = actor.describe().join();
+            money += Integer.parseInt(description.replaceAll("^[^;]*; (\\d+) Knuts?;.*", "$1"));
+            owned += actor.ask(wizard -> (int) items.stream().filter(wizard::possesses).count()).join();
+        }
+
+        Assertions.assertEquals(count * 1000, money);
+        Assertions.assertEquals(count, owned);
+    }
+}
@@ -0,0 +1,182 @@
+import a11908284.AttackingSpell;
+import a11908284.Concoction;
+import a11908284.HealingSpell;
+import a11908284.HealthPotion;
+import a11908284.MagicEffectRealization;
+import a11908284.MagicLevel;
+import a11908284.ManaPotion;
+import a11908284.ProtectingSpell;
+import a11908284.Scroll;
+import a11908284.Tradeable;
+import a11908284.Wizard;
+import a11908284.WizardCodec;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.nio.channels.Channels;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+class WizardCodecTest {
+    static AttackingSpell fireball = new AttackingSpell("Fire Ball", 5, MagicLevel.NOOB, true, false, 7);
+    static AttackingSpell drain = new AttackingSpell("Drain", 3, MagicLevel.STUDENT, false, true, 10);
+    static HealingSpell cure = new HealingSpell("Cure", 5, MagicLevel.ADEPT, true, true, 5);
+    static ProtectingSpell shield = new ProtectingSpell("Shield", 4, MagicLevel.NOOB, Set.of(drain));
+
+    static byte[] encode(List<Wizard> wizards) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        WizardCodec.write(wizards, Channels.newChannel(bytes));
+        return bytes.toByteArray();
+    }
+
+    static List<Wizard> decode(byte[] bytes) throws IOException {
+        return WizardCodec.read(Channels.newChannel(new ByteArrayInputStream(bytes)));
+    }
+
+    static List<Wizard> world(int size) {
+        List<Wizard> wizards = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            Set<Tradeable> items = new LinkedHashSet<>(Arrays.asList(
+                    new Scroll("Scroll " + i, 2, 3, 1, shield),
+                    new HealthPotion("Health " + i, 1, 4, 2, 30),
+                    new ManaPotion("Mana " + i, 0, 5, 1, 40),
+                    new Concoction("Brew " + i, 3, 6, 2, -20, 15, List.of(cure, fireball, cure))));
+            wizards.add(new Wizard("Wizard " + i, MagicLevel.values()[i % MagicLevel.values().length],
+                    1000, i % 1000, 5000, i % 5000, i * 1000, new LinkedHashSet<>(List.of(shield, cure, drain)),
+                    new HashSet<>(i % 2 == 0 ? Set.of(fireball) : Set.of()), 100, items));
+        }
+        return wizards;
+    }
+
+    static List<String> render(List<Wizard> wizards) {
+        return wizards.stream().map(Wizard::toString).collect(Collectors.toList());
+    }
+
+    @Test
+    void arguments() {
+        Assertions.assertThrows(IllegalArgumentException.class, () -> WizardCodec.write(null, Channels.newChannel(new ByteArrayOutputStream())));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> WizardCodec.write(List.of(), null));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> encode(Arrays.asList(world(1).get(0), null)));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> WizardCodec.read(null));
+    }
+
+    @Test
+    void roundTrip() throws IOException {
+        List<Wizard> wizards = world(3);
+        wizards.get(1).takeDamage(1000);
+
+        List<Wizard> copies = decode(encode(wizards));
+
+        Assertions.assertEquals(render(wizards), render(copies));
+        for (int i = 0; i < wizards.size(); i++) {
+            Assertions.assertNotSame(wizards.get(i), copies.get(i));
+            Assertions.assertEquals(wizards.get(i).isDead(), copies.get(i).isDead());
+        }
+    }
+
+    @Test
+    void sharesSpells() throws IOException {
+        Scroll scroll = new Scroll("Scroll", 1, 1, 1, fireball);
+        Wizard wizard = new Wizard("Dude", MagicLevel.ADEPT, 100, 100, 100, 100, 100,
+                new HashSet<>(Set.of(fireball)), new HashSet<>(Set.of(fireball)), 10, new HashSet<>(Set.of(scroll)));
+        Wizard copy = decode(encode(List.of(wizard))).get(0);
+
+        // The copied wizard knows the same spell instance that protects them,
+        // so their first fire ball only removes the protection
+        Assertions.assertTrue(copy.castRandomSpell(copy));
+        Assertions.assertEquals("[Dude(**): 100/100 95/100; 100 Knuts; knows [" + fireball + "]; carries [" + scroll + "]]", copy.toString());
+        Assertions.assertTrue(copy.castRandomSpell(copy));
+        Assertions.assertEquals("[Dude(**): 93/100 90/100; 100 Knuts; knows [" + fireball + "]; carries [" + scroll + "]]", copy.toString());
+    }
+
+    @Test
+    void keepsEqualSpellsApart() throws IOException, ClassNotFoundException {
+        AttackingSpell fire = new AttackingSpell("Fire", 1, MagicLevel.NOOB, true, false, 1);
+        AttackingSpell otherFire = new AttackingSpell("Fire", 1, MagicLevel.NOOB, true, false, 1);
+        Wizard wizard = new Wizard("Dude", MagicLevel.ADEPT, 100, 100, 100, 100, 100,
+                new HashSet<>(Set.of(fire, otherFire)), new HashSet<>(Set.of(otherFire)), 10, new HashSet<>());
+        String knows = "knows [" + fire + ", " + fire + "]";
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream output = new ObjectOutputStream(bytes)) {
+            output.writeObject(wizard);
+        }
+
+        Wizard serialized;
+        try (ObjectInputStream input = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            serialized = (Wizard) input.readObject();
+        }
+
+        Assertions.assertTrue(wizard.toString().contains(knows));
+        Assertions.assertEquals(wizard.toString(), decode(encode(List.of(wizard))).get(0).toString());
+        Assertions.assertEquals(wizard.toString(), serialized.toString());
+        Assertions.assertFalse(decode(encode(List.of(wizard))).get(0).isProtected(fire));
+        Assertions.assertFalse(serialized.isProtected(fire));
+    }
+
+    @Test
+    void preservesOrder() throws IOException {
+        List<Wizard> wizards = world(1);
+        Assertions.assertEquals(render(wizards), render(decode(encode(wizards))));
+        Assertions.assertEquals(render(wizards), render(decode(encode(decode(encode(wizards))))));
+    }
+
+    @Test
+    void largeSnapshot() throws IOException {
+        List<Wizard> wizards = world(5000);
+        String longName = "x".repeat(100_000);
+        wizards.add(new Wizard(longName, MagicLevel.NOOB, 1, 1, 1000, 1000, 0,
+                new HashSet<>(), new HashSet<>(), 0, new HashSet<>()));
+
+        byte[] bytes = encode(wizards);
+        Assertions.assertEquals(render(wizards), render(decode(bytes)));
+    }
+
+    @Test
+    void rejectsUnknownTypes() {
+        Tradeable unknown = new Tradeable() {
+            @Override
+            public int getPrice() {
+                return 1;
+            }
+
+            @Override
+            public int getWeight() {
+                return 1;
+            }
+
+            @Override
+            public void useOn(MagicEffectRealization target) {
+            }
+        };
+        Wizard wizard = new Wizard("Dude", MagicLevel.ADEPT, 100, 100, 100, 100, 100,
+                new HashSet<>(), new HashSet<>(), 10, new HashSet<>(Set.of(unknown)));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> encode(List.of(wizard)));
+
+        AttackingSpell special = new AttackingSpell("Special", 1, MagicLevel.NOOB, true, false, 1) {
+        };
+        Wizard caster = new Wizard("Dude", MagicLevel.ADEPT, 100, 100, 100, 100, 100,
+                new HashSet<>(Set.of(special)), new HashSet<>(), 10, new HashSet<>());
+        Assertions.assertThrows(IllegalArgumentException.class, () -> encode(List.of(caster)));
+    }
+
+    @Test
+    void rejectsMalformedSnapshots() throws IOException {
+        byte[] bytes = encode(world(2));
+
+        Assertions.assertThrows(IllegalArgumentException.class, () -> decode(new byte[]{1, 2, 3, 4}));
+        Assertions.assertThrows(EOFException.class, () -> decode(Arrays.copyOf(bytes, bytes.length - 1)));
+        Assertions.assertThrows(EOFException.class, () -> decode(new byte[0]));
+    }
+}
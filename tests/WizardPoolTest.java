@@ -0,0 +1,183 @@
+import a11908284.AttackingSpell;
+import a11908284.HealingSpell;
+import a11908284.MagicLevel;
+import a11908284.ProtectingSpell;
+import a11908284.Spell;
+import a11908284.Wizard;
+import a11908284.WizardPool;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.IntStream;
+
+class WizardPoolTest {
+    static AttackingSpell fireball = new AttackingSpell("Fire Ball", 5, MagicLevel.NOOB, true, false, 7);
+    static AttackingSpell burn = new AttackingSpell("Burn", 5, MagicLevel.NOOB, true, true, 15);
+    static AttackingSpell drain = new AttackingSpell("Drain", 3, MagicLevel.STUDENT, false, false, 10);
+    static AttackingSpell wither = new AttackingSpell("Wither", 3, MagicLevel.STUDENT, false, true, 30);
+    static HealingSpell cure = new HealingSpell("Cure", 5, MagicLevel.NOOB, true, false, 12);
+    static HealingSpell renew = new HealingSpell("Renew", 5, MagicLevel.NOOB, true, true, 10);
+    static HealingSpell focus = new HealingSpell("Focus", 5, MagicLevel.NOOB, false, false, 9);
+    static HealingSpell clarity = new HealingSpell("Clarity", 5, MagicLevel.NOOB, false, true, 20);
+    static ProtectingSpell shield = new ProtectingSpell("Shield", 4, MagicLevel.NOOB, Set.of(fireball, drain));
+    static ProtectingSpell ward = new ProtectingSpell("Ward", 4, MagicLevel.NOOB, Set.of(burn, wither, fireball));
+    static List<Spell> spells = List.of(fireball, burn, drain, wither, cure, renew, focus, clarity, shield, ward);
+
+    static final Pattern VITALS = Pattern.compile("^\\[.*\\(\\**\\): (\\d+)/\\d+ (\\d+)/\\d+; (\\d+) Knuts?;.*");
+
+    static List<Wizard> wizards(int count) {
+        List<Wizard> wizards = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            wizards.add(new Wizard("Wizard " + i, MagicLevel.values()[i % MagicLevel.values().length],
+                    100 + i % 37, 60 + i % 53, 1000 + i % 71, 500 + i % 89, i,
+                    new HashSet<>(), new HashSet<>(i % 3 == 0 ? Set.of(burn) : Set.of()), 10, new HashSet<>()));
+        }
+        return wizards;
+    }
+
+    static void assertSameState(List<Wizard> wizards, WizardPool pool) {
+        for (int i = 0; i < wizards.size(); i++) {
+            Matcher matcher = VITALS.matcher(wizards.get(i).toString());
+            Assertions.assertTrue(matcher.matches());
+            Assertions.assertEquals(Integer.parseInt(matcher.group(1)), pool.getHealth(i));
+            Assertions.assertEquals(Integer.parseInt(matcher.group(2)), pool.getMana(i));
+            Assertions.assertEquals(Integer.parseInt(matcher.group(3)), pool.getMoney(i));
+
+            for (AttackingSpell attack : List.of(fireball, burn, drain, wither)) {
+                Assertions.assertEquals(wizards.get(i).isProtected(attack), pool.isProtected(i, attack));
+            }
+        }
+    }
+
+    @Test
+    void arguments() {
+        WizardPool pool = new WizardPool(0);
+        Assertions.assertThrows(IllegalArgumentException.class, () -> new WizardPool(-1));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> pool.add(null));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> pool.add(null, 1, 1, 100, 100, 0, 0));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> pool.add(MagicLevel.NOOB, -1, 1, 100, 100, 0, 0));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> pool.add(MagicLevel.MASTER, 1, 1, 100, 100, 0, 0));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> pool.add(MagicLevel.NOOB, 1, 1, 100, 100, -1, 0));
+
+        int id = pool.add(MagicLevel.NOOB, 10, 10, 100, 100, 0, 0);
+        Assertions.assertEquals(0, id);
+        Assertions.assertEquals(1, pool.size());
+        Assertions.assertThrows(IllegalArgumentException.class, () -> pool.getHealth(1));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> pool.entity(-1));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> pool.takeDamage(id, -1));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> pool.healPercent(id, 101));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> pool.apply(null, new int[]{id}));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> pool.apply(fireball, null));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> pool.apply(fireball, new int[]{id}, null));
+
+        // Nothing is applied if a single identifier is invalid
+        Assertions.assertThrows(IllegalArgumentException.class, () -> pool.apply(fireball, new int[]{id, 1}));
+        Assertions.assertEquals(10, pool.getHealth(id));
+    }
+
+    @Test
+    void singleOperations() {
+        WizardPool pool = new WizardPool();
+        int id = pool.add(MagicLevel.STUDENT, 100, 50, 200, 100, 5, 10);
+
+        pool.takeDamage(id, 10);
+        pool.takeDamagePercent(id, 10);
+        pool.weakenMagic(id, 20);
+        pool.weakenMagicPercent(id, 10);
+        Assertions.assertEquals(30, pool.getHealth(id));
+        Assertions.assertEquals(60, pool.getMana(id));
+
+        pool.heal(id, 5);
+        pool.healPercent(id, 5);
+        pool.enforceMagic(id, 5);
+        pool.enforceMagicPercent(id, 5);
+        Assertions.assertEquals(40, pool.getHealth(id));
+        Assertions.assertEquals(75, pool.getMana(id));
+
+        Assertions.assertFalse(pool.provideMana(id, MagicLevel.EXPERT, 1));
+        Assertions.assertFalse(pool.provideMana(id, MagicLevel.STUDENT, 76));
+        Assertions.assertTrue(pool.provideMana(id, MagicLevel.ADEPT, 75));
+        Assertions.assertEquals(0, pool.getMana(id));
+
+        pool.takeDamagePercent(id, 100);
+        Assertions.assertTrue(pool.isDead(id));
+        Assertions.assertFalse(pool.provideMana(id, MagicLevel.NOOB, 0));
+        Assertions.assertEquals(MagicLevel.STUDENT, pool.getLevel(id));
+        Assertions.assertEquals(100, pool.getHealthBase(id));
+        Assertions.assertEquals(200, pool.getManaBase(id));
+        Assertions.assertEquals(5, pool.getMoney(id));
+        Assertions.assertEquals(10, pool.getCarryingCapacity(id));
+    }
+
+    @Test
+    void castThroughEntities() {
+        WizardPool pool = new WizardPool();
+        int caster = pool.add(MagicLevel.ADEPT, 100, 100, 100, 100, 0, 0);
+        int target = pool.add(MagicLevel.NOOB, 100, 100, 100, 100, 0, 0);
+
+        shield.cast(pool.entity(caster), pool.entity(target));
+        fireball.cast(pool.entity(caster), pool.entity(target));
+        Assertions.assertEquals(100, pool.getHealth(target));
+        Assertions.assertFalse(pool.isProtected(target, fireball));
+        Assertions.assertTrue(pool.isProtected(target, drain));
+
+        fireball.cast(pool.entity(caster), pool.entity(target));
+        Assertions.assertEquals(93, pool.getHealth(target));
+        Assertions.assertEquals(86, pool.getMana(caster));
+        Assertions.assertEquals(target, pool.entity(target).getId());
+    }
+
+    @Test
+    void sameResultsAsWizards() {
+        List<Wizard> wizards = wizards(1000);
+        WizardPool pool = new WizardPool();
+        wizards.forEach(pool::add);
+
+        Random random = new Random(42);
+        for (int round = 0; round < 200; round++) {
+            Spell spell = spells.get(random.nextInt(spells.size()));
+            int[] ids = random.ints(random.nextInt(300), 0, wizards.size()).toArray();
+
+            for (int id : ids) {
+                spell.doEffect(wizards.get(id));
+            }
+            pool.apply(spell, ids);
+        }
+
+        assertSameState(wizards, pool);
+    }
+
+    @Test
+    void parallelApply() {
+        List<Wizard> wizards = wizards(20000);
+        WizardPool sequential = new WizardPool();
+        WizardPool parallel = new WizardPool();
+        wizards.forEach(sequential::add);
+        wizards.forEach(parallel::add);
+
+        int[] ids = IntStream.range(0, wizards.size()).toArray();
+        ForkJoinPool forkJoinPool = new ForkJoinPool(4);
+        try {
+            for (Spell spell : spells) {
+                for (int id : ids) {
+                    spell.doEffect(wizards.get(id));
+                }
+                sequential.apply(spell, ids);
+                parallel.apply(spell, ids, forkJoinPool);
+            }
+        } finally {
+            forkJoinPool.shutdown();
+        }
+
+        assertSameState(wizards, sequential);
+        assertSameState(wizards, parallel);
+    }
+}
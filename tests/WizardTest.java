@@ -3,9 +3,15 @@ import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.AtomicInteger;
 
 class WizardTest {
     static AttackingSpell fireball = new AttackingSpell("Fire Ball", 3, MagicLevel.ADEPT, true, false, 3);
@@ -109,6 +115,22 @@ class WizardTest {
         Assertions.assertFalse(prey.castSpell(fireball, dude));
     }
 
+    @Test
+    void castSpellOnMany() {
+        Wizard other = new Wizard("Other", MagicLevel.ADEPT, 100, 50, 100, 3, 100,
+                new HashSet<>(), new HashSet<>(), 10, new HashSet<>());
+        List<Wizard> targets = List.of(prey, other);
+
+        Assertions.assertThrows(IllegalArgumentException.class, () -> dude.castSpellOnAll(null, targets));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> dude.castSpellOnAll(fireball, (List<Wizard>) null));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> dude.castSpellOnAll(poison, Arrays.asList(prey, null)));
+        Assertions.assertArrayEquals(new CastOutcome[]{CastOutcome.NOT_CAST, CastOutcome.NOT_CAST}, dude.castSpellOnAll(poison, targets));
+        Assertions.assertArrayEquals(new CastOutcome[]{CastOutcome.AFFECTED, CastOutcome.AFFECTED}, dude.castSpellOnAll(fireball, targets));
+        Assertions.assertTrue(prey.isDead());
+        Assertions.assertFalse(other.isDead());
+        Assertions.assertArrayEquals(new CastOutcome[]{CastOutcome.NOT_CAST}, prey.castSpellOnAll(fireball, List.of(dude)));
+    }
+
     @Test
     void castRandomSpell() {
         Wizard clone = new Wizard("Clone", MagicLevel.ADEPT, 100, 3, 100, 3, 100,
@@ -146,6 +168,107 @@ class WizardTest {
         Assertions.assertTrue(dude.isDead());
     }
 
+    @Test
+    void setRandomGenerator() {
+        List<Tradeable> items = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            items.add(new HealthPotion("Potion " + i, 1, 1, 1, 1));
+        }
+
+        List<List<Tradeable>> loots = new ArrayList<>();
+        for (int run = 0; run < 2; run++) {
+            Wizard victim = new Wizard("Victim", MagicLevel.ADEPT, 100, 100, 100, 100, 100,
+                    new HashSet<>(), new HashSet<>(), 10, new LinkedHashSet<>(items));
+            Wizard thief = new Wizard("Thief", MagicLevel.ADEPT, 100, 100, 100, 100, 100,
+                    new HashSet<>(), new HashSet<>(), 10, new HashSet<>());
+            victim.setRandomGenerator(new SplittableRandom(7));
+
+            List<Tradeable> loot = new ArrayList<>();
+            while (victim.steal(thief)) {
+                for (Tradeable item : items) {
+                    if (thief.removeFromInventory(item)) {
+                        loot.add(item);
+                    }
+                }
+            }
+            loots.add(loot);
+        }
+
+        Assertions.assertEquals(5, loots.get(0).size());
+        Assertions.assertEquals(loots.get(0), loots.get(1));
+        dude.setRandomGenerator(null);
+        Assertions.assertTrue(dude.castRandomSpell(prey));
+    }
+
+    static int[] vitals(Wizard wizard) {
+        String text = wizard.toString();
+        String[] points = text.substring(text.indexOf("): ") + 3, text.indexOf(';')).split("[/ ]");
+        return new int[]{Integer.parseInt(points[0]), Integer.parseInt(points[2])};
+    }
+
+    @Test
+    void setRegeneration() {
+        long[] clock = {0};
+        Assertions.assertThrows(IllegalArgumentException.class, () -> dude.setRegeneration(null, 1, 1));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> dude.setRegeneration(() -> clock[0], -1, 1));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> dude.setRegeneration(() -> clock[0], 1, -1));
+
+        dude.setRegeneration(() -> clock[0], 10, 3);
+        clock[0] = 5;
+        Assertions.assertArrayEquals(new int[]{53, 18}, vitals(dude));
+        clock[0] = 100;
+        Assertions.assertArrayEquals(new int[]{100, 100}, vitals(dude));
+
+        dude.takeDamage(100);
+        clock[0] = 200;
+        Assertions.assertTrue(dude.isDead());
+
+        prey.setRegeneration(() -> clock[0], 1, 1);
+        clock[0] = 210;
+        prey.stopRegeneration();
+        clock[0] = 300;
+        Assertions.assertArrayEquals(new int[]{13, 13}, vitals(prey));
+    }
+
+    @Test
+    void regenerationMatchesEagerTicks() {
+        Random random = new Random(3);
+        long[] clock = {0};
+        Wizard lazy = new Wizard("Wizard", MagicLevel.ADEPT, 100, 60, 120, 40, 100,
+                new HashSet<>(), new HashSet<>(), 10, new HashSet<>());
+        Wizard eager = new Wizard("Wizard", MagicLevel.ADEPT, 100, 60, 120, 40, 100,
+                new HashSet<>(), new HashSet<>(), 10, new HashSet<>());
+        lazy.setRegeneration(() -> clock[0], 3, 7);
+
+        for (int tick = 1; tick <= 5000; tick++) {
+            clock[0] = tick;
+
+            // The reference regenerates every tick, even if nobody looks
+            int[] points = vitals(eager);
+            if (points[0] > 0) {
+                eager.heal(Math.max(0, Math.min(3, 100 - points[0])));
+                eager.enforceMagic(Math.max(0, Math.min(7, 120 - points[1])));
+            }
+
+            if (random.nextInt(10) == 0) {
+                int amount = random.nextInt(60);
+                switch (random.nextInt(5)) {
+                    case 0 -> { lazy.takeDamage(amount); eager.takeDamage(amount); }
+                    case 1 -> { lazy.weakenMagicPercent(amount); eager.weakenMagicPercent(amount); }
+                    case 2 -> { lazy.heal(amount); eager.heal(amount); }
+                    case 3 -> Assertions.assertEquals(eager.provideMana(MagicLevel.NOOB, amount), lazy.provideMana(MagicLevel.NOOB, amount));
+                    default -> Assertions.assertEquals(eager.isDead(), lazy.isDead());
+                }
+            }
+
+            if (random.nextInt(100) == 0) {
+                Assertions.assertEquals(eager.toString(), lazy.toString(), "tick " + tick);
+            }
+        }
+
+        Assertions.assertEquals(eager.toString(), lazy.toString());
+    }
+
     @Test
     void sellItem() {
         dude.addToInventory(potHP);
@@ -224,6 +347,26 @@ class WizardTest {
         Assertions.assertFalse(dude.hasCapacity(1));
     }
 
+    @Test
+    void inventoryWeightConsistency() {
+        Assertions.assertTrue(dude.isInventoryWeightConsistent());
+        dude.addToInventory(potHP);
+        Assertions.assertTrue(dude.isInventoryWeightConsistent());
+        Assertions.assertTrue(potHP.give(dude, prey));
+        Assertions.assertTrue(dude.isInventoryWeightConsistent());
+        Assertions.assertTrue(prey.isInventoryWeightConsistent());
+        Assertions.assertTrue(prey.steal(dude));
+        Assertions.assertTrue(dude.isInventoryWeightConsistent());
+        Assertions.assertTrue(prey.isInventoryWeightConsistent());
+        Assertions.assertTrue(prey.hasCapacity(10));
+        Assertions.assertFalse(dude.hasCapacity(10));
+        dude.takeDamage(999);
+        Assertions.assertTrue(dude.loot(prey));
+        Assertions.assertTrue(dude.isInventoryWeightConsistent());
+        Assertions.assertTrue(prey.isInventoryWeightConsistent());
+        Assertions.assertTrue(dude.hasCapacity(10));
+    }
+
     @Test
     void pay() {
         Assertions.assertTrue(dude.pay(100));
@@ -325,6 +468,31 @@ class WizardTest {
         }
     }
 
+    @Test
+    void lootBest() {
+        HealthPotion cheap = new HealthPotion("Cheap", 1, 1, 4, 1);
+        HealthPotion pricey = new HealthPotion("Pricey", 1, 9, 6, 1);
+        HealthPotion heavy = new HealthPotion("Heavy", 1, 5, 11, 1);
+        Wizard deaddude = new Wizard("Dead Dude", MagicLevel.ADEPT, 100, 3, 100, 3, 100,
+                new HashSet<>(), new HashSet<>(), 21, new HashSet<>(Arrays.asList(cheap, pricey, heavy)));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> deaddude.lootBest(null));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> deaddude.lootBest(dude, null));
+        Assertions.assertFalse(deaddude.lootBest(dude));
+
+        deaddude.takeDamage(999);
+        Assertions.assertEquals(10, dude.getRemainingCapacity());
+        Assertions.assertTrue(deaddude.lootBest(dude));
+        Assertions.assertTrue(dude.possesses(cheap));
+        Assertions.assertTrue(dude.possesses(pricey));
+        Assertions.assertTrue(deaddude.possesses(heavy));
+        Assertions.assertEquals(0, dude.getRemainingCapacity());
+
+        // Items that do not fit stay for the next looter
+        Assertions.assertFalse(deaddude.lootBest(prey, item -> 1));
+        Assertions.assertTrue(deaddude.possesses(heavy));
+        Assertions.assertFalse(prey.possesses(heavy));
+    }
+
     @Test
     void takeDamage() {
         Assertions.assertDoesNotThrow(() -> dude.takeDamage(0));
@@ -474,4 +642,42 @@ class WizardTest {
         Assertions.assertFalse(dude.isProtected(timedextraction));
         Assertions.assertTrue(dude.isProtected(extraction));
     }
-}
\ No newline at end of file
+
+    static void runConcurrently(int threads, Runnable task) throws InterruptedException {
+        List<Thread> workers = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            workers.add(new Thread(task));
+        }
+        workers.forEach(Thread::start);
+        for (Thread worker : workers) {
+            worker.join();
+        }
+    }
+
+    @Test
+    void concurrentVitals() throws InterruptedException {
+        Wizard target = new Wizard("Target", MagicLevel.ADEPT, 100, 100, 100, 40_000, 0,
+                new HashSet<>(), new HashSet<>(), 10, new HashSet<>());
+        AtomicInteger provided = new AtomicInteger();
+        runConcurrently(4, () -> {
+            for (int i = 0; i < 20_000; i++) {
+                target.heal(2);
+                target.takeDamage(1);
+                target.earn(1);
+                if (target.provideMana(MagicLevel.NOOB, 1)) {
+                    provided.incrementAndGet();
+                }
+            }
+        });
+        Assertions.assertEquals(40_000, provided.get());
+        Assertions.assertFalse(target.provideMana(MagicLevel.NOOB, 1));
+        Assertions.assertEquals("[Target(**): 80100/100 0/100; 80000 Knuts; knows []; carries []]", target.toString());
+        runConcurrently(4, () -> {
+            for (int i = 0; i < 20_000; i++) {
+                target.pay(1);
+            }
+        });
+        Assertions.assertTrue(target.canAfford(0));
+        Assertions.assertFalse(target.canAfford(1));
+    }
+}